@@ -0,0 +1,54 @@
+package edu.ntnu.stud;
+
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.ChaosGameFileHandler;
+import edu.ntnu.stud.model.animation.AnimationExporter;
+import edu.ntnu.stud.model.animation.MorphAnimation;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Exports a morph animation between fractal files from the command line, without starting JavaFX.
+ * Run with
+ * <pre>
+ *   java edu.ntnu.stud.AnimationExport &lt;output dir&gt; &lt;frames&gt; &lt;width&gt;
+ *     &lt;height&gt; &lt;fractal file&gt; &lt;fractal file&gt; [fractal file...]
+ * </pre>
+ * where the fractal files are JSON or binary descriptions.
+ *
+ * @author Leif Mørstad
+ * @version 1.1
+ */
+public class AnimationExport {
+
+  private AnimationExport() {
+  }
+
+  /**
+   * Exports the animation described by the arguments.
+   *
+   * @param args the output directory, frame count, width, height and two or more fractal files
+   * @throws Exception if the animation could not be exported
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 6) {
+      System.err.println(
+          "Usage: AnimationExport <output dir> <frames> <width> <height> <fractal file> "
+              + "<fractal file> [fractal file...]"
+      );
+      System.exit(1);
+    }
+    Path directory = Path.of(args[0]);
+    int frames = Integer.parseInt(args[1]);
+    int width = Integer.parseInt(args[2]);
+    int height = Integer.parseInt(args[3]);
+
+    ArrayList<ChaosGameDescription> keys = new ArrayList<>();
+    for (String file : Arrays.copyOfRange(args, 4, args.length)) {
+      keys.add(ChaosGameFileHandler.readFromPath(Path.of(file)));
+    }
+    new AnimationExporter(width, height).export(new MorphAnimation(keys, frames), directory);
+  }
+}
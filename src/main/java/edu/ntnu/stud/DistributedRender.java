@@ -0,0 +1,112 @@
+package edu.ntnu.stud;
+
+import edu.ntnu.stud.model.ChaosGameCanvas;
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.ChaosGameFileHandler;
+import edu.ntnu.stud.model.RenderedHistogram;
+import edu.ntnu.stud.model.distributed.RenderCoordinator;
+import edu.ntnu.stud.model.distributed.RenderWorker;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * Renders a fractal across several processes from the command line, without starting JavaFX.
+ * Start a worker on each machine with
+ * <pre>
+ *   java edu.ntnu.stud.DistributedRender worker &lt;port&gt; [bind address]
+ * </pre>
+ * Workers only listen on the loopback address unless given a bind address, such as 0.0.0.0 for
+ * every interface. Workers don't authenticate the coordinator, so only bind them to networks where
+ * every host is trusted. Render with
+ * <pre>
+ *   java edu.ntnu.stud.DistributedRender coordinate &lt;output.cgb&gt; &lt;width&gt; &lt;height&gt;
+ *     &lt;iterations&gt; &lt;fractal file&gt; &lt;host:port&gt; [host:port...]
+ * </pre>
+ * which writes the description and merged histogram to a binary fractal file.
+ *
+ * @author Leif Mørstad
+ * @version 1.2
+ */
+public class DistributedRender {
+
+  /**
+   * The number of units each worker's share of the render is split into.
+   */
+  private static final int UNITS_PER_WORKER = 4;
+
+  private DistributedRender() {
+  }
+
+  /**
+   * Starts a worker or coordinates a render, as given by the arguments.
+   *
+   * @param args the mode followed by its arguments
+   * @throws Exception if the worker could not be started or the render failed
+   */
+  public static void main(String[] args) throws Exception {
+    if ((args.length == 2 || args.length == 3) && args[0].equals("worker")) {
+      int port = Integer.parseInt(args[1]);
+      try (RenderWorker worker = args.length == 2
+          ? new RenderWorker(port)
+          : new RenderWorker(new InetSocketAddress(args[2], port))) {
+        System.out.println("Worker listening on port " + worker.getPort());
+        // Serves until the process is killed
+        Thread.currentThread().join();
+      }
+      return;
+    }
+    if (args.length < 7 || !args[0].equals("coordinate")) {
+      System.err.println("Usage: DistributedRender worker <port> [bind address]");
+      System.err.println(
+          "       DistributedRender coordinate <output.cgb> <width> <height> <iterations> "
+              + "<fractal file> <host:port> [host:port...]"
+      );
+      System.exit(1);
+    }
+    Path output = Path.of(args[1]);
+    int width = Integer.parseInt(args[2]);
+    int height = Integer.parseInt(args[3]);
+    long iterations = Long.parseLong(args[4]);
+    ChaosGameDescription description = ChaosGameFileHandler.readFromPath(Path.of(args[5]));
+
+    ArrayList<InetSocketAddress> workers = new ArrayList<>();
+    for (int i = 6; i < args.length; i++) {
+      workers.add(parseAddress(args[i]));
+    }
+    ChaosGameCanvas canvas = new RenderCoordinator(workers, UNITS_PER_WORKER).render(
+        description,
+        width,
+        height,
+        iterations,
+        System.nanoTime()
+    );
+    ChaosGameFileHandler.writeBinaryFile(
+        output,
+        description,
+        RenderedHistogram.fromCanvas(canvas, iterations)
+    );
+  }
+
+  /**
+   * Parses an address on the form host:port.
+   *
+   * @param address the address to parse
+   * @return the parsed address
+   * @throws IllegalArgumentException if the address has no port
+   */
+  private static @NotNull InetSocketAddress parseAddress(
+      @NotNull String address
+  ) throws IllegalArgumentException {
+    int separator = address.lastIndexOf(':');
+    if (separator < 0) {
+      throw new IllegalArgumentException("Worker address must be on the form host:port");
+    }
+    return new InetSocketAddress(
+        address.substring(0, separator),
+        Integer.parseInt(address.substring(separator + 1))
+    );
+  }
+}
@@ -0,0 +1,50 @@
+package edu.ntnu.stud;
+
+import edu.ntnu.stud.model.server.RenderServer;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Serves fractal images over HTTP, without starting JavaFX. Run with
+ * <pre>
+ *   java edu.ntnu.stud.FractalServer &lt;port&gt; [queue capacity] [cache megabytes]
+ * </pre>
+ * from the project root, so that the fractal library can be found.
+ *
+ * @author Leif Mørstad
+ * @version 1.0
+ * @see RenderServer
+ */
+public class FractalServer {
+  private static final int DEFAULT_QUEUE_CAPACITY = 64;
+  private static final long DEFAULT_CACHE_MEGABYTES = 256;
+
+  private FractalServer() {
+  }
+
+  /**
+   * Starts the server described by the arguments, and serves until the process is killed.
+   *
+   * @param args the port, and optionally the queue capacity and cache size
+   * @throws Exception if the server could not be started
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1 || args.length > 3) {
+      System.err.println("Usage: FractalServer <port> [queue capacity] [cache megabytes]");
+      System.exit(1);
+    }
+    int port = Integer.parseInt(args[0]);
+    int queueCapacity = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_QUEUE_CAPACITY;
+    long cacheMegabytes = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_CACHE_MEGABYTES;
+
+    RenderServer server = new RenderServer(
+        new InetSocketAddress(port),
+        Runtime.getRuntime().availableProcessors(),
+        queueCapacity,
+        cacheMegabytes * 1024 * 1024
+    );
+    Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+    System.out.println("Serving fractals on port " + server.getPort());
+    Thread.currentThread().join();
+  }
+}
@@ -0,0 +1,58 @@
+package edu.ntnu.stud;
+
+import edu.ntnu.stud.model.ColorPalette;
+import edu.ntnu.stud.model.math.ComplexNumber;
+import edu.ntnu.stud.model.render.JuliaSweep;
+
+import java.nio.file.Path;
+import java.util.logging.Logger;
+
+/**
+ * Renders a contact sheet of julia sets over a rectangle of constants from the command line,
+ * without starting JavaFX. Run with
+ * <pre>
+ *   java edu.ntnu.stud.JuliaSweepExport &lt;output png&gt; &lt;min real&gt; &lt;min imaginary&gt;
+ *     &lt;max real&gt; &lt;max imaginary&gt; &lt;columns&gt; &lt;rows&gt; &lt;cell size&gt;
+ * </pre>
+ *
+ * @author Leif Mørstad
+ * @version 1.0
+ */
+public class JuliaSweepExport {
+  private static final Logger LOGGER = Logger.getLogger(JuliaSweepExport.class.getName());
+
+  private JuliaSweepExport() {
+  }
+
+  /**
+   * Renders the sweep described by the arguments.
+   *
+   * @param args the output file, the corners of the constants, and the grid and cell sizes
+   * @throws Exception if the sweep could not be rendered or written
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length != 8) {
+      System.err.println(
+          "Usage: JuliaSweepExport <output png> <min real> <min imaginary> <max real> "
+              + "<max imaginary> <columns> <rows> <cell size>"
+      );
+      System.exit(1);
+    }
+    JuliaSweep sweep = new JuliaSweep(
+        new ComplexNumber(Double.parseDouble(args[1]), Double.parseDouble(args[2])),
+        new ComplexNumber(Double.parseDouble(args[3]), Double.parseDouble(args[4])),
+        Integer.parseInt(args[5]),
+        Integer.parseInt(args[6]),
+        Integer.parseInt(args[7])
+    );
+    long start = System.nanoTime();
+    JuliaSweep.ContactSheet sheet = sweep.render(ColorPalette.DEFAULT, () -> false);
+    if (sheet == null) {
+      return;
+    }
+    sheet.writePng(Path.of(args[0]));
+    LOGGER.info(
+        "Rendered sweep in " + (System.nanoTime() - start) / 1_000_000 + " ms to " + args[0]
+    );
+  }
+}
@@ -0,0 +1,55 @@
+package edu.ntnu.stud;
+
+import edu.ntnu.stud.model.ChaosGameBinaryFormat;
+import edu.ntnu.stud.model.ChaosGameFileHandler;
+import edu.ntnu.stud.model.ColorPalette;
+import edu.ntnu.stud.model.RenderedHistogram;
+import edu.ntnu.stud.model.export.PngEncoder;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Encodes the histogram stored in a binary fractal file as a PNG image from the command line,
+ * without starting JavaFX. Run with
+ * <pre>
+ *   java edu.ntnu.stud.PngExport &lt;input.cgb&gt; &lt;output.png&gt; &lt;indexed_8|gray_16&gt;
+ * </pre>
+ *
+ * @author Leif Mørstad
+ * @version 1.0
+ * @see PngEncoder
+ */
+public class PngExport {
+
+  private PngExport() {
+  }
+
+  /**
+   * Encodes the histogram described by the arguments.
+   *
+   * @param args the input file, output file and format
+   * @throws Exception if the histogram could not be read or the image written
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length != 3) {
+      System.err.println("Usage: PngExport <input.cgb> <output.png> <indexed_8|gray_16>");
+      System.exit(1);
+    }
+    ChaosGameBinaryFormat.Contents contents = ChaosGameFileHandler.readBinaryFile(Path.of(args[0]));
+    RenderedHistogram histogram = contents.histogram();
+    if (histogram == null) {
+      System.err.println("The file has no rendered histogram: " + args[0]);
+      System.exit(1);
+    }
+    PngEncoder encoder = new PngEncoder(
+        PngEncoder.Format.valueOf(args[2].toUpperCase(Locale.ROOT)),
+        ColorPalette.DEFAULT
+    );
+    try (OutputStream output = Files.newOutputStream(Path.of(args[1]))) {
+      encoder.write(histogram, output);
+    }
+  }
+}
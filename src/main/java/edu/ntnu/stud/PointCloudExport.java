@@ -0,0 +1,49 @@
+package edu.ntnu.stud;
+
+import edu.ntnu.stud.model.ChaosGameFileHandler;
+import edu.ntnu.stud.model.export.PointCloudExporter;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * Streams the raw points of a fractal to a binary file from the command line, without starting
+ * JavaFX. Run with
+ * <pre>
+ *   java edu.ntnu.stud.PointCloudExport &lt;output file&gt; &lt;points&gt; &lt;float|double&gt;
+ *     &lt;fractal file&gt; [seed]
+ * </pre>
+ *
+ * @author Leif Mørstad
+ * @version 1.1
+ * @see PointCloudExporter
+ */
+public class PointCloudExport {
+  private static final Logger LOGGER = Logger.getLogger(PointCloudExport.class.getName());
+
+  private PointCloudExport() {
+  }
+
+  /**
+   * Exports the points described by the arguments.
+   *
+   * @param args the output file, number of points, precision, fractal file and optionally a seed
+   * @throws Exception if the points could not be exported
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 4 || args.length > 5) {
+      System.err.println(
+          "Usage: PointCloudExport <output file> <points> <float|double> <fractal file> [seed]"
+      );
+      System.exit(1);
+    }
+    PointCloudExporter exporter = new PointCloudExporter(
+        ChaosGameFileHandler.readFromPath(Path.of(args[3])),
+        PointCloudExporter.Precision.valueOf(args[2].toUpperCase(Locale.ROOT))
+    );
+    long seed = args.length == 5 ? Long.parseLong(args[4]) : System.nanoTime();
+    long written = exporter.export(Path.of(args[0]), Long.parseLong(args[1]), seed, () -> false);
+    LOGGER.info("Exported " + written + " points to " + args[0]);
+  }
+}
@@ -0,0 +1,58 @@
+package edu.ntnu.stud;
+
+import edu.ntnu.stud.model.ChaosGameFileHandler;
+import edu.ntnu.stud.model.ColorPalette;
+import edu.ntnu.stud.model.render.TilePyramid;
+
+import java.nio.file.Path;
+import java.util.logging.Logger;
+
+/**
+ * Renders a fractal as an XYZ tile pyramid from the command line, without starting JavaFX. Run
+ * with
+ * <pre>
+ *   java edu.ntnu.stud.TileExport &lt;output dir&gt; &lt;min zoom&gt; &lt;max zoom&gt;
+ *     &lt;fractal file&gt; [iterations per pixel]
+ * </pre>
+ * and point a map viewer at {@code <output dir>/{z}/{x}/{y}.png}. Tiles already rendered for the
+ * same fractal are skipped.
+ *
+ * @author Leif Mørstad
+ * @version 1.1
+ */
+public class TileExport {
+  private static final Logger LOGGER = Logger.getLogger(TileExport.class.getName());
+  private static final int DEFAULT_ITERATIONS_PER_PIXEL = 20;
+
+  private TileExport() {
+  }
+
+  /**
+   * Renders the pyramid described by the arguments.
+   *
+   * @param args the output directory, zoom range, fractal file and optionally the iterations
+   * @throws Exception if the pyramid could not be rendered or written
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 4 || args.length > 5) {
+      System.err.println(
+          "Usage: TileExport <output dir> <min zoom> <max zoom> <fractal file> "
+              + "[iterations per pixel]"
+      );
+      System.exit(1);
+    }
+    TilePyramid pyramid = new TilePyramid(
+        ChaosGameFileHandler.readFromPath(Path.of(args[3])),
+        Integer.parseInt(args[1]),
+        Integer.parseInt(args[2]),
+        args.length == 5 ? Integer.parseInt(args[4]) : DEFAULT_ITERATIONS_PER_PIXEL,
+        ColorPalette.DEFAULT
+    );
+    TilePyramid.Result result = pyramid.generate(Path.of(args[0]), () -> false);
+    if (result != null) {
+      LOGGER.info(
+          "Rendered " + result.rendered() + " tiles, skipped " + result.skipped() + " unchanged"
+      );
+    }
+  }
+}
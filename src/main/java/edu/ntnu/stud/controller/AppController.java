@@ -3,14 +3,24 @@ package edu.ntnu.stud.controller;
 import edu.ntnu.stud.controller.controllers.SidebarController;
 import edu.ntnu.stud.controller.controllers.SidebarOverlayController;
 import edu.ntnu.stud.model.ChaosGame;
+import edu.ntnu.stud.model.ChaosGameCanvas;
 import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.HistogramPrecision;
+import edu.ntnu.stud.model.RenderedHistogram;
+import edu.ntnu.stud.model.render.AttractorSampleCache;
+import edu.ntnu.stud.model.render.RenderJob;
+import edu.ntnu.stud.model.render.RenderJobScheduler;
+import edu.ntnu.stud.model.render.ViewportReservoir;
 import edu.ntnu.stud.utils.Debouncer;
+import edu.ntnu.stud.utils.DeliveryExecutors;
 import edu.ntnu.stud.utils.StateManager;
 import edu.ntnu.stud.utils.UsageFlagger.FlagSetter;
 import edu.ntnu.stud.view.App;
 import edu.ntnu.stud.view.components.FractalPane;
+import javafx.application.Platform;
 import javafx.util.Duration;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.logging.Logger;
 
@@ -18,17 +28,47 @@ import java.util.logging.Logger;
  * The controller for the {@link App} view. Handles logic connected to the application.
  *
  * @author Leif Mørstad
- * @version 1.1
+ * @version 1.4
  */
 public class AppController {
   private static final @NotNull StateManager state = StateManager.importState();
   private static final Logger LOGGER = Logger.getLogger(AppController.class.getName());
+  /**
+   * The key of the render jobs of the main fractal view.
+   */
+  private static final String MAIN_VIEW = "main";
+  /**
+   * The points of every sample of an attractor, enough for the most iterations of a render.
+   */
+  private static final int SAMPLE_POINTS = 1 << 20;
+  /**
+   * The most heap the samples may take together, room for eight of them.
+   */
+  private static final long SAMPLE_CAPACITY = 64L * 1024 * 1024;
   private final @NotNull App application;
-  private final @NotNull FlagSetter setIsRendering;
+  private final @NotNull RenderJobScheduler renderJobs = new RenderJobScheduler(
+      state.getIsLoading(),
+      DeliveryExecutors.fxThread()
+  );
   private final @NotNull Debouncer updateFractalDebouncer = new Debouncer(
       this::updateFractalPane,
       Duration.millis(1000)
   );
+  /**
+   * The reservoir of the last fractal shown with zoom acceleration, whose entries are copied into
+   * renders of the same description, so deep views keep filling it across resizes.
+   */
+  /**
+   * The samples of the attractors rendered, binned again when only the size or the bounds of a
+   * fractal change instead of iterating the chaos game again.
+   */
+  private final @NotNull AttractorSampleCache samples = new AttractorSampleCache(
+      SAMPLE_POINTS,
+      SAMPLE_CAPACITY,
+      null
+  );
+  private @Nullable ViewportReservoir shownReservoir = null;
+  private @Nullable ChaosGameDescription shownReservoirDescription = null;
 
   /**
    * Creates a new controller for an application and binds it.
@@ -37,7 +77,6 @@ public class AppController {
    */
   public AppController(@NotNull App application) {
     this.application = application;
-    setIsRendering = state.getIsLoading().createFlagSetter();
 
     state.widthProperty().bind(application.widthProperty().map(AppController::clampSize));
     state.heightProperty().bind(application.heightProperty().map(AppController::clampSize));
@@ -46,6 +85,9 @@ public class AppController {
     state.widthProperty().subscribe(n -> updateFractalDebouncer.run());
     state.heightProperty().subscribe(n -> updateFractalDebouncer.run());
     state.currentFractalDescription().subscribe(d -> updateFractalDebouncer.run());
+    state.supersamplingProperty().subscribe(n -> updateFractalDebouncer.run());
+    state.transformationColorsProperty().subscribe(n -> updateFractalDebouncer.run());
+    state.zoomAccelerationProperty().subscribe(n -> updateFractalDebouncer.run());
 
     FlagSetter isWaitingForResize = state.getIsLoading().createFlagSetter();
     updateFractalDebouncer.getIsWaiting().subscribe(isWaitingForResize::setFlag);
@@ -75,38 +117,108 @@ public class AppController {
   }
 
   /**
-   * Rerenders the current fractal. Only run through the debouncer.
+   * Rerenders the current fractal in the background, superseding any render still running. Only
+   * run through the debouncer.
    */
   private void updateFractalPane() {
-    setIsRendering.setFlag(true);
     ChaosGameDescription fractalDescription = state.currentFractalDescription().get();
-    LOGGER.info(
-        "Updating fractal (w="
-            + state.widthProperty().get()
-            + ", h=" + state.heightProperty().get()
-            + ")"
-    );
-
+    int width = state.widthProperty().get();
+    int height = state.heightProperty().get();
+    int supersampling = state.supersamplingProperty().get();
+    boolean transformationColors = state.transformationColorsProperty().get();
+    LOGGER.info("Updating fractal (w=" + width + ", h=" + height + ")");
 
     if (fractalDescription == null) {
+      renderJobs.cancel(MAIN_VIEW);
       application.replaceChaosPanel(null);
-      setIsRendering.setFlag(false);
       return;
     }
 
-    ChaosGame chaosGame = new ChaosGame(
-        state.widthProperty().get(),
-        state.heightProperty().get(),
-        fractalDescription
+    ViewportReservoir reservoir = state.zoomAccelerationProperty().get()
+        ? copyReservoir(fractalDescription)
+        : null;
+    RenderJob<ChaosGame> job = renderJobs.submit(MAIN_VIEW, renderJob -> {
+      // The palette only has 16 colors, so saturating bytes show the same image in a quarter of
+      // the memory
+      ChaosGame chaosGame = new ChaosGame(
+          width,
+          height,
+          fractalDescription,
+          HistogramPrecision.BYTE
+      );
+      chaosGame.setSupersampling(supersampling);
+      chaosGame.setColorAccumulation(transformationColors);
+      chaosGame.setViewportReservoir(reservoir);
+      // The samples have neither the colors of the transformations nor room for supersampling
+      if (supersampling == 1 && !transformationColors && drawFromSample(chaosGame)) {
+        return chaosGame;
+      }
+      return chaosGame.render(renderJob::isCancelled) ? chaosGame : null;
+    });
+    job.getResult().thenAccept(chaosGame -> Platform.runLater(() -> {
+      // A newer render might have been submitted after this one completed
+      if (chaosGame == null || job.isCancelled()) {
+        return;
+      }
+      showFractal(chaosGame);
+    }));
+  }
+
+  /**
+   * Draws the canvas of the chaos game by binning the sample of its attractor, as many points as
+   * a render would iterate.
+   *
+   * @param chaosGame the chaos game to draw
+   * @return true if drawn, false if the view is too deep for the sample and should be iterated
+   */
+  private boolean drawFromSample(@NotNull ChaosGame chaosGame) {
+    int iterations = chaosGame.getIterations();
+    if (iterations > samples.getPointsPerSample()) {
+      return false;
+    }
+    ChaosGameCanvas canvas = chaosGame.getCanvas();
+    ChaosGameCanvas binned = samples.render(
+        chaosGame.getDescription(),
+        canvas.getWidth(),
+        canvas.getHeight(),
+        canvas.getStorage().getPrecision(),
+        iterations
     );
-    chaosGame.render();
+    if (binned == null) {
+      return false;
+    }
+    RenderedHistogram.fromCanvas(binned, iterations).copyInto(canvas);
+    return true;
+  }
 
+  /**
+   * Returns a copy of the reservoir of the fractal shown, if it was rendered from the given
+   * description. The copy is made on the FX thread, where the shown fractal is iterated, and the
+   * render gets its own so the shown fractal can go on storing entries.
+   *
+   * @param description the description about to be rendered
+   * @return the copy, or a new reservoir if the shown fractal has none for the description
+   */
+  private @NotNull ViewportReservoir copyReservoir(@NotNull ChaosGameDescription description) {
+    if (shownReservoir == null || !description.equals(shownReservoirDescription)) {
+      return new ViewportReservoir();
+    }
+    return new ViewportReservoir(shownReservoir);
+  }
+
+  /**
+   * Replaces the current fractal pane with one displaying the given chaos game.
+   *
+   * @param chaosGame the rendered chaos game to show
+   */
+  private void showFractal(@NotNull ChaosGame chaosGame) {
     FractalPane chaosPane = new FractalPane(chaosGame);
     chaosGame.getCanvas().getSubscriptionHandler().subscribe(c -> chaosPane.render());
 
     application.replaceChaosPanel(chaosPane);
 
     state.currentFractal().set(chaosGame);
-    setIsRendering.setFlag(false);
+    shownReservoir = chaosGame.getViewportReservoir();
+    shownReservoirDescription = chaosGame.getDescription();
   }
 }
@@ -4,28 +4,35 @@ import com.fasterxml.jackson.databind.JsonNode;
 import edu.ntnu.stud.model.ChaosGameDescription;
 import edu.ntnu.stud.model.ChaosGameDescriptionFactory;
 import edu.ntnu.stud.model.ChaosGameFileHandler;
+import edu.ntnu.stud.model.RenderedHistogram;
+import edu.ntnu.stud.model.ThumbnailCache;
 import edu.ntnu.stud.utils.ResourceHandler;
 import edu.ntnu.stud.utils.StateManager;
 import edu.ntnu.stud.view.components.prompt.prompts.ErrorDialogFactory;
 import edu.ntnu.stud.view.components.prompt.prompts.TransformationAmountDialog;
+import edu.ntnu.stud.view.components.sidebaroverlay.FractalDisplay;
 import edu.ntnu.stud.view.components.sidebaroverlay.Sidebar;
 import javafx.stage.FileChooser;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InvalidObjectException;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 
 /**
  * Controller for the sidebar content. Handles logic connected to the {@link Sidebar} component.
  *
  * @author Leif Mørstad
- * @version 1.0
+ * @version 1.3
  */
 public class SidebarController {
   private static final Logger LOGGER = Logger.getLogger(SidebarController.class.getName());
   private final @NotNull Sidebar sidebar;
   private final @NotNull StateManager state;
+  private final @NotNull ThumbnailCache thumbnails =
+      new ThumbnailCache(FractalDisplay.THUMBNAIL_SIZE);
 
   /**
    * Creates a new SidebarController for the given Sidebar instance.
@@ -48,16 +55,39 @@ public class SidebarController {
     sidebar.addFractalDisplay("Add Fractal +", this::startAddFractalFlow);
     sidebar.addFractalDisplay("Import Fractal", this::startImportFractalFlow);
 
-    sidebar.addFractalDisplay("Factory Sierpinski", () -> {
-      ChaosGameDescription game = ChaosGameDescriptionFactory.createSierpinski();
-      runGame(game);
-    });
+    sidebar.addFractalDisplay(
+        "Factory Sierpinski",
+        () -> thumbnails.get(ChaosGameDescriptionFactory.createSierpinski()),
+        () -> {
+          ChaosGameDescription game = ChaosGameDescriptionFactory.createSierpinski();
+          runGame(game);
+        }
+    );
 
     for (File fractal : ChaosGameFileHandler.getAllFractals()) {
-      sidebar.addFractalDisplay(fractal.getName(), () -> runFile(fractal.getName()));
+      sidebar.addFractalDisplay(
+          fractal.getName(),
+          () -> loadThumbnail(fractal),
+          () -> runFile(fractal.getName())
+      );
     }
   }
 
+  /**
+   * Loads the thumbnail of a fractal file, reading the file and rendering it in the background if
+   * it isn't cached.
+   *
+   * @param fractal the fractal file
+   * @return a future completing with the thumbnail, or exceptionally if the file can't be read
+   */
+  private @NotNull CompletableFuture<RenderedHistogram> loadThumbnail(@NotNull File fractal) {
+    return thumbnails.get(fractal.toPath()).whenComplete((thumbnail, e) -> {
+      if (e != null) {
+        LOGGER.warning("Could not create thumbnail for file: " + fractal.getName());
+      }
+    });
+  }
+
   /**
    * Sets the current fractal to the given game.
    *
@@ -97,7 +127,11 @@ public class SidebarController {
     FileChooser fileChooser = new FileChooser();
     fileChooser.setTitle("Open Fractal File");
     fileChooser.getExtensionFilters().add(
-        new FileChooser.ExtensionFilter("Fractal Files", "*.json")
+        new FileChooser.ExtensionFilter(
+            "Fractal Files",
+            "*.json",
+            "*" + ChaosGameFileHandler.BINARY_EXTENSION
+        )
     );
     File selectedFile = fileChooser.showOpenDialog(sidebar.getScene().getWindow());
     if (selectedFile == null) {
@@ -105,6 +139,10 @@ public class SidebarController {
       ErrorDialogFactory.show("Could not open file.");
       return;
     }
+    if (selectedFile.getName().endsWith(ChaosGameFileHandler.BINARY_EXTENSION)) {
+      importBinaryFractal(selectedFile);
+      return;
+    }
     JsonNode node = ResourceHandler.readFile(selectedFile);
     if (node == null) {
       LOGGER.severe("Invalid JSON format.");
@@ -119,4 +157,18 @@ public class SidebarController {
       ErrorDialogFactory.show("Invalid fractal file: " + e.getMessage());
     }
   }
+
+  /**
+   * Imports a fractal stored in the binary format and runs it.
+   *
+   * @param file the binary file to import
+   */
+  private void importBinaryFractal(@NotNull File file) {
+    try {
+      runGame(ChaosGameFileHandler.readBinaryFile(file.toPath()).description());
+    } catch (IOException e) {
+      LOGGER.severe("Invalid fractal file: " + e.getMessage());
+      ErrorDialogFactory.show("Invalid fractal file: " + e.getMessage());
+    }
+  }
 }
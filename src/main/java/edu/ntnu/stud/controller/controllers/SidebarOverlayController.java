@@ -2,6 +2,7 @@ package edu.ntnu.stud.controller.controllers;
 
 import edu.ntnu.stud.model.ChaosGame;
 import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.render.SupersampleBuffer;
 import edu.ntnu.stud.utils.StateManager;
 import edu.ntnu.stud.utils.UsageFlagger;
 import edu.ntnu.stud.view.components.StandardButton;
@@ -18,7 +19,7 @@ import org.jetbrains.annotations.NotNull;
  * component.
  *
  * @author Leif Mørstad
- * @version 1.0
+ * @version 1.3
  */
 public class SidebarOverlayController {
   private final @NotNull SidebarOverlay sidebarOverlay;
@@ -96,6 +97,31 @@ public class SidebarOverlayController {
             this::startInputFlow
         )
     );
+    sidebarOverlay.getButtonGroup().addButton(
+        new ActionButton(
+            "blur",
+            "Cycle supersampling",
+            this::cycleSupersampling
+        )
+    );
+    sidebarOverlay.getButtonGroup().addButton(
+        new ActionButton(
+            "palette",
+            "Toggle transformation colors",
+            () -> state.transformationColorsProperty().set(
+                !state.transformationColorsProperty().get()
+            )
+        )
+    );
+    sidebarOverlay.getButtonGroup().addButton(
+        new ActionButton(
+            "magnify-plus",
+            "Toggle zoom acceleration",
+            () -> state.zoomAccelerationProperty().set(
+                !state.zoomAccelerationProperty().get()
+            )
+        )
+    );
   }
 
   /**
@@ -107,14 +133,14 @@ public class SidebarOverlayController {
   }
 
   /**
-   * Clears the canvas of the current fractal.
+   * Clears the canvas of the current fractal, along with everything drawn towards it.
    */
   private void clearCanvas() {
     ChaosGame currentFractal = state.currentFractal().get();
     if (currentFractal == null) {
       return;
     }
-    currentFractal.getCanvas().clear();
+    currentFractal.clear();
   }
 
   /**
@@ -134,6 +160,17 @@ public class SidebarOverlayController {
     isRendering.setFlag(false);
   }
 
+  /**
+   * Steps the supersampling factor up to the maximum, then back to no supersampling.
+   */
+  private void cycleSupersampling() {
+    int factor = state.supersamplingProperty().get();
+    int next = factor >= SupersampleBuffer.MAX_FACTOR
+        ? 1
+        : Math.max(SupersampleBuffer.MIN_FACTOR, factor + 1);
+    state.supersamplingProperty().set(next);
+  }
+
   /**
    * Starts the flow for inputting a custom amount of iterations, and then iterates the amount of
    * times.
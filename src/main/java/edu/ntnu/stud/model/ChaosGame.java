@@ -1,15 +1,27 @@
 package edu.ntnu.stud.model;
 
+import edu.ntnu.stud.model.math.PixelCoordinateTranslator.IndexPair;
 import edu.ntnu.stud.model.math.TransformationGroup;
 import edu.ntnu.stud.model.math.Vector;
+import edu.ntnu.stud.model.render.ColorAccumulator;
+import edu.ntnu.stud.model.render.SupersampleBuffer;
+import edu.ntnu.stud.model.render.ViewportReservoir;
+import edu.ntnu.stud.utils.RenderMetrics;
+import edu.ntnu.stud.utils.jfr.ChaosGameSetupEvent;
+import edu.ntnu.stud.utils.jfr.IterationBatchEvent;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
 
 /**
  * A class with the function as a hub for containing all needed information concerning the running
  * and displaying of a fractal.
  *
  * @author Leif Mørstad
- * @version 2.0
+ * @version 2.17
  */
 public class ChaosGame {
 
@@ -17,6 +29,24 @@ public class ChaosGame {
    * The scalar for the number of iterations to perform.
    */
   private static final int ITERATION_SCALAR = 1;
+  /**
+   * The number of iterations drawn in each batch when rendering. Batches draw the same points as a
+   * single loop would, and only exist to check for cancellation between them.
+   */
+  private static final int BATCH_SIZE = 100000;
+  /**
+   * The result of a step drawing its point inside the canvas.
+   */
+  private static final int STEP_DRAWN = 0;
+  /**
+   * The result of a step discarding its point for falling outside the canvas.
+   */
+  private static final int STEP_DISCARDED = 1;
+  /**
+   * The result of a step leading up to the end of a replay, whose point is neither drawn nor
+   * discarded.
+   */
+  private static final int STEP_REPLAYED = 2;
   /**
    * The canvas on which the fractal is drawn.
    */
@@ -29,13 +59,43 @@ public class ChaosGame {
    * The transformations used to generate the fractal.
    */
   private final @NotNull TransformationGroup transformations;
+  /**
+   * The random number generator picking the transformations. Owned by the game rather than the
+   * transformation group, which is shared by every game created from the same description.
+   */
+  private final @NotNull Random random = new Random();
+  /**
+   * The number of picks of each transformation not yet recorded in the metrics. Kept between
+   * steps so that neither batches nor single steps allocate.
+   */
+  private final long @NotNull [] pendingHits;
   /**
    * The current point where the fractal is drawn from. Starts at (0, 0)
    */
   private @NotNull Vector currentPoint = new Vector(0, 0);
+  /**
+   * The number of iterations drawn on the canvas since it was last rendered.
+   */
+  private long iterationCount = 0;
+  /**
+   * The buffer points are drawn to instead of the canvas while supersampling, or null if not
+   * supersampling.
+   */
+  private @Nullable SupersampleBuffer supersampleBuffer = null;
+  /**
+   * The accumulator of the colors of the transformations producing each hit, or null if only
+   * hits are counted.
+   */
+  private @Nullable ColorAccumulator colorAccumulator = null;
+  /**
+   * The reservoir of the paths into the canvas replayed when the walker strays outside of it, or
+   * null if the walker always picks at random.
+   */
+  private @Nullable ViewportReservoir viewportReservoir = null;
 
   /**
-   * Creates a new instance with the given width, height and description.
+   * Creates a new instance with the given width, height and description, with a canvas storing
+   * the counts as ints.
    *
    * @param width       the width of the canvas
    * @param height      the height of the canvas
@@ -47,14 +107,49 @@ public class ChaosGame {
       int height,
       @NotNull ChaosGameDescription description
   ) throws IllegalArgumentException {
+    this(width, height, description, HistogramPrecision.INT);
+  }
+
+  /**
+   * Creates a new instance with the given width, height, description and canvas precision.
+   *
+   * @param width       the width of the canvas
+   * @param height      the height of the canvas
+   * @param description the description of the chaos game
+   * @param precision   the element type the canvas stores its counts in
+   * @throws IllegalArgumentException if description is null
+   */
+  public ChaosGame(
+      int width,
+      int height,
+      @NotNull ChaosGameDescription description,
+      @NotNull HistogramPrecision precision
+  ) throws IllegalArgumentException {
+    ChaosGameSetupEvent event = new ChaosGameSetupEvent();
+    event.begin();
     this.transformations = description.transformations();
+    this.pendingHits = new long[transformations.size()];
     this.description = description;
     this.canvas = new ChaosGameCanvas(
         width,
         height,
         description.minCoords(),
-        description.maxCoords()
+        description.maxCoords(),
+        precision
     );
+    event.width = width;
+    event.height = height;
+    event.commit();
+  }
+
+  /**
+   * Seeds the random picking of transformations, so that renders with the same seed draw the same
+   * points. Only this game is seeded, not other games created from the same description.
+   *
+   * @param seed the seed of the random number generator
+   */
+  public void setSeed(long seed) {
+    random.setSeed(seed);
   }
 
   /**
@@ -85,22 +180,191 @@ public class ChaosGame {
   }
 
   /**
-   * Iterates the transformations randomly a given number of times, and updates the canvas.
+   * Sets the number of samples per pixel along each axis to render with. Rendering with a factor
+   * above 1 draws into a {@link SupersampleBuffer} at the higher resolution, which is downsampled
+   * onto the canvas. The factor might be lowered for large canvases to bound memory use. Takes
+   * effect from the next call to {@link #render()}.
+   *
+   * @param factor 1 to disable supersampling, or between {@link SupersampleBuffer#MIN_FACTOR} and
+   *               {@link SupersampleBuffer#MAX_FACTOR}
+   * @throws IllegalArgumentException if the factor is out of range
+   */
+  public void setSupersampling(int factor) throws IllegalArgumentException {
+    if (factor == 1) {
+      supersampleBuffer = null;
+      return;
+    }
+    supersampleBuffer = new SupersampleBuffer(
+        canvas.getWidth(),
+        canvas.getHeight(),
+        factor,
+        description.minCoords(),
+        description.maxCoords()
+    );
+  }
+
+  /**
+   * Returns the number of samples per pixel along each axis used when rendering.
+   *
+   * @return the supersampling factor in use, 1 if not supersampling
+   */
+  public int getSupersampling() {
+    return supersampleBuffer == null ? 1 : supersampleBuffer.getFactor();
+  }
+
+  /**
+   * Sets whether to accumulate the color of the transformation producing each hit, alongside the
+   * counts on the canvas. Takes effect from the next iteration.
+   *
+   * @param enabled true to accumulate colors
+   * @see ColorAccumulator
+   */
+  public void setColorAccumulation(boolean enabled) {
+    if (!enabled) {
+      colorAccumulator = null;
+    } else if (colorAccumulator == null) {
+      colorAccumulator = new ColorAccumulator(
+          canvas.getWidth(),
+          canvas.getHeight(),
+          ColorAccumulator.createHueColors(transformations.size())
+      );
+    }
+  }
+
+  /**
+   * Returns the accumulated colors of the transformations.
+   *
+   * @return the color accumulator, or null if colors aren't accumulated
+   */
+  public @Nullable ColorAccumulator getColorAccumulator() {
+    return colorAccumulator;
+  }
+
+  /**
+   * Sets whether to lead the walker back into the canvas when it strays outside of it, by
+   * replaying the transformations that led it in before, so that zoomed in renders draw far more
+   * of their points. Takes effect from the next iteration.
+   *
+   * @param enabled true to lead the walker back
+   * @see ViewportReservoir
+   */
+  public void setZoomAcceleration(boolean enabled) {
+    if (!enabled) {
+      viewportReservoir = null;
+    } else if (viewportReservoir == null) {
+      viewportReservoir = new ViewportReservoir();
+    }
+  }
+
+  /**
+   * Leads the walker back into the canvas with the given reservoir, keeping the entries it has
+   * stored. The reservoir should come from a render of the same transformations and bounds, and
+   * should not be used by another game at the same time.
+   *
+   * @param reservoir the reservoir to replay the entries of, or null to always pick at random
+   * @see ViewportReservoir#ViewportReservoir(ViewportReservoir)
+   */
+  public void setViewportReservoir(@Nullable ViewportReservoir reservoir) {
+    viewportReservoir = reservoir;
+  }
+
+  /**
+   * Returns the reservoir of the paths into the canvas replayed by the walker.
+   *
+   * @return the reservoir, or null if the walker always picks at random
+   */
+  public @Nullable ViewportReservoir getViewportReservoir() {
+    return viewportReservoir;
+  }
+
+  /**
+   * Iterates the transformations randomly a given number of times, and updates the canvas. The
+   * subscribers of the canvas are notified once afterwards.
    *
    * @param steps the number of iterations to perform
    */
   public void iterate(int steps) {
-    for (int i = 0; i < steps; i++) {
+    if (steps == 1) {
       iterate();
+      return;
+    }
+    iterateBatch(steps);
+    resolveSupersampling();
+    getCanvas().getSubscriptionHandler().notifySubscribers();
+  }
+
+  /**
+   * Clears the canvas and the points drawn towards it, and starts the walker over from the
+   * origin, so that the next iterations draw a new image. The subscribers of the canvas are
+   * notified.
+   */
+  public void clear() {
+    currentPoint = new Vector(0, 0);
+    iterationCount = 0;
+    if (supersampleBuffer != null) {
+      // Otherwise the next iteration downsamples the old samples back onto the canvas
+      supersampleBuffer.clear();
+    }
+    if (colorAccumulator != null) {
+      // The pane shows the colors instead of the canvas while accumulating them
+      colorAccumulator.clear();
+    }
+    if (viewportReservoir != null) {
+      viewportReservoir.clear();
+    }
+    getCanvas().clear();
+  }
+
+  /**
+   * Iterates the given number of times and records the batch, without resolving supersampling.
+   *
+   * @param steps the number of iterations to perform
+   */
+  private void iterateBatch(int steps) {
+    IterationBatchEvent event = new IterationBatchEvent();
+    event.begin();
+    // Counted locally and recorded once, so the shared counters stay out of the loop
+    long plotted = 0;
+    long discarded = 0;
+    for (int i = 0; i < steps; i++) {
+      int result = step();
+      if (result == STEP_DRAWN) {
+        plotted++;
+      } else if (result == STEP_DISCARDED) {
+        discarded++;
+      }
     }
+    recordSteps(steps, plotted, discarded);
+    event.iterations = steps;
+    event.commit();
+  }
+
+  /**
+   * Returns the number of iterations drawn on the canvas since the last call to
+   * {@link #render()}.
+   *
+   * @return the number of iterations
+   */
+  public long getIterationCount() {
+    return iterationCount;
+  }
+
+  /**
+   * Returns a snapshot of the current canvas together with the number of iterations drawn on it.
+   *
+   * @return a histogram of the canvas
+   */
+  public @NotNull RenderedHistogram toHistogram() {
+    return RenderedHistogram.fromCanvas(canvas, iterationCount);
   }
 
   /**
-   * Returns the number of iterations the chaos game should perform.
+   * Returns the number of iterations a render without supersampling performs, based on the size
+   * of the canvas.
    *
    * @return the number of iterations
    */
-  private int getIterations() {
+  public int getIterations() {
     return Math.min(
         1000000,
         getCanvas().getWidth() * getCanvas().getHeight() * ITERATION_SCALAR
@@ -108,20 +372,138 @@ public class ChaosGame {
   }
 
   /**
-   * Iterates the point once, by randomly transforming the point, and draws it on the canvas.
+   * Iterates the point once, by randomly transforming the point, and draws it on the canvas. No
+   * batch event is recorded, and when supersampling only the pixel of the point is downsampled,
+   * so stepping through the points one at a time stays cheap.
    */
   public void iterate() {
-    currentPoint = getTransformations().transform(currentPoint);
-    getCanvas().drawAtCoords(currentPoint);
+    int result = step();
+    recordSteps(1, result == STEP_DRAWN ? 1 : 0, result == STEP_DISCARDED ? 1 : 0);
+    if (result == STEP_DRAWN && supersampleBuffer != null) {
+      supersampleBuffer.downsamplePixelInto(currentPoint, getCanvas().getStorage());
+    }
+    getCanvas().getSubscriptionHandler().notifySubscribers();
+  }
+
+  /**
+   * Records the given steps and the pending picks of each transformation in the metrics. Steps
+   * leading up to the end of a replay are neither plotted nor discarded.
+   *
+   * @param steps     the number of steps taken
+   * @param plotted   the number of those steps drawn inside the canvas
+   * @param discarded the number of those steps falling outside the canvas
+   */
+  private void recordSteps(long steps, long plotted, long discarded) {
+    RenderMetrics metrics = RenderMetrics.getInstance();
+    metrics.recordIterations(steps);
+    metrics.recordTransformationHits(pendingHits);
+    metrics.recordPoints(plotted, discarded);
+    Arrays.fill(pendingHits, 0);
+  }
+
+  /**
+   * Transforms the point once and draws it, counting the transformation picked in
+   * {@link #pendingHits} instead of recording it in the metrics.
+   *
+   * @return {@link #STEP_DRAWN}, {@link #STEP_DISCARDED} or {@link #STEP_REPLAYED}
+   */
+  private int step() {
+    int transformation = random.nextInt(transformations.size());
+    if (viewportReservoir != null) {
+      transformation = viewportReservoir.pick(transformation);
+    }
+    pendingHits[transformation]++;
+    currentPoint = transformations.transform(transformation, currentPoint);
+    if (viewportReservoir != null && viewportReservoir.isReplaying()) {
+      // Only the point a replay ends on is drawn
+      viewportReservoir.record(transformation, false);
+      iterationCount++;
+      return STEP_REPLAYED;
+    }
+    if (colorAccumulator != null) {
+      IndexPair indices = canvas.getCoordinateTranslator().coordsToIndices(currentPoint);
+      colorAccumulator.plot(indices.x0(), indices.x1(), transformation);
+    }
+    boolean inside;
+    if (supersampleBuffer == null) {
+      inside = getCanvas().drawAtCoords(currentPoint);
+    } else {
+      inside = supersampleBuffer.plot(currentPoint);
+    }
+    if (viewportReservoir != null) {
+      viewportReservoir.record(transformation, inside);
+    }
+    iterationCount++;
+    return inside ? STEP_DRAWN : STEP_DISCARDED;
+  }
+
+  /**
+   * Downsamples the supersample buffer onto the canvas. Does nothing if not supersampling.
+   */
+  private void resolveSupersampling() {
+    if (supersampleBuffer == null) {
+      return;
+    }
+    supersampleBuffer.downsampleInto(getCanvas().getStorage());
   }
 
   /**
    * Renders the fractal on the canvas by iterating the amount of times given by
-   * {@link #getIterations()}.
+   * {@link #getIterations()}, in batches. When supersampling, the amount is multiplied by the
+   * number of samples per pixel, so each sample gets as many hits as a pixel would without
+   * supersampling.
    */
   public void render() {
+    render(() -> false);
+  }
+
+  /**
+   * Renders the fractal like {@link #render()}, but checks for cancellation between every batch
+   * of iterations, and stops early if cancelled.
+   *
+   * @param isCancelled returns true once the render should stop
+   * @return true if the render completed, false if it was cancelled
+   */
+  public boolean render(@NotNull BooleanSupplier isCancelled) {
+    int factor = getSupersampling();
+    return render((long) getIterations() * factor * factor, isCancelled);
+  }
+
+  /**
+   * Renders the fractal like {@link #render(BooleanSupplier)}, but with the given number of
+   * iterations instead of a number based on the size of the canvas.
+   *
+   * @param iterations  the number of iterations to draw
+   * @param isCancelled returns true once the render should stop
+   * @return true if the render completed, false if it was cancelled
+   */
+  public boolean render(long iterations, @NotNull BooleanSupplier isCancelled) {
+    long start = System.nanoTime();
     getCanvas().clear();
     currentPoint = new Vector(0, 0);
-    iterate(getIterations());
+    iterationCount = 0;
+    if (supersampleBuffer != null) {
+      supersampleBuffer.clear();
+    }
+    if (colorAccumulator != null) {
+      colorAccumulator.clear();
+    }
+    if (viewportReservoir != null) {
+      // The entries lead into the same view, so only the walk starts over
+      viewportReservoir.restart();
+    }
+    long remaining = iterations;
+    while (remaining > 0) {
+      if (isCancelled.getAsBoolean()) {
+        return false;
+      }
+      int batch = (int) Math.min(BATCH_SIZE, remaining);
+      iterateBatch(batch);
+      remaining -= batch;
+    }
+    resolveSupersampling();
+    getCanvas().getSubscriptionHandler().notifySubscribers();
+    RenderMetrics.getInstance().recordRender(iterationCount, System.nanoTime() - start);
+    return true;
   }
 }
@@ -0,0 +1,399 @@
+package edu.ntnu.stud.model;
+
+import edu.ntnu.stud.model.math.AffineTransformation;
+import edu.ntnu.stud.model.math.ComplexNumber;
+import edu.ntnu.stud.model.math.JuliaTransformation;
+import edu.ntnu.stud.model.math.SimpleMatrix;
+import edu.ntnu.stud.model.math.Transform2D;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.InvalidObjectException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes and decodes chaos game descriptions, and optionally a rendered histogram, in a compact
+ * versioned binary format. All values are stored big-endian, with coefficients as raw doubles.
+ *
+ * <p>
+ * Layout of version 1:
+ * <pre>
+ *   int    magic ("CGBF")
+ *   short  version
+ *   short  flags (bit 0 set if a histogram follows the description)
+ *   double minCoords x0, x1
+ *   double maxCoords x0, x1
+ *   int    transformation count
+ *   per transformation:
+ *     byte   type (1 = affine, 2 = julia)
+ *     affine: double a00, a01, a10, a11, b0, b1
+ *     julia:  double real, imaginary, byte sign
+ *   if histogram:
+ *     int    width
+ *     int    height
+ *     long   iterations
+ *     int    compressed length
+ *     byte[] deflated counts, row by row as ints
+ * </pre>
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.1
+ * @see ChaosGameFileHandler
+ */
+public class ChaosGameBinaryFormat {
+
+  /**
+   * The magic number every file starts with, "CGBF" in ASCII.
+   */
+  public static final int MAGIC = 0x43474246;
+  /**
+   * The newest version of the format, which is the one written.
+   */
+  public static final short VERSION = 1;
+  /**
+   * The flag set if the file contains a histogram.
+   */
+  private static final short HAS_HISTOGRAM_FLAG = 1;
+  private static final byte AFFINE_TYPE = 1;
+  private static final byte JULIA_TYPE = 2;
+  private static final int HEADER_SIZE = Integer.BYTES + 2 * Short.BYTES + 4 * Double.BYTES
+      + Integer.BYTES;
+  private static final int AFFINE_SIZE = 1 + 6 * Double.BYTES;
+  private static final int JULIA_SIZE = 1 + 2 * Double.BYTES + 1;
+  private static final int HISTOGRAM_HEADER_SIZE = 3 * Integer.BYTES + Long.BYTES;
+  /**
+   * The most pixels of a stored histogram, so that its counts fit in a single array.
+   */
+  private static final long MAX_HISTOGRAM_PIXELS = Integer.MAX_VALUE / Integer.BYTES;
+  /**
+   * The largest ratio deflate can compress data by, which bounds how many bytes a histogram of a
+   * given compressed length can inflate to.
+   */
+  private static final long MAX_DEFLATE_RATIO = 1032;
+
+  private ChaosGameBinaryFormat() {
+  }
+
+  /**
+   * Encodes the description and the optional histogram into a buffer, ready to be read from.
+   *
+   * @param description the description to encode
+   * @param histogram   the histogram to store alongside the description, or null to omit it
+   * @return a flipped buffer containing the encoded data
+   * @throws IllegalArgumentException if the description contains a transformation which can't be
+   *                                  stored in the binary format
+   */
+  public static @NotNull ByteBuffer encode(
+      @NotNull ChaosGameDescription description,
+      @Nullable RenderedHistogram histogram
+  ) throws IllegalArgumentException {
+    Transform2D[] transformations = description.transformations().getTransformations();
+    byte[] compressed = histogram == null ? new byte[0] : compressCounts(histogram.counts());
+
+    int size = HEADER_SIZE;
+    for (Transform2D transformation : transformations) {
+      size += encodedSize(transformation);
+    }
+    if (histogram != null) {
+      size += HISTOGRAM_HEADER_SIZE + compressed.length;
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.BIG_ENDIAN);
+    buffer.putInt(MAGIC);
+    buffer.putShort(VERSION);
+    buffer.putShort(histogram == null ? 0 : HAS_HISTOGRAM_FLAG);
+    putVector(buffer, description.minCoords());
+    putVector(buffer, description.maxCoords());
+    buffer.putInt(transformations.length);
+    for (Transform2D transformation : transformations) {
+      putTransformation(buffer, transformation);
+    }
+    if (histogram != null) {
+      buffer.putInt(histogram.width());
+      buffer.putInt(histogram.height());
+      buffer.putLong(histogram.iterations());
+      buffer.putInt(compressed.length);
+      buffer.put(compressed);
+    }
+    return buffer.flip();
+  }
+
+  /**
+   * Decodes a description and the optional histogram from a buffer. Works on both heap and
+   * memory-mapped buffers.
+   *
+   * @param buffer the buffer to decode, read from its current position
+   * @return the decoded contents
+   * @throws InvalidObjectException if the buffer does not contain a valid file
+   */
+  public static @NotNull Contents decode(@NotNull ByteBuffer buffer) throws InvalidObjectException {
+    buffer.order(ByteOrder.BIG_ENDIAN);
+    try {
+      if (buffer.getInt() != MAGIC) {
+        throw new InvalidObjectException("Not a chaos game binary file");
+      }
+      short version = buffer.getShort();
+      if (version < 1 || version > VERSION) {
+        throw new InvalidObjectException("Unsupported binary format version: " + version);
+      }
+      short flags = buffer.getShort();
+      Vector minCoords = getVector(buffer);
+      Vector maxCoords = getVector(buffer);
+
+      int transformationCount = buffer.getInt();
+      if (transformationCount < 1) {
+        throw new InvalidObjectException("Description must contain at least one transformation");
+      }
+      ArrayList<Transform2D> transformations = new ArrayList<>();
+      for (int i = 0; i < transformationCount; i++) {
+        transformations.add(getTransformation(buffer));
+      }
+      ChaosGameDescription description = new ChaosGameDescription(
+          minCoords,
+          maxCoords,
+          new TransformationGroup(transformations)
+      );
+
+      RenderedHistogram histogram = (flags & HAS_HISTOGRAM_FLAG) == 0
+          ? null
+          : getHistogram(buffer);
+      return new Contents(description, histogram);
+    } catch (BufferUnderflowException e) {
+      throw new InvalidObjectException("Binary file ended unexpectedly");
+    } catch (IllegalArgumentException e) {
+      throw new InvalidObjectException("Invalid value in binary file: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Fingerprints a description together with the settings it's rendered with, by hashing the
+   * encoded description followed by the settings. Used as the key of cached renders.
+   *
+   * @param description the description to fingerprint
+   * @param settings    the settings to hash, read from its position to its limit
+   * @return the first 128 bits of the SHA-256 hash as a hex string
+   * @throws IllegalArgumentException if the description contains a transformation which can't be
+   *                                  stored in the binary format
+   */
+  public static @NotNull String fingerprint(
+      @NotNull ChaosGameDescription description,
+      @NotNull ByteBuffer settings
+  ) throws IllegalArgumentException {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(encode(description, null));
+      digest.update(settings);
+      return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    } catch (NoSuchAlgorithmException e) {
+      // Runtime exception is used because every Java platform is required to support SHA-256
+      throw new RuntimeException("SHA-256 is not available: " + e);
+    }
+  }
+
+  /**
+   * Returns the number of bytes the given transformation takes up when encoded.
+   *
+   * @param transformation the transformation to measure
+   * @return the encoded size in bytes
+   * @throws IllegalArgumentException if the transformation can't be stored in the binary format
+   */
+  private static int encodedSize(@NotNull Transform2D transformation) {
+    if (transformation instanceof AffineTransformation) {
+      return AFFINE_SIZE;
+    }
+    if (transformation instanceof JuliaTransformation) {
+      return JULIA_SIZE;
+    }
+    throw new IllegalArgumentException(
+        "Unsupported transformation type: " + transformation.getType()
+    );
+  }
+
+  private static void putVector(@NotNull ByteBuffer buffer, @NotNull Vector vector) {
+    buffer.putDouble(vector.getX0());
+    buffer.putDouble(vector.getX1());
+  }
+
+  private static @NotNull Vector getVector(@NotNull ByteBuffer buffer) {
+    return new Vector(buffer.getDouble(), buffer.getDouble());
+  }
+
+  private static void putTransformation(
+      @NotNull ByteBuffer buffer,
+      @NotNull Transform2D transformation
+  ) {
+    if (transformation instanceof AffineTransformation affine) {
+      SimpleMatrix matrix = affine.getMatrix();
+      buffer.put(AFFINE_TYPE);
+      buffer.putDouble(matrix.a00());
+      buffer.putDouble(matrix.a01());
+      buffer.putDouble(matrix.a10());
+      buffer.putDouble(matrix.a11());
+      putVector(buffer, affine.getTranslation());
+    } else if (transformation instanceof JuliaTransformation julia) {
+      buffer.put(JULIA_TYPE);
+      putVector(buffer, julia.getComplexNumber());
+      buffer.put((byte) julia.getSign());
+    }
+  }
+
+  private static @NotNull Transform2D getTransformation(
+      @NotNull ByteBuffer buffer
+  ) throws InvalidObjectException {
+    byte type = buffer.get();
+    return switch (type) {
+      case AFFINE_TYPE -> new AffineTransformation(
+          new SimpleMatrix(
+              buffer.getDouble(),
+              buffer.getDouble(),
+              buffer.getDouble(),
+              buffer.getDouble()
+          ),
+          getVector(buffer)
+      );
+      case JULIA_TYPE -> new JuliaTransformation(
+          ComplexNumber.fromVector(getVector(buffer)),
+          buffer.get()
+      );
+      default -> throw new InvalidObjectException("Unknown transformation type: " + type);
+    };
+  }
+
+  private static @NotNull RenderedHistogram getHistogram(
+      @NotNull ByteBuffer buffer
+  ) throws InvalidObjectException {
+    int width = buffer.getInt();
+    int height = buffer.getInt();
+    long iterations = buffer.getLong();
+    int compressedLength = buffer.getInt();
+    if (width < 1 || height < 1 || compressedLength < 0 || compressedLength > buffer.remaining()) {
+      throw new InvalidObjectException("Invalid histogram header");
+    }
+    // Checked before allocating, so that a corrupt header can't allocate gigabytes
+    long countBytes = (long) width * height * Integer.BYTES;
+    if ((long) width * height > MAX_HISTOGRAM_PIXELS
+        || countBytes > compressedLength * MAX_DEFLATE_RATIO) {
+      throw new InvalidObjectException("Histogram of " + width + "x" + height
+          + " pixels does not match its compressed length");
+    }
+    ByteBuffer compressed = buffer.slice(buffer.position(), compressedLength);
+    buffer.position(buffer.position() + compressedLength);
+    return new RenderedHistogram(
+        width,
+        height,
+        iterations,
+        decompressCounts(compressed, width, height)
+    );
+  }
+
+  /**
+   * Deflates the counts row by row, without creating a flat copy of the whole histogram.
+   *
+   * @param counts the counts to compress
+   * @return the deflated counts
+   */
+  private static byte @NotNull [] compressCounts(int @NotNull [] @NotNull [] counts) {
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    ByteBuffer output = ByteBuffer.allocate(64 * 1024);
+    ByteBuffer row = ByteBuffer.allocate(counts[0].length * Integer.BYTES);
+    ArrayList<byte[]> chunks = new ArrayList<>();
+    int totalLength = 0;
+
+    try {
+      for (int[] values : counts) {
+        row.clear();
+        row.asIntBuffer().put(values);
+        deflater.setInput(row);
+        while (!deflater.needsInput()) {
+          totalLength += drain(deflater, output, chunks);
+        }
+      }
+      deflater.finish();
+      while (!deflater.finished()) {
+        totalLength += drain(deflater, output, chunks);
+      }
+    } finally {
+      deflater.end();
+    }
+
+    byte[] result = new byte[totalLength];
+    int offset = 0;
+    for (byte[] chunk : chunks) {
+      System.arraycopy(chunk, 0, result, offset, chunk.length);
+      offset += chunk.length;
+    }
+    return result;
+  }
+
+  private static int drain(
+      @NotNull Deflater deflater,
+      @NotNull ByteBuffer output,
+      @NotNull ArrayList<byte[]> chunks
+  ) {
+    output.clear();
+    int length = deflater.deflate(output);
+    if (length > 0) {
+      byte[] chunk = new byte[length];
+      output.flip().get(chunk);
+      chunks.add(chunk);
+    }
+    return length;
+  }
+
+  private static int @NotNull [] @NotNull [] decompressCounts(
+      @NotNull ByteBuffer compressed,
+      int width,
+      int height
+  ) throws InvalidObjectException {
+    Inflater inflater = new Inflater();
+    ByteBuffer row = ByteBuffer.allocate(width * Integer.BYTES);
+    // Rows are allocated as they are inflated, so data ending early fails before all are allocated
+    int[][] counts = new int[height][];
+    try {
+      inflater.setInput(compressed);
+      for (int y = 0; y < height; y++) {
+        row.clear();
+        while (row.hasRemaining()) {
+          if (inflater.inflate(row) == 0 && (inflater.finished() || inflater.needsInput())) {
+            throw new InvalidObjectException("Histogram data ended unexpectedly");
+          }
+        }
+        counts[y] = new int[width];
+        row.flip().asIntBuffer().get(counts[y]);
+      }
+      if (!inflater.finished() && inflater.inflate(new byte[1]) > 0) {
+        throw new InvalidObjectException("Histogram data is longer than its size");
+      }
+    } catch (DataFormatException e) {
+      throw new InvalidObjectException("Histogram data is corrupt");
+    } finally {
+      inflater.end();
+    }
+    return counts;
+  }
+
+  /**
+   * The contents of a binary file.
+   *
+   * @param description the stored description
+   * @param histogram   the stored histogram, or null if the file only contains a description
+   */
+  public record Contents(
+      @NotNull ChaosGameDescription description,
+      @Nullable RenderedHistogram histogram
+  ) {
+
+  }
+}
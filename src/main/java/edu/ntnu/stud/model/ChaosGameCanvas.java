@@ -4,19 +4,28 @@ import edu.ntnu.stud.model.math.PixelCoordinateTranslator;
 import edu.ntnu.stud.model.math.PixelCoordinateTranslator.IndexPair;
 import edu.ntnu.stud.model.math.Vector;
 import edu.ntnu.stud.utils.DebouncingSubscriptionHandler;
-import edu.ntnu.stud.utils.RuntimeInfo;
-import edu.ntnu.stud.utils.SubscriptionHandler;
-import javafx.util.Duration;
+import edu.ntnu.stud.utils.DeliveryExecutors;
+import edu.ntnu.stud.utils.ScheduledDebouncer;
+import edu.ntnu.stud.utils.Subscribable;
 import org.jetbrains.annotations.NotNull;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
 /**
  * A canvas for drawing and getting the output of a chaos game.
  *
  * @author Leif Mørstad
- * @version 2.0
+ * @version 2.7
  */
 public class ChaosGameCanvas {
 
+  /**
+   * The time the canvas must be left untouched before subscribers are notified.
+   */
+  private static final @NotNull Duration NOTIFY_DELAY = Duration.ofMillis(150);
+
   /**
    * The canvas on which the fractal is drawn, starts filled with 0. The origin is in the bottom
    * left, with the y-axis pointing upwards and the x-axis pointing to the right, so that the
@@ -24,7 +33,7 @@ public class ChaosGameCanvas {
    * through any the {@link #touchPixel(int, int)} method, so don't access directly unless you know
    * what you are doing.
    */
-  private final int @NotNull [] @NotNull [] canvas;
+  private final @NotNull HistogramStorage canvas;
 
   /**
    * The width canvas in pixels.
@@ -36,6 +45,16 @@ public class ChaosGameCanvas {
    */
   private final int height;
 
+  /**
+   * The bottom left bounds of the fractal shown on the canvas.
+   */
+  private final @NotNull Vector minCoords;
+
+  /**
+   * The top right bounds of the fractal shown on the canvas.
+   */
+  private final @NotNull Vector maxCoords;
+
   /**
    * The transformation used to convert coordinates to indices in the canvas.
    */
@@ -44,10 +63,11 @@ public class ChaosGameCanvas {
   /**
    * The subscription handler for the canvas.
    */
-  private final @NotNull SubscriptionHandler<int[][]> subscriptionHandler;
+  private final @NotNull Subscribable<ChaosGameCanvas> subscriptionHandler;
 
   /**
-   * Creates a new instance with the given width, height, and the coordinate bounds of the fractal.
+   * Creates a new instance with the given width, height, and the coordinate bounds of the fractal,
+   * storing the counts as ints.
    *
    * @param width     the width of the canvas, cannot be less than 1
    * @param height    the height of the canvas, cannot be less than 1
@@ -61,20 +81,47 @@ public class ChaosGameCanvas {
       int height,
       @NotNull Vector minCoords,
       @NotNull Vector maxCoords
+  ) throws IllegalArgumentException {
+    this(width, height, minCoords, maxCoords, HistogramPrecision.INT);
+  }
+
+  /**
+   * Creates a new instance with the given width, height, the coordinate bounds of the fractal,
+   * and the precision to store the counts in.
+   *
+   * @param width     the width of the canvas, cannot be less than 1
+   * @param height    the height of the canvas, cannot be less than 1
+   * @param minCoords the minimum coordinate bounds of the fractal to show
+   * @param maxCoords the maximum coordinate bounds of the fractal to show
+   * @param precision the element type of the counts
+   * @throws IllegalArgumentException if the width or height is less than 1, or if given null
+   *                                  vectors as coordinates
+   */
+  public ChaosGameCanvas(
+      int width,
+      int height,
+      @NotNull Vector minCoords,
+      @NotNull Vector maxCoords,
+      @NotNull HistogramPrecision precision
   ) throws IllegalArgumentException {
     if (width < 1 || height < 1) {
       throw new IllegalArgumentException("Width and height must be at least 1 each");
     }
     this.width = width;
     this.height = height;
-    this.canvas = new int[height][width];
+    this.minCoords = minCoords;
+    this.maxCoords = maxCoords;
+    this.canvas = precision.createStorage(width, height);
 
-    // If the program is run without javafx, no javafx functions should be used, and the debouncer
-    // uses the javafx api
+    // Subscribers are notified on the javafx thread when running with a GUI, and on the scheduler
+    // thread otherwise, so the canvas can be drawn on from any thread
     coordinateTranslator = new PixelCoordinateTranslator(width, height, minCoords, maxCoords);
-    subscriptionHandler = RuntimeInfo.isGUI()
-        ? new DebouncingSubscriptionHandler<>(this.canvas, Duration.millis(150))
-        : new SubscriptionHandler<>(this.canvas);
+    subscriptionHandler = new DebouncingSubscriptionHandler<>(
+        this,
+        NOTIFY_DELAY,
+        ScheduledDebouncer.Mode.DEBOUNCE,
+        DeliveryExecutors.forRuntime()
+    );
 
     // Fills the array with 0s
     clear();
@@ -84,17 +131,14 @@ public class ChaosGameCanvas {
    * Fills the canvas with 0s.
    */
   public void clear() {
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        canvas[y][x] = 0;
-      }
-    }
+    canvas.clear();
     subscriptionHandler.notifySubscribers();
   }
 
   /**
    * Returns the pixel value at the given coordinates. The origin is in the bottom left, with the
-   * coordinates (0, 0) being in the bottom left corner.
+   * coordinates (0, 0) being in the bottom left corner. Counts above the range of an int are
+   * clamped.
    *
    * @param x the x-coordinate of the pixel from left to right
    * @param y the y-coordinate of the pixel from bottom to top
@@ -102,7 +146,7 @@ public class ChaosGameCanvas {
    * @throws ArrayIndexOutOfBoundsException if the given coordinates are outside the canvas
    */
   public int getPixel(int x, int y) throws ArrayIndexOutOfBoundsException {
-    return canvas[height - y - 1][x];
+    return (int) Math.min(Integer.MAX_VALUE, canvas.get(height - y - 1, x));
   }
 
   /**
@@ -130,7 +174,7 @@ public class ChaosGameCanvas {
     ) {
       return;
     }
-    canvas[height - y - 1][x] = value;
+    canvas.set(height - y - 1, x, value);
     subscriptionHandler.notifySubscribers();
   }
 
@@ -152,44 +196,226 @@ public class ChaosGameCanvas {
   /**
    * Sets the pixel value at the given coordinates to 1. The origin is in the bottom left, with the
    * coordinates (0, 0) being in the bottom left corner. Does nothing if the given coordinates are
-   * outside the canvas. Defaults the value to 1.
+   * outside the canvas. Defaults the value to 1. Subscribers aren't notified, as this is called
+   * for every point drawn, so whoever draws a batch of points notifies them once afterwards.
    *
    * @param x the x-coordinate of the pixel from left to right
    * @param y the y-coordinate of the pixel from bottom to top
+   * @return true if the pixel was inside the canvas
    */
-  public void touchPixel(int x, int y) {
+  public boolean touchPixel(int x, int y) {
     if (
         x < 0
             || x >= width
             || y < 0
             || y >= height
     ) {
-      return;
+      return false;
     }
-    canvas[height - y - 1][x]++;
-    subscriptionHandler.notifySubscribers();
+    canvas.increment(height - y - 1, x);
+    return true;
   }
 
   /**
    * Draws a pixel at the given coordinates, scaling and translating them to fit the canvas.
    *
    * @param coords the coordinates to draw the pixel at
+   * @return true if the coordinates were inside the canvas
    */
-  public void drawAtCoords(Vector coords) {
+  public boolean drawAtCoords(Vector coords) {
     IndexPair indexes = coordinateTranslator.coordsToIndices(coords);
-    touchPixel(indexes.x0(), indexes.x1());
+    return touchPixel(indexes.x0(), indexes.x1());
+  }
+
+  /**
+   * Adds the counts of another canvas of the same size and bounds to this canvas, saturating at
+   * the maximum of the precision. Rows are added in parallel, and subscribers are notified once
+   * afterwards.
+   *
+   * @param other the canvas to add, which may have a different precision
+   * @throws IllegalArgumentException if the canvases differ in size or bounds
+   */
+  public void add(@NotNull ChaosGameCanvas other) throws IllegalArgumentException {
+    if (!hasSameGeometry(other)) {
+      throw new IllegalArgumentException("Only canvases of the same size and bounds can be added");
+    }
+    IntStream.range(0, height).parallel().forEach(row -> {
+      long[] values = new long[width];
+      other.canvas.readRow(row, values);
+      canvas.addRow(row, values, 0);
+    });
+    subscriptionHandler.notifySubscribers();
+  }
+
+  /**
+   * Merges canvases of the same size and bounds into a new canvas, by adding their counts in the
+   * order given.
+   *
+   * @param canvases  the canvases to merge, at least one
+   * @param precision the precision of the merged canvas
+   * @return the merged canvas
+   * @throws IllegalArgumentException if no canvases are given, or they differ in size or bounds
+   */
+  public static @NotNull ChaosGameCanvas merge(
+      @NotNull List<ChaosGameCanvas> canvases,
+      @NotNull HistogramPrecision precision
+  ) throws IllegalArgumentException {
+    if (canvases.isEmpty()) {
+      throw new IllegalArgumentException("At least one canvas must be merged");
+    }
+    ChaosGameCanvas first = canvases.get(0);
+    for (ChaosGameCanvas canvas : canvases) {
+      if (!first.hasSameGeometry(canvas)) {
+        throw new IllegalArgumentException(
+            "Only canvases of the same size and bounds can be merged"
+        );
+      }
+    }
+    ChaosGameCanvas merged = new ChaosGameCanvas(
+        first.width,
+        first.height,
+        first.minCoords,
+        first.maxCoords,
+        precision
+    );
+    // Each row is summed over every canvas by one thread, so no two threads write the same row
+    IntStream.range(0, first.height).parallel().forEach(row -> {
+      long[] values = new long[first.width];
+      for (ChaosGameCanvas canvas : canvases) {
+        canvas.canvas.readRow(row, values);
+        merged.canvas.addRow(row, values, 0);
+      }
+    });
+    merged.subscriptionHandler.notifySubscribers();
+    return merged;
+  }
+
+  /**
+   * Copies a rectangle of the canvas into a new canvas of the same precision, with the bounds of
+   * the part of the fractal the rectangle shows. Like {@link #getPixel(int, int)}, the origin is
+   * in the bottom left corner.
+   *
+   * @param x      the left column of the rectangle
+   * @param y      the bottom row of the rectangle
+   * @param width  the width of the rectangle, at least 1
+   * @param height the height of the rectangle, at least 1
+   * @return a canvas with the counts of the rectangle
+   * @throws IllegalArgumentException if the rectangle is empty or not inside the canvas
+   */
+  public @NotNull ChaosGameCanvas extract(
+      int x,
+      int y,
+      int width,
+      int height
+  ) throws IllegalArgumentException {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("The rectangle must be at least 1 by 1 pixels");
+    }
+    if (x < 0 || y < 0 || x + width > this.width || y + height > this.height) {
+      throw new IllegalArgumentException("The rectangle must be inside the canvas");
+    }
+    // A single pixel wide rectangle still gets bounds one pixel apart, to keep the scale finite
+    ChaosGameCanvas extracted = new ChaosGameCanvas(
+        width,
+        height,
+        indicesToCoords(x, y),
+        indicesToCoords(x + Math.max(1, width - 1), y + Math.max(1, height - 1)),
+        canvas.getPrecision()
+    );
+    // Rows are stored from the top, so the top row of the rectangle is the first one copied
+    int firstRow = this.height - y - height;
+    IntStream.range(0, height).parallel().forEach(row -> {
+      long[] values = new long[this.width];
+      canvas.readRow(firstRow + row, values);
+      extracted.canvas.addRow(row, values, x);
+    });
+    extracted.subscriptionHandler.notifySubscribers();
+    return extracted;
   }
 
   /**
-   * Returns the canvas as a 2D array of integers.
+   * Multiplies every count by the factor, rounding to the nearest count and saturating at the
+   * maximum of the precision. Rows are scaled in parallel, and subscribers are notified once
+   * afterwards.
+   *
+   * @param factor the factor to multiply by, cannot be negative
+   * @throws IllegalArgumentException if the factor is negative or not finite
+   */
+  public void scale(double factor) throws IllegalArgumentException {
+    if (!(factor >= 0) || Double.isInfinite(factor)) {
+      throw new IllegalArgumentException("Scale factor must be a finite non-negative number");
+    }
+    IntStream.range(0, height).parallel().forEach(row -> canvas.scaleRow(row, factor));
+    subscriptionHandler.notifySubscribers();
+  }
+
+  /**
+   * Returns whether the other canvas has the same size and bounds as this one.
+   */
+  private boolean hasSameGeometry(@NotNull ChaosGameCanvas other) {
+    return width == other.width
+        && height == other.height
+        && minCoords.equals(other.minCoords)
+        && maxCoords.equals(other.maxCoords);
+  }
+
+  /**
+   * Returns the coordinates of the given pixel, with the origin in the bottom left corner. The
+   * inverse of the coordinate translator, extended past the edges of the canvas.
+   */
+  private @NotNull Vector indicesToCoords(int x, int y) {
+    double pixelWidth = (maxCoords.getX0() - minCoords.getX0()) / Math.max(1, width - 1);
+    double pixelHeight = (maxCoords.getX1() - minCoords.getX1()) / Math.max(1, height - 1);
+    return new Vector(minCoords.getX0() + x * pixelWidth, minCoords.getX1() + y * pixelHeight);
+  }
+
+  /**
+   * Returns the bottom left bounds of the fractal shown on the canvas.
+   *
+   * @return the minimum coordinates
+   */
+  public @NotNull Vector getMinCoords() {
+    return minCoords;
+  }
+
+  /**
+   * Returns the top right bounds of the fractal shown on the canvas.
+   *
+   * @return the maximum coordinates
+   */
+  public @NotNull Vector getMaxCoords() {
+    return maxCoords;
+  }
+
+  /**
+   * Returns the canvas as a 2D array of integers. With {@link HistogramPrecision#INT} this is the
+   * canvas itself, otherwise a copy clamped to the range of an int.
    *
    * @return the canvas as a 2D array of integers
    * @see #canvas
    */
   public int[][] getCanvas() {
+    return canvas.asIntRows();
+  }
+
+  /**
+   * Returns the storage of the counts of the canvas, row by row from the top.
+   *
+   * @return the storage of the canvas
+   */
+  public @NotNull HistogramStorage getStorage() {
     return canvas;
   }
 
+  /**
+   * Returns the precision the counts of the canvas are stored in.
+   *
+   * @return the precision of the canvas
+   */
+  public @NotNull HistogramPrecision getPrecision() {
+    return canvas.getPrecision();
+  }
+
   /**
    * Returns the coordinate translator used to convert coordinates to indices in the canvas.
    *
@@ -204,7 +430,7 @@ public class ChaosGameCanvas {
    *
    * @return the subscription handler
    */
-  public @NotNull SubscriptionHandler<int[][]> getSubscriptionHandler() {
+  public @NotNull Subscribable<ChaosGameCanvas> getSubscriptionHandler() {
     return subscriptionHandler;
   }
 
@@ -235,7 +461,7 @@ public class ChaosGameCanvas {
     StringBuilder sb = new StringBuilder();
     for (int y = 0; y < height; y++) {
       for (int x = 0; x < width; x++) {
-        sb.append(canvas[y][x] == 0 ? " " : "x");
+        sb.append(canvas.get(y, x) == 0 ? " " : "x");
       }
       sb.append("\n");
     }
@@ -1,14 +1,21 @@
 package edu.ntnu.stud.model;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ntnu.stud.model.math.*;
 import edu.ntnu.stud.utils.ResourceHandler;
+import edu.ntnu.stud.utils.jfr.DescriptionLoadEvent;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InvalidObjectException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.logging.Logger;
 
@@ -16,12 +23,26 @@ import java.util.logging.Logger;
  * This class is responsible for handling files related to JSON parsing.
  *
  * @author Leif Mørstad
- * @version 1.2
+ * @version 1.5
  * @see ChaosGameDescription
+ * @see ChaosGameBinaryFormat
  */
 public class ChaosGameFileHandler {
+  /**
+   * The file extension of fractals stored in the binary format.
+   */
+  public static final String BINARY_EXTENSION = ".cgb";
   private static final Logger LOGGER = Logger.getLogger(ChaosGameFileHandler.class.getName());
+  /**
+   * Binary files larger than this are memory-mapped instead of read into the heap.
+   */
+  private static final long MEMORY_MAP_THRESHOLD = 16L * 1024 * 1024;
 
+  /**
+   * Returns all fractal files under resources/fractals/*, both JSON and binary.
+   *
+   * @return the fractal files, or an empty array if none could be found
+   */
   public static @NotNull File @NotNull [] getAllFractals() {
     File fractalFolder = ResourceHandler.getFile("fractals/");
     try {
@@ -31,7 +52,9 @@ public class ChaosGameFileHandler {
       return new File[0];
     }
 
-    File[] files = fractalFolder.listFiles((dir, name) -> name.endsWith(".json"));
+    File[] files = fractalFolder.listFiles(
+        (dir, name) -> name.endsWith(".json") || name.endsWith(BINARY_EXTENSION)
+    );
     if (files == null || files.length == 0) {
       LOGGER.severe("No files found");
       return new File[0];
@@ -40,7 +63,8 @@ public class ChaosGameFileHandler {
   }
 
   /**
-   * Reads a chaos game description from a file.
+   * Reads a chaos game description from a file under resources/fractals/*. Files ending with
+   * {@link #BINARY_EXTENSION} are read as binary files, all others as JSON.
    *
    * @param filename the name of the file to read from
    * @return the chaos game description read from the file
@@ -49,6 +73,53 @@ public class ChaosGameFileHandler {
    */
   public static @NotNull ChaosGameDescription readFromFile(
       @NotNull String filename
+  ) throws InvalidObjectException, FileNotFoundException {
+    DescriptionLoadEvent event = new DescriptionLoadEvent();
+    event.begin();
+    event.source = filename;
+    event.format = filename.endsWith(BINARY_EXTENSION) ? "binary" : "json";
+    try {
+      ChaosGameDescription description = filename.endsWith(BINARY_EXTENSION)
+          ? readBinaryLibraryFile(filename)
+          : readJsonLibraryFile(filename);
+      event.success = true;
+      return description;
+    } finally {
+      event.commit();
+    }
+  }
+
+  /**
+   * Reads a chaos game description from a file at any path. Files ending with
+   * {@link #BINARY_EXTENSION} are read as binary files, ignoring any histogram, and all others as
+   * JSON.
+   *
+   * @param path the path of the file to read from
+   * @return the chaos game description read from the file
+   * @throws InvalidObjectException if the file contains invalid data
+   * @throws IOException            if the file could not be read
+   */
+  public static @NotNull ChaosGameDescription readFromPath(
+      @NotNull Path path
+  ) throws IOException {
+    if (path.toString().endsWith(BINARY_EXTENSION)) {
+      return readBinaryFile(path).description();
+    }
+    DescriptionLoadEvent event = new DescriptionLoadEvent();
+    event.begin();
+    event.source = path.toString();
+    event.format = "json";
+    try {
+      ChaosGameDescription description = readChaosGame(new ObjectMapper().readTree(path.toFile()));
+      event.success = true;
+      return description;
+    } finally {
+      event.commit();
+    }
+  }
+
+  private static @NotNull ChaosGameDescription readJsonLibraryFile(
+      @NotNull String filename
   ) throws InvalidObjectException, FileNotFoundException {
     JsonNode tree = ResourceHandler.readFile("fractals/" + filename);
     if (tree == null) {
@@ -58,6 +129,20 @@ public class ChaosGameFileHandler {
     return readChaosGame(tree);
   }
 
+  private static @NotNull ChaosGameDescription readBinaryLibraryFile(
+      @NotNull String filename
+  ) throws InvalidObjectException, FileNotFoundException {
+    File file = ResourceHandler.getFile("fractals/" + filename);
+    try {
+      return readBinaryContents(file.toPath()).description();
+    } catch (InvalidObjectException | FileNotFoundException e) {
+      throw e;
+    } catch (IOException e) {
+      LOGGER.severe("Could not read file: " + filename);
+      throw new FileNotFoundException("Could not read file: " + filename);
+    }
+  }
+
   public static @NotNull ChaosGameDescription readChaosGame(
       @Nullable JsonNode node
   ) throws InvalidObjectException {
@@ -198,4 +283,87 @@ public class ChaosGameFileHandler {
         description
     );
   }
+
+  /**
+   * Writes a chaos game description, and optionally a rendered histogram, to a file in the binary
+   * format.
+   *
+   * @param path        the path of the file to write to, overwritten if it exists
+   * @param description the chaos game description to write
+   * @param histogram   the histogram to store alongside the description, or null to omit it
+   * @throws IOException              if the file could not be written
+   * @throws IllegalArgumentException if the description can't be stored in the binary format
+   * @see ChaosGameBinaryFormat
+   */
+  public static void writeBinaryFile(
+      @NotNull Path path,
+      @NotNull ChaosGameDescription description,
+      @Nullable RenderedHistogram histogram
+  ) throws IOException, IllegalArgumentException {
+    ByteBuffer buffer = ChaosGameBinaryFormat.encode(description, histogram);
+    try (FileChannel channel = FileChannel.open(
+        path,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE
+    )) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+    LOGGER.info("Successfully wrote binary file " + path);
+  }
+
+  /**
+   * Reads a chaos game description, and the histogram if present, from a binary file. Small files
+   * are read with a single channel read, while large files are memory-mapped.
+   *
+   * @param path the path of the file to read from
+   * @return the contents of the file
+   * @throws FileNotFoundException  if the file does not exist
+   * @throws InvalidObjectException if the file contains invalid data
+   * @throws IOException            if the file could not be read
+   * @see ChaosGameBinaryFormat
+   */
+  public static @NotNull ChaosGameBinaryFormat.Contents readBinaryFile(
+      @NotNull Path path
+  ) throws IOException {
+    DescriptionLoadEvent event = new DescriptionLoadEvent();
+    event.begin();
+    event.source = path.toString();
+    event.format = "binary";
+    try {
+      ChaosGameBinaryFormat.Contents contents = readBinaryContents(path);
+      event.success = true;
+      return contents;
+    } finally {
+      event.commit();
+    }
+  }
+
+  private static @NotNull ChaosGameBinaryFormat.Contents readBinaryContents(
+      @NotNull Path path
+  ) throws IOException {
+    if (!path.toFile().isFile()) {
+      LOGGER.severe("File not found: " + path);
+      throw new FileNotFoundException("File not found: " + path);
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      ByteBuffer buffer;
+      if (size > MEMORY_MAP_THRESHOLD) {
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      } else {
+        buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+          // Reads until the buffer is full, which usually only takes a single read
+        }
+        buffer.flip();
+      }
+      return ChaosGameBinaryFormat.decode(buffer);
+    } catch (InvalidObjectException e) {
+      LOGGER.severe("Invalid binary file " + path + ": " + e.getMessage());
+      throw e;
+    }
+  }
 }
@@ -0,0 +1,129 @@
+package edu.ntnu.stud.model;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * A palette mapping the number of times a pixel has been hit to an ARGB color. Kept free of any
+ * JavaFX classes so that it can be used when rendering without a GUI.
+ *
+ * @author Leif Mørstad
+ * @version 1.1
+ */
+public class ColorPalette {
+
+  /**
+   * The palette used by the application, going from black through blue to orange.
+   */
+  public static final @NotNull ColorPalette DEFAULT = new ColorPalette(
+      0xFF000000,
+      0xFF19071A,
+      0xFF09012F,
+      0xFF040449,
+      0xFF000764,
+      0xFF0C2C8A,
+      0xFF1852B1,
+      0xFF397DD1,
+      0xFF86B5E5,
+      0xFFD3ECF8,
+      0xFFF1E9BF,
+      0xFFF8C477,
+      0xFFFFAA00,
+      0xFFCC8000,
+      0xFF995700,
+      0xFF6A3403
+  );
+
+  /**
+   * The colors of the palette as ARGB values, where the index is the hit count. Cannot be empty.
+   */
+  private final int @NotNull [] colors;
+
+  /**
+   * Creates a new palette with the given colors.
+   *
+   * @param colors the ARGB colors of the palette, where the index is the hit count
+   * @throws IllegalArgumentException if no colors are given
+   */
+  public ColorPalette(int @NotNull ... colors) throws IllegalArgumentException {
+    if (colors.length == 0) {
+      throw new IllegalArgumentException("A palette must contain at least one color");
+    }
+    this.colors = Arrays.copyOf(colors, colors.length);
+  }
+
+  /**
+   * Maps the number of times a point has been accessed to a color. Counts above the size of the
+   * palette are clamped to the last color.
+   *
+   * @param count the number of times a point has been accessed
+   * @return the color to map to as an ARGB hex
+   */
+  public int mapColor(int count) {
+    if (count < 0) {
+      return colors[0];
+    }
+    if (count >= colors.length) {
+      return colors[colors.length - 1];
+    }
+    return colors[count];
+  }
+
+  /**
+   * Maps every count in the histogram to a color, flattened row by row.
+   *
+   * @param counts the counts to map, in the layout of {@link ChaosGameCanvas#getCanvas()}
+   * @param width  the width of each row
+   * @return the colors as a flat ARGB array
+   */
+  public int @NotNull [] mapColors(int @NotNull [] @NotNull [] counts, int width) {
+    int[] pixels = new int[counts.length * width];
+    for (int y = 0; y < counts.length; y++) {
+      int[] row = counts[y];
+      int offset = y * width;
+      for (int x = 0; x < width; x++) {
+        pixels[offset + x] = mapColor(row[x]);
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Maps every count in the storage to a color, flattened row by row. Reads the counts straight
+   * from the storage, without creating an int copy of narrow precisions first.
+   *
+   * @param counts the counts to map
+   * @return the colors as a flat ARGB array
+   */
+  public int @NotNull [] mapColors(@NotNull HistogramStorage counts) {
+    int width = counts.getWidth();
+    int[] pixels = new int[counts.getHeight() * width];
+    for (int y = 0; y < counts.getHeight(); y++) {
+      int offset = y * width;
+      counts.copyRowInto(y, pixels, offset);
+      for (int x = offset; x < offset + width; x++) {
+        pixels[x] = mapColor(pixels[x]);
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Returns the number of colors in the palette.
+   *
+   * @return the number of colors
+   */
+  public int size() {
+    return colors.length;
+  }
+
+  /**
+   * Returns a copy of the colors of the palette.
+   *
+   * @return the ARGB colors of the palette
+   */
+  public int @NotNull [] getColors() {
+    return Arrays.copyOf(colors, colors.length);
+  }
+}
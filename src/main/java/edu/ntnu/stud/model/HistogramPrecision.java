@@ -0,0 +1,73 @@
+package edu.ntnu.stud.model;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The element type a {@link ChaosGameCanvas} stores its hit counts in. Narrow types use less
+ * memory, while wide types can hold the counts of very long renders. Every type saturates at its
+ * maximum count instead of overflowing.
+ *
+ * @author Leif Mørstad
+ * @version 1.0
+ * @see HistogramStorage
+ */
+public enum HistogramPrecision {
+  /**
+   * Unsigned 8-bit counts. More than enough for display, as the palette only has 16 colors.
+   */
+  BYTE(Byte.BYTES, 0xFF),
+  /**
+   * Signed 16-bit counts.
+   */
+  SHORT(Short.BYTES, Short.MAX_VALUE),
+  /**
+   * Signed 32-bit counts, the default.
+   */
+  INT(Integer.BYTES, Integer.MAX_VALUE),
+  /**
+   * Signed 64-bit counts, for archival renders of billions of iterations.
+   */
+  LONG(Long.BYTES, Long.MAX_VALUE);
+
+  private final int bytesPerPixel;
+  private final long maxCount;
+
+  HistogramPrecision(int bytesPerPixel, long maxCount) {
+    this.bytesPerPixel = bytesPerPixel;
+    this.maxCount = maxCount;
+  }
+
+  /**
+   * Returns the number of bytes each pixel takes up.
+   *
+   * @return the size of a count in bytes
+   */
+  public int getBytesPerPixel() {
+    return bytesPerPixel;
+  }
+
+  /**
+   * Returns the highest count a pixel can hold before saturating.
+   *
+   * @return the maximum count
+   */
+  public long getMaxCount() {
+    return maxCount;
+  }
+
+  /**
+   * Creates an empty storage of this precision.
+   *
+   * @param width  the width of the storage in pixels
+   * @param height the height of the storage in pixels
+   * @return the created storage
+   */
+  public @NotNull HistogramStorage createStorage(int width, int height) {
+    return switch (this) {
+      case BYTE -> new HistogramStorage.ByteStorage(width, height);
+      case SHORT -> new HistogramStorage.ShortStorage(width, height);
+      case INT -> new HistogramStorage.IntStorage(width, height);
+      case LONG -> new HistogramStorage.LongStorage(width, height);
+    };
+  }
+}
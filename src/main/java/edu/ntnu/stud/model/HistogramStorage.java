@@ -0,0 +1,498 @@
+package edu.ntnu.stud.model;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * The hit counts of a {@link ChaosGameCanvas}, stored row by row from the top in the element type
+ * of a {@link HistogramPrecision}. Each precision has its own subclass, so that incrementing and
+ * copying work directly on a primitive array without boxing or widening every count.
+ *
+ * <p>
+ * Values are saturating: incrementing a count at the maximum of the precision leaves it there, and
+ * setting a count above the maximum stores the maximum.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.1
+ */
+public abstract class HistogramStorage {
+
+  /**
+   * The width of the storage in pixels.
+   */
+  protected final int width;
+  /**
+   * The height of the storage in pixels.
+   */
+  protected final int height;
+
+  private HistogramStorage(int width, int height) {
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Returns the width of the storage.
+   *
+   * @return the width in pixels
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the storage.
+   *
+   * @return the height in pixels
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the precision of the storage.
+   *
+   * @return the precision
+   */
+  public abstract @NotNull HistogramPrecision getPrecision();
+
+  /**
+   * Adds a hit to the given pixel, unless it is saturated.
+   *
+   * @param row the row from the top
+   * @param x   the column from the left
+   */
+  public abstract void increment(int row, int x);
+
+  /**
+   * Returns the count of the given pixel.
+   *
+   * @param row the row from the top
+   * @param x   the column from the left
+   * @return the count of the pixel
+   */
+  public abstract long get(int row, int x);
+
+  /**
+   * Sets the count of the given pixel, clamped to between 0 and the maximum of the precision.
+   *
+   * @param row   the row from the top
+   * @param x     the column from the left
+   * @param value the count to set
+   */
+  public abstract void set(int row, int x, long value);
+
+  /**
+   * Copies a row of counts into the given array, clamped to the range of an int.
+   *
+   * @param row    the row from the top
+   * @param target the array to copy into
+   * @param offset the index in the target to copy the first count to
+   */
+  public abstract void copyRowInto(int row, int @NotNull [] target, int offset);
+
+  /**
+   * Overwrites a row with the given counts, clamped to the range of the precision.
+   *
+   * @param row    the row from the top
+   * @param values the counts to write, at least as long as the width
+   */
+  public abstract void setRow(int row, int @NotNull [] values);
+
+  /**
+   * Sets every count to 0.
+   */
+  public abstract void clear();
+
+  /**
+   * Copies a row of counts into the given array without clamping.
+   *
+   * @param row    the row from the top
+   * @param target the array to copy into, at least as long as the width
+   */
+  public abstract void readRow(int row, long @NotNull [] target);
+
+  /**
+   * Adds non-negative counts to a row, saturating at the maximum of the precision.
+   *
+   * @param row    the row from the top
+   * @param values the counts to add
+   * @param offset the index in the values of the count to add to the first pixel
+   */
+  public abstract void addRow(int row, long @NotNull [] values, int offset);
+
+  /**
+   * Multiplies every count of a row by the factor, rounding to the nearest count and saturating
+   * at the maximum of the precision.
+   *
+   * @param row    the row from the top
+   * @param factor the non-negative factor to multiply by
+   */
+  public abstract void scaleRow(int row, double factor);
+
+  /**
+   * Returns the counts as int rows. For {@link HistogramPrecision#INT} these are the backing
+   * rows, otherwise a clamped copy.
+   *
+   * @return the counts, row by row from the top
+   */
+  public int @NotNull [] @NotNull [] asIntRows() {
+    int[][] rows = new int[height][width];
+    for (int y = 0; y < height; y++) {
+      copyRowInto(y, rows[y], 0);
+    }
+    return rows;
+  }
+
+  /**
+   * Returns the number of bytes used by the counts.
+   *
+   * @return the memory used in bytes
+   */
+  public long getByteSize() {
+    return (long) width * height * getPrecision().getBytesPerPixel();
+  }
+
+  private static long clamp(long value, long max) {
+    return Math.max(0, Math.min(max, value));
+  }
+
+  /**
+   * Counts stored as unsigned bytes.
+   */
+  static final class ByteStorage extends HistogramStorage {
+    private static final int MAX = 0xFF;
+    private final byte @NotNull [] @NotNull [] counts;
+
+    ByteStorage(int width, int height) {
+      super(width, height);
+      counts = new byte[height][width];
+    }
+
+    @Override
+    public @NotNull HistogramPrecision getPrecision() {
+      return HistogramPrecision.BYTE;
+    }
+
+    @Override
+    public void increment(int row, int x) {
+      byte[] values = counts[row];
+      if (values[x] != (byte) MAX) {
+        values[x]++;
+      }
+    }
+
+    @Override
+    public long get(int row, int x) {
+      return counts[row][x] & MAX;
+    }
+
+    @Override
+    public void set(int row, int x, long value) {
+      counts[row][x] = (byte) clamp(value, MAX);
+    }
+
+    @Override
+    public void copyRowInto(int row, int @NotNull [] target, int offset) {
+      byte[] values = counts[row];
+      for (int x = 0; x < width; x++) {
+        target[offset + x] = values[x] & MAX;
+      }
+    }
+
+    @Override
+    public void setRow(int row, int @NotNull [] values) {
+      byte[] target = counts[row];
+      for (int x = 0; x < width; x++) {
+        target[x] = (byte) clamp(values[x], MAX);
+      }
+    }
+
+    @Override
+    public void readRow(int row, long @NotNull [] target) {
+      byte[] values = counts[row];
+      for (int x = 0; x < width; x++) {
+        target[x] = values[x] & MAX;
+      }
+    }
+
+    @Override
+    public void addRow(int row, long @NotNull [] values, int offset) {
+      byte[] target = counts[row];
+      for (int x = 0; x < width; x++) {
+        target[x] = (byte) Math.min(MAX, (target[x] & MAX) + Math.min(MAX, values[offset + x]));
+      }
+    }
+
+    @Override
+    public void scaleRow(int row, double factor) {
+      byte[] values = counts[row];
+      for (int x = 0; x < width; x++) {
+        values[x] = (byte) Math.min(MAX, (long) ((values[x] & MAX) * factor + 0.5));
+      }
+    }
+
+    @Override
+    public void clear() {
+      for (byte[] row : counts) {
+        Arrays.fill(row, (byte) 0);
+      }
+    }
+  }
+
+  /**
+   * Counts stored as signed shorts.
+   */
+  static final class ShortStorage extends HistogramStorage {
+    private final short @NotNull [] @NotNull [] counts;
+
+    ShortStorage(int width, int height) {
+      super(width, height);
+      counts = new short[height][width];
+    }
+
+    @Override
+    public @NotNull HistogramPrecision getPrecision() {
+      return HistogramPrecision.SHORT;
+    }
+
+    @Override
+    public void increment(int row, int x) {
+      short[] values = counts[row];
+      if (values[x] != Short.MAX_VALUE) {
+        values[x]++;
+      }
+    }
+
+    @Override
+    public long get(int row, int x) {
+      return counts[row][x];
+    }
+
+    @Override
+    public void set(int row, int x, long value) {
+      counts[row][x] = (short) clamp(value, Short.MAX_VALUE);
+    }
+
+    @Override
+    public void copyRowInto(int row, int @NotNull [] target, int offset) {
+      short[] values = counts[row];
+      for (int x = 0; x < width; x++) {
+        target[offset + x] = values[x];
+      }
+    }
+
+    @Override
+    public void setRow(int row, int @NotNull [] values) {
+      short[] target = counts[row];
+      for (int x = 0; x < width; x++) {
+        target[x] = (short) clamp(values[x], Short.MAX_VALUE);
+      }
+    }
+
+    @Override
+    public void readRow(int row, long @NotNull [] target) {
+      short[] values = counts[row];
+      for (int x = 0; x < width; x++) {
+        target[x] = values[x];
+      }
+    }
+
+    @Override
+    public void addRow(int row, long @NotNull [] values, int offset) {
+      short[] target = counts[row];
+      for (int x = 0; x < width; x++) {
+        target[x] = (short) Math.min(
+            Short.MAX_VALUE,
+            target[x] + Math.min(Short.MAX_VALUE, values[offset + x])
+        );
+      }
+    }
+
+    @Override
+    public void scaleRow(int row, double factor) {
+      short[] values = counts[row];
+      for (int x = 0; x < width; x++) {
+        values[x] = (short) Math.min(Short.MAX_VALUE, (long) (values[x] * factor + 0.5));
+      }
+    }
+
+    @Override
+    public void clear() {
+      for (short[] row : counts) {
+        Arrays.fill(row, (short) 0);
+      }
+    }
+  }
+
+  /**
+   * Counts stored as signed ints, exposing the backing rows directly.
+   */
+  static final class IntStorage extends HistogramStorage {
+    private final int @NotNull [] @NotNull [] counts;
+
+    IntStorage(int width, int height) {
+      super(width, height);
+      counts = new int[height][width];
+    }
+
+    @Override
+    public @NotNull HistogramPrecision getPrecision() {
+      return HistogramPrecision.INT;
+    }
+
+    @Override
+    public void increment(int row, int x) {
+      int[] values = counts[row];
+      if (values[x] != Integer.MAX_VALUE) {
+        values[x]++;
+      }
+    }
+
+    @Override
+    public long get(int row, int x) {
+      return counts[row][x];
+    }
+
+    @Override
+    public void set(int row, int x, long value) {
+      counts[row][x] = (int) clamp(value, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void copyRowInto(int row, int @NotNull [] target, int offset) {
+      System.arraycopy(counts[row], 0, target, offset, width);
+    }
+
+    @Override
+    public void setRow(int row, int @NotNull [] values) {
+      int[] target = counts[row];
+      for (int x = 0; x < width; x++) {
+        target[x] = Math.max(0, values[x]);
+      }
+    }
+
+    @Override
+    public void readRow(int row, long @NotNull [] target) {
+      int[] values = counts[row];
+      for (int x = 0; x < width; x++) {
+        target[x] = values[x];
+      }
+    }
+
+    @Override
+    public void addRow(int row, long @NotNull [] values, int offset) {
+      int[] target = counts[row];
+      for (int x = 0; x < width; x++) {
+        target[x] = (int) Math.min(
+            Integer.MAX_VALUE,
+            target[x] + Math.min(Integer.MAX_VALUE, values[offset + x])
+        );
+      }
+    }
+
+    @Override
+    public void scaleRow(int row, double factor) {
+      int[] values = counts[row];
+      for (int x = 0; x < width; x++) {
+        values[x] = (int) Math.min(Integer.MAX_VALUE, (long) (values[x] * factor + 0.5));
+      }
+    }
+
+    @Override
+    public void clear() {
+      for (int[] row : counts) {
+        Arrays.fill(row, 0);
+      }
+    }
+
+    @Override
+    public int @NotNull [] @NotNull [] asIntRows() {
+      return counts;
+    }
+  }
+
+  /**
+   * Counts stored as signed longs.
+   */
+  static final class LongStorage extends HistogramStorage {
+    private final long @NotNull [] @NotNull [] counts;
+
+    LongStorage(int width, int height) {
+      super(width, height);
+      counts = new long[height][width];
+    }
+
+    @Override
+    public @NotNull HistogramPrecision getPrecision() {
+      return HistogramPrecision.LONG;
+    }
+
+    @Override
+    public void increment(int row, int x) {
+      long[] values = counts[row];
+      if (values[x] != Long.MAX_VALUE) {
+        values[x]++;
+      }
+    }
+
+    @Override
+    public long get(int row, int x) {
+      return counts[row][x];
+    }
+
+    @Override
+    public void set(int row, int x, long value) {
+      counts[row][x] = Math.max(0, value);
+    }
+
+    @Override
+    public void copyRowInto(int row, int @NotNull [] target, int offset) {
+      long[] values = counts[row];
+      for (int x = 0; x < width; x++) {
+        target[offset + x] = (int) Math.min(Integer.MAX_VALUE, values[x]);
+      }
+    }
+
+    @Override
+    public void setRow(int row, int @NotNull [] values) {
+      long[] target = counts[row];
+      for (int x = 0; x < width; x++) {
+        target[x] = Math.max(0, values[x]);
+      }
+    }
+
+    @Override
+    public void readRow(int row, long @NotNull [] target) {
+      System.arraycopy(counts[row], 0, target, 0, width);
+    }
+
+    @Override
+    public void addRow(int row, long @NotNull [] values, int offset) {
+      long[] target = counts[row];
+      for (int x = 0; x < width; x++) {
+        long sum = target[x] + values[offset + x];
+        // Both counts are non-negative, so a negative sum has overflowed
+        target[x] = sum < 0 ? Long.MAX_VALUE : sum;
+      }
+    }
+
+    @Override
+    public void scaleRow(int row, double factor) {
+      long[] values = counts[row];
+      for (int x = 0; x < width; x++) {
+        // Casting saturates at Long.MAX_VALUE
+        values[x] = (long) (values[x] * factor + 0.5);
+      }
+    }
+
+    @Override
+    public void clear() {
+      for (long[] row : counts) {
+        Arrays.fill(row, 0);
+      }
+    }
+  }
+}
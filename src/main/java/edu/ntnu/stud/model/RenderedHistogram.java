@@ -0,0 +1,82 @@
+package edu.ntnu.stud.model;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A snapshot of the hit counts of a rendered {@link ChaosGameCanvas}, together with the number of
+ * iterations that produced it. Used for storing and exchanging already rendered fractals.
+ *
+ * @param width      the width of the histogram in pixels, at least 1
+ * @param height     the height of the histogram in pixels, at least 1
+ * @param iterations the number of iterations used to render the histogram
+ * @param counts     the hit counts, in the same row layout as {@link ChaosGameCanvas#getCanvas()}
+ * @author Leif Mørstad
+ * @version 1.1
+ */
+public record RenderedHistogram(
+    int width,
+    int height,
+    long iterations,
+    int @NotNull [] @NotNull [] counts
+) {
+
+  /**
+   * Creates a new histogram, and validates that the counts match the given dimensions.
+   *
+   * @throws IllegalArgumentException if the dimensions are less than 1, the iterations are
+   *                                  negative, or the counts do not match the dimensions
+   */
+  public RenderedHistogram {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Width and height must be at least 1 each");
+    }
+    if (iterations < 0) {
+      throw new IllegalArgumentException("Iterations cannot be negative");
+    }
+    if (counts.length != height) {
+      throw new IllegalArgumentException("Histogram must have exactly " + height + " rows");
+    }
+    for (int[] row : counts) {
+      if (row.length != width) {
+        throw new IllegalArgumentException("Histogram rows must have exactly " + width + " values");
+      }
+    }
+  }
+
+  /**
+   * Creates a histogram by copying the current counts of the given canvas. Counts above the range
+   * of an int are clamped.
+   *
+   * @param canvas     the canvas to copy
+   * @param iterations the number of iterations used to render the canvas
+   * @return a histogram with a copy of the counts of the canvas
+   */
+  public static @NotNull RenderedHistogram fromCanvas(
+      @NotNull ChaosGameCanvas canvas,
+      long iterations
+  ) {
+    HistogramStorage source = canvas.getStorage();
+    int[][] counts = new int[canvas.getHeight()][canvas.getWidth()];
+    for (int y = 0; y < counts.length; y++) {
+      source.copyRowInto(y, counts[y], 0);
+    }
+    return new RenderedHistogram(canvas.getWidth(), canvas.getHeight(), iterations, counts);
+  }
+
+  /**
+   * Copies the counts of this histogram into the given canvas, and notifies its subscribers.
+   *
+   * @param canvas the canvas to copy into, must have the same dimensions as this histogram
+   * @throws IllegalArgumentException if the canvas has different dimensions than the histogram
+   */
+  public void copyInto(@NotNull ChaosGameCanvas canvas) throws IllegalArgumentException {
+    if (canvas.getWidth() != width || canvas.getHeight() != height) {
+      throw new IllegalArgumentException("Canvas must have the same dimensions as the histogram");
+    }
+    HistogramStorage target = canvas.getStorage();
+    for (int y = 0; y < height; y++) {
+      target.setRow(y, counts[y]);
+    }
+    canvas.getSubscriptionHandler().notifySubscribers();
+  }
+}
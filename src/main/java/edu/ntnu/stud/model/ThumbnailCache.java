@@ -0,0 +1,222 @@
+package edu.ntnu.stud.model;
+
+import edu.ntnu.stud.model.render.ChaosWalker;
+import edu.ntnu.stud.utils.ResourceHandler;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Renders low resolution previews of fractals in the background, and caches them on disk under
+ * resources/thumbnails/*. The cache is keyed by a hash of the description, so a fractal is only
+ * rendered again if its description changes.
+ *
+ * @author Leif Mørstad
+ * @version 1.2
+ */
+public class ThumbnailCache {
+  private static final Logger LOGGER = Logger.getLogger(ThumbnailCache.class.getName());
+
+  /**
+   * The folder under resources/* the thumbnails are stored in.
+   */
+  private static final String THUMBNAIL_FOLDER = "thumbnails/";
+  /**
+   * The number of iterations per pixel of the thumbnail. Higher than for full renders, as the
+   * thumbnails are small enough for it to be cheap.
+   */
+  private static final int ITERATIONS_PER_PIXEL = 20;
+
+  /**
+   * The width and height of the thumbnails in pixels.
+   */
+  private final int size;
+  /**
+   * The pool rendering the thumbnails. Bounded to half the cores, and runs at the lowest priority
+   * so that it never competes with the main render.
+   */
+  private final @NotNull ExecutorService executor;
+  /**
+   * The thumbnails currently being loaded or rendered, so that concurrent requests for the same
+   * description share the work.
+   */
+  private final @NotNull ConcurrentHashMap<String, CompletableFuture<RenderedHistogram>> pending =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new cache producing square thumbnails of the given size.
+   *
+   * @param size the width and height of the thumbnails, cannot be less than 2
+   * @throws IllegalArgumentException if the size is less than 2
+   */
+  public ThumbnailCache(int size) throws IllegalArgumentException {
+    if (size < 2) {
+      throw new IllegalArgumentException("Thumbnail size must be at least 2");
+    }
+    this.size = size;
+
+    int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    AtomicInteger threadCount = new AtomicInteger();
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(
+        threads,
+        threads,
+        30,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(),
+        runnable -> {
+          Thread thread = new Thread(runnable, "thumbnail-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          thread.setPriority(Thread.MIN_PRIORITY);
+          return thread;
+        }
+    );
+    pool.allowCoreThreadTimeOut(true);
+    this.executor = pool;
+  }
+
+  /**
+   * Returns the thumbnail of the given description, either from the disk cache or by rendering it
+   * in the background. The future completes exceptionally if the thumbnail can't be created.
+   *
+   * @param description the description to create a thumbnail of
+   * @return a future completing with the thumbnail histogram
+   */
+  public @NotNull CompletableFuture<RenderedHistogram> get(
+      @NotNull ChaosGameDescription description
+  ) {
+    String key;
+    try {
+      key = hash(description);
+    } catch (IllegalArgumentException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    CompletableFuture<RenderedHistogram> future = new CompletableFuture<>();
+    CompletableFuture<RenderedHistogram> existing = pending.putIfAbsent(key, future);
+    if (existing != null) {
+      return existing;
+    }
+    executor.execute(() -> {
+      try {
+        future.complete(loadOrRender(key, description));
+      } catch (RuntimeException e) {
+        future.completeExceptionally(e);
+      } finally {
+        pending.remove(key, future);
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Returns the thumbnail of the description in the given fractal file, like
+   * {@link #get(ChaosGameDescription)}, but also reads the file in the background, so that the
+   * caller never waits for the disk. The future completes exceptionally if the file can't be read.
+   *
+   * @param file the JSON or binary fractal file to create a thumbnail of
+   * @return a future completing with the thumbnail histogram
+   * @see ChaosGameFileHandler#readFromPath(Path)
+   */
+  public @NotNull CompletableFuture<RenderedHistogram> get(@NotNull Path file) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return ChaosGameFileHandler.readFromPath(file);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }, executor).thenCompose(this::get);
+  }
+
+  /**
+   * Reads the thumbnail from disk, or renders and stores it if it's missing or unreadable.
+   *
+   * @param key         the hash of the description
+   * @param description the description to render
+   * @return the thumbnail histogram
+   */
+  private @NotNull RenderedHistogram loadOrRender(
+      @NotNull String key,
+      @NotNull ChaosGameDescription description
+  ) {
+    Path path = getCacheFile(key).toPath();
+    if (path.toFile().isFile()) {
+      try {
+        RenderedHistogram cached = ChaosGameFileHandler.readBinaryFile(path).histogram();
+        if (cached != null && cached.width() == size && cached.height() == size) {
+          return cached;
+        }
+      } catch (IOException e) {
+        LOGGER.warning("Could not read cached thumbnail, rendering it again: " + path);
+      }
+    }
+
+    RenderedHistogram histogram = render(description);
+    try {
+      File folder = ResourceHandler.getFile(THUMBNAIL_FOLDER);
+      if (!folder.isDirectory() && !folder.mkdirs()) {
+        throw new IOException("Could not create thumbnail folder");
+      }
+      ChaosGameFileHandler.writeBinaryFile(path, description, histogram);
+    } catch (IOException e) {
+      LOGGER.warning("Could not cache thumbnail: " + e.getMessage());
+    }
+    return histogram;
+  }
+
+  /**
+   * Renders the description at the thumbnail size. Draws directly into an array instead of
+   * through a {@link ChaosGameCanvas}, as no one subscribes to the thumbnail while rendering, with
+   * a walker of its own so that the render threads don't contend on the generator of the group.
+   *
+   * @param description the description to render
+   * @return the rendered thumbnail
+   */
+  private @NotNull RenderedHistogram render(@NotNull ChaosGameDescription description) {
+    ChaosWalker walker = new ChaosWalker(description.transformations(), new SplittableRandom());
+    int[] flat = new int[size * size];
+    long iterations = (long) size * size * ITERATIONS_PER_PIXEL;
+    walker.plot(iterations, size, size, description.minCoords(), description.maxCoords(), flat);
+    int[][] counts = new int[size][];
+    for (int row = 0; row < size; row++) {
+      counts[row] = Arrays.copyOfRange(flat, row * size, (row + 1) * size);
+    }
+    return new RenderedHistogram(size, size, iterations, counts);
+  }
+
+  /**
+   * Returns the file the thumbnail with the given key is cached in.
+   *
+   * @param key the hash of the description
+   * @return the cache file
+   */
+  private @NotNull File getCacheFile(@NotNull String key) {
+    return ResourceHandler.getFile(THUMBNAIL_FOLDER + key + ChaosGameFileHandler.BINARY_EXTENSION);
+  }
+
+  /**
+   * Hashes the binary encoding of the description together with the thumbnail settings.
+   *
+   * @param description the description to hash
+   * @return a hex string uniquely identifying the thumbnail
+   * @throws IllegalArgumentException if the description can't be encoded
+   */
+  private @NotNull String hash(@NotNull ChaosGameDescription description) {
+    return ChaosGameBinaryFormat.fingerprint(description, ByteBuffer.allocate(2 * Integer.BYTES)
+        .putInt(size)
+        .putInt(ITERATIONS_PER_PIXEL)
+        .flip());
+  }
+}
@@ -0,0 +1,267 @@
+package edu.ntnu.stud.model.animation;
+
+import edu.ntnu.stud.model.ChaosGame;
+import edu.ntnu.stud.model.ColorPalette;
+import edu.ntnu.stud.model.HistogramPrecision;
+import org.jetbrains.annotations.NotNull;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * Exports a {@link MorphAnimation} as a numbered sequence of PNG files, without JavaFX.
+ *
+ * <p>
+ * The export is a two stage pipeline. Frames are rendered concurrently on a bounded pool, and
+ * handed to a separate set of encoder threads through a bounded queue. Renderers block once the
+ * queue is full, so at most one frame per render thread and one per queue slot are held in memory
+ * at any time, no matter how long the animation is.
+ * </p>
+ *
+ * <p>
+ * Every frame is rendered with the same seed, so consecutive frames pick the same transformations
+ * and the points drift smoothly with the morph instead of flickering between frames.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.1
+ */
+public class AnimationExporter {
+  private static final Logger LOGGER = Logger.getLogger(AnimationExporter.class.getName());
+
+  /**
+   * The marker telling an encoder thread that no more frames will arrive.
+   */
+  private static final Frame END = new Frame(-1, new int[0]);
+
+  private final int width;
+  private final int height;
+  private final int renderThreads;
+  private final int encoderThreads;
+  private final int queueCapacity;
+  private final @NotNull ColorPalette palette;
+  private long seed = 0;
+
+  /**
+   * Creates an exporter rendering on one thread per core, with a quarter as many encoders.
+   *
+   * @param width  the width of the frames in pixels, cannot be less than 1
+   * @param height the height of the frames in pixels, cannot be less than 1
+   * @throws IllegalArgumentException if the size is less than 1
+   */
+  public AnimationExporter(int width, int height) throws IllegalArgumentException {
+    this(
+        width,
+        height,
+        Runtime.getRuntime().availableProcessors(),
+        Math.max(1, Runtime.getRuntime().availableProcessors() / 4),
+        2 * Runtime.getRuntime().availableProcessors(),
+        ColorPalette.DEFAULT
+    );
+  }
+
+  /**
+   * Creates an exporter with the given pipeline sizes.
+   *
+   * @param width          the width of the frames in pixels, cannot be less than 1
+   * @param height         the height of the frames in pixels, cannot be less than 1
+   * @param renderThreads  the number of frames rendered at once, at least 1
+   * @param encoderThreads the number of frames encoded at once, at least 1
+   * @param queueCapacity  the number of rendered frames which can wait for an encoder, at least 1
+   * @param palette        the palette to color the frames with
+   * @throws IllegalArgumentException if any size is less than 1
+   */
+  public AnimationExporter(
+      int width,
+      int height,
+      int renderThreads,
+      int encoderThreads,
+      int queueCapacity,
+      @NotNull ColorPalette palette
+  ) throws IllegalArgumentException {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Width and height must be at least 1 each");
+    }
+    if (renderThreads < 1 || encoderThreads < 1 || queueCapacity < 1) {
+      throw new IllegalArgumentException("Thread counts and queue capacity must be at least 1");
+    }
+    this.width = width;
+    this.height = height;
+    this.renderThreads = renderThreads;
+    this.encoderThreads = encoderThreads;
+    this.queueCapacity = queueCapacity;
+    this.palette = palette;
+  }
+
+  /**
+   * Sets the seed every frame is rendered with, 0 by default.
+   *
+   * @param seed the seed of the random picking of transformations
+   */
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * Returns the name of the file of the given frame, numbered from 1 and zero padded so the files
+   * sort in order.
+   *
+   * @param frame the index of the frame, from 0
+   * @return the file name of the frame
+   */
+  public static @NotNull String getFrameFileName(int frame) {
+    return String.format("frame-%05d.png", frame + 1);
+  }
+
+  /**
+   * Renders every frame of the animation and writes it to the given directory. Blocks until all
+   * frames are written, or stops at the first failure.
+   *
+   * @param animation the animation to export
+   * @param directory the directory to write the frames to, created if missing
+   * @throws IOException          if the directory or a frame could not be written
+   * @throws InterruptedException if interrupted while waiting for the export
+   */
+  public void export(
+      @NotNull MorphAnimation animation,
+      @NotNull Path directory
+  ) throws IOException, InterruptedException {
+    Files.createDirectories(directory);
+    BlockingQueue<Frame> queue = new ArrayBlockingQueue<>(queueCapacity);
+    AtomicReference<Exception> failure = new AtomicReference<>();
+
+    AtomicInteger threadCount = new AtomicInteger();
+    ExecutorService renderPool = Executors.newFixedThreadPool(renderThreads, runnable -> {
+      Thread thread = new Thread(runnable, "animation-render-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    ArrayList<Thread> encoders = new ArrayList<>();
+    for (int i = 0; i < encoderThreads; i++) {
+      Thread encoder = new Thread(
+          () -> encodeFrames(queue, directory, failure, renderPool),
+          "animation-encoder-" + (i + 1)
+      );
+      encoder.setDaemon(true);
+      encoder.start();
+      encoders.add(encoder);
+    }
+
+    try {
+      for (int i = 0; i < animation.getFrameCount(); i++) {
+        int frame = i;
+        renderPool.execute(() -> renderFrame(animation, frame, queue, failure));
+      }
+      renderPool.shutdown();
+      renderPool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+      for (int i = 0; i < encoders.size(); i++) {
+        while (failure.get() == null && !queue.offer(END, 100, TimeUnit.MILLISECONDS)) {
+          // Waits for the encoders to make room, unless one of them failed
+        }
+      }
+      if (failure.get() != null) {
+        encoders.forEach(Thread::interrupt);
+      }
+      for (Thread encoder : encoders) {
+        encoder.join();
+      }
+    } finally {
+      renderPool.shutdownNow();
+      encoders.forEach(Thread::interrupt);
+    }
+
+    Exception e = failure.get();
+    if (e instanceof IOException ioException) {
+      throw ioException;
+    }
+    if (e != null) {
+      throw new IOException("Could not export animation: " + e.getMessage(), e);
+    }
+    LOGGER.info("Exported " + animation.getFrameCount() + " frames to " + directory);
+  }
+
+  /**
+   * Renders a single frame and queues it for encoding. Skipped if the export has failed.
+   */
+  private void renderFrame(
+      @NotNull MorphAnimation animation,
+      int frame,
+      @NotNull BlockingQueue<Frame> queue,
+      @NotNull AtomicReference<Exception> failure
+  ) {
+    if (failure.get() != null) {
+      return;
+    }
+    try {
+      // The palette only has a few colors, so saturating bytes render the same image
+      ChaosGame chaosGame = new ChaosGame(
+          width,
+          height,
+          animation.getFrame(frame),
+          HistogramPrecision.BYTE
+      );
+      chaosGame.setSeed(seed);
+      chaosGame.render();
+      queue.put(new Frame(frame, palette.mapColors(chaosGame.getCanvas().getStorage())));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      failure.compareAndSet(null, e);
+    }
+  }
+
+  /**
+   * Writes frames from the queue until given the end marker. Stops the renderers on failure, so
+   * that they don't block on a queue no one empties.
+   */
+  private void encodeFrames(
+      @NotNull BlockingQueue<Frame> queue,
+      @NotNull Path directory,
+      @NotNull AtomicReference<Exception> failure,
+      @NotNull ExecutorService renderPool
+  ) {
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    try {
+      while (true) {
+        Frame frame = queue.take();
+        if (frame == END) {
+          return;
+        }
+        image.setRGB(0, 0, width, height, frame.pixels(), 0, width);
+        Path file = directory.resolve(getFrameFileName(frame.index()));
+        if (!ImageIO.write(image, "png", file.toFile())) {
+          throw new IOException("No PNG writer is available");
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException | RuntimeException e) {
+      failure.compareAndSet(null, e);
+      renderPool.shutdownNow();
+    }
+  }
+
+  /**
+   * A rendered frame waiting to be encoded.
+   *
+   * @param index  the index of the frame, from 0
+   * @param pixels the ARGB pixels of the frame, row by row from the top
+   */
+  private record Frame(int index, int @NotNull [] pixels) {
+
+  }
+}
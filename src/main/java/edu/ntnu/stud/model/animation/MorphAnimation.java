@@ -0,0 +1,168 @@
+package edu.ntnu.stud.model.animation;
+
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.math.AffineTransformation;
+import edu.ntnu.stud.model.math.ComplexNumber;
+import edu.ntnu.stud.model.math.JuliaTransformation;
+import edu.ntnu.stud.model.math.SimpleMatrix;
+import edu.ntnu.stud.model.math.Transform2D;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * An animation morphing between two or more key descriptions over a number of frames, by linearly
+ * interpolating their bounds and transformation coefficients. The key descriptions are spread
+ * evenly over the frames, with the first and last frame being the first and last key.
+ *
+ * <p>
+ * Every key must have the same number of transformations, and the transformation at each index
+ * must be of the same type in every key. The sign of julia transformations can't be interpolated,
+ * so it switches halfway between two keys.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.0
+ */
+public class MorphAnimation {
+
+  private final @NotNull ChaosGameDescription @NotNull [] keys;
+  private final int frameCount;
+
+  /**
+   * Creates a new animation through the given keys.
+   *
+   * @param keys       the descriptions to morph between, at least 2
+   * @param frameCount the number of frames, at least the number of keys
+   * @throws IllegalArgumentException if there are too few keys or frames, or the keys can't be
+   *                                  interpolated between
+   */
+  public MorphAnimation(
+      @NotNull List<ChaosGameDescription> keys,
+      int frameCount
+  ) throws IllegalArgumentException {
+    if (keys.size() < 2) {
+      throw new IllegalArgumentException("An animation needs at least 2 key descriptions");
+    }
+    if (frameCount < keys.size()) {
+      throw new IllegalArgumentException("An animation needs at least one frame per key");
+    }
+    Transform2D[] first = keys.get(0).transformations().getTransformations();
+    for (ChaosGameDescription key : keys) {
+      Transform2D[] transformations = key.transformations().getTransformations();
+      if (transformations.length != first.length) {
+        throw new IllegalArgumentException(
+            "Every key must have the same number of transformations"
+        );
+      }
+      for (int i = 0; i < first.length; i++) {
+        if (transformations[i].getClass() != first[i].getClass()) {
+          throw new IllegalArgumentException(
+              "Transformation " + i + " must be of the same type in every key"
+          );
+        }
+        boolean supported = first[i] instanceof AffineTransformation
+            || first[i] instanceof JuliaTransformation;
+        if (!supported) {
+          throw new IllegalArgumentException(
+              "Unsupported transformation type: " + first[i].getType()
+          );
+        }
+      }
+    }
+    this.keys = keys.toArray(new ChaosGameDescription[0]);
+    this.frameCount = frameCount;
+  }
+
+  /**
+   * Returns the number of frames in the animation.
+   *
+   * @return the number of frames
+   */
+  public int getFrameCount() {
+    return frameCount;
+  }
+
+  /**
+   * Returns the description of the given frame.
+   *
+   * @param frame the index of the frame, from 0
+   * @return the interpolated description of the frame
+   * @throws IndexOutOfBoundsException if the frame is outside the animation
+   */
+  public @NotNull ChaosGameDescription getFrame(int frame) throws IndexOutOfBoundsException {
+    if (frame < 0 || frame >= frameCount) {
+      throw new IndexOutOfBoundsException("Frame " + frame + " is outside the animation");
+    }
+    double position = (double) frame / (frameCount - 1) * (keys.length - 1);
+    int segment = Math.min((int) position, keys.length - 2);
+    return interpolate(keys[segment], keys[segment + 1], position - segment);
+  }
+
+  /**
+   * Interpolates linearly between two descriptions with matching transformations.
+   *
+   * @param from the description at t = 0
+   * @param to   the description at t = 1
+   * @param t    the position between the descriptions
+   * @return the interpolated description
+   */
+  static @NotNull ChaosGameDescription interpolate(
+      @NotNull ChaosGameDescription from,
+      @NotNull ChaosGameDescription to,
+      double t
+  ) {
+    Transform2D[] fromTransformations = from.transformations().getTransformations();
+    Transform2D[] toTransformations = to.transformations().getTransformations();
+    Transform2D[] transformations = new Transform2D[fromTransformations.length];
+    for (int i = 0; i < transformations.length; i++) {
+      transformations[i] = interpolate(fromTransformations[i], toTransformations[i], t);
+    }
+    return new ChaosGameDescription(
+        interpolate(from.minCoords(), to.minCoords(), t),
+        interpolate(from.maxCoords(), to.maxCoords(), t),
+        new TransformationGroup(transformations)
+    );
+  }
+
+  private static @NotNull Transform2D interpolate(
+      @NotNull Transform2D from,
+      @NotNull Transform2D to,
+      double t
+  ) {
+    if (from instanceof JuliaTransformation fromJulia
+        && to instanceof JuliaTransformation toJulia) {
+      return new JuliaTransformation(
+          ComplexNumber.fromVector(interpolate(
+              fromJulia.getComplexNumber(),
+              toJulia.getComplexNumber(),
+              t
+          )),
+          t < 0.5 ? fromJulia.getSign() : toJulia.getSign()
+      );
+    }
+    AffineTransformation fromAffine = (AffineTransformation) from;
+    AffineTransformation toAffine = (AffineTransformation) to;
+    SimpleMatrix a = fromAffine.getMatrix();
+    SimpleMatrix b = toAffine.getMatrix();
+    return new AffineTransformation(
+        new SimpleMatrix(
+            lerp(a.a00(), b.a00(), t),
+            lerp(a.a01(), b.a01(), t),
+            lerp(a.a10(), b.a10(), t),
+            lerp(a.a11(), b.a11(), t)
+        ),
+        interpolate(fromAffine.getTranslation(), toAffine.getTranslation(), t)
+    );
+  }
+
+  private static @NotNull Vector interpolate(@NotNull Vector from, @NotNull Vector to, double t) {
+    return new Vector(lerp(from.getX0(), to.getX0(), t), lerp(from.getX1(), to.getX1(), t));
+  }
+
+  private static double lerp(double from, double to, double t) {
+    return from + (to - from) * t;
+  }
+}
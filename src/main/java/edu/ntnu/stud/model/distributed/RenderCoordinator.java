@@ -0,0 +1,254 @@
+package edu.ntnu.stud.model.distributed;
+
+import edu.ntnu.stud.model.ChaosGameCanvas;
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.HistogramPrecision;
+import edu.ntnu.stud.model.HistogramStorage;
+import edu.ntnu.stud.model.RenderedHistogram;
+import edu.ntnu.stud.model.distributed.RenderProtocol.Request;
+import edu.ntnu.stud.model.distributed.RenderProtocol.WorkerException;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * Splits a render into units of work with their own seeds, and spreads them over a set of
+ * {@link RenderWorker}s over TCP. The histograms sent back are summed into a single canvas.
+ *
+ * <p>
+ * Every worker gets its own connection and pulls units from a shared queue, so faster workers
+ * take more of the work. If a worker fails, sends an invalid histogram or doesn't answer within
+ * the response timeout, the unit it was rendering goes back on the queue for the remaining
+ * workers, and the render only fails if every worker does.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.2
+ * @see RenderProtocol
+ */
+public class RenderCoordinator {
+  private static final Logger LOGGER = Logger.getLogger(RenderCoordinator.class.getName());
+
+  /**
+   * The time to wait for a worker to accept a connection.
+   */
+  private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+  /**
+   * The default time to wait for a worker to answer a unit.
+   */
+  private static final int DEFAULT_RESPONSE_TIMEOUT_MILLIS = 10 * 60 * 1000;
+
+  private final @NotNull List<InetSocketAddress> workers;
+  private final int unitsPerWorker;
+  private int responseTimeoutMillis = DEFAULT_RESPONSE_TIMEOUT_MILLIS;
+
+  /**
+   * Creates a new coordinator for the given workers.
+   *
+   * @param workers        the addresses of the workers, at least one
+   * @param unitsPerWorker the number of units the render is split into per worker, at least 1.
+   *                       More units spread the load better and lose less work on failures, at
+   *                       the cost of sending more histograms
+   * @throws IllegalArgumentException if no workers are given, or the units are less than 1
+   */
+  public RenderCoordinator(
+      @NotNull List<InetSocketAddress> workers,
+      int unitsPerWorker
+  ) throws IllegalArgumentException {
+    if (workers.isEmpty()) {
+      throw new IllegalArgumentException("At least one worker must be given");
+    }
+    if (unitsPerWorker < 1) {
+      throw new IllegalArgumentException("Units per worker must be at least 1");
+    }
+    this.workers = List.copyOf(workers);
+    this.unitsPerWorker = unitsPerWorker;
+  }
+
+  /**
+   * Sets the time to wait for a worker to answer a unit before giving up on the worker and
+   * reassigning the unit. Should be well above the time a worker takes to render a unit.
+   *
+   * @param responseTimeoutMillis the timeout in milliseconds, at least 1
+   * @throws IllegalArgumentException if the timeout is less than 1
+   */
+  public void setResponseTimeout(int responseTimeoutMillis) throws IllegalArgumentException {
+    if (responseTimeoutMillis < 1) {
+      throw new IllegalArgumentException("Response timeout must be at least 1 millisecond");
+    }
+    this.responseTimeoutMillis = responseTimeoutMillis;
+  }
+
+  /**
+   * Renders the description across the workers, and merges the results into a new canvas with
+   * {@link HistogramPrecision#LONG} counts. The seeds of the units are drawn in order from a
+   * {@link SplittableRandom} seeded with the seed, so neighbouring seeds don't give the units
+   * correlated random sequences, and the same seed always gives the same picture no matter which
+   * worker renders which unit.
+   *
+   * @param description the description to render
+   * @param width       the width of the canvas
+   * @param height      the height of the canvas
+   * @param iterations  the total number of iterations, split evenly over the units
+   * @param seed        the seed the seeds of the units are drawn from
+   * @return the merged canvas
+   * @throws IOException          if every worker failed, or a worker could not render a unit
+   * @throws InterruptedException if interrupted while waiting for the workers
+   */
+  public @NotNull ChaosGameCanvas render(
+      @NotNull ChaosGameDescription description,
+      int width,
+      int height,
+      long iterations,
+      long seed
+  ) throws IOException, InterruptedException {
+    ChaosGameCanvas canvas = new ChaosGameCanvas(
+        width,
+        height,
+        description.minCoords(),
+        description.maxCoords(),
+        HistogramPrecision.LONG
+    );
+    int unitCount = workers.size() * unitsPerWorker;
+    LinkedBlockingQueue<Request> pending = new LinkedBlockingQueue<>();
+    SplittableRandom seeds = new SplittableRandom(seed);
+    for (int i = 0; i < unitCount; i++) {
+      long unitIterations = iterations / unitCount + (i < iterations % unitCount ? 1 : 0);
+      pending.add(new Request(description, width, height, seeds.nextLong(), unitIterations));
+    }
+    AtomicInteger remaining = new AtomicInteger(unitCount);
+    AtomicReference<IOException> fatal = new AtomicReference<>();
+
+    ArrayList<Thread> threads = new ArrayList<>();
+    for (InetSocketAddress worker : workers) {
+      Thread thread = new Thread(
+          () -> runWorker(worker, pending, remaining, fatal, canvas),
+          "render-coordinator-" + worker
+      );
+      thread.setDaemon(true);
+      thread.start();
+      threads.add(thread);
+    }
+    try {
+      for (Thread thread : threads) {
+        thread.join();
+      }
+    } finally {
+      threads.forEach(Thread::interrupt);
+    }
+
+    if (fatal.get() != null) {
+      throw fatal.get();
+    }
+    if (remaining.get() > 0) {
+      throw new IOException(
+          "Every worker failed with " + remaining.get() + " of " + unitCount + " units left"
+      );
+    }
+    canvas.getSubscriptionHandler().notifySubscribers();
+    return canvas;
+  }
+
+  /**
+   * Sends units to a single worker until every unit is done, the render fails, or the worker
+   * fails. The unit being rendered by a failed worker is put back for the others, also when the
+   * histogram it sent could not be merged.
+   */
+  private void runWorker(
+      @NotNull InetSocketAddress worker,
+      @NotNull LinkedBlockingQueue<Request> pending,
+      @NotNull AtomicInteger remaining,
+      @NotNull AtomicReference<IOException> fatal,
+      @NotNull ChaosGameCanvas canvas
+  ) {
+    try (Socket socket = new Socket()) {
+      socket.connect(worker, CONNECT_TIMEOUT_MILLIS);
+      socket.setSoTimeout(responseTimeoutMillis);
+      DataOutputStream output = new DataOutputStream(
+          new BufferedOutputStream(socket.getOutputStream())
+      );
+      DataInputStream input = new DataInputStream(
+          new BufferedInputStream(socket.getInputStream())
+      );
+      while (remaining.get() > 0 && fatal.get() == null) {
+        Request unit = pending.poll(100, TimeUnit.MILLISECONDS);
+        if (unit == null) {
+          // Other workers are still rendering, and might fail and put their units back
+          continue;
+        }
+        try {
+          RenderProtocol.writeRequest(output, unit);
+          merge(canvas, RenderProtocol.readResponse(input));
+        } catch (WorkerException e) {
+          fatal.compareAndSet(null, e);
+          return;
+        } catch (IOException e) {
+          pending.add(unit);
+          throw e;
+        }
+        remaining.decrementAndGet();
+      }
+    } catch (IOException e) {
+      LOGGER.warning("Worker " + worker + " failed, reassigning its work: " + e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Adds the counts of a histogram to the canvas, saturating at the maximum of the canvas. The
+   * histogram is checked before anything is added, so an invalid histogram leaves the canvas
+   * untouched. Adding is synchronized on the canvas, as every worker thread merges into the same
+   * canvas.
+   *
+   * @param canvas    the canvas to add to
+   * @param histogram the histogram to add
+   * @throws IOException if the histogram doesn't match the size of the canvas, or has negative
+   *                     counts
+   */
+  private static void merge(
+      @NotNull ChaosGameCanvas canvas,
+      @NotNull RenderedHistogram histogram
+  ) throws IOException {
+    int width = canvas.getWidth();
+    int height = canvas.getHeight();
+    int[][] counts = histogram.counts();
+    if (histogram.width() != width || histogram.height() != height || counts.length != height) {
+      throw new IOException("Worker sent a histogram of the wrong size");
+    }
+    for (int[] row : counts) {
+      if (row.length != width) {
+        throw new IOException("Worker sent a histogram of the wrong size");
+      }
+      for (int count : row) {
+        if (count < 0) {
+          throw new IOException("Worker sent a histogram with negative counts");
+        }
+      }
+    }
+    HistogramStorage storage = canvas.getStorage();
+    long[] values = new long[width];
+    synchronized (canvas) {
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          values[x] = counts[y][x];
+        }
+        storage.addRow(y, values, 0);
+      }
+    }
+  }
+}
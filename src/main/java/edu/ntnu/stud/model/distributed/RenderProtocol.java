@@ -0,0 +1,200 @@
+package edu.ntnu.stud.model.distributed;
+
+import edu.ntnu.stud.model.ChaosGameBinaryFormat;
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.RenderedHistogram;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serial;
+import java.nio.ByteBuffer;
+
+/**
+ * The messages sent between a {@link RenderCoordinator} and its {@link RenderWorker}s. A
+ * connection carries any number of request and response pairs, one at a time.
+ *
+ * <p>
+ * Descriptions and histograms are sent in {@link ChaosGameBinaryFormat}, so histograms travel
+ * deflated. Layout of a request:
+ * <pre>
+ *   int    magic ("CGWR")
+ *   int    width
+ *   int    height
+ *   long   seed
+ *   long   iterations
+ *   int    length of the description
+ *   byte[] description in the binary format, without a histogram
+ * </pre>
+ * A response is a status byte, followed by the length and the binary format of the description
+ * with the rendered histogram if the status is {@link #STATUS_OK}, or an error message otherwise.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.1
+ */
+final class RenderProtocol {
+
+  /**
+   * The magic number every request starts with, "CGWR" in ASCII.
+   */
+  static final int MAGIC = 0x43475752;
+  static final byte STATUS_OK = 0;
+  static final byte STATUS_ERROR = 1;
+  /**
+   * The largest message accepted, protecting against corrupt lengths.
+   */
+  private static final int MAX_MESSAGE_LENGTH = 512 * 1024 * 1024;
+
+  private RenderProtocol() {
+  }
+
+  /**
+   * A unit of work sent to a worker.
+   *
+   * @param description the description to render
+   * @param width       the width of the histogram
+   * @param height      the height of the histogram
+   * @param seed        the seed of the transformation picks
+   * @param iterations  the number of iterations to draw
+   */
+  record Request(
+      @NotNull ChaosGameDescription description,
+      int width,
+      int height,
+      long seed,
+      long iterations
+  ) {
+
+  }
+
+  static void writeRequest(
+      @NotNull DataOutputStream output,
+      @NotNull Request request
+  ) throws IOException {
+    output.writeInt(MAGIC);
+    output.writeInt(request.width());
+    output.writeInt(request.height());
+    output.writeLong(request.seed());
+    output.writeLong(request.iterations());
+    writeBuffer(output, ChaosGameBinaryFormat.encode(request.description(), null));
+    output.flush();
+  }
+
+  /**
+   * Reads the next request.
+   *
+   * @param input the stream to read from
+   * @return the request
+   * @throws java.io.EOFException   if the stream ended before a new request
+   * @throws InvalidObjectException if the request is invalid
+   * @throws IOException            if the stream could not be read
+   */
+  static @NotNull Request readRequest(@NotNull DataInputStream input) throws IOException {
+    if (input.readInt() != MAGIC) {
+      throw new InvalidObjectException("Not a render request");
+    }
+    int width = input.readInt();
+    int height = input.readInt();
+    long seed = input.readLong();
+    long iterations = input.readLong();
+    ChaosGameDescription description = ChaosGameBinaryFormat.decode(readBuffer(input))
+        .description();
+    if (width < 1 || height < 1 || iterations < 0) {
+      throw new InvalidObjectException("Invalid render request");
+    }
+    return new Request(description, width, height, seed, iterations);
+  }
+
+  static void writeResult(
+      @NotNull DataOutputStream output,
+      @NotNull ChaosGameDescription description,
+      @NotNull RenderedHistogram histogram
+  ) throws IOException {
+    output.writeByte(STATUS_OK);
+    writeBuffer(output, ChaosGameBinaryFormat.encode(description, histogram));
+    output.flush();
+  }
+
+  static void writeError(
+      @NotNull DataOutputStream output,
+      @NotNull String message
+  ) throws IOException {
+    output.writeByte(STATUS_ERROR);
+    output.writeUTF(message);
+    output.flush();
+  }
+
+  /**
+   * Reads the response to a request.
+   *
+   * @param input the stream to read from
+   * @return the rendered histogram
+   * @throws WorkerException if the worker could not render the request
+   * @throws IOException     if the stream could not be read, or the response is invalid
+   */
+  static @NotNull RenderedHistogram readResponse(
+      @NotNull DataInputStream input
+  ) throws IOException {
+    byte status = input.readByte();
+    if (status == STATUS_ERROR) {
+      throw new WorkerException(input.readUTF());
+    }
+    if (status != STATUS_OK) {
+      throw new InvalidObjectException("Unknown response status: " + status);
+    }
+    RenderedHistogram histogram = ChaosGameBinaryFormat.decode(readBuffer(input)).histogram();
+    if (histogram == null) {
+      throw new InvalidObjectException("Response did not contain a histogram");
+    }
+    return histogram;
+  }
+
+  private static void writeBuffer(
+      @NotNull DataOutputStream output,
+      @NotNull ByteBuffer buffer
+  ) throws IOException {
+    output.writeInt(buffer.remaining());
+    output.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+  }
+
+  private static @NotNull ByteBuffer readBuffer(
+      @NotNull DataInputStream input
+  ) throws IOException {
+    int length = input.readInt();
+    if (length < 0 || length > MAX_MESSAGE_LENGTH) {
+      throw new InvalidObjectException("Invalid message length: " + length);
+    }
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return ByteBuffer.wrap(bytes);
+  }
+
+  /**
+   * Returns the message of an exception, or its type if it has none.
+   *
+   * @param e the exception to describe
+   * @return a description of the exception
+   */
+  static @NotNull String describe(@NotNull Exception e) {
+    @Nullable String message = e.getMessage();
+    return message == null ? e.getClass().getSimpleName() : message;
+  }
+
+  /**
+   * Thrown when a worker reports that it could not render a request. The connection is still
+   * usable, but the request will fail the same way on any worker.
+   */
+  static final class WorkerException extends IOException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    WorkerException(@NotNull String message) {
+      super(message);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package edu.ntnu.stud.model.distributed;
+
+import edu.ntnu.stud.model.ChaosGameCanvas;
+import edu.ntnu.stud.model.HistogramPrecision;
+import edu.ntnu.stud.model.RenderedHistogram;
+import edu.ntnu.stud.model.distributed.RenderProtocol.Request;
+import edu.ntnu.stud.model.render.DeterministicRenderer;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * A server rendering histograms for a {@link RenderCoordinator}. Each connection is served on its
+ * own thread, rendering one request at a time with the seed and number of iterations it was
+ * given, and sending the histogram back deflated. Every request is rendered on every core with a
+ * {@link DeterministicRenderer}, so the histogram only depends on the request, not on the cores
+ * of the worker.
+ *
+ * @author Leif Mørstad
+ * @version 1.1
+ * @see RenderProtocol
+ */
+public class RenderWorker implements Closeable {
+  private static final Logger LOGGER = Logger.getLogger(RenderWorker.class.getName());
+
+  private final @NotNull ServerSocket serverSocket;
+  private final @NotNull ExecutorService connections;
+  /**
+   * The open connections, closed together with the worker, as threads blocked reading a socket
+   * can't be interrupted.
+   */
+  private final @NotNull Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Starts a worker listening on the given port of the loopback address.
+   *
+   * @param port the port to listen on, or 0 to pick a free port
+   * @throws IOException if the port could not be bound
+   */
+  public RenderWorker(int port) throws IOException {
+    this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+  }
+
+  /**
+   * Starts a worker listening on the given address.
+   *
+   * @param address the address to listen on
+   * @throws IOException if the address could not be bound
+   */
+  public RenderWorker(@NotNull InetSocketAddress address) throws IOException {
+    serverSocket = new ServerSocket();
+    serverSocket.bind(address);
+
+    AtomicInteger threadCount = new AtomicInteger();
+    connections = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "render-worker-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    Thread acceptor = new Thread(this::acceptConnections, "render-worker-acceptor");
+    acceptor.setDaemon(true);
+    acceptor.start();
+    LOGGER.info("Render worker listening on " + serverSocket.getLocalSocketAddress());
+  }
+
+  /**
+   * Returns the port the worker listens on.
+   *
+   * @return the local port
+   */
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  private void acceptConnections() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket socket = serverSocket.accept();
+        openSockets.add(socket);
+        connections.execute(() -> serve(socket));
+      } catch (IOException e) {
+        if (!serverSocket.isClosed()) {
+          LOGGER.warning("Could not accept connection: " + e.getMessage());
+        }
+      }
+    }
+  }
+
+  /**
+   * Serves requests on the connection until the coordinator closes it.
+   *
+   * @param socket the connection to serve
+   */
+  private void serve(@NotNull Socket socket) {
+    try (
+        socket;
+        DataInputStream input = new DataInputStream(
+            new BufferedInputStream(socket.getInputStream())
+        );
+        DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream(socket.getOutputStream())
+        )
+    ) {
+      while (true) {
+        Request request;
+        try {
+          request = RenderProtocol.readRequest(input);
+        } catch (EOFException e) {
+          return;
+        }
+        try {
+          RenderProtocol.writeResult(output, request.description(), render(request));
+        } catch (RuntimeException e) {
+          RenderProtocol.writeError(output, RenderProtocol.describe(e));
+        }
+      }
+    } catch (IOException e) {
+      if (!serverSocket.isClosed()) {
+        LOGGER.warning("Connection to coordinator lost: " + e.getMessage());
+      }
+    } finally {
+      openSockets.remove(socket);
+    }
+  }
+
+  /**
+   * Renders the histogram of a request on every core.
+   *
+   * @param request the request to render
+   * @return the rendered histogram
+   * @throws IllegalStateException if the worker was closed while rendering
+   */
+  static @NotNull RenderedHistogram render(@NotNull Request request) {
+    ChaosGameCanvas canvas = new DeterministicRenderer(
+        request.description(),
+        request.width(),
+        request.height(),
+        HistogramPrecision.INT
+    ).render(
+        request.iterations(),
+        request.seed(),
+        Runtime.getRuntime().availableProcessors(),
+        () -> Thread.currentThread().isInterrupted()
+    );
+    if (canvas == null) {
+      throw new IllegalStateException("The render was interrupted");
+    }
+    return RenderedHistogram.fromCanvas(canvas, request.iterations());
+  }
+
+  /**
+   * Stops accepting connections, and closes the open ones.
+   *
+   * @throws IOException if the server socket could not be closed
+   */
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    connections.shutdownNow();
+    for (Socket socket : openSockets) {
+      socket.close();
+    }
+  }
+}
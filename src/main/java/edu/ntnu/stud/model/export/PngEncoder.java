@@ -0,0 +1,432 @@
+package edu.ntnu.stud.model.export;
+
+import edu.ntnu.stud.model.ColorPalette;
+import edu.ntnu.stud.model.HistogramStorage;
+import edu.ntnu.stud.model.RenderedHistogram;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes a histogram as a PNG image without JavaFX, reading the counts row by row straight from
+ * the histogram instead of from a full copy of the image. Writes either
+ * <ul>
+ *   <li>8-bit indexed images, with the colors of a {@link ColorPalette} as the palette, giving the
+ *   same image as mapping the counts through the palette, or</li>
+ *   <li>16-bit grayscale images, with the counts scaled logarithmically so the highest count is
+ *   white.</li>
+ * </ul>
+ *
+ * <p>
+ * The image is cut into horizontal strips compressed in parallel, each as its own raw deflate
+ * stream ended with a sync flush, so that the streams can be stitched together into a single zlib
+ * stream. The checksum of the whole image is combined from the checksums of the strips. Only a few
+ * strips per thread are held in memory at once, and they are written in order as they finish.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.1
+ */
+public class PngEncoder {
+
+  private static final byte[] SIGNATURE = {
+      (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'
+  };
+  /**
+   * The zlib header for a deflate stream with a 32 KiB window and the default compression.
+   */
+  private static final byte[] ZLIB_HEADER = {0x78, (byte) 0x9C};
+  /**
+   * The target size of the uncompressed data of a strip. Large enough for deflate to find most
+   * repetitions within the strip.
+   */
+  private static final int STRIP_BYTES = 512 * 1024;
+  /**
+   * The number of strips per thread that may be compressed or waiting to be written at once.
+   */
+  private static final int STRIPS_PER_THREAD = 2;
+  /**
+   * The largest prime below 2^16, the modulus of the Adler-32 checksum.
+   */
+  private static final int ADLER_BASE = 65521;
+
+  private final @NotNull Format format;
+  private final @NotNull ColorPalette palette;
+  private final int threads;
+  private final int stripRows;
+
+  /**
+   * Creates a new encoder compressing on every core.
+   *
+   * @param format  the format of the images
+   * @param palette the palette of indexed images, ignored for grayscale images
+   * @throws IllegalArgumentException if indexed and the palette has more than 256 colors
+   */
+  public PngEncoder(
+      @NotNull Format format,
+      @NotNull ColorPalette palette
+  ) throws IllegalArgumentException {
+    this(format, palette, Runtime.getRuntime().availableProcessors(), 0);
+  }
+
+  /**
+   * Creates a new encoder.
+   *
+   * @param format    the format of the images
+   * @param palette   the palette of indexed images, ignored for grayscale images
+   * @param threads   the number of threads to compress on, at least 1
+   * @param stripRows the number of rows of each strip, or 0 to pick it from the width
+   * @throws IllegalArgumentException if indexed and the palette has more than 256 colors, or the
+   *                                  threads or strip rows are out of range
+   */
+  public PngEncoder(
+      @NotNull Format format,
+      @NotNull ColorPalette palette,
+      int threads,
+      int stripRows
+  ) throws IllegalArgumentException {
+    if (format == Format.INDEXED_8 && palette.size() > 256) {
+      throw new IllegalArgumentException("Indexed images can have at most 256 colors");
+    }
+    if (threads < 1 || stripRows < 0) {
+      throw new IllegalArgumentException("Threads must be at least 1, and strip rows positive");
+    }
+    this.format = format;
+    this.palette = palette;
+    this.threads = threads;
+    this.stripRows = stripRows;
+  }
+
+  /**
+   * Writes the histogram as a PNG file, replacing it if it exists.
+   *
+   * @param histogram the counts to encode
+   * @param file      the file to write to
+   * @throws IOException if the file could not be written
+   */
+  public void write(@NotNull HistogramStorage histogram, @NotNull Path file) throws IOException {
+    try (OutputStream output = Files.newOutputStream(file)) {
+      write(histogram, output);
+    }
+  }
+
+  /**
+   * Writes the histogram as a PNG image to the stream, leaving it open.
+   *
+   * @param histogram the counts to encode
+   * @param output    the stream to write to
+   * @throws IOException if the stream could not be written to
+   */
+  public void write(
+      @NotNull HistogramStorage histogram,
+      @NotNull OutputStream output
+  ) throws IOException {
+    write(histogram.getWidth(), histogram.getHeight(), histogram::readRow, output);
+  }
+
+  /**
+   * Writes the histogram as a PNG image to the stream, leaving it open.
+   *
+   * @param histogram the counts to encode
+   * @param output    the stream to write to
+   * @throws IOException if the stream could not be written to
+   */
+  public void write(
+      @NotNull RenderedHistogram histogram,
+      @NotNull OutputStream output
+  ) throws IOException {
+    int[][] counts = histogram.counts();
+    write(histogram.width(), histogram.height(), (row, target) -> {
+      int[] values = counts[row];
+      for (int x = 0; x < values.length; x++) {
+        target[x] = values[x];
+      }
+    }, output);
+  }
+
+  private void write(
+      int width,
+      int height,
+      @NotNull RowReader rows,
+      @NotNull OutputStream output
+  ) throws IOException {
+    DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(output, 1 << 16));
+    stream.write(SIGNATURE);
+    writeHeader(stream, width, height);
+    if (format == Format.INDEXED_8) {
+      writePalette(stream);
+    }
+
+    long maxCount = format == Format.GRAY_16 ? findMaxCount(width, height, rows) : 0;
+    int rowsPerStrip = stripRows > 0
+        ? stripRows
+        : Math.max(1, STRIP_BYTES / (1 + width * format.getBytesPerPixel()));
+    int stripCount = (height + rowsPerStrip - 1) / rowsPerStrip;
+
+    AtomicInteger threadCount = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "png-deflate-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      ArrayDeque<Future<Strip>> window = new ArrayDeque<>();
+      long adler = new Adler32().getValue();
+      boolean first = true;
+      for (int strip = 0; strip < stripCount; strip++) {
+        int firstRow = strip * rowsPerStrip;
+        int lastRow = Math.min(height, firstRow + rowsPerStrip);
+        boolean last = strip == stripCount - 1;
+        window.add(pool.submit(
+            () -> compressStrip(width, firstRow, lastRow, last, rows, maxCount)
+        ));
+        // Writes the oldest strip once the window is full, keeping the strips in order
+        while (window.size() >= threads * STRIPS_PER_THREAD || (last && !window.isEmpty())) {
+          Strip compressed = window.poll().get();
+          writeChunk(stream, "IDAT", first ? ZLIB_HEADER : new byte[0], compressed.data());
+          adler = combineAdler32(adler, compressed.adler(), compressed.length());
+          first = false;
+        }
+      }
+      byte[] checksum = {
+          (byte) (adler >>> 24), (byte) (adler >>> 16), (byte) (adler >>> 8), (byte) adler
+      };
+      writeChunk(stream, "IDAT", checksum, new byte[0]);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while encoding", e);
+    } catch (ExecutionException e) {
+      throw new IOException("A strip failed to compress", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+    writeChunk(stream, "IEND", new byte[0], new byte[0]);
+    stream.flush();
+  }
+
+  /**
+   * Filters and compresses a strip of rows into a raw deflate stream. Every strip but the last
+   * ends with a sync flush, which aligns it to a byte without ending the stream.
+   */
+  private @NotNull Strip compressStrip(
+      int width,
+      int firstRow,
+      int lastRow,
+      boolean last,
+      @NotNull RowReader rows,
+      long maxCount
+  ) {
+    int rowBytes = 1 + width * format.getBytesPerPixel();
+    byte[] raw = new byte[(lastRow - firstRow) * rowBytes];
+    long[] counts = new long[width];
+    double logMax = Math.log1p(maxCount);
+    int maxIndex = palette.size() - 1;
+    for (int row = firstRow; row < lastRow; row++) {
+      rows.readRow(row, counts);
+      // The first byte of every row is the filter type, left at 0 for no filter
+      int offset = (row - firstRow) * rowBytes + 1;
+      if (format == Format.INDEXED_8) {
+        for (int x = 0; x < width; x++) {
+          raw[offset + x] = (byte) Math.min(maxIndex, counts[x]);
+        }
+      } else {
+        for (int x = 0; x < width; x++) {
+          int gray = maxCount == 0 ? 0 : (int) (0xFFFF * (Math.log1p(counts[x]) / logMax));
+          raw[offset + 2 * x] = (byte) (gray >>> 8);
+          raw[offset + 2 * x + 1] = (byte) gray;
+        }
+      }
+    }
+
+    Adler32 adler = new Adler32();
+    adler.update(raw);
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    try {
+      deflater.setInput(raw);
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 4 + 64);
+      byte[] buffer = new byte[64 * 1024];
+      if (last) {
+        deflater.finish();
+        while (!deflater.finished()) {
+          compressed.write(buffer, 0, deflater.deflate(buffer));
+        }
+      } else {
+        int length;
+        do {
+          length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+          compressed.write(buffer, 0, length);
+        } while (length == buffer.length);
+      }
+      return new Strip(compressed.toByteArray(), adler.getValue(), raw.length);
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Finds the highest count of the histogram, with the rows read in parallel.
+   */
+  private static long findMaxCount(int width, int height, @NotNull RowReader rows) {
+    return IntStream.range(0, height).parallel().mapToLong(row -> {
+      long[] counts = new long[width];
+      rows.readRow(row, counts);
+      long max = 0;
+      for (long count : counts) {
+        max = Math.max(max, count);
+      }
+      return max;
+    }).max().orElse(0);
+  }
+
+  private void writeHeader(
+      @NotNull DataOutputStream stream,
+      int width,
+      int height
+  ) throws IOException {
+    ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+    DataOutputStream data = new DataOutputStream(header);
+    data.writeInt(width);
+    data.writeInt(height);
+    data.writeByte(format.getBitDepth());
+    data.writeByte(format.getColorType());
+    // Deflate compression, adaptive filtering and no interlacing
+    data.writeByte(0);
+    data.writeByte(0);
+    data.writeByte(0);
+    writeChunk(stream, "IHDR", header.toByteArray(), new byte[0]);
+  }
+
+  private void writePalette(@NotNull DataOutputStream stream) throws IOException {
+    int[] colors = palette.getColors();
+    byte[] entries = new byte[3 * colors.length];
+    for (int i = 0; i < colors.length; i++) {
+      entries[3 * i] = (byte) (colors[i] >>> 16);
+      entries[3 * i + 1] = (byte) (colors[i] >>> 8);
+      entries[3 * i + 2] = (byte) colors[i];
+    }
+    writeChunk(stream, "PLTE", entries, new byte[0]);
+  }
+
+  /**
+   * Writes a chunk with the given data, split in two parts to avoid copying them together.
+   */
+  private static void writeChunk(
+      @NotNull DataOutputStream stream,
+      @NotNull String type,
+      byte @NotNull [] prefix,
+      byte @NotNull [] data
+  ) throws IOException {
+    byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+    CRC32 crc = new CRC32();
+    crc.update(typeBytes);
+    crc.update(prefix);
+    crc.update(data);
+    stream.writeInt(prefix.length + data.length);
+    stream.write(typeBytes);
+    stream.write(prefix);
+    stream.write(data);
+    stream.writeInt((int) crc.getValue());
+  }
+
+  /**
+   * Combines the Adler-32 checksums of two consecutive blocks of data into the checksum of both,
+   * as done by adler32_combine in zlib.
+   *
+   * @param first        the checksum of the first block
+   * @param second       the checksum of the second block
+   * @param secondLength the length of the second block
+   * @return the checksum of the first block followed by the second
+   */
+  static long combineAdler32(long first, long second, long secondLength) {
+    long remainder = secondLength % ADLER_BASE;
+    long sum1 = first & 0xFFFF;
+    long sum2 = remainder * sum1 % ADLER_BASE;
+    sum1 += (second & 0xFFFF) + ADLER_BASE - 1;
+    sum2 += ((first >>> 16) & 0xFFFF) + ((second >>> 16) & 0xFFFF) + ADLER_BASE - remainder;
+    if (sum1 >= ADLER_BASE) {
+      sum1 -= ADLER_BASE;
+    }
+    if (sum1 >= ADLER_BASE) {
+      sum1 -= ADLER_BASE;
+    }
+    if (sum2 >= 2L * ADLER_BASE) {
+      sum2 -= 2L * ADLER_BASE;
+    }
+    if (sum2 >= ADLER_BASE) {
+      sum2 -= ADLER_BASE;
+    }
+    return sum1 | (sum2 << 16);
+  }
+
+  /**
+   * The pixel formats the encoder can write.
+   */
+  public enum Format {
+    /**
+     * 8-bit palette indices, with the colors of the palette.
+     */
+    INDEXED_8(8, 3, 1),
+    /**
+     * 16-bit grayscale, scaled logarithmically from the counts.
+     */
+    GRAY_16(16, 0, 2);
+
+    private final int bitDepth;
+    private final int colorType;
+    private final int bytesPerPixel;
+
+    Format(int bitDepth, int colorType, int bytesPerPixel) {
+      this.bitDepth = bitDepth;
+      this.colorType = colorType;
+      this.bytesPerPixel = bytesPerPixel;
+    }
+
+    private int getBitDepth() {
+      return bitDepth;
+    }
+
+    private int getColorType() {
+      return colorType;
+    }
+
+    private int getBytesPerPixel() {
+      return bytesPerPixel;
+    }
+  }
+
+  /**
+   * Reads a row of counts, row by row from the top.
+   */
+  @FunctionalInterface
+  private interface RowReader {
+    void readRow(int row, long @NotNull [] target);
+  }
+
+  /**
+   * A compressed strip.
+   *
+   * @param data   the raw deflate data of the strip
+   * @param adler  the Adler-32 checksum of the uncompressed strip
+   * @param length the length of the uncompressed strip
+   */
+  private record Strip(byte @NotNull [] data, long adler, long length) {
+
+  }
+}
@@ -0,0 +1,317 @@
+package edu.ntnu.stud.model.export;
+
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.render.ChaosWalker;
+import edu.ntnu.stud.model.math.Vector;
+import edu.ntnu.stud.utils.RenderMetrics;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Streams the raw points of the chaos game to a binary file, without holding them in memory. The
+ * file is little-endian, starting with a header of
+ * <ol>
+ *   <li>the magic number "CGPC" as 4 bytes,</li>
+ *   <li>the version as a byte,</li>
+ *   <li>the number of bytes per coordinate as a byte, 4 for floats and 8 for doubles,</li>
+ *   <li>2 reserved bytes, and</li>
+ *   <li>the number of points as a long,</li>
+ * </ol>
+ * followed by the points as packed x, y pairs. The points start right after the burn-in, and are
+ * not clipped to the bounds of the description.
+ *
+ * <p>
+ * Points are packed into a small ring of large direct buffers. Full buffers are handed to a
+ * writer thread that drains them into a {@link FileChannel} and hands them back, so generating
+ * points only waits for the disk when every buffer in the ring is waiting to be written.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.2
+ */
+public class PointCloudExporter {
+
+  /**
+   * The magic number at the start of every point cloud file, "CGPC" in ASCII.
+   */
+  public static final int MAGIC = 0x43475043;
+  /**
+   * The version of the file layout.
+   */
+  public static final byte VERSION = 1;
+  /**
+   * The size of the header in bytes.
+   */
+  public static final int HEADER_BYTES = 16;
+  /**
+   * The position of the number of points in the header, written once every point is.
+   */
+  private static final int POINT_COUNT_POSITION = 8;
+  /**
+   * The size of each buffer in the ring, large enough for the channel to write in big blocks.
+   */
+  private static final int BUFFER_BYTES = 8 * 1024 * 1024;
+  /**
+   * The number of buffers in the ring.
+   */
+  private static final int BUFFER_COUNT = 4;
+
+  private final @NotNull ChaosGameDescription description;
+  private final @NotNull Precision precision;
+  private final int bufferBytes;
+
+  /**
+   * Creates a new exporter of the description.
+   *
+   * @param description the description to generate points of
+   * @param precision   the type to write the coordinates as
+   */
+  public PointCloudExporter(
+      @NotNull ChaosGameDescription description,
+      @NotNull Precision precision
+  ) {
+    this(description, precision, BUFFER_BYTES);
+  }
+
+  /**
+   * Creates a new exporter with buffers of the given size.
+   *
+   * @param description the description to generate points of
+   * @param precision   the type to write the coordinates as
+   * @param bufferBytes the size of each buffer in the ring, at least one point
+   * @throws IllegalArgumentException if the buffers can't fit a point
+   */
+  PointCloudExporter(
+      @NotNull ChaosGameDescription description,
+      @NotNull Precision precision,
+      int bufferBytes
+  ) throws IllegalArgumentException {
+    if (bufferBytes < precision.getBytesPerPoint()) {
+      throw new IllegalArgumentException("Buffers must fit at least one point");
+    }
+    this.description = description;
+    this.precision = precision;
+    // Buffers only ever hold whole points
+    this.bufferBytes = bufferBytes - bufferBytes % precision.getBytesPerPoint();
+  }
+
+  /**
+   * Generates the given number of points and writes them to the file, replacing it if it exists.
+   *
+   * @param file        the file to write to
+   * @param points      the number of points to generate, at least 0
+   * @param seed        the seed of the random choice of transformations
+   * @param isCancelled returns true once the export should stop, checked between buffers
+   * @return the number of points written, less than asked for if cancelled
+   * @throws IOException              if the file could not be written
+   * @throws IllegalArgumentException if the number of points is negative
+   */
+  public long export(
+      @NotNull Path file,
+      long points,
+      long seed,
+      @NotNull BooleanSupplier isCancelled
+  ) throws IOException, IllegalArgumentException {
+    if (points < 0) {
+      throw new IllegalArgumentException("Number of points cannot be negative");
+    }
+    BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(BUFFER_COUNT);
+    // One more than the buffers, so that the end marker always fits
+    BlockingQueue<ByteBuffer> full = new ArrayBlockingQueue<>(BUFFER_COUNT + 1);
+    for (int i = 0; i < BUFFER_COUNT; i++) {
+      free.add(ByteBuffer.allocateDirect(bufferBytes).order(ByteOrder.LITTLE_ENDIAN));
+    }
+    ByteBuffer end = ByteBuffer.allocate(0);
+    AtomicReference<IOException> failure = new AtomicReference<>();
+    AtomicLong flushedBytes = new AtomicLong();
+
+    try (FileChannel channel = FileChannel.open(
+        file,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE
+    )) {
+      channel.write(createHeader(0));
+      Thread writer = new Thread(
+          () -> writeBuffers(channel, full, free, end, failure, flushedBytes),
+          "point-cloud-writer"
+      );
+      writer.setDaemon(true);
+      writer.start();
+
+      boolean interrupted = false;
+      try {
+        generate(points, seed, isCancelled, free, full, failure);
+      } catch (InterruptedException e) {
+        interrupted = true;
+      } finally {
+        full.add(end);
+        joinUninterruptibly(writer);
+      }
+      // The channel is closed when written to by an interrupted thread, so the interrupt is only
+      // restored once the header is patched
+      interrupted |= Thread.interrupted();
+      try {
+        if (failure.get() != null) {
+          throw failure.get();
+        }
+        // Counted from what reached the file, as generating may have stopped anywhere
+        long written = flushedBytes.get() / precision.getBytesPerPoint();
+        channel.write(createHeader(written).position(POINT_COUNT_POSITION), POINT_COUNT_POSITION);
+        return written;
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  /**
+   * Generates points into buffers from the free queue, and hands them to the writer when full.
+   */
+  private void generate(
+      long points,
+      long seed,
+      @NotNull BooleanSupplier isCancelled,
+      @NotNull BlockingQueue<ByteBuffer> free,
+      @NotNull BlockingQueue<ByteBuffer> full,
+      @NotNull AtomicReference<IOException> failure
+  ) throws InterruptedException {
+    ChaosWalker walker = new ChaosWalker(description.transformations(), new SplittableRandom(seed));
+    long generated = 0;
+    while (generated < points) {
+      if (isCancelled.getAsBoolean() || failure.get() != null) {
+        break;
+      }
+      ByteBuffer buffer = free.take();
+      long batch = Math.min(points - generated, buffer.capacity() / precision.getBytesPerPoint());
+      for (long i = 0; i < batch; i++) {
+        precision.put(buffer, walker.step());
+      }
+      full.put(buffer.flip());
+      generated += batch;
+      RenderMetrics.getInstance().recordIterations(batch);
+    }
+  }
+
+  /**
+   * Drains full buffers into the channel and hands them back, until given the end marker. Keeps
+   * draining after a failure, so that the generator is never left waiting for a free buffer.
+   * Counts the bytes of the buffers written whole.
+   */
+  private static void writeBuffers(
+      @NotNull FileChannel channel,
+      @NotNull BlockingQueue<ByteBuffer> full,
+      @NotNull BlockingQueue<ByteBuffer> free,
+      @NotNull ByteBuffer end,
+      @NotNull AtomicReference<IOException> failure,
+      @NotNull AtomicLong flushedBytes
+  ) {
+    try {
+      while (true) {
+        ByteBuffer buffer = full.take();
+        if (buffer == end) {
+          return;
+        }
+        try {
+          while (failure.get() == null && buffer.hasRemaining()) {
+            channel.write(buffer);
+          }
+          if (!buffer.hasRemaining()) {
+            flushedBytes.addAndGet(buffer.limit());
+          }
+        } catch (IOException e) {
+          failure.compareAndSet(null, e);
+        }
+        free.put(buffer.clear());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void joinUninterruptibly(@NotNull Thread thread) {
+    boolean interrupted = false;
+    while (thread.isAlive()) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private @NotNull ByteBuffer createHeader(long pointCount) {
+    // The magic number is reversed so that its bytes read "CGPC" in the little-endian header
+    return ByteBuffer.allocate(HEADER_BYTES)
+        .order(ByteOrder.LITTLE_ENDIAN)
+        .putInt(Integer.reverseBytes(MAGIC))
+        .put(VERSION)
+        .put((byte) precision.getBytesPerCoordinate())
+        .putShort((short) 0)
+        .putLong(pointCount)
+        .flip();
+  }
+
+  /**
+   * The type the coordinates of the points are written as.
+   */
+  public enum Precision {
+    /**
+     * Coordinates written as 4 byte floats.
+     */
+    FLOAT(Float.BYTES),
+    /**
+     * Coordinates written as 8 byte doubles.
+     */
+    DOUBLE(Double.BYTES);
+
+    private final int bytesPerCoordinate;
+
+    Precision(int bytesPerCoordinate) {
+      this.bytesPerCoordinate = bytesPerCoordinate;
+    }
+
+    /**
+     * Returns the size of a single coordinate.
+     *
+     * @return the size in bytes
+     */
+    public int getBytesPerCoordinate() {
+      return bytesPerCoordinate;
+    }
+
+    /**
+     * Returns the size of a point of two coordinates.
+     *
+     * @return the size in bytes
+     */
+    public int getBytesPerPoint() {
+      return 2 * bytesPerCoordinate;
+    }
+
+    private void put(@NotNull ByteBuffer buffer, @NotNull Vector point) {
+      if (this == FLOAT) {
+        buffer.putFloat((float) point.getX0()).putFloat((float) point.getX1());
+      } else {
+        buffer.putDouble(point.getX0()).putDouble(point.getX1());
+      }
+    }
+  }
+}
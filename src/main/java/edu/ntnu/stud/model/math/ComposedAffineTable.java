@@ -0,0 +1,222 @@
+package edu.ntnu.stud.model.math;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A table of every composition of k affine transformations from a group, so that a point can be
+ * moved k random steps with a single random pick and a single lookup. The composition of affine
+ * transformations is itself affine, so each entry is just the six coefficients of one
+ * transformation.
+ *
+ * <p>
+ * A sequence of k picks is numbered with the first pick as its most significant digit in base m,
+ * where m is the number of transformations in the group. Next to the m^k full compositions, the
+ * table keeps the compositions of the first j picks for every j below k. The point after j of the
+ * k steps is then a single lookup away, so every intermediate point can be drawn without
+ * transforming the point step by step. This about doubles the size of the table at most.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.0
+ */
+public class ComposedAffineTable {
+
+  /**
+   * The largest number of sequences of k picks the table may hold, bounding it to a few MiB.
+   */
+  public static final int MAX_SEQUENCES = 1 << 16;
+  /**
+   * The number of coefficients of each entry: a00, a01, a10, a11, vx and vy.
+   */
+  private static final int COEFFICIENTS = 6;
+
+  private final int transformationCount;
+  private final int steps;
+  /**
+   * The coefficients of every entry, the compositions of one pick first, then of two, and so on.
+   */
+  private final double @NotNull [] coefficients;
+  /**
+   * The index of the first entry of the compositions of j picks, at index j - 1.
+   */
+  private final int @NotNull [] levelOffsets;
+  /**
+   * The number of sequences of k picks sharing each prefix of j picks, m^(k - j), at index j - 1.
+   */
+  private final int @NotNull [] prefixDivisors;
+
+  /**
+   * Creates the table of every composition of the given number of transformations from the group.
+   *
+   * @param transformations the transformations to compose, all affine
+   * @param steps           the number of transformations in each composition, at least 1
+   * @throws IllegalArgumentException if any transformation isn't affine, the steps are less than
+   *                                  1, or there are more than {@link #MAX_SEQUENCES} sequences
+   */
+  public ComposedAffineTable(
+      @NotNull TransformationGroup transformations,
+      int steps
+  ) throws IllegalArgumentException {
+    if (!isSupported(transformations, steps)) {
+      throw new IllegalArgumentException(
+          "Only tables of at most " + MAX_SEQUENCES + " compositions of affine transformations"
+              + " can be created"
+      );
+    }
+    Transform2D[] group = transformations.getTransformations();
+    this.transformationCount = group.length;
+    this.steps = steps;
+    this.levelOffsets = new int[steps];
+    this.prefixDivisors = new int[steps];
+
+    int entries = 0;
+    int levelSize = 1;
+    for (int level = 0; level < steps; level++) {
+      levelSize *= transformationCount;
+      levelOffsets[level] = entries;
+      entries += levelSize;
+    }
+    int divisor = 1;
+    for (int level = steps - 1; level >= 0; level--) {
+      prefixDivisors[level] = divisor;
+      divisor *= transformationCount;
+    }
+    this.coefficients = new double[entries * COEFFICIENTS];
+
+    for (int i = 0; i < transformationCount; i++) {
+      AffineTransformation transformation = (AffineTransformation) group[i];
+      SimpleMatrix matrix = transformation.getMatrix();
+      Vector translation = transformation.getTranslation();
+      int offset = i * COEFFICIENTS;
+      coefficients[offset] = matrix.a00();
+      coefficients[offset + 1] = matrix.a01();
+      coefficients[offset + 2] = matrix.a10();
+      coefficients[offset + 3] = matrix.a11();
+      coefficients[offset + 4] = translation.getX0();
+      coefficients[offset + 5] = translation.getX1();
+    }
+    // Every composition of j + 1 picks applies the last pick after a composition of j picks
+    for (int level = 1; level < steps; level++) {
+      int previousCount = levelOffsets[level] - levelOffsets[level - 1];
+      for (int prefix = 0; prefix < previousCount; prefix++) {
+        for (int last = 0; last < transformationCount; last++) {
+          compose(
+              (levelOffsets[level - 1] + prefix) * COEFFICIENTS,
+              last * COEFFICIENTS,
+              (levelOffsets[level] + prefix * transformationCount + last) * COEFFICIENTS
+          );
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns whether a table can be created of the given number of transformations from the group.
+   *
+   * @param transformations the transformations to compose
+   * @param steps           the number of transformations in each composition
+   * @return true if every transformation is affine, and the table is small enough
+   */
+  public static boolean isSupported(@NotNull TransformationGroup transformations, int steps) {
+    if (steps < 1) {
+      return false;
+    }
+    for (Transform2D transformation : transformations.getTransformations()) {
+      if (!(transformation instanceof AffineTransformation)) {
+        return false;
+      }
+    }
+    return Math.pow(transformations.size(), steps) <= MAX_SEQUENCES;
+  }
+
+  /**
+   * Writes the composition of first applying the entry at {@code first}, then the one at
+   * {@code second}, to the entry at {@code target}. All offsets are into the coefficients.
+   */
+  private void compose(int first, int second, int target) {
+    double[] c = coefficients;
+    double b00 = c[second];
+    double b01 = c[second + 1];
+    double b10 = c[second + 2];
+    double b11 = c[second + 3];
+    c[target] = b00 * c[first] + b01 * c[first + 2];
+    c[target + 1] = b00 * c[first + 1] + b01 * c[first + 3];
+    c[target + 2] = b10 * c[first] + b11 * c[first + 2];
+    c[target + 3] = b10 * c[first + 1] + b11 * c[first + 3];
+    c[target + 4] = b00 * c[first + 4] + b01 * c[first + 5] + c[second + 4];
+    c[target + 5] = b10 * c[first + 4] + b11 * c[first + 5] + c[second + 5];
+  }
+
+  /**
+   * Returns the number of transformations in each full composition.
+   *
+   * @return the number of steps, k
+   */
+  public int getSteps() {
+    return steps;
+  }
+
+  /**
+   * Returns the number of sequences of k picks, and so the bound of the random sequence number.
+   *
+   * @return m^k
+   */
+  public int getSequenceCount() {
+    return prefixDivisors[0] * transformationCount;
+  }
+
+  /**
+   * Returns the entry of the composition of the first picks of a sequence.
+   *
+   * @param sequence the sequence of k picks, between 0 and {@link #getSequenceCount()}, exclusive
+   * @param picks    the number of picks from the start to compose, between 1 and k
+   * @return the entry to transform with
+   */
+  public int getEntry(int sequence, int picks) {
+    return levelOffsets[picks - 1] + sequence / prefixDivisors[picks - 1];
+  }
+
+  /**
+   * Returns the first coordinate of a point transformed by an entry.
+   *
+   * @param entry the entry from {@link #getEntry(int, int)}
+   * @param x0    the first coordinate of the point
+   * @param x1    the second coordinate of the point
+   * @return the first coordinate of the transformed point
+   */
+  public double transformX0(int entry, double x0, double x1) {
+    int offset = entry * COEFFICIENTS;
+    return coefficients[offset] * x0 + coefficients[offset + 1] * x1 + coefficients[offset + 4];
+  }
+
+  /**
+   * Returns the second coordinate of a point transformed by an entry.
+   *
+   * @param entry the entry from {@link #getEntry(int, int)}
+   * @param x0    the first coordinate of the point
+   * @param x1    the second coordinate of the point
+   * @return the second coordinate of the transformed point
+   */
+  public double transformX1(int entry, double x0, double x1) {
+    int offset = entry * COEFFICIENTS;
+    return coefficients[offset + 2] * x0 + coefficients[offset + 3] * x1 + coefficients[offset + 5];
+  }
+
+  /**
+   * Returns the composed transformation of an entry.
+   *
+   * @param entry the entry from {@link #getEntry(int, int)}
+   * @return the transformation of the entry
+   */
+  public @NotNull AffineTransformation getTransformation(int entry) {
+    int offset = entry * COEFFICIENTS;
+    return new AffineTransformation(
+        coefficients[offset],
+        coefficients[offset + 1],
+        coefficients[offset + 2],
+        coefficients[offset + 3],
+        coefficients[offset + 4],
+        coefficients[offset + 5]
+    );
+  }
+}
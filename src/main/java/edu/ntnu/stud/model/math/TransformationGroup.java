@@ -12,7 +12,7 @@ import java.util.Random;
  * are randomly picked every time the transform method is called.
  *
  * @author Leif Mørstad
- * @version 1.3
+ * @version 1.8
  */
 public class TransformationGroup implements Transform2D {
 
@@ -64,10 +64,43 @@ public class TransformationGroup implements Transform2D {
    * @throws IllegalArgumentException if the given vector is null
    */
   public @NotNull Vector transform(@NotNull Vector vector) throws IllegalArgumentException {
-    int index = random.nextInt(transformations.length);
+    return transform(randomIndex(), vector);
+  }
+
+  /**
+   * Returns the index of a randomly picked transformation in the group.
+   *
+   * @return an index between 0 and the number of transformations, exclusive
+   */
+  public int randomIndex() {
+    return random.nextInt(transformations.length);
+  }
+
+  /**
+   * Transforms the given vector using the transformation at the given index. Used instead of
+   * {@link #transform(Vector)} when the caller needs to know which transformation was picked.
+   *
+   * @param index  the index of the transformation to use
+   * @param vector the vector to transform
+   * @return the transformed vector
+   * @throws ArrayIndexOutOfBoundsException if the index is outside the group
+   */
+  public @NotNull Vector transform(
+      int index,
+      @NotNull Vector vector
+  ) throws ArrayIndexOutOfBoundsException {
     return transformations[index].transform(vector);
   }
 
+  /**
+   * Returns the number of transformations in the group.
+   *
+   * @return the number of transformations
+   */
+  public int size() {
+    return transformations.length;
+  }
+
   @Override
   public @NotNull String getType() {
     return "TransformationGroup";
@@ -0,0 +1,571 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.ChaosGameCanvas;
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.HistogramPrecision;
+import edu.ntnu.stud.model.HistogramStorage;
+import edu.ntnu.stud.model.math.AffineTransformation;
+import edu.ntnu.stud.model.math.PixelCoordinateTranslator;
+import edu.ntnu.stud.model.math.PixelCoordinateTranslator.IndexPair;
+import edu.ntnu.stud.model.math.SimpleMatrix;
+import edu.ntnu.stud.model.math.Transform2D;
+import edu.ntnu.stud.model.math.Vector;
+import edu.ntnu.stud.utils.RenderMetrics;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Renders a description of contracting affine transformations by enumerating the compositions of
+ * its transformations depth first, instead of by the random walk of the chaos game. The attractor
+ * lies in a ball every transformation maps into itself. A composition maps that ball to a ball
+ * shrunk by the largest stretch of the composed matrix. Once the image is smaller than a pixel,
+ * the image of a point on the attractor is drawn as a leaf and the branch stops. Branches whose
+ * image lies outside the bounds of the description are cut without being drawn.
+ *
+ * <p>
+ * Every part of the attractor is within a pixel of a leaf, so the image has no noise and no gaps
+ * wider than a pixel, and every leaf is drawn exactly once. The counts are the number of leaves in
+ * each pixel.
+ * </p>
+ *
+ * <p>
+ * The branches of the first few levels are split across a {@link ForkJoinPool}, and deeper
+ * branches are enumerated recursively on the thread that reached them. Every thread draws into a
+ * histogram of its own, and the histograms are added together at the end.
+ * </p>
+ *
+ * <p>
+ * The number of leaves grows with the resolution to the power of the dimension of the attractor,
+ * which is large when the transformations barely contract. Renders estimated to draw more than
+ * {@link #MAX_LEAVES} leaves are rejected up front, see {@link #estimateLeaves()}.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.4
+ */
+public class AdaptiveCutRenderer {
+
+  /**
+   * The number of levels of branches split into tasks of their own.
+   */
+  private static final int FORK_DEPTH = 4;
+  /**
+   * The most leaves a render is estimated to draw, at about a minute of work on a few cores.
+   */
+  public static final long MAX_LEAVES = 1L << 32;
+  /**
+   * The deepest composition enumerated, guarding against transformations contracting so little
+   * that no branch ever gets smaller than a pixel.
+   */
+  private static final int MAX_DEPTH = 256;
+  /**
+   * The number of leaves a thread draws between checks for cancellation, less one.
+   */
+  private static final long CANCEL_CHECK_MASK = (1 << 10) - 1;
+
+  private final @NotNull ChaosGameDescription description;
+  private final int width;
+  private final int height;
+  private final @NotNull HistogramPrecision precision;
+  /**
+   * The transformations, six coefficients each: a00, a01, a10, a11, vx and vy.
+   */
+  private final double @NotNull [] transformations;
+  private final double centerX;
+  private final double centerY;
+  /**
+   * A point on the attractor, the fixed point of the first transformation. Its image is drawn for
+   * every leaf, so that every leaf is a point on the attractor.
+   */
+  private final double leafX;
+  private final double leafY;
+  /**
+   * The radius of a ball around the center that every transformation maps into itself.
+   */
+  private final double radius;
+  /**
+   * The diameter below which an image of the ball is drawn as a leaf.
+   */
+  private final double pixelSize;
+
+  /**
+   * Creates a new renderer of the description.
+   *
+   * @param description the description to render, only of affine transformations that contract
+   * @param width       the width of the canvas, at least 2
+   * @param height      the height of the canvas, at least 2
+   * @param precision   the precision of the rendered canvas
+   * @throws IllegalArgumentException if any transformation isn't affine or doesn't contract, the
+   *                                  width or height is less than 2, or the render is estimated to
+   *                                  draw more than {@link #MAX_LEAVES} leaves
+   */
+  public AdaptiveCutRenderer(
+      @NotNull ChaosGameDescription description,
+      int width,
+      int height,
+      @NotNull HistogramPrecision precision
+  ) throws IllegalArgumentException {
+    if (width < 2 || height < 2) {
+      throw new IllegalArgumentException("Width and height must be at least 2 each");
+    }
+    Transform2D[] group = description.transformations().getTransformations();
+    this.transformations = new double[group.length * 6];
+    double sumX = 0;
+    double sumY = 0;
+    for (int i = 0; i < group.length; i++) {
+      if (!(group[i] instanceof AffineTransformation transformation)) {
+        throw new IllegalArgumentException("Only affine transformations can be rendered");
+      }
+      SimpleMatrix m = transformation.getMatrix();
+      Vector t = transformation.getTranslation();
+      if (stretch(m.a00(), m.a01(), m.a10(), m.a11()) >= 1) {
+        throw new IllegalArgumentException("Every transformation must contract");
+      }
+      int offset = i * 6;
+      transformations[offset] = m.a00();
+      transformations[offset + 1] = m.a01();
+      transformations[offset + 2] = m.a10();
+      transformations[offset + 3] = m.a11();
+      transformations[offset + 4] = t.getX0();
+      transformations[offset + 5] = t.getX1();
+      sumX += t.getX0();
+      sumY += t.getX1();
+    }
+    this.description = description;
+    this.width = width;
+    this.height = height;
+    this.precision = precision;
+    this.centerX = sumX / group.length;
+    this.centerY = sumY / group.length;
+    this.radius = findRadius(transformations, centerX, centerY);
+    // Solves (I - A) p = v for the fixed point, which has a solution as A contracts
+    double b00 = 1 - transformations[0];
+    double b01 = -transformations[1];
+    double b10 = -transformations[2];
+    double b11 = 1 - transformations[3];
+    double determinant = b00 * b11 - b01 * b10;
+    this.leafX = (b11 * transformations[4] - b01 * transformations[5]) / determinant;
+    this.leafY = (b00 * transformations[5] - b10 * transformations[4]) / determinant;
+    Vector min = description.minCoords();
+    Vector max = description.maxCoords();
+    this.pixelSize = Math.min(
+        (max.getX0() - min.getX0()) / (width - 1),
+        (max.getX1() - min.getX1()) / (height - 1)
+    );
+    double leaves = estimateLeaves();
+    if (leaves > MAX_LEAVES) {
+      throw new IllegalArgumentException(String.format(
+          "The transformations contract too little for this resolution, about %.1e leaves",
+          leaves
+      ));
+    }
+  }
+
+  /**
+   * Returns the largest factor the matrix stretches any vector by, its largest singular value.
+   */
+  static double stretch(double a00, double a01, double a10, double a11) {
+    double sum = a00 * a00 + a01 * a01 + a10 * a10 + a11 * a11;
+    double determinant = a00 * a11 - a01 * a10;
+    double root = Math.sqrt(Math.max(0, sum * sum - 4 * determinant * determinant));
+    return Math.sqrt((sum + root) / 2);
+  }
+
+  /**
+   * Finds the radius of a ball around the center that every transformation maps into itself. A
+   * transformation with stretch s moving the center by d maps the ball of radius r into the ball
+   * of radius s * r + d, which fits in the ball when r is at least d / (1 - s).
+   *
+   * @param c       the transformations, six coefficients each as in {@link #transformations}
+   * @param centerX the first coordinate of the center
+   * @param centerY the second coordinate of the center
+   * @return the radius
+   */
+  static double findRadius(double @NotNull [] c, double centerX, double centerY) {
+    double largest = 0;
+    for (int offset = 0; offset < c.length; offset += 6) {
+      double movedX = c[offset] * centerX + c[offset + 1] * centerY + c[offset + 4] - centerX;
+      double movedY = c[offset + 2] * centerX + c[offset + 3] * centerY + c[offset + 5] - centerY;
+      double s = stretch(c[offset], c[offset + 1], c[offset + 2], c[offset + 3]);
+      largest = Math.max(largest, Math.hypot(movedX, movedY) / (1 - s));
+    }
+    return largest;
+  }
+
+  /**
+   * Visits the branch of every transformation applied before the given composition, in the order
+   * of the transformations, until a visit returns false.
+   *
+   * @param c       the transformations, six coefficients each as in {@link #transformations}
+   * @param depth   the depth of the composition
+   * @param a00     the first coefficient of the matrix of the composition
+   * @param a01     the second coefficient of the matrix of the composition
+   * @param a10     the third coefficient of the matrix of the composition
+   * @param a11     the fourth coefficient of the matrix of the composition
+   * @param vx      the first coordinate of the translation of the composition
+   * @param vy      the second coordinate of the translation of the composition
+   * @param visitor the visitor of the branches
+   * @return false if a visit returned false
+   */
+  static boolean forEachBranch(
+      double @NotNull [] c,
+      int depth,
+      double a00,
+      double a01,
+      double a10,
+      double a11,
+      double vx,
+      double vy,
+      @NotNull BranchVisitor visitor
+  ) {
+    for (int offset = 0; offset < c.length; offset += 6) {
+      // Applies the next transformation before the composition so far
+      boolean proceed = visitor.visit(
+          depth + 1,
+          a00 * c[offset] + a01 * c[offset + 2],
+          a00 * c[offset + 1] + a01 * c[offset + 3],
+          a10 * c[offset] + a11 * c[offset + 2],
+          a10 * c[offset + 1] + a11 * c[offset + 3],
+          a00 * c[offset + 4] + a01 * c[offset + 5] + vx,
+          a10 * c[offset + 4] + a11 * c[offset + 5] + vy
+      );
+      if (!proceed) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Estimates the number of leaves of a render. A self-similar attractor whose pieces are scaled by
+   * s<sub>i</sub> has the dimension D solving sum(s<sub>i</sub><sup>D</sup>) = 1, and about
+   * (extent / pixel size)<sup>D</sup> pixel sized pieces within any extent of it. The stretches of
+   * the matrices are at least their scales, so the estimate is rather too high than too low. The
+   * extent is the smaller of the ball and the bounds, as the branches outside the bounds are cut.
+   *
+   * @return the estimated number of leaves, or infinity if the stretches are too close to 1
+   */
+  private double estimateLeaves() {
+    double[] stretches = new double[transformations.length / 6];
+    for (int i = 0; i < stretches.length; i++) {
+      int offset = i * 6;
+      stretches[i] = stretch(
+          transformations[offset],
+          transformations[offset + 1],
+          transformations[offset + 2],
+          transformations[offset + 3]
+      );
+    }
+    // The sum falls with the dimension, so it is found by bisection
+    double low = 0;
+    double high = 64;
+    if (sumOfPowers(stretches, high) > 1) {
+      return Double.POSITIVE_INFINITY;
+    }
+    for (int i = 0; i < 64; i++) {
+      double dimension = (low + high) / 2;
+      if (sumOfPowers(stretches, dimension) > 1) {
+        low = dimension;
+      } else {
+        high = dimension;
+      }
+    }
+    Vector min = description.minCoords();
+    Vector max = description.maxCoords();
+    double extent = Math.min(
+        2 * radius,
+        Math.hypot(max.getX0() - min.getX0(), max.getX1() - min.getX1())
+    );
+    return Math.pow(Math.max(1, extent / pixelSize), high);
+  }
+
+  private static double sumOfPowers(double @NotNull [] values, double exponent) {
+    double sum = 0;
+    for (double value : values) {
+      sum += Math.pow(value, exponent);
+    }
+    return sum;
+  }
+
+  /**
+   * Renders the description.
+   *
+   * @param threads     the number of threads to render on, at least 1
+   * @param isCancelled returns true once the render should stop, checked between the first
+   *                    branches and then every thousand or so leaves
+   * @return the rendered canvas, or null if cancelled
+   * @throws IllegalArgumentException if the threads are less than 1
+   */
+  public @Nullable ChaosGameCanvas render(
+      int threads,
+      @NotNull BooleanSupplier isCancelled
+  ) throws IllegalArgumentException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("At least one thread is needed");
+    }
+    long start = System.nanoTime();
+    Vector min = description.minCoords();
+    Vector max = description.maxCoords();
+    Walk walk = new Walk(new PixelCoordinateTranslator(width, height, min, max), isCancelled);
+
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      pool.invoke(new Branch(walk, 0, 1, 0, 0, 1, 0, 0));
+    } finally {
+      pool.shutdownNow();
+    }
+    if (walk.cancelled.get()) {
+      return null;
+    }
+
+    ChaosGameCanvas canvas = new ChaosGameCanvas(width, height, min, max, precision);
+    HistogramStorage storage = canvas.getStorage();
+    long leaves = 0;
+    for (Leaves thread : walk.histograms) {
+      for (int row = 0; row < height; row++) {
+        storage.addRow(row, thread.counts, row * width);
+      }
+      leaves += thread.drawn;
+    }
+    RenderMetrics.getInstance().recordIterations(leaves);
+    RenderMetrics.getInstance().recordRender(leaves, System.nanoTime() - start);
+    canvas.getSubscriptionHandler().notifySubscribers();
+    return canvas;
+  }
+
+  /**
+   * The state of a render shared by all of its branches.
+   */
+  private final class Walk {
+
+    private final @NotNull PixelCoordinateTranslator translator;
+    private final @NotNull BooleanSupplier isCancelled;
+    private final @NotNull AtomicBoolean cancelled = new AtomicBoolean();
+    /**
+     * The leaves of every thread that has drawn a leaf.
+     */
+    private final @NotNull Queue<Leaves> histograms = new ConcurrentLinkedQueue<>();
+    private final @NotNull ThreadLocal<Leaves> histogram = ThreadLocal.withInitial(() -> {
+      Leaves leaves = new Leaves(this, new long[width * height]);
+      histograms.add(leaves);
+      return leaves;
+    });
+
+    private Walk(
+        @NotNull PixelCoordinateTranslator translator,
+        @NotNull BooleanSupplier isCancelled
+    ) {
+      this.translator = translator;
+      this.isCancelled = isCancelled;
+    }
+
+    /**
+     * Enumerates the compositions starting with the given one, drawing a leaf for every branch
+     * whose image of the ball is smaller than a pixel. Stops early once cancelled.
+     */
+    private void enumerate(
+        @NotNull Leaves leaves,
+        int depth,
+        double a00,
+        double a01,
+        double a10,
+        double a11,
+        double vx,
+        double vy
+    ) {
+      if (cancelled.get() || isFinished(leaves, depth, a00, a01, a10, a11, vx, vy)) {
+        return;
+      }
+      forEachBranch(transformations, depth, a00, a01, a10, a11, vx, vy, leaves);
+    }
+
+    /**
+     * Returns whether the branch of the composition ends here, either cut for being outside the
+     * bounds, or drawn as a leaf for being smaller than a pixel.
+     */
+    private boolean isFinished(
+        @NotNull Leaves leaves,
+        int depth,
+        double a00,
+        double a01,
+        double a10,
+        double a11,
+        double vx,
+        double vy
+    ) {
+      double imageX = a00 * centerX + a01 * centerY + vx;
+      double imageY = a10 * centerX + a11 * centerY + vy;
+      double imageRadius = radius * stretch(a00, a01, a10, a11);
+      if (isOutside(imageX, imageY, imageRadius)) {
+        return true;
+      }
+      if (2 * imageRadius < pixelSize || depth >= MAX_DEPTH) {
+        plot(
+            leaves,
+            a00 * leafX + a01 * leafY + vx,
+            a10 * leafX + a11 * leafY + vy
+        );
+        return true;
+      }
+      return false;
+    }
+
+    private boolean isOutside(double x, double y, double imageRadius) {
+      Vector min = description.minCoords();
+      Vector max = description.maxCoords();
+      return x + imageRadius < min.getX0() || x - imageRadius > max.getX0()
+          || y + imageRadius < min.getX1() || y - imageRadius > max.getX1();
+    }
+
+    private void plot(@NotNull Leaves leaves, double x, double y) {
+      IndexPair indices = translator.coordsToIndices(new Vector(x, y));
+      int column = indices.x0();
+      int row = indices.x1();
+      if (column >= 0 && column < width && row >= 0 && row < height) {
+        leaves.counts[(height - row - 1) * width + column]++;
+      }
+      leaves.drawn++;
+      if ((leaves.drawn & CANCEL_CHECK_MASK) == 0 && isCancelled.getAsBoolean()) {
+        cancelled.set(true);
+      }
+    }
+  }
+
+  /**
+   * The leaves drawn by a single thread, visiting the branches it enumerates.
+   */
+  private static final class Leaves implements BranchVisitor {
+
+    private final @NotNull Walk walk;
+    /**
+     * The leaves in each pixel, row by row from the top.
+     */
+    private final long @NotNull [] counts;
+    /**
+     * The number of leaves drawn, inside the bounds or not.
+     */
+    private long drawn = 0;
+
+    private Leaves(@NotNull Walk walk, long @NotNull [] counts) {
+      this.walk = walk;
+      this.counts = counts;
+    }
+
+    @Override
+    public boolean visit(
+        int depth,
+        double a00,
+        double a01,
+        double a10,
+        double a11,
+        double vx,
+        double vy
+    ) {
+      walk.enumerate(this, depth, a00, a01, a10, a11, vx, vy);
+      return !walk.cancelled.get();
+    }
+  }
+
+  /**
+   * Visits a branch of the enumeration, see {@link #forEachBranch}.
+   */
+  @FunctionalInterface
+  interface BranchVisitor {
+    /**
+     * Visits the branch starting with the given composition.
+     *
+     * @return false to stop visiting the remaining branches
+     */
+    boolean visit(
+        int depth,
+        double a00,
+        double a01,
+        double a10,
+        double a11,
+        double vx,
+        double vy
+    );
+  }
+
+  /**
+   * A branch of the enumeration, starting with a composition of the transformations. Forks a
+   * branch per transformation until {@link #FORK_DEPTH}, and enumerates the rest on its own.
+   */
+  private final class Branch extends RecursiveAction {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final transient @NotNull Walk walk;
+    private final int depth;
+    private final double a00;
+    private final double a01;
+    private final double a10;
+    private final double a11;
+    private final double vx;
+    private final double vy;
+
+    private Branch(
+        @NotNull Walk walk,
+        int depth,
+        double a00,
+        double a01,
+        double a10,
+        double a11,
+        double vx,
+        double vy
+    ) {
+      this.walk = walk;
+      this.depth = depth;
+      this.a00 = a00;
+      this.a01 = a01;
+      this.a10 = a10;
+      this.a11 = a11;
+      this.vx = vx;
+      this.vy = vy;
+    }
+
+    @Override
+    protected void compute() {
+      if (walk.cancelled.get()) {
+        return;
+      }
+      if (walk.isCancelled.getAsBoolean()) {
+        walk.cancelled.set(true);
+        return;
+      }
+      Leaves leaves = walk.histogram.get();
+      if (depth >= FORK_DEPTH) {
+        walk.enumerate(leaves, depth, a00, a01, a10, a11, vx, vy);
+        return;
+      }
+      if (walk.isFinished(leaves, depth, a00, a01, a10, a11, vx, vy)) {
+        return;
+      }
+      List<Branch> children = new ArrayList<>(transformations.length / 6);
+      forEachBranch(
+          transformations,
+          depth,
+          a00,
+          a01,
+          a10,
+          a11,
+          vx,
+          vy,
+          (childDepth, b00, b01, b10, b11, ux, uy) ->
+              children.add(new Branch(walk, childDepth, b00, b01, b10, b11, ux, uy))
+      );
+      invokeAll(children);
+    }
+  }
+}
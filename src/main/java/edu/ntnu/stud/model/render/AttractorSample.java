@@ -0,0 +1,294 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.ChaosGameCanvas;
+import edu.ntnu.stud.model.HistogramPrecision;
+import edu.ntnu.stud.model.HistogramStorage;
+import edu.ntnu.stud.model.export.PointCloudExporter;
+import edu.ntnu.stud.model.math.PixelCoordinateTranslator;
+import edu.ntnu.stud.model.math.PixelCoordinateTranslator.IndexPair;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import edu.ntnu.stud.utils.RenderMetrics;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * A large sample of points on the attractor of a group of transformations, stored as packed
+ * floats. The attractor doesn't depend on the bounds or size of a render, so a sample can be
+ * binned into canvases of any bounds and size without iterating the transformations again.
+ * Binning only reads the points once, and is far cheaper than generating them.
+ *
+ * <p>
+ * A sample is held either in memory, or in a file mapped into memory. The file is a point cloud
+ * file of floats, as written by {@link PointCloudExporter}, so point clouds exported as floats
+ * can be binned as samples too.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.2
+ */
+public class AttractorSample {
+
+  /**
+   * The most points of a sample, bounding it to 1 GiB.
+   */
+  public static final int MAX_POINTS = 1 << 27;
+  /**
+   * The number of points generated by each walker, each with its own random generator.
+   */
+  private static final int CHUNK_POINTS = 1 << 18;
+  /**
+   * The most memory the histograms of the threads binning in parallel may take together.
+   */
+  private static final long MAX_BIN_BYTES = 256L * 1024 * 1024;
+
+  /**
+   * The points as x, y pairs.
+   */
+  private final @NotNull FloatBuffer points;
+  private final int pointCount;
+
+  private AttractorSample(@NotNull FloatBuffer points) {
+    this.points = points;
+    this.pointCount = points.capacity() / 2;
+  }
+
+  /**
+   * Generates a sample of the attractor of the transformations. The points are generated in
+   * parallel by walkers whose random generators are split off one seeded with the seed, so the
+   * sample only depends on the seed.
+   *
+   * @param transformations the transformations to sample the attractor of
+   * @param pointCount      the number of points, between 1 and {@link #MAX_POINTS}
+   * @param seed            the seed of the random choice of transformations
+   * @return the sample
+   * @throws IllegalArgumentException if the number of points is out of range
+   */
+  public static @NotNull AttractorSample generate(
+      @NotNull TransformationGroup transformations,
+      int pointCount,
+      long seed
+  ) throws IllegalArgumentException {
+    if (pointCount < 1 || pointCount > MAX_POINTS) {
+      throw new IllegalArgumentException("A sample must have between 1 and " + MAX_POINTS
+          + " points");
+    }
+    float[] coordinates = new float[2 * pointCount];
+    int chunkCount = (pointCount + CHUNK_POINTS - 1) / CHUNK_POINTS;
+    SplittableRandom master = new SplittableRandom(seed);
+    SplittableRandom[] randoms = new SplittableRandom[chunkCount];
+    for (int chunk = 0; chunk < chunkCount; chunk++) {
+      randoms[chunk] = master.split();
+    }
+
+    IntStream.range(0, chunkCount).parallel().forEach(chunk -> {
+      ChaosWalker walker = new ChaosWalker(transformations, randoms[chunk]);
+      int end = Math.min(pointCount, (chunk + 1) * CHUNK_POINTS);
+      for (int i = chunk * CHUNK_POINTS; i < end; i++) {
+        Vector point = walker.step();
+        coordinates[2 * i] = (float) point.getX0();
+        coordinates[2 * i + 1] = (float) point.getX1();
+      }
+    });
+    RenderMetrics.getInstance().recordIterations(pointCount);
+    return new AttractorSample(FloatBuffer.wrap(coordinates));
+  }
+
+  /**
+   * Maps a sample stored in a point cloud file of floats into memory, without reading it onto the
+   * heap.
+   *
+   * @param file the file to read
+   * @return the sample
+   * @throws IOException if the file could not be read, or isn't a point cloud of floats
+   */
+  public static @NotNull AttractorSample read(@NotNull Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < PointCloudExporter.HEADER_BYTES) {
+        throw new InvalidObjectException("File is too short to be a point cloud");
+      }
+      ByteBuffer header = ByteBuffer.allocate(PointCloudExporter.HEADER_BYTES)
+          .order(ByteOrder.LITTLE_ENDIAN);
+      channel.read(header, 0);
+      header.flip();
+      if (header.getInt() != Integer.reverseBytes(PointCloudExporter.MAGIC)
+          || header.get() != PointCloudExporter.VERSION
+          || header.get() != Float.BYTES) {
+        throw new InvalidObjectException("File is not a point cloud of floats");
+      }
+      header.getShort();
+      long pointCount = header.getLong();
+      if (pointCount < 1 || pointCount > MAX_POINTS
+          || PointCloudExporter.HEADER_BYTES + pointCount * 2 * Float.BYTES != size) {
+        throw new InvalidObjectException("Point cloud has an invalid number of points");
+      }
+      // The mapping stays valid after the channel is closed
+      return new AttractorSample(channel.map(
+          FileChannel.MapMode.READ_ONLY,
+          PointCloudExporter.HEADER_BYTES,
+          size - PointCloudExporter.HEADER_BYTES
+      ).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer());
+    }
+  }
+
+  /**
+   * Writes the sample to a point cloud file of floats, replacing it if it exists.
+   *
+   * @param file the file to write to
+   * @throws IOException if the file could not be written
+   */
+  public void write(@NotNull Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(
+        file,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE
+    )) {
+      ByteBuffer buffer = ByteBuffer.allocate(PointCloudExporter.HEADER_BYTES)
+          .order(ByteOrder.LITTLE_ENDIAN)
+          .putInt(Integer.reverseBytes(PointCloudExporter.MAGIC))
+          .put(PointCloudExporter.VERSION)
+          .put((byte) Float.BYTES)
+          .putShort((short) 0)
+          .putLong(pointCount)
+          .flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      ByteBuffer block = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+      FloatBuffer floats = block.asFloatBuffer();
+      for (int start = 0; start < 2 * pointCount; start += floats.capacity()) {
+        int length = Math.min(floats.capacity(), 2 * pointCount - start);
+        floats.clear();
+        floats.put(points.slice(start, length));
+        block.clear().limit(length * Float.BYTES);
+        while (block.hasRemaining()) {
+          channel.write(block);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of points in the sample.
+   *
+   * @return the number of points
+   */
+  public int size() {
+    return pointCount;
+  }
+
+  /**
+   * Returns the number of bytes the points take on the heap.
+   *
+   * @return the size in bytes, 0 if the sample is mapped from a file
+   */
+  public long getHeapBytes() {
+    return points.isDirect() ? 0 : (long) points.capacity() * Float.BYTES;
+  }
+
+  /**
+   * Bins the points into a new canvas, counting the points in each pixel. Slices of the points are
+   * binned in parallel into histograms of their own, which are added together at the end.
+   *
+   * @param width     the width of the canvas, at least 1
+   * @param height    the height of the canvas, at least 1
+   * @param minCoords the bottom left bounds of the canvas
+   * @param maxCoords the top right bounds of the canvas
+   * @param precision the precision of the canvas
+   * @return the canvas with the points binned
+   * @throws IllegalArgumentException if the width or height is less than 1
+   */
+  public @NotNull ChaosGameCanvas bin(
+      int width,
+      int height,
+      @NotNull Vector minCoords,
+      @NotNull Vector maxCoords,
+      @NotNull HistogramPrecision precision
+  ) throws IllegalArgumentException {
+    return bin(width, height, minCoords, maxCoords, precision, this.pointCount);
+  }
+
+  /**
+   * Bins only the first points into a new canvas, like {@link #bin(int, int, Vector, Vector,
+   * HistogramPrecision)}. The points of a sample are in the order a walker visits them, so the
+   * first points draw what a chaos game iterated as many times would.
+   *
+   * @param width      the width of the canvas, at least 1
+   * @param height     the height of the canvas, at least 1
+   * @param minCoords  the bottom left bounds of the canvas
+   * @param maxCoords  the top right bounds of the canvas
+   * @param precision  the precision of the canvas
+   * @param pointCount the number of points to bin, between 1 and {@link #size()}
+   * @return the canvas with the points binned
+   * @throws IllegalArgumentException if the width or height is less than 1, or the number of
+   *                                  points is out of range
+   */
+  public @NotNull ChaosGameCanvas bin(
+      int width,
+      int height,
+      @NotNull Vector minCoords,
+      @NotNull Vector maxCoords,
+      @NotNull HistogramPrecision precision,
+      int pointCount
+  ) throws IllegalArgumentException {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Width and height must be at least 1 each");
+    }
+    if (pointCount < 1 || pointCount > this.pointCount) {
+      throw new IllegalArgumentException("Can only bin between 1 and " + this.pointCount
+          + " points");
+    }
+    PixelCoordinateTranslator translator = new PixelCoordinateTranslator(
+        width,
+        height,
+        minCoords,
+        maxCoords
+    );
+    long histogramBytes = (long) width * height * Long.BYTES;
+    int slices = (int) Math.max(1, Math.min(
+        Runtime.getRuntime().availableProcessors(),
+        MAX_BIN_BYTES / histogramBytes
+    ));
+    slices = Math.min(slices, pointCount);
+
+    int sliceCount = slices;
+    long[][] histograms = IntStream.range(0, sliceCount).parallel().mapToObj(slice -> {
+      long[] counts = new long[width * height];
+      int first = (int) ((long) pointCount * slice / sliceCount);
+      int last = (int) ((long) pointCount * (slice + 1) / sliceCount);
+      for (int i = first; i < last; i++) {
+        IndexPair indices = translator.coordsToIndices(
+            new Vector(points.get(2 * i), points.get(2 * i + 1))
+        );
+        int x = indices.x0();
+        int y = indices.x1();
+        if (x >= 0 && x < width && y >= 0 && y < height) {
+          counts[(height - y - 1) * width + x]++;
+        }
+      }
+      return counts;
+    }).toArray(long[][]::new);
+
+    ChaosGameCanvas canvas = new ChaosGameCanvas(width, height, minCoords, maxCoords, precision);
+    HistogramStorage storage = canvas.getStorage();
+    for (long[] counts : histograms) {
+      for (int row = 0; row < height; row++) {
+        storage.addRow(row, counts, row * width);
+      }
+    }
+    canvas.getSubscriptionHandler().notifySubscribers();
+    return canvas;
+  }
+}
@@ -0,0 +1,308 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.ChaosGameBinaryFormat;
+import edu.ntnu.stud.model.ChaosGameCanvas;
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.HistogramPrecision;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+/**
+ * Caches an {@link AttractorSample} per group of transformations, so that changing only the
+ * bounds or size of a render bins the cached points again instead of iterating the chaos game
+ * again. Samples are keyed by a hash of the transformations alone, as the attractor doesn't depend
+ * on the bounds of the description.
+ *
+ * <p>
+ * Samples on the heap are evicted least recently used first once they take more than the
+ * capacity. With a spill folder, every generated sample is also written there, and samples found
+ * there are mapped from the file instead of generated, also across runs of the application.
+ * Samples are generated and read outside the lock of the cache, so only requests for the same
+ * sample wait for each other.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.1
+ */
+public class AttractorSampleCache {
+  private static final Logger LOGGER = Logger.getLogger(AttractorSampleCache.class.getName());
+
+  /**
+   * The seed of every generated sample, so that a sample is the same however often it's evicted.
+   */
+  private static final long SEED = 0;
+  /**
+   * The extension of the spilled samples, which are point cloud files.
+   */
+  private static final String SPILL_EXTENSION = ".cgpc";
+  /**
+   * The smallest share of the points binned that must land inside the bounds of a render. Views
+   * deep enough for less are left to the chaos game, which can lead its walker back into them.
+   */
+  public static final double MIN_SHARE_INSIDE = 1.0 / 16;
+
+  private final int pointsPerSample;
+  private final long capacityBytes;
+  private final @Nullable Path spillFolder;
+  /**
+   * The samples on the heap in access order, so that the eldest entry is the least recently used.
+   */
+  private final @NotNull LinkedHashMap<String, AttractorSample> entries =
+      new LinkedHashMap<>(16, 0.75f, true);
+  /**
+   * The samples being generated or read, so that requests for the same sample wait for the first
+   * one instead of loading it again.
+   */
+  private final @NotNull Map<String, CompletableFuture<AttractorSample>> pending = new HashMap<>();
+  private long sizeBytes = 0;
+
+  /**
+   * Creates a new empty cache.
+   *
+   * @param pointsPerSample the number of points of every sample, between 1 and
+   *                        {@link AttractorSample#MAX_POINTS}
+   * @param capacityBytes   the most heap the samples may take together, at least 0
+   * @param spillFolder     the folder to write samples to and map them from, or null to only keep
+   *                        samples on the heap
+   * @throws IllegalArgumentException if the points or capacity are out of range
+   */
+  public AttractorSampleCache(
+      int pointsPerSample,
+      long capacityBytes,
+      @Nullable Path spillFolder
+  ) throws IllegalArgumentException {
+    if (pointsPerSample < 1 || pointsPerSample > AttractorSample.MAX_POINTS) {
+      throw new IllegalArgumentException("A sample must have between 1 and "
+          + AttractorSample.MAX_POINTS + " points");
+    }
+    if (capacityBytes < 0) {
+      throw new IllegalArgumentException("Cache capacity cannot be negative");
+    }
+    this.pointsPerSample = pointsPerSample;
+    this.capacityBytes = capacityBytes;
+    this.spillFolder = spillFolder;
+  }
+
+  /**
+   * Returns the sample of the attractor of the transformations, from the heap, from the spill
+   * folder, or by generating it. Concurrent calls for the same sample wait for the first one to
+   * load it, while calls for other samples go on.
+   *
+   * @param transformations the transformations to sample the attractor of
+   * @return the sample
+   * @throws IllegalArgumentException if the transformations can't be encoded
+   */
+  public @NotNull AttractorSample get(
+      @NotNull TransformationGroup transformations
+  ) throws IllegalArgumentException {
+    String key = hash(transformations);
+    CompletableFuture<AttractorSample> loading = new CompletableFuture<>();
+    CompletableFuture<AttractorSample> other;
+    synchronized (this) {
+      AttractorSample sample = entries.get(key);
+      if (sample != null) {
+        return sample;
+      }
+      other = pending.putIfAbsent(key, loading);
+    }
+    if (other != null) {
+      // Waited for outside the lock, which the first request needs to keep its sample
+      return other.join();
+    }
+
+    try {
+      AttractorSample sample = load(key, transformations);
+      synchronized (this) {
+        put(key, sample);
+        pending.remove(key);
+      }
+      loading.complete(sample);
+      return sample;
+    } catch (RuntimeException e) {
+      synchronized (this) {
+        pending.remove(key);
+      }
+      loading.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Maps the sample from the spill folder, or generates it and spills it there.
+   */
+  private @NotNull AttractorSample load(
+      @NotNull String key,
+      @NotNull TransformationGroup transformations
+  ) {
+    Path file = spillFolder == null ? null : spillFolder.resolve(key + SPILL_EXTENSION);
+    if (file != null && Files.isRegularFile(file)) {
+      try {
+        return AttractorSample.read(file);
+      } catch (IOException e) {
+        LOGGER.warning("Could not read spilled sample, generating it again: " + file);
+      }
+    }
+
+    AttractorSample sample = AttractorSample.generate(transformations, pointsPerSample, SEED);
+    if (file != null) {
+      spill(sample, file);
+    }
+    return sample;
+  }
+
+  /**
+   * Renders the description by binning the sample of its attractor into a new canvas.
+   *
+   * @param description the description to render
+   * @param width       the width of the canvas, at least 1
+   * @param height      the height of the canvas, at least 1
+   * @param precision   the precision of the canvas
+   * @return the rendered canvas
+   * @throws IllegalArgumentException if the width or height is less than 1
+   */
+  public @NotNull ChaosGameCanvas render(
+      @NotNull ChaosGameDescription description,
+      int width,
+      int height,
+      @NotNull HistogramPrecision precision
+  ) throws IllegalArgumentException {
+    return get(description.transformations()).bin(
+        width,
+        height,
+        description.minCoords(),
+        description.maxCoords(),
+        precision
+    );
+  }
+
+  /**
+   * Renders the description like a chaos game iterated the given number of times would, by
+   * binning that many points of the sample of its attractor. Views where less than
+   * {@link #MIN_SHARE_INSIDE} of the points land are not rendered, so the caller can iterate them
+   * instead.
+   *
+   * @param description the description to render
+   * @param width       the width of the canvas, at least 1
+   * @param height      the height of the canvas, at least 1
+   * @param precision   the precision of the canvas
+   * @param iterations  the number of points to bin, between 1 and the points of every sample
+   * @return the rendered canvas, or null if too few points land inside its bounds
+   * @throws IllegalArgumentException if the width or height is less than 1, or the iterations
+   *                                  are out of range
+   */
+  public @Nullable ChaosGameCanvas render(
+      @NotNull ChaosGameDescription description,
+      int width,
+      int height,
+      @NotNull HistogramPrecision precision,
+      int iterations
+  ) throws IllegalArgumentException {
+    ChaosGameCanvas canvas = get(description.transformations()).bin(
+        width,
+        height,
+        description.minCoords(),
+        description.maxCoords(),
+        precision,
+        iterations
+    );
+    // Saturated counts only undercount pixels far denser than a deep view has
+    long inside = 0;
+    long[] row = new long[width];
+    for (int y = 0; y < height; y++) {
+      canvas.getStorage().readRow(y, row);
+      for (long count : row) {
+        inside += count;
+      }
+    }
+    return inside < iterations * MIN_SHARE_INSIDE ? null : canvas;
+  }
+
+  /**
+   * Returns the number of points of every sample.
+   *
+   * @return the number of points
+   */
+  public int getPointsPerSample() {
+    return pointsPerSample;
+  }
+
+  /**
+   * Writes the sample to the file through a temporary file, so that a sample is never mapped
+   * while half written.
+   */
+  private void spill(@NotNull AttractorSample sample, @NotNull Path file) {
+    try {
+      Files.createDirectories(file.getParent());
+      Path temporary = Files.createTempFile(file.getParent(), "sample", ".tmp");
+      try {
+        sample.write(temporary);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(temporary);
+      }
+    } catch (IOException e) {
+      LOGGER.warning("Could not spill sample: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Keeps the sample on the heap, evicting the least recently used samples until it fits. Samples
+   * larger than the whole cache are not kept.
+   */
+  private void put(@NotNull String key, @NotNull AttractorSample sample) {
+    long bytes = sample.getHeapBytes();
+    if (bytes > capacityBytes) {
+      return;
+    }
+    entries.put(key, sample);
+    sizeBytes += bytes;
+
+    Iterator<Map.Entry<String, AttractorSample>> eldest = entries.entrySet().iterator();
+    while (sizeBytes > capacityBytes) {
+      sizeBytes -= eldest.next().getValue().getHeapBytes();
+      eldest.remove();
+    }
+  }
+
+  /**
+   * Returns the number of samples on the heap.
+   *
+   * @return the number of samples
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Hashes the binary encoding of the transformations together with the sample settings. The
+   * transformations are encoded in a description with fixed bounds, so that the bounds of the
+   * description rendered never change the hash.
+   *
+   * @param transformations the transformations to hash
+   * @return a hex string uniquely identifying the sample
+   * @throws IllegalArgumentException if the transformations can't be encoded
+   */
+  private @NotNull String hash(@NotNull TransformationGroup transformations) {
+    return ChaosGameBinaryFormat.fingerprint(
+        new ChaosGameDescription(new Vector(0, 0), new Vector(1, 1), transformations),
+        ByteBuffer.allocate(Integer.BYTES + Long.BYTES)
+            .putInt(pointsPerSample)
+            .putLong(SEED)
+            .flip()
+    );
+  }
+}
@@ -0,0 +1,142 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.math.PixelCoordinateTranslator;
+import edu.ntnu.stud.model.math.PixelCoordinateTranslator.IndexPair;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+
+/**
+ * A point walking the attractor of a group of transformations, picking the transformations with a
+ * random generator of its own instead of the one of the group, so that walkers on different
+ * threads neither contend on nor reseed a shared generator. The point starts at the origin, and
+ * is transformed {@link #BURN_IN_ITERATIONS} times before the first point is given out.
+ *
+ * <p>
+ * Used by the renderers drawing into plain arrays instead of a
+ * {@link edu.ntnu.stud.model.ChaosGameCanvas}, which only differ in how they seed the walker and
+ * what they do with the points.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.1
+ */
+public class ChaosWalker {
+
+  /**
+   * The number of times the point is transformed before it is given out, moving it from the
+   * origin onto the attractor.
+   */
+  public static final int BURN_IN_ITERATIONS = 20;
+
+  private final @NotNull TransformationGroup transformations;
+  private final int transformationCount;
+  private final @NotNull SplittableRandom random;
+  private @NotNull Vector point = new Vector(0, 0);
+
+  /**
+   * Creates a walker, and moves its point onto the attractor.
+   *
+   * @param transformations the transformations to walk with
+   * @param random          the random generator picking the transformations, owned by the walker
+   */
+  public ChaosWalker(
+      @NotNull TransformationGroup transformations,
+      @NotNull SplittableRandom random
+  ) {
+    this.transformations = transformations;
+    this.transformationCount = transformations.size();
+    this.random = random;
+    for (int i = 0; i < BURN_IN_ITERATIONS; i++) {
+      move();
+    }
+  }
+
+  /**
+   * Transforms the point by a randomly picked transformation.
+   *
+   * @return the new point
+   */
+  public @NotNull Vector step() {
+    return move();
+  }
+
+  /**
+   * Moves the point like {@link #step()}, but can't be overridden, so that the burn in of the
+   * constructor never calls into a subclass that isn't constructed yet.
+   */
+  private @NotNull Vector move() {
+    point = transformations.transform(random.nextInt(transformationCount), point);
+    return point;
+  }
+
+  /**
+   * Walks the given number of steps, counting the points inside the bounds in a flat histogram,
+   * row by row from the top.
+   *
+   * @param iterations the number of steps to walk
+   * @param width      the width of the histogram
+   * @param height     the height of the histogram
+   * @param minCoords  the bottom left bounds of the histogram
+   * @param maxCoords  the top right bounds of the histogram
+   * @param counts     the histogram of width times height counts to add the points to
+   */
+  public void plot(
+      long iterations,
+      int width,
+      int height,
+      @NotNull Vector minCoords,
+      @NotNull Vector maxCoords,
+      int @NotNull [] counts
+  ) {
+    plot(iterations, width, height, minCoords, maxCoords, index -> counts[index]++);
+  }
+
+  /**
+   * Walks like {@link #plot(long, int, int, Vector, Vector, int[])}, but counting in longs.
+   *
+   * @param iterations the number of steps to walk
+   * @param width      the width of the histogram
+   * @param height     the height of the histogram
+   * @param minCoords  the bottom left bounds of the histogram
+   * @param maxCoords  the top right bounds of the histogram
+   * @param counts     the histogram of width times height counts to add the points to
+   */
+  public void plot(
+      long iterations,
+      int width,
+      int height,
+      @NotNull Vector minCoords,
+      @NotNull Vector maxCoords,
+      long @NotNull [] counts
+  ) {
+    plot(iterations, width, height, minCoords, maxCoords, index -> counts[index]++);
+  }
+
+  private void plot(
+      long iterations,
+      int width,
+      int height,
+      @NotNull Vector minCoords,
+      @NotNull Vector maxCoords,
+      @NotNull IntConsumer hit
+  ) {
+    PixelCoordinateTranslator translator = new PixelCoordinateTranslator(
+        width,
+        height,
+        minCoords,
+        maxCoords
+    );
+    for (long i = 0; i < iterations; i++) {
+      IndexPair indices = translator.coordsToIndices(step());
+      int x = indices.x0();
+      int y = indices.x1();
+      if (x >= 0 && x < width && y >= 0 && y < height) {
+        hit.accept((height - y - 1) * width + x);
+      }
+    }
+  }
+}
@@ -0,0 +1,213 @@
+package edu.ntnu.stud.model.render;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Accumulates the color of the transformations producing each hit, in the style of fractal
+ * flames. The point carries a color which is blended halfway towards the color of every
+ * transformation applied to it, and each hit adds that color to the pixel it lands on. At display
+ * time the mean color of each pixel is scaled by its log density.
+ *
+ * <p>
+ * All state is kept in flat primitive arrays, one count and three color sums per pixel, so the
+ * mode only costs a constant factor over counting hits.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.0
+ */
+public class ColorAccumulator {
+
+  /**
+   * The gamma the tone-mapped densities are corrected with.
+   */
+  private static final double GAMMA = 2.2;
+
+  private final int width;
+  private final int height;
+  /**
+   * The colors of each transformation, as packed RGB.
+   */
+  private final int @NotNull [] transformationColors;
+  /**
+   * The number of hits per pixel, row by row from the top.
+   */
+  private final int @NotNull [] counts;
+  /**
+   * The summed red, green and blue of the hits per pixel, interleaved in the same order as
+   * {@link #counts}.
+   */
+  private final float @NotNull [] colorSums;
+  private float red;
+  private float green;
+  private float blue;
+
+  /**
+   * Creates a new empty accumulator.
+   *
+   * @param width                the width in pixels, cannot be less than 1
+   * @param height               the height in pixels, cannot be less than 1
+   * @param transformationColors the packed RGB color of each transformation, cannot be empty
+   * @throws IllegalArgumentException if the size is less than 1, or no colors are given
+   */
+  public ColorAccumulator(
+      int width,
+      int height,
+      int @NotNull [] transformationColors
+  ) throws IllegalArgumentException {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Width and height must be at least 1 each");
+    }
+    if (transformationColors.length == 0) {
+      throw new IllegalArgumentException("At least one transformation color must be given");
+    }
+    this.width = width;
+    this.height = height;
+    this.transformationColors = Arrays.copyOf(
+        transformationColors,
+        transformationColors.length
+    );
+    this.counts = new int[width * height];
+    this.colorSums = new float[3 * width * height];
+    resetPointColor();
+  }
+
+  /**
+   * Creates the given number of colors with evenly spaced hues, at full saturation and value.
+   *
+   * @param count the number of colors to create
+   * @return the colors as packed RGB
+   */
+  public static int @NotNull [] createHueColors(int count) {
+    int[] colors = new int[count];
+    for (int i = 0; i < count; i++) {
+      double hue = 6.0 * i / count;
+      int sector = (int) hue;
+      int rising = (int) Math.round(255 * (hue - sector));
+      int falling = 255 - rising;
+      colors[i] = switch (sector) {
+        case 0 -> rgb(255, rising, 0);
+        case 1 -> rgb(falling, 255, 0);
+        case 2 -> rgb(0, 255, rising);
+        case 3 -> rgb(0, falling, 255);
+        case 4 -> rgb(rising, 0, 255);
+        default -> rgb(255, 0, falling);
+      };
+    }
+    return colors;
+  }
+
+  private static int rgb(int red, int green, int blue) {
+    return red << 16 | green << 8 | blue;
+  }
+
+  /**
+   * Blends the color of the point towards the given transformation, and adds it to the given
+   * pixel. The origin is in the bottom left, like {@link
+   * edu.ntnu.stud.model.ChaosGameCanvas#touchPixel(int, int)}. The color is blended even if the
+   * pixel is outside the accumulator, as the point keeps its color history.
+   *
+   * @param x              the x-coordinate of the pixel from left to right
+   * @param y              the y-coordinate of the pixel from bottom to top
+   * @param transformation the index of the transformation which produced the point
+   */
+  public void plot(int x, int y, int transformation) {
+    int color = transformationColors[transformation % transformationColors.length];
+    red = (red + (color >> 16 & 0xFF)) * 0.5f;
+    green = (green + (color >> 8 & 0xFF)) * 0.5f;
+    blue = (blue + (color & 0xFF)) * 0.5f;
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      return;
+    }
+    int index = (height - y - 1) * width + x;
+    counts[index]++;
+    colorSums[3 * index] += red;
+    colorSums[3 * index + 1] += green;
+    colorSums[3 * index + 2] += blue;
+  }
+
+  /**
+   * Resets every pixel, and the color of the point.
+   */
+  public void clear() {
+    Arrays.fill(counts, 0);
+    Arrays.fill(colorSums, 0);
+    resetPointColor();
+  }
+
+  private void resetPointColor() {
+    int color = transformationColors[0];
+    red = color >> 16 & 0xFF;
+    green = color >> 8 & 0xFF;
+    blue = color & 0xFF;
+  }
+
+  /**
+   * Tone-maps the accumulated colors into opaque ARGB pixels, row by row from the top. Each pixel
+   * gets its mean color, scaled by the gamma corrected log of its count relative to the densest
+   * pixel. Rows are mapped in parallel.
+   *
+   * @return the colors as a flat ARGB array
+   */
+  public int @NotNull [] toneMap() {
+    int maxCount = IntStream.of(counts).parallel().max().orElse(0);
+    int[] pixels = new int[width * height];
+    if (maxCount == 0) {
+      Arrays.fill(pixels, 0xFF000000);
+      return pixels;
+    }
+    double logMax = Math.log1p(maxCount);
+    IntStream.range(0, height).parallel().forEach(y -> {
+      for (int index = y * width; index < (y + 1) * width; index++) {
+        int count = counts[index];
+        if (count == 0) {
+          pixels[index] = 0xFF000000;
+          continue;
+        }
+        double scale = Math.pow(Math.log1p(count) / logMax, 1 / GAMMA) / count;
+        pixels[index] = 0xFF000000 | rgb(
+            channel(colorSums[3 * index] * scale),
+            channel(colorSums[3 * index + 1] * scale),
+            channel(colorSums[3 * index + 2] * scale)
+        );
+      }
+    });
+    return pixels;
+  }
+
+  private static int channel(double value) {
+    return (int) Math.min(255, Math.round(value));
+  }
+
+  /**
+   * Returns the number of hits of the given pixel.
+   *
+   * @param x the x-coordinate of the pixel from left to right
+   * @param y the y-coordinate of the pixel from bottom to top
+   * @return the number of hits
+   */
+  public int getCount(int x, int y) {
+    return counts[(height - y - 1) * width + x];
+  }
+
+  /**
+   * Returns the width of the accumulator.
+   *
+   * @return the width in pixels
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the accumulator.
+   *
+   * @return the height in pixels
+   */
+  public int getHeight() {
+    return height;
+  }
+}
@@ -0,0 +1,446 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.ChaosGameCanvas;
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.HistogramPrecision;
+import edu.ntnu.stud.model.HistogramStorage;
+import edu.ntnu.stud.model.math.ComposedAffineTable;
+import edu.ntnu.stud.model.math.FloatAffineKernel;
+import edu.ntnu.stud.model.math.PixelCoordinateTranslator;
+import edu.ntnu.stud.model.math.PixelCoordinateTranslator.IndexPair;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import edu.ntnu.stud.utils.RenderMetrics;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Renders a description in parallel with a result that only depends on the seed, never on the
+ * number of threads or how they are scheduled. Rendering twice with the same seed gives
+ * bit-identical canvases, whether on 1 thread or 64.
+ *
+ * <p>
+ * The iterations are divided into chunks of a fixed size. Each chunk gets its own random generator,
+ * split off a generator seeded with the master seed in chunk order, so the random sequence of a
+ * chunk is fixed before any thread touches it. The chunks are rendered in windows of one chunk per
+ * thread, each into the histogram of its slot in the window, which is reused by the chunks of the
+ * following windows. Once a window is done, its histograms are added to the canvas in parallel
+ * over the rows, and in chunk order within each row.
+ * </p>
+ *
+ * <p>
+ * Descriptions of only affine transformations can be rendered several steps at a time with a
+ * {@link ComposedAffineTable}, drawing a single random pick and doing a single lookup for every k
+ * steps. See {@link #setComposedSteps(int, boolean)}.
+ * </p>
+ *
+ * <p>
+ * Without composed steps, descriptions of only affine transformations can be rendered with a
+ * {@link FloatAffineKernel} in single precision when the pixels are large enough for floats, see
+ * {@link #setKernelPrecision(KernelPrecision)}. Renders are in doubles unless asked otherwise, so
+ * that a seed keeps giving the same canvas it always has.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.5
+ */
+public class DeterministicRenderer {
+
+  /**
+   * The number of iterations of every chunk but the last. Part of the output, as changing it
+   * changes which random numbers are drawn.
+   */
+  public static final long CHUNK_ITERATIONS = 1L << 18;
+  /**
+   * The most pixels of a canvas, as the histograms of the chunks are flat arrays.
+   */
+  public static final int MAX_PIXELS = Integer.MAX_VALUE - 8;
+
+  private final @NotNull ChaosGameDescription description;
+  private final int width;
+  private final int height;
+  private final @NotNull HistogramPrecision precision;
+  /**
+   * The compositions to step the point with, or null to step one transformation at a time.
+   */
+  private @Nullable ComposedAffineTable composedTable = null;
+  /**
+   * Whether to draw every point between the composed steps, or only the point after each.
+   */
+  private boolean plotIntermediate = true;
+  private @NotNull KernelPrecision kernelPrecision = KernelPrecision.DOUBLE;
+
+  /**
+   * Creates a new renderer of the description.
+   *
+   * @param description the description to render
+   * @param width       the width of the canvas, at least 1
+   * @param height      the height of the canvas, at least 1
+   * @param precision   the precision of the rendered canvas
+   * @throws IllegalArgumentException if the width or height is less than 1, or the canvas has
+   *                                  more than {@link #MAX_PIXELS} pixels
+   */
+  public DeterministicRenderer(
+      @NotNull ChaosGameDescription description,
+      int width,
+      int height,
+      @NotNull HistogramPrecision precision
+  ) throws IllegalArgumentException {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Width and height must be at least 1 each");
+    }
+    if ((long) width * height > MAX_PIXELS) {
+      throw new IllegalArgumentException("A canvas can have at most " + MAX_PIXELS + " pixels");
+    }
+    this.description = description;
+    this.width = width;
+    this.height = height;
+    this.precision = precision;
+  }
+
+  /**
+   * Sets the number of transformations to compose into each step of the point. With more than 1
+   * step, every composition of that many transformations is computed up front, and the point moves
+   * that many steps with each random pick. The iterations of a render are the number of points
+   * drawn either way, so drawing only the point after each composed step does fewer lookups per
+   * step but moves the point further between the points drawn.
+   *
+   * <p>
+   * A render with composed steps draws other random picks than one without, so the result only
+   * depends on the seed for the same number of steps.
+   * </p>
+   *
+   * @param steps            the number of transformations in each step, 1 to disable composing
+   * @param plotIntermediate true to draw every point between the steps, false to draw only the
+   *                         point after each
+   * @throws IllegalArgumentException if the steps are above 1, and the description isn't only of
+   *                                  affine transformations or has too many compositions
+   * @see ComposedAffineTable#isSupported(TransformationGroup, int)
+   */
+  public void setComposedSteps(
+      int steps,
+      boolean plotIntermediate
+  ) throws IllegalArgumentException {
+    if (steps == 1) {
+      composedTable = null;
+    } else {
+      composedTable = new ComposedAffineTable(description.transformations(), steps);
+    }
+    this.plotIntermediate = plotIntermediate;
+  }
+
+  /**
+   * Sets the precision to move the point in when not composing steps, doubles by default. A
+   * render in floats draws other points than one in doubles, so the result only depends on the
+   * seed for the same precision.
+   *
+   * @param kernelPrecision the precision of the point
+   * @throws IllegalArgumentException if the precision is float, and the description isn't only of
+   *                                  affine transformations
+   */
+  public void setKernelPrecision(
+      @NotNull KernelPrecision kernelPrecision
+  ) throws IllegalArgumentException {
+    if (kernelPrecision == KernelPrecision.FLOAT
+        && !FloatAffineKernel.isSupported(description.transformations())) {
+      throw new IllegalArgumentException("Only affine transformations can be rendered in floats");
+    }
+    this.kernelPrecision = kernelPrecision;
+  }
+
+  /**
+   * Returns whether the point is moved in floats when rendering, which depends on the precision
+   * set, the transformations, the bounds and the size of the canvas.
+   *
+   * @return true if rendering in floats
+   */
+  public boolean usesFloatKernel() {
+    if (composedTable != null) {
+      return false;
+    }
+    return switch (kernelPrecision) {
+      case DOUBLE -> false;
+      case FLOAT -> true;
+      case AUTO -> FloatAffineKernel.isSupported(description.transformations())
+          && FloatAffineKernel.isPreciseEnough(
+          width,
+          height,
+          description.minCoords(),
+          description.maxCoords()
+      );
+    };
+  }
+
+  /**
+   * Renders the description with the given seed.
+   *
+   * @param iterations  the total number of iterations, at least 0
+   * @param seed        the master seed the seeds of the chunks are derived from
+   * @param threads     the number of threads to render on, at least 1
+   * @param isCancelled returns true once the render should stop, checked before each chunk
+   * @return the rendered canvas, or null if cancelled
+   * @throws IllegalArgumentException if the iterations are negative or the threads less than 1
+   */
+  public @Nullable ChaosGameCanvas render(
+      long iterations,
+      long seed,
+      int threads,
+      @NotNull BooleanSupplier isCancelled
+  ) throws IllegalArgumentException {
+    if (iterations < 0) {
+      throw new IllegalArgumentException("Iterations cannot be negative");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("At least one thread is needed");
+    }
+    long start = System.nanoTime();
+    ChaosGameCanvas canvas = new ChaosGameCanvas(
+        width,
+        height,
+        description.minCoords(),
+        description.maxCoords(),
+        precision
+    );
+    long chunkCount = (iterations + CHUNK_ITERATIONS - 1) / CHUNK_ITERATIONS;
+    FloatAffineKernel kernel = usesFloatKernel()
+        ? new FloatAffineKernel(description.transformations())
+        : null;
+    SplittableRandom master = new SplittableRandom(seed);
+    long[][] slots = new long[(int) Math.min(threads, chunkCount)][width * height];
+
+    AtomicInteger threadCount = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "deterministic-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      // Rendered in windows of one chunk per thread, so only that many histograms are in memory
+      for (long first = 0; first < chunkCount; first += threads) {
+        if (isCancelled.getAsBoolean()) {
+          return null;
+        }
+        int windowSize = (int) Math.min(threads, chunkCount - first);
+        List<Future<?>> window = new ArrayList<>();
+        for (int slot = 0; slot < windowSize; slot++) {
+          long chunk = first + slot;
+          long chunkIterations = Math.min(CHUNK_ITERATIONS, iterations - chunk * CHUNK_ITERATIONS);
+          SplittableRandom random = master.split();
+          long[] counts = slots[slot];
+          window.add(pool.submit(() -> renderChunk(chunkIterations, random, kernel, counts)));
+        }
+        awaitAll(window);
+        addWindow(pool, canvas.getStorage(), slots, windowSize);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("A chunk failed to render", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+    RenderMetrics.getInstance().recordRender(iterations, System.nanoTime() - start);
+    canvas.getSubscriptionHandler().notifySubscribers();
+    return canvas;
+  }
+
+  /**
+   * Renders a chunk into a flat histogram, row by row from the top. Picks the transformations
+   * with the random generator of the chunk instead of the one in the shared transformation group.
+   *
+   * @param iterations the number of iterations of the chunk
+   * @param random     the random generator of the chunk
+   * @param kernel     the kernel to move the point in floats with, or null to use doubles
+   * @param counts     the histogram of the slot of the chunk, all zero, to add the points to
+   */
+  private void renderChunk(
+      long iterations,
+      @NotNull SplittableRandom random,
+      @Nullable FloatAffineKernel kernel,
+      long @NotNull [] counts
+  ) {
+    if (kernel != null) {
+      renderFloatChunk(iterations, random, kernel, counts);
+      return;
+    }
+    if (composedTable != null) {
+      PixelCoordinateTranslator translator = new PixelCoordinateTranslator(
+          width,
+          height,
+          description.minCoords(),
+          description.maxCoords()
+      );
+      renderComposedChunk(iterations, random, composedTable, translator, counts);
+      return;
+    }
+    new ChaosWalker(description.transformations(), random).plot(
+        iterations,
+        width,
+        height,
+        description.minCoords(),
+        description.maxCoords(),
+        counts
+    );
+    RenderMetrics.getInstance().recordIterations(iterations);
+  }
+
+  /**
+   * Renders a chunk like {@link #renderChunk}, but moving the point in floats. The point is mapped
+   * to its pixel in floats too, so no vectors are allocated.
+   */
+  private void renderFloatChunk(
+      long iterations,
+      @NotNull SplittableRandom random,
+      @NotNull FloatAffineKernel kernel,
+      long @NotNull [] counts
+  ) {
+    Vector minCoords = description.minCoords();
+    Vector maxCoords = description.maxCoords();
+    // The same mapping as the pixel coordinate translator
+    double x0Scalar = (width - 1) / (maxCoords.getX0() - minCoords.getX0());
+    double x1Scalar = (height - 1) / (maxCoords.getX1() - minCoords.getX1());
+    float scaleX0 = (float) x0Scalar;
+    float scaleX1 = (float) x1Scalar;
+    float offsetX0 = (float) (minCoords.getX0() * x0Scalar);
+    float offsetX1 = (float) (minCoords.getX1() * x1Scalar);
+    int transformationCount = kernel.size();
+
+    float x0 = 0;
+    float x1 = 0;
+    for (int i = 0; i < ChaosWalker.BURN_IN_ITERATIONS; i++) {
+      int index = random.nextInt(transformationCount);
+      float next = kernel.transformX0(index, x0, x1);
+      x1 = kernel.transformX1(index, x0, x1);
+      x0 = next;
+    }
+    for (long i = 0; i < iterations; i++) {
+      int index = random.nextInt(transformationCount);
+      float next = kernel.transformX0(index, x0, x1);
+      x1 = kernel.transformX1(index, x0, x1);
+      x0 = next;
+      int x = (int) Math.floor(x0 * scaleX0 - offsetX0);
+      int y = (int) Math.floor(x1 * scaleX1 - offsetX1);
+      if (x >= 0 && x < width && y >= 0 && y < height) {
+        counts[(height - y - 1) * width + x]++;
+      }
+    }
+    RenderMetrics.getInstance().recordIterations(iterations);
+  }
+
+  /**
+   * Renders a chunk like {@link #renderChunk}, but moving the point by a
+   * whole composed step for every random pick.
+   */
+  private void renderComposedChunk(
+      long iterations,
+      @NotNull SplittableRandom random,
+      @NotNull ComposedAffineTable table,
+      @NotNull PixelCoordinateTranslator translator,
+      long @NotNull [] counts
+  ) {
+    int steps = table.getSteps();
+    int sequenceCount = table.getSequenceCount();
+
+    double x0 = 0;
+    double x1 = 0;
+    for (int i = 0; i < ChaosWalker.BURN_IN_ITERATIONS; i += steps) {
+      int entry = table.getEntry(random.nextInt(sequenceCount), steps);
+      double next = table.transformX0(entry, x0, x1);
+      x1 = table.transformX1(entry, x0, x1);
+      x0 = next;
+    }
+    long drawn = 0;
+    while (drawn < iterations) {
+      int sequence = random.nextInt(sequenceCount);
+      if (plotIntermediate) {
+        // Every point between the steps is found from the point before the composed step
+        int points = (int) Math.min(steps, iterations - drawn);
+        for (int picks = 1; picks <= points; picks++) {
+          int entry = table.getEntry(sequence, picks);
+          plot(
+              counts,
+              translator,
+              table.transformX0(entry, x0, x1),
+              table.transformX1(entry, x0, x1)
+          );
+        }
+        drawn += points;
+      }
+      int entry = table.getEntry(sequence, steps);
+      double next = table.transformX0(entry, x0, x1);
+      x1 = table.transformX1(entry, x0, x1);
+      x0 = next;
+      if (!plotIntermediate) {
+        plot(counts, translator, x0, x1);
+        drawn++;
+      }
+    }
+    RenderMetrics.getInstance().recordIterations(iterations);
+  }
+
+  private void plot(
+      long @NotNull [] counts,
+      @NotNull PixelCoordinateTranslator translator,
+      double x0,
+      double x1
+  ) {
+    IndexPair indices = translator.coordsToIndices(new Vector(x0, x1));
+    int x = indices.x0();
+    int y = indices.x1();
+    if (x >= 0 && x < width && y >= 0 && y < height) {
+      counts[(height - y - 1) * width + x]++;
+    }
+  }
+
+  /**
+   * Waits for every task of a window, rethrowing the first failure.
+   */
+  private static void awaitAll(
+      @NotNull List<Future<?>> tasks
+  ) throws InterruptedException, ExecutionException {
+    for (Future<?> task : tasks) {
+      task.get();
+    }
+  }
+
+  /**
+   * Adds the histograms of a window to the storage, and clears them for the next window. The rows
+   * are split into one band per slot, added in parallel, while every row still gets the chunks in
+   * chunk order.
+   */
+  private void addWindow(
+      @NotNull ExecutorService pool,
+      @NotNull HistogramStorage storage,
+      long @NotNull [] @NotNull [] slots,
+      int windowSize
+  ) throws InterruptedException, ExecutionException {
+    int bands = Math.min(slots.length, height);
+    List<Future<?>> merges = new ArrayList<>();
+    for (int band = 0; band < bands; band++) {
+      int firstRow = (int) ((long) height * band / bands);
+      int lastRow = (int) ((long) height * (band + 1) / bands);
+      merges.add(pool.submit(() -> {
+        for (int row = firstRow; row < lastRow; row++) {
+          int offset = row * width;
+          for (int slot = 0; slot < windowSize; slot++) {
+            storage.addRow(row, slots[slot], offset);
+            Arrays.fill(slots[slot], offset, offset + width, 0);
+          }
+        }
+      }));
+    }
+    awaitAll(merges);
+  }
+}
@@ -0,0 +1,193 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.ColorPalette;
+import edu.ntnu.stud.model.math.ComplexNumber;
+import edu.ntnu.stud.model.math.JuliaTransformation;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+/**
+ * Renders a grid of julia sets, one per constant c in a rectangle of the complex plane, into a
+ * single contact sheet. The real part of c grows from left to right, and the imaginary part from
+ * bottom to top, so the sheet reads like the complex plane.
+ *
+ * <p>
+ * Every cell is an independent small histogram rendered on its own, so the cells are rendered in
+ * parallel across all cores and written straight into their own region of the sheet.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.1
+ */
+public class JuliaSweep {
+
+  /**
+   * The bounds every cell shows, which contain the julia set of any c in the main cardioid.
+   */
+  private static final double CELL_EXTENT = 1.8;
+  /**
+   * The number of iterations per pixel of a cell.
+   */
+  private static final int ITERATIONS_PER_PIXEL = 20;
+
+  private final @NotNull ComplexNumber minC;
+  private final @NotNull ComplexNumber maxC;
+  private final int columns;
+  private final int rows;
+  private final int cellSize;
+
+  /**
+   * Creates a new sweep over the given rectangle of constants.
+   *
+   * @param minC     the constant of the bottom left cell
+   * @param maxC     the constant of the top right cell
+   * @param columns  the number of cells along the real axis, at least 1
+   * @param rows     the number of cells along the imaginary axis, at least 1
+   * @param cellSize the width and height of each cell in pixels, at least 2
+   * @throws IllegalArgumentException if the grid or cell size is too small
+   */
+  public JuliaSweep(
+      @NotNull ComplexNumber minC,
+      @NotNull ComplexNumber maxC,
+      int columns,
+      int rows,
+      int cellSize
+  ) throws IllegalArgumentException {
+    if (columns < 1 || rows < 1) {
+      throw new IllegalArgumentException("A sweep must have at least one row and column");
+    }
+    if (cellSize < 2) {
+      throw new IllegalArgumentException("Cell size must be at least 2");
+    }
+    this.minC = minC;
+    this.maxC = maxC;
+    this.columns = columns;
+    this.rows = rows;
+    this.cellSize = cellSize;
+  }
+
+  /**
+   * Returns the constant of the given cell.
+   *
+   * @param column the column of the cell from the left
+   * @param row    the row of the cell from the top
+   * @return the constant c of the cell
+   */
+  public @NotNull ComplexNumber getConstant(int column, int row) {
+    double real = columns == 1
+        ? minC.getX0()
+        : minC.getX0() + (maxC.getX0() - minC.getX0()) * column / (columns - 1);
+    double imaginary = rows == 1
+        ? minC.getX1()
+        : maxC.getX1() - (maxC.getX1() - minC.getX1()) * row / (rows - 1);
+    return new ComplexNumber(real, imaginary);
+  }
+
+  /**
+   * Creates the description of the julia set of the given constant, with both branches of the
+   * square root.
+   *
+   * @param c the constant of the julia set
+   * @return the description of the julia set
+   */
+  public static @NotNull ChaosGameDescription createDescription(@NotNull ComplexNumber c) {
+    return new ChaosGameDescription(
+        new Vector(-CELL_EXTENT, -CELL_EXTENT),
+        new Vector(CELL_EXTENT, CELL_EXTENT),
+        new TransformationGroup(
+            new JuliaTransformation(c, true),
+            new JuliaTransformation(c, false)
+        )
+    );
+  }
+
+  /**
+   * Renders every cell of the sweep in parallel.
+   *
+   * @param palette     the palette to color the cells with
+   * @param isCancelled returns true once the sweep should stop, checked before each cell
+   * @return the contact sheet, or null if cancelled
+   */
+  public @Nullable ContactSheet render(
+      @NotNull ColorPalette palette,
+      @NotNull BooleanSupplier isCancelled
+  ) {
+    int width = columns * cellSize;
+    int[] pixels = new int[width * rows * cellSize];
+    IntStream.range(0, columns * rows).parallel().forEach(cell -> {
+      if (isCancelled.getAsBoolean()) {
+        return;
+      }
+      int column = cell % columns;
+      int row = cell / columns;
+      int[] counts = renderCell(createDescription(getConstant(column, row)));
+      int offset = row * cellSize * width + column * cellSize;
+      for (int y = 0; y < cellSize; y++) {
+        for (int x = 0; x < cellSize; x++) {
+          pixels[offset + y * width + x] = palette.mapColor(counts[y * cellSize + x]);
+        }
+      }
+    });
+    if (isCancelled.getAsBoolean()) {
+      return null;
+    }
+    return new ContactSheet(width, rows * cellSize, pixels);
+  }
+
+  /**
+   * Renders a single cell into a flat histogram, row by row from the top. Draws directly into an
+   * array instead of through a {@link edu.ntnu.stud.model.ChaosGameCanvas}, as no one subscribes
+   * to a cell.
+   *
+   * @param description the description of the cell
+   * @return the counts of the cell
+   */
+  private int @NotNull [] renderCell(@NotNull ChaosGameDescription description) {
+    ChaosWalker walker = new ChaosWalker(description.transformations(), new SplittableRandom());
+    int[] counts = new int[cellSize * cellSize];
+    walker.plot(
+        (long) cellSize * cellSize * ITERATIONS_PER_PIXEL,
+        cellSize,
+        cellSize,
+        description.minCoords(),
+        description.maxCoords(),
+        counts
+    );
+    return counts;
+  }
+
+  /**
+   * A rendered sweep.
+   *
+   * @param width  the width of the sheet in pixels
+   * @param height the height of the sheet in pixels
+   * @param pixels the ARGB pixels of the sheet, row by row from the top
+   */
+  public record ContactSheet(int width, int height, int @NotNull [] pixels) {
+
+    /**
+     * Writes the sheet to a PNG file, without JavaFX.
+     *
+     * @param file the file to write to
+     * @throws IOException if the file could not be written
+     */
+    public void writePng(@NotNull Path file) throws IOException {
+      BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+      image.setRGB(0, 0, width, height, pixels, 0, width);
+      if (!ImageIO.write(image, "png", file.toFile())) {
+        throw new IOException("No PNG writer is available");
+      }
+    }
+  }
+}
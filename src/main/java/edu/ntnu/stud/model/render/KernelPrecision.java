@@ -0,0 +1,28 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.math.FloatAffineKernel;
+
+/**
+ * The floating point precision a renderer moves its walker in.
+ *
+ * @author Leif Mørstad
+ * @version 1.1
+ * @see FloatAffineKernel
+ */
+public enum KernelPrecision {
+  /**
+   * Floats when the transformations are affine and the pixels are large enough, doubles otherwise.
+   *
+   * @see FloatAffineKernel#isPreciseEnough
+   */
+  AUTO,
+  /**
+   * Always doubles, through the validated transformations of the math package. The default, as
+   * it draws the same points for a seed whatever the size and bounds of the canvas.
+   */
+  DOUBLE,
+  /**
+   * Always floats, even when deeply zoomed. Only for affine transformations.
+   */
+  FLOAT
+}
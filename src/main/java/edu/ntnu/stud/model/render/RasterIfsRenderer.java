@@ -0,0 +1,283 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.ChaosGameCanvas;
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.HistogramPrecision;
+import edu.ntnu.stud.model.HistogramStorage;
+import edu.ntnu.stud.model.math.AffineTransformation;
+import edu.ntnu.stud.model.math.SimpleMatrix;
+import edu.ntnu.stud.model.math.Transform2D;
+import edu.ntnu.stud.model.math.Vector;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Renders a description of affine transformations with the deterministic iteration of the IFS,
+ * instead of the random walk of the chaos game. Starting with every pixel of the canvas set, each
+ * pass maps the center of every set pixel through every transformation into a fresh bitmap, until
+ * a pass gives the same bitmap as the one before. As every transformation contracts, the bitmaps
+ * shrink towards the attractor, and unlike the chaos game thin parts of it are never missed.
+ *
+ * <p>
+ * Each pass maps bands of rows in parallel, every band into its own bitmap, and then combines the
+ * bitmaps of the bands in parallel over bands of rows. The bitmaps store a bit per pixel in
+ * longs, row by row from the bottom. Parts of the attractor outside the bounds of the description
+ * are lost, so the bounds should contain the whole attractor.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.0
+ */
+public class RasterIfsRenderer {
+
+  private final int width;
+  private final int height;
+  private final @NotNull ChaosGameDescription description;
+  /**
+   * The number of longs of every row of a bitmap.
+   */
+  private final int wordsPerRow;
+  /**
+   * The transformations in pixel space, six coefficients each, mapping the indices of a pixel
+   * center to the indices of its image.
+   */
+  private final double @NotNull [] pixelTransformations;
+
+  /**
+   * Creates a new renderer of the description.
+   *
+   * @param description the description to render, only of affine transformations
+   * @param width       the width of the canvas, at least 2
+   * @param height      the height of the canvas, at least 2
+   * @throws IllegalArgumentException if any transformation isn't affine, or the width or height
+   *                                  is less than 2
+   */
+  public RasterIfsRenderer(
+      @NotNull ChaosGameDescription description,
+      int width,
+      int height
+  ) throws IllegalArgumentException {
+    if (width < 2 || height < 2) {
+      throw new IllegalArgumentException("Width and height must be at least 2 each");
+    }
+    Transform2D[] transformations = description.transformations().getTransformations();
+    for (Transform2D transformation : transformations) {
+      if (!(transformation instanceof AffineTransformation)) {
+        throw new IllegalArgumentException("Only affine transformations can be rendered");
+      }
+    }
+    this.width = width;
+    this.height = height;
+    this.description = description;
+    this.wordsPerRow = (width + Long.SIZE - 1) / Long.SIZE;
+    this.pixelTransformations = toPixelSpace(transformations);
+  }
+
+  /**
+   * Rewrites the transformations to map pixel indices to pixel indices, with the same scaling
+   * between coordinates and indices as {@link edu.ntnu.stud.model.math.PixelCoordinateTranslator}.
+   */
+  private double @NotNull [] toPixelSpace(@NotNull Transform2D @NotNull [] transformations) {
+    Vector min = description.minCoords();
+    Vector max = description.maxCoords();
+    double scaleX = (width - 1) / (max.getX0() - min.getX0());
+    double scaleY = (height - 1) / (max.getX1() - min.getX1());
+
+    double[] coefficients = new double[transformations.length * 6];
+    for (int i = 0; i < transformations.length; i++) {
+      AffineTransformation transformation = (AffineTransformation) transformations[i];
+      SimpleMatrix m = transformation.getMatrix();
+      Vector t = transformation.getTranslation();
+      int offset = i * 6;
+      coefficients[offset] = m.a00();
+      coefficients[offset + 1] = m.a01() * scaleX / scaleY;
+      coefficients[offset + 2] = m.a10() * scaleY / scaleX;
+      coefficients[offset + 3] = m.a11();
+      coefficients[offset + 4] = scaleX
+          * (m.a00() * min.getX0() + m.a01() * min.getX1() + t.getX0() - min.getX0());
+      coefficients[offset + 5] = scaleY
+          * (m.a10() * min.getX0() + m.a11() * min.getX1() + t.getX1() - min.getX1());
+    }
+    return coefficients;
+  }
+
+  /**
+   * Iterates the bitmap until it stops changing, or the number of passes runs out.
+   *
+   * @param maxPasses   the most passes to iterate, at least 1
+   * @param threads     the number of threads to map on, at least 1
+   * @param isCancelled returns true once the render should stop, checked before each pass
+   * @return the result, or null if cancelled
+   * @throws IllegalArgumentException if the passes or threads are less than 1
+   */
+  public @Nullable Result render(
+      int maxPasses,
+      int threads,
+      @NotNull BooleanSupplier isCancelled
+  ) throws IllegalArgumentException {
+    if (maxPasses < 1 || threads < 1) {
+      throw new IllegalArgumentException("Passes and threads must be at least 1 each");
+    }
+    long[] current = new long[wordsPerRow * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        current[y * wordsPerRow + x / Long.SIZE] |= 1L << x;
+      }
+    }
+    long[][] bands = new long[threads][current.length];
+
+    AtomicInteger threadCount = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "raster-ifs-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      int passes = 0;
+      boolean converged = false;
+      while (passes < maxPasses && !converged) {
+        if (isCancelled.getAsBoolean()) {
+          return null;
+        }
+        long[] next = pass(pool, current, bands);
+        converged = Arrays.equals(current, next);
+        current = next;
+        passes++;
+      }
+      return new Result(toCanvas(current), passes, converged);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("A pass failed", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Maps every set pixel of the bitmap through every transformation, one band of rows per bitmap
+   * in {@code bands}, and combines the bands into a new bitmap.
+   */
+  private long @NotNull [] pass(
+      @NotNull ExecutorService pool,
+      long @NotNull [] current,
+      long @NotNull [] @NotNull [] bands
+  ) throws InterruptedException, ExecutionException {
+    int bandCount = bands.length;
+    List<Callable<Void>> mapping = new ArrayList<>();
+    for (int band = 0; band < bandCount; band++) {
+      long[] target = bands[band];
+      int firstRow = height * band / bandCount;
+      int lastRow = height * (band + 1) / bandCount;
+      mapping.add(() -> {
+        Arrays.fill(target, 0);
+        mapRows(current, target, firstRow, lastRow);
+        return null;
+      });
+    }
+    await(pool.invokeAll(mapping));
+
+    long[] next = new long[current.length];
+    List<Callable<Void>> combining = new ArrayList<>();
+    for (int band = 0; band < bandCount; band++) {
+      int firstWord = height * band / bandCount * wordsPerRow;
+      int lastWord = height * (band + 1) / bandCount * wordsPerRow;
+      combining.add(() -> {
+        for (long[] bitmap : bands) {
+          for (int word = firstWord; word < lastWord; word++) {
+            next[word] |= bitmap[word];
+          }
+        }
+        return null;
+      });
+    }
+    await(pool.invokeAll(combining));
+    return next;
+  }
+
+  private static void await(
+      @NotNull List<Future<Void>> futures
+  ) throws InterruptedException, ExecutionException {
+    for (Future<Void> future : futures) {
+      future.get();
+    }
+  }
+
+  /**
+   * Maps the centers of the set pixels in the rows of the bitmap into the target bitmap.
+   */
+  private void mapRows(
+      long @NotNull [] source,
+      long @NotNull [] target,
+      int firstRow,
+      int lastRow
+  ) {
+    double[] c = pixelTransformations;
+    for (int y = firstRow; y < lastRow; y++) {
+      for (int word = 0; word < wordsPerRow; word++) {
+        long bits = source[y * wordsPerRow + word];
+        while (bits != 0) {
+          int x = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+          bits &= bits - 1;
+          double centerX = x + 0.5;
+          double centerY = y + 0.5;
+          for (int i = 0; i < c.length; i += 6) {
+            int mappedX = (int) Math.floor(c[i] * centerX + c[i + 1] * centerY + c[i + 4]);
+            int mappedY = (int) Math.floor(c[i + 2] * centerX + c[i + 3] * centerY + c[i + 5]);
+            if (mappedX >= 0 && mappedX < width && mappedY >= 0 && mappedY < height) {
+              target[mappedY * wordsPerRow + mappedX / Long.SIZE] |= 1L << mappedX;
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Draws the bitmap on a canvas, with a count of 1 for every set pixel.
+   */
+  private @NotNull ChaosGameCanvas toCanvas(long @NotNull [] bitmap) {
+    ChaosGameCanvas canvas = new ChaosGameCanvas(
+        width,
+        height,
+        description.minCoords(),
+        description.maxCoords(),
+        HistogramPrecision.BYTE
+    );
+    HistogramStorage storage = canvas.getStorage();
+    for (int y = 0; y < height; y++) {
+      for (int word = 0; word < wordsPerRow; word++) {
+        long bits = bitmap[y * wordsPerRow + word];
+        while (bits != 0) {
+          storage.set(height - y - 1, word * Long.SIZE + Long.numberOfTrailingZeros(bits), 1);
+          bits &= bits - 1;
+        }
+      }
+    }
+    canvas.getSubscriptionHandler().notifySubscribers();
+    return canvas;
+  }
+
+  /**
+   * The outcome of a render.
+   *
+   * @param canvas    the canvas with a count of 1 for every pixel of the attractor
+   * @param passes    the number of passes iterated
+   * @param converged true if the last pass didn't change the bitmap, false if the passes ran out
+   */
+  public record Result(@NotNull ChaosGameCanvas canvas, int passes, boolean converged) {
+
+  }
+}
@@ -0,0 +1,90 @@
+package edu.ntnu.stud.model.render;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A unit of render work with cooperative cancellation. The work checks {@link #isCancelled()}
+ * between batches, so a cancelled job stops shortly after being cancelled instead of running to
+ * completion.
+ *
+ * @param <ResultT> the type of the result of the job
+ * @author Leif Mørstad
+ * @version 1.0
+ * @see RenderJobScheduler
+ */
+public class RenderJob<ResultT> {
+
+  private final @NotNull String key;
+  private final @NotNull RenderTask<ResultT> task;
+  private final @NotNull CompletableFuture<ResultT> result = new CompletableFuture<>();
+  private volatile boolean cancelled = false;
+
+  /**
+   * Creates a new job. Jobs are created through {@link RenderJobScheduler#submit}.
+   *
+   * @param key  the view the job renders for
+   * @param task the work of the job
+   */
+  RenderJob(@NotNull String key, @NotNull RenderTask<ResultT> task) {
+    this.key = key;
+    this.task = task;
+  }
+
+  /**
+   * Runs the task, and completes the result with its outcome. Cancelled jobs complete with a
+   * {@link CancellationException}.
+   */
+  void run() {
+    try {
+      if (cancelled) {
+        throw new CancellationException("Render job was cancelled before it started");
+      }
+      ResultT value = task.run(this);
+      if (cancelled) {
+        throw new CancellationException("Render job was cancelled");
+      }
+      result.complete(value);
+    } catch (Throwable e) {
+      result.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * Requests the job to stop. The job stops the next time its task checks for cancellation.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * Returns whether the job has been cancelled, either directly or by a newer job for the same
+   * view.
+   *
+   * @return true if the job is cancelled
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Returns the view the job renders for.
+   *
+   * @return the key of the view
+   */
+  public @NotNull String getKey() {
+    return key;
+  }
+
+  /**
+   * Returns a future completing with the result of the job once it has stopped, exceptionally with
+   * a {@link CancellationException} if it was cancelled.
+   *
+   * @return the result of the job
+   */
+  public @NotNull CompletableFuture<ResultT> getResult() {
+    return result;
+  }
+}
@@ -0,0 +1,100 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.utils.UsageFlagger;
+import edu.ntnu.stud.utils.UsageFlagger.FlagSetter;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs render jobs in the background, where a newer job for a view supersedes and cancels any job
+ * still running for the same view. This makes sure the CPU only goes to the image which will
+ * actually be shown.
+ *
+ * <p>
+ * Every job flags the given {@link UsageFlagger} from the moment it is submitted until it has
+ * stopped, whether it completed, failed or was cancelled.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.0
+ * @see RenderJob
+ */
+public class RenderJobScheduler {
+
+  private final @NotNull ExecutorService executor;
+  private final @NotNull UsageFlagger isLoading;
+  private final @NotNull Executor flagExecutor;
+  /**
+   * The newest job of every view.
+   */
+  private final @NotNull ConcurrentHashMap<String, RenderJob<?>> currentJobs =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new scheduler with a pool of one thread per core.
+   *
+   * @param isLoading    the flagger to flag while jobs are running
+   * @param flagExecutor the executor to change the flags on, as the subscribers of the flagger
+   *                     might be bound to a specific thread
+   */
+  public RenderJobScheduler(@NotNull UsageFlagger isLoading, @NotNull Executor flagExecutor) {
+    this.isLoading = isLoading;
+    this.flagExecutor = flagExecutor;
+
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor = Executors.newFixedThreadPool(
+        Runtime.getRuntime().availableProcessors(),
+        runnable -> {
+          Thread thread = new Thread(runnable, "render-job-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+    );
+  }
+
+  /**
+   * Submits a new job for the given view, cancelling the job currently running for the view if
+   * any.
+   *
+   * @param key       the view the job renders for
+   * @param task      the work of the job
+   * @param <ResultT> the type of the result of the job
+   * @return the submitted job
+   */
+  public <ResultT> @NotNull RenderJob<ResultT> submit(
+      @NotNull String key,
+      @NotNull RenderTask<ResultT> task
+  ) {
+    RenderJob<ResultT> job = new RenderJob<>(key, task);
+    FlagSetter flag = isLoading.createFlagSetter();
+    flagExecutor.execute(() -> flag.setFlag(true));
+    job.getResult().whenComplete((result, error) -> {
+      currentJobs.remove(key, job);
+      flagExecutor.execute(() -> flag.setFlag(false));
+    });
+
+    RenderJob<?> superseded = currentJobs.put(key, job);
+    if (superseded != null) {
+      superseded.cancel();
+    }
+    executor.execute(job::run);
+    return job;
+  }
+
+  /**
+   * Cancels the job currently running for the given view, if any.
+   *
+   * @param key the view to cancel the job of
+   */
+  public void cancel(@NotNull String key) {
+    RenderJob<?> job = currentJobs.get(key);
+    if (job != null) {
+      job.cancel();
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package edu.ntnu.stud.model.render;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The work of a {@link RenderJob}. Implementations should check {@link RenderJob#isCancelled()}
+ * between batches of work, and return early once the job is cancelled.
+ *
+ * @param <ResultT> the type of the result of the work
+ * @author Leif Mørstad
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface RenderTask<ResultT> {
+
+  /**
+   * Runs the work of the job.
+   *
+   * @param job the job running the task, used for checking for cancellation
+   * @return the result, or null if the task stopped because the job was cancelled
+   * @throws Exception if the work failed
+   */
+  @Nullable ResultT run(@NotNull RenderJob<ResultT> job) throws Exception;
+}
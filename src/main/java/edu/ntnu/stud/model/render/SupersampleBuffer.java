@@ -0,0 +1,258 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.HistogramStorage;
+import edu.ntnu.stud.model.math.PixelCoordinateTranslator;
+import edu.ntnu.stud.model.math.PixelCoordinateTranslator.IndexPair;
+import edu.ntnu.stud.model.math.Vector;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A histogram at a multiple of the display resolution, which is downsampled to the display
+ * resolution with a box filter once drawn. Rendering at a higher resolution smooths thin
+ * structures which otherwise look aliased and speckled at the display resolution.
+ *
+ * <p>
+ * Each sample is stored as an unsigned 16-bit {@code char} saturating at {@link #MAX_COUNT}
+ * instead of an {@code int}, halving the memory of the buffer. The palette only distinguishes
+ * the first few counts anyway, so saturating costs nothing visible.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.2
+ */
+public class SupersampleBuffer {
+
+  /**
+   * The lowest factor which actually supersamples.
+   */
+  public static final int MIN_FACTOR = 2;
+  /**
+   * The highest supported factor.
+   */
+  public static final int MAX_FACTOR = 4;
+  /**
+   * The highest count a sample can hold before saturating.
+   */
+  public static final int MAX_COUNT = Character.MAX_VALUE;
+  /**
+   * The maximum number of samples in a buffer, bounding its memory to 64 MiB. Large windows get a
+   * lower factor instead of a larger buffer.
+   */
+  static final long MAX_SAMPLES = 32L * 1024 * 1024;
+
+  private final int width;
+  private final int height;
+  private final int factor;
+  /**
+   * The width of the buffer in samples.
+   */
+  private final int sampleWidth;
+  /**
+   * The height of the buffer in samples.
+   */
+  private final int sampleHeight;
+  /**
+   * The samples, row by row from the top, in the same orientation as
+   * {@link edu.ntnu.stud.model.ChaosGameCanvas#getCanvas()}.
+   */
+  private final char @NotNull [] samples;
+  private final @NotNull PixelCoordinateTranslator coordinateTranslator;
+
+  /**
+   * Creates a new buffer for a display of the given size. The factor is lowered if the buffer
+   * would otherwise exceed {@link #MAX_SAMPLES}.
+   *
+   * @param width     the width of the display, cannot be less than 1
+   * @param height    the height of the display, cannot be less than 1
+   * @param factor    the number of samples per display pixel along each axis, between
+   *                  {@link #MIN_FACTOR} and {@link #MAX_FACTOR}
+   * @param minCoords the bottom left bounds of the fractal to show
+   * @param maxCoords the top right bounds of the fractal to show
+   * @throws IllegalArgumentException if the size or factor is out of range
+   */
+  public SupersampleBuffer(
+      int width,
+      int height,
+      int factor,
+      @NotNull Vector minCoords,
+      @NotNull Vector maxCoords
+  ) throws IllegalArgumentException {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Width and height must be at least 1 each");
+    }
+    if (factor < MIN_FACTOR || factor > MAX_FACTOR) {
+      throw new IllegalArgumentException(
+          "Supersampling factor must be between " + MIN_FACTOR + " and " + MAX_FACTOR
+      );
+    }
+    this.width = width;
+    this.height = height;
+    this.factor = boundFactor(width, height, factor);
+    this.sampleWidth = width * this.factor;
+    this.sampleHeight = height * this.factor;
+    this.samples = new char[sampleWidth * sampleHeight];
+    this.coordinateTranslator = new PixelCoordinateTranslator(
+        sampleWidth,
+        sampleHeight,
+        minCoords,
+        maxCoords
+    );
+  }
+
+  /**
+   * Returns the highest factor not above the requested one which keeps the buffer within
+   * {@link #MAX_SAMPLES}, never going below 1.
+   *
+   * @param width     the width of the display
+   * @param height    the height of the display
+   * @param requested the requested factor
+   * @return the factor to use
+   */
+  static int boundFactor(int width, int height, int requested) {
+    int factor = requested;
+    while (factor > 1 && (long) width * height * factor * factor > MAX_SAMPLES) {
+      factor--;
+    }
+    return factor;
+  }
+
+  /**
+   * Adds a hit to the sample at the given coordinates. Points outside the buffer are discarded.
+   *
+   * @param coords the coordinates of the point
+   * @return true if the point was inside the buffer
+   */
+  public boolean plot(@NotNull Vector coords) {
+    IndexPair indices = coordinateTranslator.coordsToIndices(coords);
+    int x = indices.x0();
+    int y = indices.x1();
+    if (x < 0 || x >= sampleWidth || y < 0 || y >= sampleHeight) {
+      return false;
+    }
+    int index = (sampleHeight - y - 1) * sampleWidth + x;
+    if (samples[index] != MAX_COUNT) {
+      samples[index]++;
+    }
+    return true;
+  }
+
+  /**
+   * Resets every sample to 0.
+   */
+  public void clear() {
+    Arrays.fill(samples, (char) 0);
+  }
+
+  /**
+   * Downsamples the buffer into the given display histogram with a box filter, where each display
+   * pixel becomes the rounded mean of its block of samples. Rows are filtered in parallel, as each
+   * display row only reads its own block of sample rows.
+   *
+   * @param target the display histogram to overwrite, in the layout of
+   *               {@link edu.ntnu.stud.model.ChaosGameCanvas#getCanvas()}
+   * @throws IllegalArgumentException if the target doesn't match the display size
+   */
+  public void downsampleInto(int @NotNull [] @NotNull [] target) throws IllegalArgumentException {
+    if (target.length != height || target[0].length != width) {
+      throw new IllegalArgumentException("Target must match the display size of the buffer");
+    }
+    IntStream.range(0, height).parallel().forEach(y -> downsampleRow(y, target[y]));
+  }
+
+  /**
+   * Downsamples the buffer into the given display storage like
+   * {@link #downsampleInto(int[][])}, clamping the means to the precision of the storage.
+   *
+   * @param target the display storage to overwrite
+   * @throws IllegalArgumentException if the target doesn't match the display size
+   */
+  public void downsampleInto(@NotNull HistogramStorage target) throws IllegalArgumentException {
+    if (target.getHeight() != height || target.getWidth() != width) {
+      throw new IllegalArgumentException("Target must match the display size of the buffer");
+    }
+    IntStream.range(0, height).parallel().forEach(y -> {
+      int[] row = new int[width];
+      downsampleRow(y, row);
+      target.setRow(y, row);
+    });
+  }
+
+  /**
+   * Downsamples only the display pixel containing the given coordinates into the given display
+   * storage, like {@link #downsampleInto(HistogramStorage)} does for every pixel. Does nothing if
+   * the coordinates are outside the buffer.
+   *
+   * @param coords the coordinates of a point in the pixel
+   * @param target the display storage to overwrite the pixel of
+   * @throws IllegalArgumentException if the target doesn't match the display size
+   */
+  public void downsamplePixelInto(
+      @NotNull Vector coords,
+      @NotNull HistogramStorage target
+  ) throws IllegalArgumentException {
+    if (target.getHeight() != height || target.getWidth() != width) {
+      throw new IllegalArgumentException("Target must match the display size of the buffer");
+    }
+    IndexPair indices = coordinateTranslator.coordsToIndices(coords);
+    int x = indices.x0();
+    int y = indices.x1();
+    if (x < 0 || x >= sampleWidth || y < 0 || y >= sampleHeight) {
+      return;
+    }
+    int row = (sampleHeight - y - 1) / factor;
+    target.set(row, x / factor, blockMean(x / factor, row));
+  }
+
+  /**
+   * Box filters a single display row.
+   *
+   * @param y   the display row from the top
+   * @param row the array to write the means of the row to
+   */
+  private void downsampleRow(int y, int @NotNull [] row) {
+    for (int x = 0; x < width; x++) {
+      row[x] = blockMean(x, y);
+    }
+  }
+
+  /**
+   * Returns the rounded mean of the block of samples of a display pixel.
+   *
+   * @param x the display column from the left
+   * @param y the display row from the top
+   * @return the mean of the samples
+   */
+  private int blockMean(int x, int y) {
+    int blockSize = factor * factor;
+    int sum = 0;
+    for (int sy = 0; sy < factor; sy++) {
+      int offset = (y * factor + sy) * sampleWidth + x * factor;
+      for (int sx = 0; sx < factor; sx++) {
+        sum += samples[offset + sx];
+      }
+    }
+    return (sum + blockSize / 2) / blockSize;
+  }
+
+  /**
+   * Returns the number of samples per display pixel along each axis. Might be lower than the
+   * requested factor for large displays.
+   *
+   * @return the factor in use
+   */
+  public int getFactor() {
+    return factor;
+  }
+
+  /**
+   * Returns the number of samples in the buffer.
+   *
+   * @return the number of samples
+   */
+  public int getSampleCount() {
+    return samples.length;
+  }
+}
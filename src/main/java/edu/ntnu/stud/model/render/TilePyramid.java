@@ -0,0 +1,340 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.ChaosGameBinaryFormat;
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.ColorPalette;
+import edu.ntnu.stud.model.HistogramPrecision;
+import edu.ntnu.stud.model.HistogramStorage;
+import edu.ntnu.stud.model.export.PngEncoder;
+import edu.ntnu.stud.model.math.PixelCoordinateTranslator;
+import edu.ntnu.stud.model.math.Vector;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Renders a description as a pyramid of 256×256 PNG tiles in the XYZ layout used by map viewers,
+ * with the tile at zoom z, column x and row y stored as {@code z/x/y.png}. Zoom 0 is a single
+ * tile showing the whole fractal, and every zoom level doubles the number of tiles along each
+ * axis. Rows are counted from the top.
+ *
+ * <p>
+ * Every tile is rendered on its own with a {@link PixelCoordinateTranslator} for just its part of
+ * the fractal, so tiles render in parallel and deep tiles never need a canvas for the whole zoom
+ * level. The number of iterations grows four times per level to keep the density of hits the
+ * same. For contracting affine transformations, only the part of those iterations landing near
+ * the tile is drawn, by mapping the points of the walker with a {@link ViewCover} of the tile, so
+ * deep tiles are as dense as shallow ones and tiles the attractor doesn't reach cost nothing.
+ * </p>
+ *
+ * <p>
+ * Other transformations are walked in full, up to {@link #MAX_ITERATIONS_PER_TILE} per tile. Their
+ * density falls four times per level beyond the level where that limit is reached, which is level
+ * 5 at one iteration per pixel, as only the hits of the walker inside the tile are drawn.
+ * </p>
+ *
+ * <p>
+ * A fingerprint of the description and settings is stored next to the tiles. Re-running with the
+ * same fingerprint only renders the tiles that are missing, while a different fingerprint renders
+ * every tile again.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.3
+ */
+public class TilePyramid {
+
+  /**
+   * The width and height of every tile in pixels.
+   */
+  public static final int TILE_SIZE = 256;
+  /**
+   * The deepest zoom level, where the pyramid has 4^12 tiles.
+   */
+  public static final int MAX_ZOOM = 12;
+  /**
+   * The most iterations a single tile is rendered with, however deep it is.
+   */
+  public static final long MAX_ITERATIONS_PER_TILE = 1L << 26;
+  /**
+   * The version of how tiles are rendered, part of the fingerprint so that tiles rendered
+   * differently by an older version are rendered again.
+   */
+  private static final int TILE_VERSION = 2;
+  /**
+   * The file the fingerprint of the rendered tiles is stored in.
+   */
+  private static final String FINGERPRINT_FILE = "pyramid.fingerprint";
+
+  private final @NotNull ChaosGameDescription description;
+  private final int minZoom;
+  private final int maxZoom;
+  private final int iterationsPerPixel;
+  private final @NotNull ColorPalette palette;
+  /**
+   * The encoder of the tiles, indexing the palette straight from the counts. Compresses on the
+   * thread of the tile only, as the tiles already render on every core.
+   */
+  private final @NotNull PngEncoder encoder;
+  /**
+   * The bottom left corner of the square covered by zoom level 0.
+   */
+  private final @NotNull Vector worldMin;
+  /**
+   * The width and height of the square covered by zoom level 0.
+   */
+  private final double worldExtent;
+
+  /**
+   * Creates a new pyramid of the given zoom levels.
+   *
+   * @param description        the description to render
+   * @param minZoom            the shallowest zoom level to render, at least 0
+   * @param maxZoom            the deepest zoom level to render, at most {@link #MAX_ZOOM}
+   * @param iterationsPerPixel the number of iterations per pixel at zoom 0, at least 1
+   * @param palette            the palette to color the tiles with
+   * @throws IllegalArgumentException if the zoom range or iterations are out of range, or the
+   *                                  palette has more than 256 colors
+   */
+  public TilePyramid(
+      @NotNull ChaosGameDescription description,
+      int minZoom,
+      int maxZoom,
+      int iterationsPerPixel,
+      @NotNull ColorPalette palette
+  ) throws IllegalArgumentException {
+    if (minZoom < 0 || maxZoom > MAX_ZOOM || minZoom > maxZoom) {
+      throw new IllegalArgumentException(
+          "Zoom levels must be between 0 and " + MAX_ZOOM + ", with min not above max"
+      );
+    }
+    if (iterationsPerPixel < 1) {
+      throw new IllegalArgumentException("Iterations per pixel must be at least 1");
+    }
+    this.description = description;
+    this.minZoom = minZoom;
+    this.maxZoom = maxZoom;
+    this.iterationsPerPixel = iterationsPerPixel;
+    this.palette = palette;
+    this.encoder = new PngEncoder(PngEncoder.Format.INDEXED_8, palette, 1, 0);
+
+    // Tiles are square, so the bounds are extended to a square around the same center
+    Vector min = description.minCoords();
+    Vector max = description.maxCoords();
+    worldExtent = Math.max(max.getX0() - min.getX0(), max.getX1() - min.getX1());
+    worldMin = new Vector(
+        (min.getX0() + max.getX0() - worldExtent) / 2,
+        (min.getX1() + max.getX1() - worldExtent) / 2
+    );
+  }
+
+  /**
+   * Returns the bounds of a tile, as the bottom left corner and the top right corner of the last
+   * pixel. Pixels are half-open, so the bounds of neighbouring tiles line up without overlap.
+   *
+   * @param zoom the zoom level of the tile
+   * @param x    the column of the tile from the left
+   * @param y    the row of the tile from the top
+   * @return the bottom left and top right bounds of the tile
+   */
+  @NotNull Vector @NotNull [] getTileBounds(int zoom, int x, int y) {
+    double tileExtent = worldExtent / (1 << zoom);
+    double pixelExtent = tileExtent / TILE_SIZE;
+    int rowFromBottom = (1 << zoom) - y - 1;
+    Vector min = new Vector(
+        worldMin.getX0() + x * tileExtent,
+        worldMin.getX1() + rowFromBottom * tileExtent
+    );
+    Vector max = new Vector(
+        min.getX0() + tileExtent - pixelExtent,
+        min.getX1() + tileExtent - pixelExtent
+    );
+    return new Vector[] {min, max};
+  }
+
+  /**
+   * Renders every tile of the pyramid missing from the directory, in parallel.
+   *
+   * @param directory   the directory to write the pyramid to, created if missing
+   * @param isCancelled returns true once the render should stop, checked before each tile
+   * @return how many tiles were rendered and skipped, or null if cancelled
+   * @throws IOException if the tiles could not be written
+   */
+  public @Nullable Result generate(
+      @NotNull Path directory,
+      @NotNull BooleanSupplier isCancelled
+  ) throws IOException {
+    Files.createDirectories(directory);
+    Path fingerprintFile = directory.resolve(FINGERPRINT_FILE);
+    String fingerprint = fingerprint();
+    boolean reuseTiles = Files.isRegularFile(fingerprintFile)
+        && Files.readString(fingerprintFile).equals(fingerprint);
+    if (!reuseTiles) {
+      // Removed until every tile has been rendered, so that an interrupted run starts over
+      Files.deleteIfExists(fingerprintFile);
+      deleteTiles(directory);
+    }
+
+    AtomicInteger rendered = new AtomicInteger();
+    AtomicInteger skipped = new AtomicInteger();
+    try {
+      for (int zoom = minZoom; zoom <= maxZoom; zoom++) {
+        int tilesPerAxis = 1 << zoom;
+        int level = zoom;
+        IntStream.range(0, tilesPerAxis * tilesPerAxis).parallel().forEach(tile -> {
+          if (isCancelled.getAsBoolean()) {
+            return;
+          }
+          int x = tile % tilesPerAxis;
+          int y = tile / tilesPerAxis;
+          Path file = getTileFile(directory, level, x, y);
+          if (reuseTiles && Files.isRegularFile(file)) {
+            skipped.incrementAndGet();
+            return;
+          }
+          try {
+            writeTile(file, renderTile(level, x, y));
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+          rendered.incrementAndGet();
+        });
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    if (isCancelled.getAsBoolean()) {
+      return null;
+    }
+    Files.writeString(fingerprintFile, fingerprint);
+    return new Result(rendered.get(), skipped.get());
+  }
+
+  /**
+   * Deletes the tiles of every zoom level, so that stale tiles outside the zoom range rendered now
+   * aren't reused by a later run with a wider range.
+   */
+  private static void deleteTiles(@NotNull Path directory) throws IOException {
+    for (int zoom = 0; zoom <= MAX_ZOOM; zoom++) {
+      Path level = directory.resolve(String.valueOf(zoom));
+      if (!Files.isDirectory(level)) {
+        continue;
+      }
+      try (Stream<Path> paths = Files.walk(level)) {
+        for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+          Files.delete(path);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the file a tile is stored in.
+   *
+   * @param directory the directory of the pyramid
+   * @param zoom      the zoom level of the tile
+   * @param x         the column of the tile
+   * @param y         the row of the tile
+   * @return the path to the tile
+   */
+  public static @NotNull Path getTileFile(@NotNull Path directory, int zoom, int x, int y) {
+    return directory.resolve(zoom + "/" + x + "/" + y + ".png");
+  }
+
+  /**
+   * Renders a single tile into a flat histogram, row by row from the top. The random generator is
+   * seeded by the position of the tile, so a tile renders the same every time, and the threads
+   * don't contend on the random generator of the shared transformation group.
+   *
+   * @param zoom the zoom level of the tile
+   * @param x    the column of the tile from the left
+   * @param y    the row of the tile from the top
+   * @return the hits of every pixel of the tile
+   */
+  int @NotNull [] renderTile(int zoom, int x, int y) {
+    Vector[] bounds = getTileBounds(zoom, x, y);
+    SplittableRandom random = new SplittableRandom(((long) zoom << 48) ^ ((long) x << 24) ^ y);
+    ChaosWalker walker = new ChaosWalker(description.transformations(), random.split());
+    int[] counts = new int[TILE_SIZE * TILE_SIZE];
+    long iterations = (long) TILE_SIZE * TILE_SIZE * iterationsPerPixel << (2 * zoom);
+    // Covers the whole of the last pixels, which extend past the bounds
+    double pixelExtent = worldExtent / (1 << zoom) / TILE_SIZE;
+    ViewCover cover = ViewCover.of(
+        description.transformations(),
+        bounds[0],
+        new Vector(bounds[1].getX0() + pixelExtent, bounds[1].getX1() + pixelExtent)
+    );
+    if (cover == null) {
+      iterations = Math.min(MAX_ITERATIONS_PER_TILE, iterations);
+      walker.plot(iterations, TILE_SIZE, TILE_SIZE, bounds[0], bounds[1], counts);
+    } else {
+      iterations = (long) Math.min(
+          MAX_ITERATIONS_PER_TILE,
+          Math.ceil(iterations * cover.getWeight())
+      );
+      cover.plot(walker, random, iterations, TILE_SIZE, TILE_SIZE, bounds[0], bounds[1], counts);
+    }
+    return counts;
+  }
+
+  /**
+   * Writes a tile to a temporary file first and moves it into place, so that an interrupted run
+   * never leaves a partial tile behind to be skipped by the next run.
+   */
+  private void writeTile(@NotNull Path file, int @NotNull [] counts) throws IOException {
+    // The palette has at most 256 colors, so saturating bytes index the same colors
+    HistogramStorage storage = HistogramPrecision.BYTE.createStorage(TILE_SIZE, TILE_SIZE);
+    int[] row = new int[TILE_SIZE];
+    for (int y = 0; y < TILE_SIZE; y++) {
+      System.arraycopy(counts, y * TILE_SIZE, row, 0, TILE_SIZE);
+      storage.setRow(y, row);
+    }
+
+    Files.createDirectories(file.getParent());
+    Path temporary = Files.createTempFile(file.getParent(), "tile", ".tmp");
+    try {
+      encoder.write(storage, temporary);
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * Hashes the binary encoding of the description together with the render settings.
+   *
+   * @return a hex string identifying the tiles
+   */
+  private @NotNull String fingerprint() {
+    int[] colors = palette.getColors();
+    ByteBuffer settings = ByteBuffer.allocate(Integer.BYTES * (2 + colors.length) + Long.BYTES)
+        .putInt(TILE_VERSION)
+        .putInt(iterationsPerPixel)
+        .putLong(MAX_ITERATIONS_PER_TILE);
+    settings.asIntBuffer().put(colors);
+    settings.position(settings.limit()).flip();
+    return ChaosGameBinaryFormat.fingerprint(description, settings);
+  }
+
+  /**
+   * The outcome of generating a pyramid.
+   *
+   * @param rendered the number of tiles rendered
+   * @param skipped  the number of tiles already on disk
+   */
+  public record Result(int rendered, int skipped) {
+
+  }
+}
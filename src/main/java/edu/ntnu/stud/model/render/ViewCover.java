@@ -0,0 +1,279 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.math.AffineTransformation;
+import edu.ntnu.stud.model.math.PixelCoordinateTranslator;
+import edu.ntnu.stud.model.math.PixelCoordinateTranslator.IndexPair;
+import edu.ntnu.stud.model.math.SimpleMatrix;
+import edu.ntnu.stud.model.math.Transform2D;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The compositions of the transformations of a group whose images of the attractor might reach a
+ * view. They are found by cutting branches like {@link AdaptiveCutRenderer}, but stop at branches
+ * no larger than the view instead of a pixel. Every point of the attractor inside the view is the
+ * image of a point of the attractor under one of the compositions.
+ *
+ * <p>
+ * The chaos game picks every composition of d transformations with probability n<sup>-d</sup>
+ * for n transformations. So mapping the points of a walker by a composition picked with that
+ * probability draws the same density inside the view as the walker does, without the steps of the
+ * walker landing elsewhere. A step mapped this way stands for 1 / {@link #getWeight()} steps of the
+ * walker, which is about the inverse of the share of the attractor near the view.
+ * </p>
+ *
+ * <p>
+ * Only groups of contracting affine transformations are covered, as other transformations have no
+ * ball they map into itself to cut the branches with.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.1
+ */
+public class ViewCover {
+
+  /**
+   * The most branches visited while covering a view, beyond which the view isn't covered.
+   */
+  public static final int MAX_BRANCHES = 1 << 16;
+  /**
+   * The deepest composition enumerated, as in {@link AdaptiveCutRenderer}.
+   */
+  private static final int MAX_DEPTH = 256;
+
+  /**
+   * The compositions, six coefficients each: a00, a01, a10, a11, vx and vy.
+   */
+  private final double @NotNull [] compositions;
+  /**
+   * The sum of the probabilities of every composition up to and including each one.
+   */
+  private final double @NotNull [] cumulativeWeights;
+
+  private ViewCover(double @NotNull [] compositions, double @NotNull [] cumulativeWeights) {
+    this.compositions = compositions;
+    this.cumulativeWeights = cumulativeWeights;
+  }
+
+  /**
+   * Covers the view of the given transformations.
+   *
+   * @param transformations the transformations to cover the view of
+   * @param minCoords       the bottom left bounds of the view
+   * @param maxCoords       the top right bounds of the view
+   * @return the cover, or null if any transformation isn't affine or doesn't contract, or more
+   *         than {@link #MAX_BRANCHES} branches are needed
+   */
+  public static @Nullable ViewCover of(
+      @NotNull TransformationGroup transformations,
+      @NotNull Vector minCoords,
+      @NotNull Vector maxCoords
+  ) {
+    Transform2D[] group = transformations.getTransformations();
+    double[] coefficients = new double[group.length * 6];
+    double sumX = 0;
+    double sumY = 0;
+    for (int i = 0; i < group.length; i++) {
+      if (!(group[i] instanceof AffineTransformation transformation)) {
+        return null;
+      }
+      SimpleMatrix m = transformation.getMatrix();
+      Vector t = transformation.getTranslation();
+      if (AdaptiveCutRenderer.stretch(m.a00(), m.a01(), m.a10(), m.a11()) >= 1) {
+        return null;
+      }
+      int offset = i * 6;
+      coefficients[offset] = m.a00();
+      coefficients[offset + 1] = m.a01();
+      coefficients[offset + 2] = m.a10();
+      coefficients[offset + 3] = m.a11();
+      coefficients[offset + 4] = t.getX0();
+      coefficients[offset + 5] = t.getX1();
+      sumX += t.getX0();
+      sumY += t.getX1();
+    }
+    Search search = new Search(
+        coefficients,
+        sumX / group.length,
+        sumY / group.length,
+        minCoords,
+        maxCoords
+    );
+    if (!search.visit(0, 1, 0, 0, 1, 0, 0)) {
+      return null;
+    }
+
+    int size = search.found.size();
+    double[] compositions = new double[size * 6];
+    double[] cumulativeWeights = new double[size];
+    double weight = 0;
+    for (int i = 0; i < size; i++) {
+      double[] branch = search.found.get(i);
+      System.arraycopy(branch, 0, compositions, i * 6, 6);
+      weight += Math.pow(group.length, -branch[6]);
+      cumulativeWeights[i] = weight;
+    }
+    return new ViewCover(compositions, cumulativeWeights);
+  }
+
+  /**
+   * Returns the number of compositions covering the view.
+   *
+   * @return the number of compositions, 0 if the attractor doesn't reach the view
+   */
+  public int size() {
+    return cumulativeWeights.length;
+  }
+
+  /**
+   * Returns the probability of the chaos game picking any of the compositions, which is the number
+   * of mapped steps needed per step of the walker for the same density.
+   *
+   * @return the probability, between 0 and 1
+   */
+  public double getWeight() {
+    return size() == 0 ? 0 : cumulativeWeights[size() - 1];
+  }
+
+  /**
+   * Maps the given number of points of the walker by compositions picked at random, counting the
+   * points inside the bounds in a flat histogram, row by row from the top.
+   *
+   * @param walker     the walker giving the points on the attractor to map
+   * @param random     the random generator picking the compositions
+   * @param iterations the number of points to map
+   * @param width      the width of the histogram
+   * @param height     the height of the histogram
+   * @param minCoords  the bottom left bounds of the histogram
+   * @param maxCoords  the top right bounds of the histogram
+   * @param counts     the histogram of width times height counts to add the points to
+   */
+  public void plot(
+      @NotNull ChaosWalker walker,
+      @NotNull SplittableRandom random,
+      long iterations,
+      int width,
+      int height,
+      @NotNull Vector minCoords,
+      @NotNull Vector maxCoords,
+      int @NotNull [] counts
+  ) {
+    if (size() == 0) {
+      return;
+    }
+    PixelCoordinateTranslator translator = new PixelCoordinateTranslator(
+        width,
+        height,
+        minCoords,
+        maxCoords
+    );
+    double weight = getWeight();
+    double[] c = compositions;
+    for (long i = 0; i < iterations; i++) {
+      Vector point = walker.step();
+      int index = Arrays.binarySearch(cumulativeWeights, random.nextDouble() * weight);
+      int offset = Math.min(index >= 0 ? index + 1 : -index - 1, size() - 1) * 6;
+      double x = point.getX0();
+      double y = point.getX1();
+      IndexPair indices = translator.coordsToIndices(new Vector(
+          c[offset] * x + c[offset + 1] * y + c[offset + 4],
+          c[offset + 2] * x + c[offset + 3] * y + c[offset + 5]
+      ));
+      int column = indices.x0();
+      int row = indices.x1();
+      if (column >= 0 && column < width && row >= 0 && row < height) {
+        counts[(height - row - 1) * width + column]++;
+      }
+    }
+  }
+
+  /**
+   * The state of the enumeration of the branches reaching a view.
+   */
+  private static final class Search implements AdaptiveCutRenderer.BranchVisitor {
+
+    private final double @NotNull [] transformations;
+    private final double centerX;
+    private final double centerY;
+    private final double radius;
+    private final @NotNull Vector min;
+    private final @NotNull Vector max;
+    /**
+     * The larger side of the view, below which an image of the ball isn't split further.
+     */
+    private final double extent;
+    /**
+     * The compositions found, six coefficients each followed by their depth.
+     */
+    private final @NotNull List<double[]> found = new ArrayList<>();
+    private int visited = 0;
+
+    private Search(
+        double @NotNull [] transformations,
+        double centerX,
+        double centerY,
+        @NotNull Vector min,
+        @NotNull Vector max
+    ) {
+      this.transformations = transformations;
+      this.centerX = centerX;
+      this.centerY = centerY;
+      this.radius = AdaptiveCutRenderer.findRadius(transformations, centerX, centerY);
+      this.min = min;
+      this.max = max;
+      this.extent = Math.max(max.getX0() - min.getX0(), max.getX1() - min.getX1());
+    }
+
+    /**
+     * Enumerates the compositions starting with the given one, keeping every branch whose image
+     * of the ball reaches the view and is inside it or no larger than it.
+     *
+     * @return false if more than {@link #MAX_BRANCHES} branches were visited
+     */
+    @Override
+    public boolean visit(
+        int depth,
+        double a00,
+        double a01,
+        double a10,
+        double a11,
+        double vx,
+        double vy
+    ) {
+      if (++visited > MAX_BRANCHES) {
+        return false;
+      }
+      double x = a00 * centerX + a01 * centerY + vx;
+      double y = a10 * centerX + a11 * centerY + vy;
+      double imageRadius = radius * AdaptiveCutRenderer.stretch(a00, a01, a10, a11);
+      if (x + imageRadius < min.getX0() || x - imageRadius > max.getX0()
+          || y + imageRadius < min.getX1() || y - imageRadius > max.getX1()) {
+        return true;
+      }
+      boolean inside = x - imageRadius >= min.getX0() && x + imageRadius <= max.getX0()
+          && y - imageRadius >= min.getX1() && y + imageRadius <= max.getX1();
+      if (inside || 2 * imageRadius <= extent || depth >= MAX_DEPTH) {
+        found.add(new double[] {a00, a01, a10, a11, vx, vy, depth});
+        return true;
+      }
+      return AdaptiveCutRenderer.forEachBranch(
+          transformations,
+          depth,
+          a00,
+          a01,
+          a10,
+          a11,
+          vx,
+          vy,
+          this
+      );
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package edu.ntnu.stud.model.server;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A least recently used cache of encoded images, bounded by the total number of bytes rather than
+ * the number of entries, as image sizes vary by orders of magnitude.
+ *
+ * @author Leif Mørstad
+ * @version 1.0
+ */
+class PngCache {
+  private final long capacityBytes;
+  /**
+   * The cached images in access order, so that the eldest entry is the least recently used.
+   */
+  private final @NotNull LinkedHashMap<String, byte[]> entries =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private long sizeBytes = 0;
+
+  /**
+   * Creates a new empty cache.
+   *
+   * @param capacityBytes the maximum total size of the cached images, or 0 to disable caching
+   * @throws IllegalArgumentException if the capacity is negative
+   */
+  PngCache(long capacityBytes) throws IllegalArgumentException {
+    if (capacityBytes < 0) {
+      throw new IllegalArgumentException("Cache capacity cannot be negative");
+    }
+    this.capacityBytes = capacityBytes;
+  }
+
+  /**
+   * Returns the image cached under the key, and marks it as recently used.
+   *
+   * @param key the key of the image
+   * @return the image, or null if not cached
+   */
+  synchronized byte @Nullable [] get(@NotNull String key) {
+    return entries.get(key);
+  }
+
+  /**
+   * Caches the image under the key, evicting the least recently used images until it fits.
+   * Images larger than the whole cache are not cached.
+   *
+   * @param key   the key of the image
+   * @param image the encoded image
+   */
+  synchronized void put(@NotNull String key, byte @NotNull [] image) {
+    if (image.length > capacityBytes) {
+      return;
+    }
+    byte[] previous = entries.put(key, image);
+    sizeBytes += image.length - (previous == null ? 0 : previous.length);
+
+    Iterator<Map.Entry<String, byte[]>> eldest = entries.entrySet().iterator();
+    while (sizeBytes > capacityBytes) {
+      sizeBytes -= eldest.next().getValue().length;
+      eldest.remove();
+    }
+  }
+
+  /**
+   * Returns the number of cached images.
+   *
+   * @return the number of images
+   */
+  synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns the total size of the cached images.
+   *
+   * @return the size in bytes
+   */
+  synchronized long getSizeBytes() {
+    return sizeBytes;
+  }
+}
@@ -0,0 +1,775 @@
+package edu.ntnu.stud.model.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.ntnu.stud.model.ChaosGame;
+import edu.ntnu.stud.model.ChaosGameCanvas;
+import edu.ntnu.stud.model.ChaosGameBinaryFormat;
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.ChaosGameFileHandler;
+import edu.ntnu.stud.model.ColorPalette;
+import edu.ntnu.stud.model.HistogramPrecision;
+import edu.ntnu.stud.model.export.PngEncoder;
+import edu.ntnu.stud.model.render.AdaptiveCutRenderer;
+import edu.ntnu.stud.model.render.DeterministicRenderer;
+import edu.ntnu.stud.model.render.KernelPrecision;
+import edu.ntnu.stud.model.render.RasterIfsRenderer;
+import edu.ntnu.stud.utils.RenderMetrics;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serial;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+
+/**
+ * An HTTP server rendering fractals to PNG images, for use without a desktop session. Serves
+ * <ul>
+ *   <li>{@code GET /render?fractal=<name>&width=&height=&quality=} to render a library fractal,
+ *   </li>
+ *   <li>{@code POST /render?width=&height=&quality=} to render the JSON description in the body,
+ *   of at most {@link #MAX_BODY_BYTES},</li>
+ *   <li>{@code GET /health} to check that the server is up, and</li>
+ *   <li>{@code GET /metrics} for counters in the Prometheus text format.</li>
+ * </ul>
+ * The quality is the number of iterations per pixel. Both also take an {@code engine}, which is
+ * {@code chaos} for the chaos game by default, {@code raster} for the deterministic iteration of
+ * {@link RasterIfsRenderer}, or {@code adaptive} for the enumeration of the compositions by
+ * {@link AdaptiveCutRenderer}. The last two ignore the quality, and only render affine
+ * transformations. The engine {@code deterministic} renders the quality with
+ * {@link DeterministicRenderer}, which also takes
+ * <ul>
+ *   <li>{@code seed}, the seed of the render, 0 by default,</li>
+ *   <li>{@code steps}, the number of transformations composed into each step, 1 by default,
+ *   drawing every point between the steps, and</li>
+ *   <li>{@code kernel}, the precision of the point, {@code auto} by default, {@code double} or
+ *   {@code float}.</li>
+ * </ul>
+ *
+ * <p>
+ * Requests are handled on virtual threads, as they mostly wait, while the rendering itself runs
+ * on a single pool with one thread per core and a bounded queue. When the queue is full, new
+ * renders are rejected with 503 right away instead of queueing up behind minutes of work, which
+ * keeps the latency of the accepted requests down. Identical requests arriving while one is
+ * rendering share its render, and finished images are kept in a cache bounded by size. When
+ * every request waiting for a render has timed out, the render is cancelled instead of running
+ * to the end for no one.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.5
+ */
+public class RenderServer implements Closeable {
+  /**
+   * The largest width and height of an image.
+   */
+  public static final int MAX_SIZE = 4096;
+  /**
+   * The largest number of iterations per pixel.
+   */
+  public static final int MAX_QUALITY = 100;
+  /**
+   * The largest size of a posted description in bytes.
+   */
+  public static final int MAX_BODY_BYTES = 1 << 20;
+  private static final Logger LOGGER = Logger.getLogger(RenderServer.class.getName());
+  /**
+   * The mapper reading posted descriptions, shared as it is thread safe once configured.
+   */
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final int DEFAULT_SIZE = 512;
+  private static final int DEFAULT_QUALITY = 10;
+  /**
+   * The most passes of the raster engine, far more than the attractors with bounds anywhere near
+   * their size need to converge.
+   */
+  private static final int MAX_RASTER_PASSES = 1000;
+  /**
+   * The most transformations composed into each step of the deterministic engine, beyond which
+   * even two transformations have too many compositions to tabulate.
+   */
+  private static final int MAX_COMPOSED_STEPS = 16;
+  /**
+   * The default time a request waits for its render before giving up.
+   */
+  private static final int DEFAULT_REQUEST_TIMEOUT_MILLIS = 60 * 1000;
+  /**
+   * The upper bounds of the latency histogram buckets in milliseconds.
+   */
+  private static final long[] LATENCY_BUCKETS_MILLIS = {
+      5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000
+  };
+  private static final String PNG_TYPE = "image/png";
+  private static final String TEXT_TYPE = "text/plain; charset=utf-8";
+
+  private final @NotNull HttpServer server;
+  private final @NotNull ExecutorService handlers;
+  private final @NotNull ThreadPoolExecutor renderPool;
+  /**
+   * The encoder of the images. Compresses on the render thread only, as the renders already keep
+   * every core busy.
+   */
+  private final @NotNull PngEncoder encoder =
+      new PngEncoder(PngEncoder.Format.INDEXED_8, ColorPalette.DEFAULT, 1, 0);
+  /**
+   * The renders currently running or queued, so that identical requests share the work.
+   */
+  private final @NotNull ConcurrentHashMap<String, InFlightRender> inFlight =
+      new ConcurrentHashMap<>();
+  private final @NotNull PngCache cache;
+  private volatile int requestTimeoutMillis = DEFAULT_REQUEST_TIMEOUT_MILLIS;
+
+  private final @NotNull LongAdder requests = new LongAdder();
+  private final @NotNull LongAdder cacheHits = new LongAdder();
+  private final @NotNull LongAdder deduplicated = new LongAdder();
+  private final @NotNull LongAdder renders = new LongAdder();
+  private final @NotNull LongAdder rejected = new LongAdder();
+  private final @NotNull LongAdder failures = new LongAdder();
+  private final @NotNull LongAdder cancelled = new LongAdder();
+  private final @NotNull LongAdder @NotNull [] latencyBuckets =
+      new LongAdder[LATENCY_BUCKETS_MILLIS.length + 1];
+  private final @NotNull LongAdder latencyMillis = new LongAdder();
+
+  /**
+   * Starts a server on the given address.
+   *
+   * @param address        the address to listen on
+   * @param renderThreads  the number of renders running at once, at least 1
+   * @param queueCapacity  the number of renders waiting for a thread before new ones are
+   *                       rejected, at least 1
+   * @param cacheBytes     the total size of the cached images, or 0 to disable caching
+   * @throws IOException              if the address could not be bound
+   * @throws IllegalArgumentException if a limit is out of range
+   */
+  public RenderServer(
+      @NotNull InetSocketAddress address,
+      int renderThreads,
+      int queueCapacity,
+      long cacheBytes
+  ) throws IOException, IllegalArgumentException {
+    if (renderThreads < 1 || queueCapacity < 1) {
+      throw new IllegalArgumentException("Render threads and queue capacity must be at least 1");
+    }
+    cache = new PngCache(cacheBytes);
+    for (int i = 0; i < latencyBuckets.length; i++) {
+      latencyBuckets[i] = new LongAdder();
+    }
+
+    AtomicInteger threadCount = new AtomicInteger();
+    renderPool = new ThreadPoolExecutor(
+        renderThreads,
+        renderThreads,
+        0,
+        TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> {
+          Thread thread = new Thread(runnable, "render-server-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+    );
+    handlers = Executors.newVirtualThreadPerTaskExecutor();
+
+    server = HttpServer.create(address, 0);
+    server.setExecutor(handlers);
+    server.createContext("/render", exchange -> handle(exchange, this::handleRender));
+    server.createContext("/health", exchange -> handle(exchange, this::handleHealth));
+    server.createContext("/metrics", exchange -> handle(exchange, this::handleMetrics));
+    server.start();
+    LOGGER.info("Render server listening on " + server.getAddress());
+  }
+
+  /**
+   * Returns the port the server listens on.
+   *
+   * @return the local port
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Sets how long a request waits for its render before responding with 503. A render is
+   * cancelled once every request waiting for it has given up.
+   *
+   * @param millis the time to wait in milliseconds, at least 1
+   * @throws IllegalArgumentException if the time is less than 1
+   */
+  public void setRequestTimeout(int millis) throws IllegalArgumentException {
+    if (millis < 1) {
+      throw new IllegalArgumentException("The request timeout must be at least 1 millisecond");
+    }
+    this.requestTimeoutMillis = millis;
+  }
+
+  /**
+   * Runs a handler, and turns the exceptions it throws into error responses.
+   */
+  private void handle(@NotNull HttpExchange exchange, @NotNull Handler handler) {
+    try (exchange) {
+      try {
+        handler.handle(exchange);
+      } catch (HttpError e) {
+        sendText(exchange, e.status, e.getMessage());
+      } catch (RuntimeException e) {
+        LOGGER.warning("Request failed: " + e);
+        sendText(exchange, 500, "Internal server error");
+      }
+    } catch (IOException e) {
+      // The client went away, there is no one to respond to
+      LOGGER.fine("Could not respond: " + e.getMessage());
+    }
+  }
+
+  private void handleRender(@NotNull HttpExchange exchange) throws IOException, HttpError {
+    long start = System.nanoTime();
+    requests.increment();
+    Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+    int width = parseInt(query, "width", DEFAULT_SIZE, 1, MAX_SIZE);
+    int height = parseInt(query, "height", DEFAULT_SIZE, 1, MAX_SIZE);
+    int quality = parseInt(query, "quality", DEFAULT_QUALITY, 1, MAX_QUALITY);
+    ChaosGameDescription description = switch (exchange.getRequestMethod()) {
+      case "GET" -> readLibraryDescription(query.get("fractal"));
+      case "POST" -> readInlineDescription(exchange.getRequestBody());
+      default -> throw new HttpError(405, "Only GET and POST are allowed");
+    };
+    PreparedRender render = prepare(query, description, width, height, quality);
+
+    String key = hash(description, width, height, render.settings());
+    byte[] image = cache.get(key);
+    if (image != null) {
+      cacheHits.increment();
+      exchange.getResponseHeaders().set("X-Cache", "hit");
+    } else {
+      image = await(key, getOrStartRender(key, render.render()));
+      exchange.getResponseHeaders().set("X-Cache", "miss");
+    }
+    exchange.getResponseHeaders().set("Content-Type", PNG_TYPE);
+    exchange.sendResponseHeaders(200, image.length);
+    try (OutputStream body = exchange.getResponseBody()) {
+      body.write(image);
+    }
+    recordLatency(System.nanoTime() - start);
+  }
+
+  private void handleHealth(@NotNull HttpExchange exchange) throws IOException {
+    boolean healthy = !renderPool.isShutdown();
+    sendText(exchange, healthy ? 200 : 503, healthy ? "ok" : "shutting down");
+  }
+
+  private void handleMetrics(@NotNull HttpExchange exchange) throws IOException {
+    StringBuilder metrics = new StringBuilder();
+    appendMetric(metrics, "render_server_requests_total", requests.sum());
+    appendMetric(metrics, "render_server_cache_hits_total", cacheHits.sum());
+    appendMetric(metrics, "render_server_deduplicated_total", deduplicated.sum());
+    appendMetric(metrics, "render_server_renders_total", renders.sum());
+    appendMetric(metrics, "render_server_rejected_total", rejected.sum());
+    appendMetric(metrics, "render_server_failures_total", failures.sum());
+    appendMetric(metrics, "render_server_cancelled_total", cancelled.sum());
+    appendMetric(metrics, "render_server_active_renders", renderPool.getActiveCount());
+    appendMetric(metrics, "render_server_queued_renders", renderPool.getQueue().size());
+    appendMetric(metrics, "render_server_cache_entries", cache.size());
+    appendMetric(metrics, "render_server_cache_bytes", cache.getSizeBytes());
+    long cumulative = 0;
+    for (int i = 0; i < LATENCY_BUCKETS_MILLIS.length; i++) {
+      cumulative += latencyBuckets[i].sum();
+      appendMetric(
+          metrics,
+          "render_server_latency_millis_bucket{le=\"" + LATENCY_BUCKETS_MILLIS[i] + "\"}",
+          cumulative
+      );
+    }
+    cumulative += latencyBuckets[LATENCY_BUCKETS_MILLIS.length].sum();
+    appendMetric(metrics, "render_server_latency_millis_bucket{le=\"+Inf\"}", cumulative);
+    appendMetric(metrics, "render_server_latency_millis_sum", latencyMillis.sum());
+    appendMetric(metrics, "render_server_latency_millis_count", cumulative);
+    appendMetric(metrics, "render_iterations_total", RenderMetrics.getInstance().getIterations());
+    sendText(exchange, 200, metrics.toString());
+  }
+
+  /**
+   * Returns the render of the key already in flight, or queues a new one. Only the first of
+   * several identical requests queues a render, the others join it and wait for the same future.
+   * A render abandoned by all its waiters is replaced by a new one.
+   *
+   * @throws HttpError if the queue is full
+   */
+  private @NotNull InFlightRender getOrStartRender(
+      @NotNull String key,
+      @NotNull CanvasRender canvasRender
+  ) throws HttpError {
+    InFlightRender created = new InFlightRender();
+    InFlightRender pending = inFlight.compute(
+        key,
+        (ignored, existing) -> existing != null && existing.join() ? existing : created
+    );
+    if (pending != created) {
+      deduplicated.increment();
+      return pending;
+    }
+    try {
+      renderPool.execute(() -> {
+        try {
+          byte[] image = render(
+              canvasRender,
+              () -> renderPool.isShutdown() || pending.isAbandoned()
+          );
+          if (image == null) {
+            cancelled.increment();
+            pending.future.completeExceptionally(new HttpError(503, "The render was cancelled"));
+            return;
+          }
+          renders.increment();
+          // Cached before leaving the in flight map, so that no request misses both
+          cache.put(key, image);
+          pending.future.complete(image);
+        } catch (RuntimeException e) {
+          failures.increment();
+          pending.future.completeExceptionally(e);
+        } finally {
+          inFlight.remove(key, pending);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      inFlight.remove(key, pending);
+      HttpError error = new HttpError(503, "The server is busy, try again later");
+      pending.future.completeExceptionally(error);
+      throw error;
+    }
+    return pending;
+  }
+
+  /**
+   * Waits for a render, and turns its failures into error responses. Leaves the render when
+   * giving up, cancelling it if no other request is waiting.
+   */
+  private byte @NotNull [] await(
+      @NotNull String key,
+      @NotNull InFlightRender pending
+  ) throws HttpError {
+    try {
+      return pending.future.get(requestTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      leave(key, pending);
+      throw new HttpError(503, "The server is shutting down");
+    } catch (TimeoutException e) {
+      leave(key, pending);
+      throw new HttpError(503, "The render took too long");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof HttpError error) {
+        throw error;
+      }
+      throw new HttpError(500, "The render failed");
+    }
+  }
+
+  /**
+   * Leaves a render after giving up on it, and forgets the render if it was abandoned, so that
+   * the next identical request starts over.
+   */
+  private void leave(@NotNull String key, @NotNull InFlightRender pending) {
+    if (pending.leave()) {
+      inFlight.remove(key, pending);
+    }
+  }
+
+  /**
+   * Renders a canvas and encodes it as an indexed PNG, straight from the counts.
+   *
+   * @return the image, or null if the render was cancelled
+   */
+  private byte @Nullable [] render(
+      @NotNull CanvasRender canvasRender,
+      @NotNull BooleanSupplier isCancelled
+  ) {
+    ChaosGameCanvas canvas = canvasRender.render(isCancelled);
+    if (canvas == null) {
+      return null;
+    }
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try {
+      encoder.write(canvas.getStorage(), output);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return output.toByteArray();
+  }
+
+  /**
+   * Prepares the render of the description by the engine of the query. Renderers checking the
+   * description up front are created right away, so that a description they can't render is
+   * rejected before taking up a place in the queue.
+   *
+   * @throws HttpError if a parameter is invalid, or the engine can't render the description
+   */
+  private static @NotNull PreparedRender prepare(
+      @NotNull Map<String, String> query,
+      @NotNull ChaosGameDescription description,
+      int width,
+      int height,
+      int quality
+  ) throws HttpError {
+    Engine engine = parseChoice(query, "engine", Engine.CHAOS);
+    try {
+      return switch (engine) {
+        case CHAOS -> new PreparedRender("chaos " + quality, isCancelled -> {
+          // The palette only has a few colors, so saturating bytes render the same image
+          ChaosGame chaosGame = new ChaosGame(width, height, description, HistogramPrecision.BYTE);
+          boolean done = chaosGame.render((long) width * height * quality, isCancelled);
+          return done ? chaosGame.getCanvas() : null;
+        });
+        case RASTER -> {
+          RasterIfsRenderer renderer = new RasterIfsRenderer(description, width, height);
+          // A single thread, as the pool already renders on every core
+          yield new PreparedRender("raster", isCancelled -> {
+            RasterIfsRenderer.Result result = renderer.render(MAX_RASTER_PASSES, 1, isCancelled);
+            return result == null ? null : result.canvas();
+          });
+        }
+        case ADAPTIVE -> {
+          AdaptiveCutRenderer renderer = new AdaptiveCutRenderer(
+              description,
+              width,
+              height,
+              HistogramPrecision.BYTE
+          );
+          yield new PreparedRender("adaptive", isCancelled -> renderer.render(1, isCancelled));
+        }
+        case DETERMINISTIC -> {
+          long seed = parseLong(query, "seed", 0);
+          int steps = parseInt(query, "steps", 1, 1, MAX_COMPOSED_STEPS);
+          KernelPrecision kernel = parseChoice(query, "kernel", KernelPrecision.AUTO);
+          DeterministicRenderer renderer = new DeterministicRenderer(
+              description,
+              width,
+              height,
+              HistogramPrecision.BYTE
+          );
+          renderer.setComposedSteps(steps, true);
+          renderer.setKernelPrecision(kernel);
+          long iterations = (long) width * height * quality;
+          yield new PreparedRender(
+              "deterministic " + quality + " " + seed + " " + steps + " " + nameOf(kernel),
+              isCancelled -> renderer.render(iterations, seed, 1, isCancelled)
+          );
+        }
+      };
+    } catch (IllegalArgumentException e) {
+      throw new HttpError(400, "The " + nameOf(engine) + " engine can't render the description: "
+          + e.getMessage());
+    }
+  }
+
+  private static @NotNull ChaosGameDescription readLibraryDescription(
+      String name
+  ) throws HttpError {
+    if (name == null || name.isBlank()) {
+      throw new HttpError(400, "The fractal parameter is required");
+    }
+    if (name.contains("/") || name.contains("\\") || name.startsWith(".")) {
+      throw new HttpError(400, "Invalid fractal name");
+    }
+    boolean hasExtension = name.endsWith(".json")
+        || name.endsWith(ChaosGameFileHandler.BINARY_EXTENSION);
+    try {
+      return ChaosGameFileHandler.readFromFile(hasExtension ? name : name + ".json");
+    } catch (FileNotFoundException e) {
+      throw new HttpError(404, "No fractal named " + name);
+    } catch (IOException | RuntimeException e) {
+      throw new HttpError(500, "Could not read fractal " + name);
+    }
+  }
+
+  private static @NotNull ChaosGameDescription readInlineDescription(
+      @NotNull InputStream body
+  ) throws HttpError {
+    byte[] json;
+    try {
+      json = body.readNBytes(MAX_BODY_BYTES + 1);
+    } catch (IOException e) {
+      throw new HttpError(400, "Could not read the description");
+    }
+    if (json.length > MAX_BODY_BYTES) {
+      throw new HttpError(413, "The description must be at most " + MAX_BODY_BYTES + " bytes");
+    }
+    try {
+      return ChaosGameFileHandler.readChaosGame(MAPPER.readTree(json));
+    } catch (IOException | RuntimeException e) {
+      throw new HttpError(400, "Invalid description: " + e.getMessage());
+    }
+  }
+
+  private static @NotNull Map<String, String> parseQuery(String rawQuery) {
+    HashMap<String, String> query = new HashMap<>();
+    if (rawQuery == null) {
+      return query;
+    }
+    for (String parameter : rawQuery.split("&")) {
+      int separator = parameter.indexOf('=');
+      if (separator > 0) {
+        query.put(
+            URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+            URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8)
+        );
+      }
+    }
+    return query;
+  }
+
+  private static int parseInt(
+      @NotNull Map<String, String> query,
+      @NotNull String name,
+      int defaultValue,
+      int min,
+      int max
+  ) throws HttpError {
+    String value = query.get(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      int parsed = Integer.parseInt(value);
+      if (parsed >= min && parsed <= max) {
+        return parsed;
+      }
+    } catch (NumberFormatException ignored) {
+      // Reported below together with values out of range
+    }
+    throw new HttpError(400, name + " must be a number from " + min + " to " + max);
+  }
+
+  private static long parseLong(
+      @NotNull Map<String, String> query,
+      @NotNull String name,
+      long defaultValue
+  ) throws HttpError {
+    String value = query.get(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new HttpError(400, name + " must be a whole number");
+    }
+  }
+
+  /**
+   * Parses a parameter naming a constant of an enum in lower case.
+   *
+   * @throws HttpError if the value names no constant
+   */
+  private static <E extends Enum<E>> @NotNull E parseChoice(
+      @NotNull Map<String, String> query,
+      @NotNull String name,
+      @NotNull E defaultValue
+  ) throws HttpError {
+    String value = query.get(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    E[] choices = defaultValue.getDeclaringClass().getEnumConstants();
+    for (E choice : choices) {
+      if (nameOf(choice).equals(value)) {
+        return choice;
+      }
+    }
+    throw new HttpError(400, name + " must be one of " + Arrays.stream(choices)
+        .map(RenderServer::nameOf)
+        .toList());
+  }
+
+  /**
+   * Returns the name of a constant in the parameters.
+   */
+  private static @NotNull String nameOf(@NotNull Enum<?> choice) {
+    return choice.name().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Hashes the binary encoding of the description together with the size and the settings of the
+   * engine.
+   *
+   * @throws HttpError if the description can't be encoded
+   */
+  private static @NotNull String hash(
+      @NotNull ChaosGameDescription description,
+      int width,
+      int height,
+      @NotNull String settings
+  ) throws HttpError {
+    byte[] settingsBytes = settings.getBytes(StandardCharsets.UTF_8);
+    try {
+      return ChaosGameBinaryFormat.fingerprint(description, ByteBuffer
+          .allocate(2 * Integer.BYTES + settingsBytes.length)
+          .putInt(width)
+          .putInt(height)
+          .put(settingsBytes)
+          .flip());
+    } catch (IllegalArgumentException e) {
+      throw new HttpError(400, "Invalid description: " + e.getMessage());
+    }
+  }
+
+  private void recordLatency(long nanos) {
+    long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+    int bucket = 0;
+    while (bucket < LATENCY_BUCKETS_MILLIS.length && millis > LATENCY_BUCKETS_MILLIS[bucket]) {
+      bucket++;
+    }
+    latencyBuckets[bucket].increment();
+    latencyMillis.add(millis);
+  }
+
+  private static void appendMetric(@NotNull StringBuilder metrics, String name, long value) {
+    metrics.append(name).append(' ').append(value).append('\n');
+  }
+
+  private static void sendText(
+      @NotNull HttpExchange exchange,
+      int status,
+      @NotNull String text
+  ) throws IOException {
+    byte[] body = text.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", TEXT_TYPE);
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream output = exchange.getResponseBody()) {
+      output.write(body);
+    }
+  }
+
+  /**
+   * Stops the server, and cancels the renders in progress.
+   */
+  @Override
+  public void close() {
+    renderPool.shutdownNow();
+    server.stop(0);
+    handlers.shutdownNow();
+  }
+
+  /**
+   * Handles a request, throwing {@link HttpError} to respond with an error.
+   */
+  @FunctionalInterface
+  private interface Handler {
+    void handle(@NotNull HttpExchange exchange) throws IOException, HttpError;
+  }
+
+  /**
+   * The engines rendering the descriptions, picked with the engine parameter.
+   */
+  private enum Engine {
+    CHAOS,
+    RASTER,
+    ADAPTIVE,
+    DETERMINISTIC
+  }
+
+  /**
+   * Renders a canvas on a thread of the render pool.
+   */
+  @FunctionalInterface
+  private interface CanvasRender {
+    /**
+     * Renders the canvas.
+     *
+     * @param isCancelled returns true once the render should stop
+     * @return the canvas, or null if cancelled
+     */
+    @Nullable ChaosGameCanvas render(@NotNull BooleanSupplier isCancelled);
+  }
+
+  /**
+   * A render ready to queue, with the settings of the engine telling it apart from other renders
+   * of the same description and size.
+   */
+  private record PreparedRender(@NotNull String settings, @NotNull CanvasRender render) {
+  }
+
+  /**
+   * A render running or queued, with the number of requests waiting for it. Once the last of
+   * them gives up before the render is done, the render is abandoned and stops at its next batch.
+   */
+  private static final class InFlightRender {
+    private final @NotNull CompletableFuture<byte[]> future = new CompletableFuture<>();
+    private int waiters = 1;
+    private volatile boolean abandoned = false;
+
+    /**
+     * Adds a waiter to the render, unless it was already abandoned.
+     *
+     * @return true if joined, false if a new render is needed
+     */
+    synchronized boolean join() {
+      if (abandoned) {
+        return false;
+      }
+      waiters++;
+      return true;
+    }
+
+    /**
+     * Removes a waiter from the render, abandoning it if it was the last.
+     *
+     * @return true if the render was abandoned
+     */
+    synchronized boolean leave() {
+      waiters--;
+      if (waiters == 0 && !future.isDone()) {
+        abandoned = true;
+      }
+      return abandoned;
+    }
+
+    boolean isAbandoned() {
+      return abandoned;
+    }
+  }
+
+  /**
+   * An error to respond to a request with.
+   */
+  private static class HttpError extends Exception {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
+    HttpError(int status, @NotNull String message) {
+      super(message, null, false, false);
+      this.status = status;
+    }
+  }
+}
@@ -0,0 +1,256 @@
+package edu.ntnu.stud.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Array;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A thread-safe subscription handler. The subscribers are kept in a copy-on-write array which is
+ * swapped atomically, so notifying never locks and always iterates a consistent snapshot, even
+ * while other threads subscribe or unsubscribe.
+ *
+ * <p>
+ * Subscribers can optionally be given an executor to be notified on. Such subscriptions are
+ * coalescing: any number of notifications between two deliveries are collapsed into a single
+ * delivery of the newest value.
+ * </p>
+ *
+ * @param <ObservedT> the type of the observed value
+ * @author Leif Mørstad
+ * @version 1.2
+ * @see SubscriptionHandler
+ */
+public class ConcurrentSubscriptionHandler<ObservedT> implements Subscribable<ObservedT> {
+
+  /**
+   * The current subscriptions. The array is never modified after being published, only replaced.
+   */
+  private final @NotNull AtomicReference<Subscription<ObservedT>[]> subscriptions =
+      new AtomicReference<>(createSubscriptionArray(0));
+  private volatile ObservedT observed;
+
+  /**
+   * Creates a new instance with the given observed value.
+   *
+   * @param observedValue the value to observe
+   */
+  public ConcurrentSubscriptionHandler(ObservedT observedValue) {
+    this.observed = observedValue;
+  }
+
+  /**
+   * Subscribes to the observed value with the given consumer. The consumer is notified on the
+   * thread notifying the handler.
+   *
+   * @param subscription the consumer to subscribe
+   * @return a runnable unsubscribing the consumer
+   */
+  @Override
+  public @NotNull Runnable subscribe(@NotNull Consumer<ObservedT> subscription) {
+    return subscribe(subscription, null);
+  }
+
+  /**
+   * Subscribes to the observed value with the given consumer, which is notified through the given
+   * executor. Notifications made while a delivery is already queued are coalesced into that
+   * delivery, which always receives the newest value.
+   *
+   * @param subscription the consumer to subscribe
+   * @param executor     the executor to notify the consumer on, or null to notify it directly on
+   *                     the notifying thread
+   * @return a runnable unsubscribing the consumer
+   */
+  public @NotNull Runnable subscribe(
+      @NotNull Consumer<ObservedT> subscription,
+      @Nullable Executor executor
+  ) {
+    Subscription<ObservedT> added = new Subscription<>(subscription, executor);
+    Subscription<ObservedT>[] current;
+    Subscription<ObservedT>[] updated;
+    do {
+      current = subscriptions.get();
+      updated = createSubscriptionArray(current.length + 1);
+      System.arraycopy(current, 0, updated, 0, current.length);
+      updated[current.length] = added;
+    } while (!subscriptions.compareAndSet(current, updated));
+
+    added.deliver(this);
+    return () -> remove(added);
+  }
+
+  /**
+   * Disconnects the first subscription with the given consumer.
+   *
+   * @param subscription the subscription to disconnect
+   * @return whether the subscription was disconnected
+   */
+  @Override
+  public boolean unsubscribe(Consumer<ObservedT> subscription) {
+    for (Subscription<ObservedT> existing : subscriptions.get()) {
+      if (existing.consumer.equals(subscription) && remove(existing)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Removes the given subscription, and stops any queued delivery to it.
+   *
+   * @param removed the subscription to remove
+   * @return whether the subscription was removed by this call
+   */
+  private boolean remove(@NotNull Subscription<ObservedT> removed) {
+    Subscription<ObservedT>[] current;
+    Subscription<ObservedT>[] updated;
+    do {
+      current = subscriptions.get();
+      int index = indexOf(current, removed);
+      if (index < 0) {
+        return false;
+      }
+      updated = createSubscriptionArray(current.length - 1);
+      System.arraycopy(current, 0, updated, 0, index);
+      System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+    } while (!subscriptions.compareAndSet(current, updated));
+
+    removed.active = false;
+    return true;
+  }
+
+  private static <T> int indexOf(
+      @NotNull Subscription<T> @NotNull [] array,
+      @NotNull Subscription<T> subscription
+  ) {
+    for (int i = 0; i < array.length; i++) {
+      if (array[i] == subscription) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Creates an empty array of subscriptions with the given length.
+   *
+   * @param length the length of the array
+   * @param <T>    the type of the observed value
+   * @return an array of subscriptions with the given length
+   */
+  private static <T> Subscription<T> @NotNull [] createSubscriptionArray(int length) {
+    @SuppressWarnings("unchecked")
+    Subscription<T>[] array = (Subscription<T>[]) Array.newInstance(Subscription.class, length);
+    return array;
+  }
+
+  /**
+   * Sets the observed value to the given value and notifies all subscribers if it changed.
+   *
+   * @param observed the new value to observe
+   */
+  @Override
+  public void set(ObservedT observed) {
+    boolean shouldNotify = !Objects.equals(this.observed, observed);
+    this.observed = observed;
+    if (shouldNotify) {
+      notifySubscribers();
+    }
+  }
+
+  /**
+   * Gives all subscriptions the current value, either directly or by queueing a delivery on their
+   * executor.
+   */
+  @Override
+  public void notifySubscribers() {
+    RenderMetrics.getInstance().recordNotification();
+    for (Subscription<ObservedT> subscription : subscriptions.get()) {
+      subscription.deliver(this);
+    }
+  }
+
+  /**
+   * Returns whether anyone is subscribed, so that notifying can be skipped when no one listens.
+   *
+   * @return true if there is at least one subscription
+   */
+  public boolean hasSubscribers() {
+    return subscriptions.get().length > 0;
+  }
+
+  @Override
+  public void setAndForceNotify(ObservedT observed) {
+    this.observed = observed;
+    notifySubscribers();
+  }
+
+  @Override
+  public void setAndDontNotify(ObservedT observed) {
+    this.observed = observed;
+  }
+
+  @Override
+  public ObservedT get() {
+    return observed;
+  }
+
+  /**
+   * Disconnects all subscriptions, and stops any queued deliveries.
+   */
+  @Override
+  public void unsubscribeAll() {
+    for (Subscription<ObservedT> subscription : subscriptions.getAndSet(
+        createSubscriptionArray(0)
+    )) {
+      subscription.active = false;
+    }
+  }
+
+  /**
+   * A single subscriber, with the state needed to coalesce its deliveries.
+   *
+   * @param <T> the type of the observed value
+   */
+  private static final class Subscription<T> {
+    private final @NotNull Consumer<T> consumer;
+    private final @Nullable Executor executor;
+    /**
+     * Whether a delivery is queued on the executor and hasn't started yet.
+     */
+    private final @NotNull AtomicBoolean pending = new AtomicBoolean(false);
+    private volatile boolean active = true;
+
+    private Subscription(@NotNull Consumer<T> consumer, @Nullable Executor executor) {
+      this.consumer = consumer;
+      this.executor = executor;
+    }
+
+    /**
+     * Delivers the current value of the handler, or queues a delivery if none is queued already.
+     *
+     * @param handler the handler to read the value from at the time of delivery
+     */
+    private void deliver(@NotNull ConcurrentSubscriptionHandler<T> handler) {
+      if (executor == null) {
+        consumer.accept(handler.get());
+        return;
+      }
+      if (!pending.compareAndSet(false, true)) {
+        return;
+      }
+      executor.execute(() -> {
+        // Cleared before accepting, so that notifications made during the delivery aren't lost
+        pending.set(false);
+        if (active) {
+          consumer.accept(handler.get());
+        }
+      });
+    }
+  }
+}
@@ -13,6 +13,7 @@ import org.jetbrains.annotations.NotNull;
  *
  * @author Leif Mørstad
  * @version 1.2
+ * @see ScheduledDebouncer for a debouncer usable from any thread and without JavaFX
  */
 public class Debouncer {
   /**
@@ -1,34 +1,59 @@
 package edu.ntnu.stud.utils;
 
-import javafx.util.Duration;
 import org.jetbrains.annotations.NotNull;
 
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
 /**
- * A subscription handler that debounces the notification of subscribers.
+ * A subscription handler that debounces or throttles the notification of subscribers. Can be
+ * notified from any thread, and delivers the notifications through the given executor.
  *
  * @param <ObservedT> the type of the observed value
  * @author Leif Mørstad
- * @version 1.0
+ * @version 2.2
  * @see SubscriptionHandler
+ * @see ScheduledDebouncer
  */
-public class DebouncingSubscriptionHandler<ObservedT> extends SubscriptionHandler<ObservedT> {
+public class DebouncingSubscriptionHandler<ObservedT>
+    extends ConcurrentSubscriptionHandler<ObservedT> {
 
-  private final @NotNull Debouncer notifierDebouncer;
+  private final @NotNull ScheduledDebouncer notifierDebouncer;
 
   /**
    * Creates a new instance with the given observed value and debounce duration.
    *
    * @param observed         the value to observe
-   * @param debounceDuration the duration to debounce the notifications for
-   * @see SubscriptionHandler#SubscriptionHandler(Object)
+   * @param debounceDuration the duration to debounce the notifications for, or the minimum time
+   *                         between notifications when throttling
+   * @param mode             whether to debounce or throttle the notifications
+   * @param deliveryExecutor the executor to notify the subscribers on
+   * @see ConcurrentSubscriptionHandler#ConcurrentSubscriptionHandler(Object)
    */
-  public DebouncingSubscriptionHandler(ObservedT observed, @NotNull Duration debounceDuration) {
+  public DebouncingSubscriptionHandler(
+      ObservedT observed,
+      @NotNull Duration debounceDuration,
+      @NotNull ScheduledDebouncer.Mode mode,
+      @NotNull Executor deliveryExecutor
+  ) {
     super(observed);
-    notifierDebouncer = new Debouncer(super::notifySubscribers, debounceDuration);
+    notifierDebouncer = new ScheduledDebouncer(
+        super::notifySubscribers,
+        debounceDuration,
+        mode,
+        deliveryExecutor
+    );
   }
 
+  /**
+   * Schedules a notification of the subscribers, or does nothing if there are none, so that
+   * headless renders don't pay for the scheduling.
+   */
   @Override
   public void notifySubscribers() {
+    if (!hasSubscribers()) {
+      return;
+    }
     notifierDebouncer.run();
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,60 @@
+package edu.ntnu.stud.utils;
+
+import javafx.application.Platform;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Factory for the executors notifications can be delivered on, so that the same notification code
+ * can be used with and without a GUI.
+ *
+ * @author Leif Mørstad
+ * @version 1.0
+ * @see ScheduledDebouncer
+ * @see ConcurrentSubscriptionHandler
+ */
+public class DeliveryExecutors {
+
+  private DeliveryExecutors() {
+  }
+
+  /**
+   * Returns an executor running tasks on the JavaFX application thread. Must only be used when
+   * running with JavaFX.
+   *
+   * @return an executor for the JavaFX application thread
+   */
+  public static @NotNull Executor fxThread() {
+    return Platform::runLater;
+  }
+
+  /**
+   * Returns an executor running every task on a new virtual thread.
+   *
+   * @return an executor starting virtual threads
+   */
+  public static @NotNull Executor virtualThread() {
+    return task -> Thread.ofVirtual().name("delivery").start(task);
+  }
+
+  /**
+   * Returns an executor running tasks directly on the thread handing them over.
+   *
+   * @return an executor running tasks on the calling thread
+   */
+  public static @NotNull Executor direct() {
+    return Runnable::run;
+  }
+
+  /**
+   * Returns the executor matching the current runtime, the JavaFX application thread when running
+   * with a GUI, and the calling thread otherwise.
+   *
+   * @return an executor for the current runtime
+   * @see RuntimeInfo
+   */
+  public static @NotNull Executor forRuntime() {
+    return RuntimeInfo.isGUI() ? fxThread() : direct();
+  }
+}
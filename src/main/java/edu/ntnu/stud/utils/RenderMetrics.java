@@ -0,0 +1,226 @@
+package edu.ntnu.stud.utils;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Counters describing what the renderer is doing, exposed over JMX. All counters are striped
+ * {@link LongAdder}s, so recording is cheap enough to leave on in production, even when recorded
+ * from many threads at once. Renderers count locally and record once per batch of iterations,
+ * never once per iteration, so that the counters stay out of the innermost loops.
+ *
+ * @author Leif Mørstad
+ * @version 1.1
+ * @see RenderMetricsMXBean
+ */
+public class RenderMetrics implements RenderMetricsMXBean {
+
+  /**
+   * The name the metrics are registered under in the platform MBean server.
+   */
+  public static final String OBJECT_NAME = "edu.ntnu.stud:type=RenderMetrics";
+  /**
+   * The number of transformation positions tracked separately.
+   */
+  public static final int TRACKED_TRANSFORMATIONS = 32;
+  private static final Logger LOGGER = Logger.getLogger(RenderMetrics.class.getName());
+  private static final @NotNull RenderMetrics INSTANCE = new RenderMetrics();
+
+  static {
+    INSTANCE.register();
+  }
+
+  private final @NotNull LongAdder iterations = new LongAdder();
+  private final @NotNull LongAdder renderedIterations = new LongAdder();
+  private final @NotNull LongAdder pointsPlotted = new LongAdder();
+  private final @NotNull LongAdder pointsDiscarded = new LongAdder();
+  private final @NotNull LongAdder @NotNull [] transformationHits =
+      new LongAdder[TRACKED_TRANSFORMATIONS];
+  private final @NotNull LongAdder renders = new LongAdder();
+  private final @NotNull LongAdder renderNanos = new LongAdder();
+  private final @NotNull LongAdder displayUploads = new LongAdder();
+  private final @NotNull LongAdder displayUploadNanos = new LongAdder();
+  private final @NotNull LongAdder notifications = new LongAdder();
+  private volatile long lastRenderNanos = 0;
+
+  private RenderMetrics() {
+    for (int i = 0; i < transformationHits.length; i++) {
+      transformationHits[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Returns the metrics of the application.
+   *
+   * @return the shared metrics instance
+   */
+  public static @NotNull RenderMetrics getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Registers the metrics in the platform MBean server, logging instead of failing if it's not
+   * possible.
+   */
+  private void register() {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(OBJECT_NAME);
+      if (!server.isRegistered(name)) {
+        server.registerMBean(this, name);
+      }
+    } catch (JMException | SecurityException e) {
+      LOGGER.warning("Could not register render metrics over JMX: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Records that the given number of iterations have been performed.
+   *
+   * @param count the number of iterations
+   */
+  public void recordIterations(long count) {
+    iterations.add(count);
+  }
+
+  /**
+   * Records the points of a batch plotted inside the canvas and discarded for falling outside it.
+   *
+   * @param plotted   the number of points plotted
+   * @param discarded the number of points discarded
+   */
+  public void recordPoints(long plotted, long discarded) {
+    pointsPlotted.add(plotted);
+    pointsDiscarded.add(discarded);
+  }
+
+  /**
+   * Records how many times each transformation of a group was picked in a batch. Transformations
+   * past the tracked ones are added to the last tracked position.
+   *
+   * @param hits the number of picks of each transformation, by position in the group
+   */
+  public void recordTransformationHits(long @NotNull [] hits) {
+    for (int i = 0; i < hits.length; i++) {
+      if (hits[i] != 0) {
+        transformationHits[Math.min(i, TRACKED_TRANSFORMATIONS - 1)].add(hits[i]);
+      }
+    }
+  }
+
+  /**
+   * Records a completed render.
+   *
+   * @param iterationCount the number of iterations of the render
+   * @param nanos          the wall time of the render in nanoseconds
+   */
+  public void recordRender(long iterationCount, long nanos) {
+    renders.increment();
+    renderedIterations.add(iterationCount);
+    renderNanos.add(nanos);
+    lastRenderNanos = nanos;
+  }
+
+  /**
+   * Records a completed upload of a fractal to the display.
+   *
+   * @param nanos the time spent mapping colors and uploading, in nanoseconds
+   */
+  public void recordDisplayUpload(long nanos) {
+    displayUploads.increment();
+    displayUploadNanos.add(nanos);
+  }
+
+  /**
+   * Records that a subscription handler notified its subscribers.
+   */
+  public void recordNotification() {
+    notifications.increment();
+  }
+
+  @Override
+  public long getIterations() {
+    return iterations.sum();
+  }
+
+  @Override
+  public double getIterationsPerSecond() {
+    long nanos = renderNanos.sum();
+    if (nanos == 0) {
+      return 0;
+    }
+    return renderedIterations.sum() / (nanos / 1e9);
+  }
+
+  @Override
+  public long getPointsPlotted() {
+    return pointsPlotted.sum();
+  }
+
+  @Override
+  public long getPointsDiscarded() {
+    return pointsDiscarded.sum();
+  }
+
+  @Override
+  public long[] getTransformationHits() {
+    long[] hits = new long[transformationHits.length];
+    for (int i = 0; i < hits.length; i++) {
+      hits[i] = transformationHits[i].sum();
+    }
+    return hits;
+  }
+
+  @Override
+  public long getRenders() {
+    return renders.sum();
+  }
+
+  @Override
+  public double getLastRenderMillis() {
+    return lastRenderNanos / 1e6;
+  }
+
+  @Override
+  public double getTotalRenderMillis() {
+    return renderNanos.sum() / 1e6;
+  }
+
+  @Override
+  public long getDisplayUploads() {
+    return displayUploads.sum();
+  }
+
+  @Override
+  public double getTotalDisplayUploadMillis() {
+    return displayUploadNanos.sum() / 1e6;
+  }
+
+  @Override
+  public long getNotifications() {
+    return notifications.sum();
+  }
+
+  @Override
+  public void reset() {
+    iterations.reset();
+    renderedIterations.reset();
+    pointsPlotted.reset();
+    pointsDiscarded.reset();
+    for (LongAdder hits : transformationHits) {
+      hits.reset();
+    }
+    renders.reset();
+    renderNanos.reset();
+    displayUploads.reset();
+    displayUploadNanos.reset();
+    notifications.reset();
+    lastRenderNanos = 0;
+  }
+}
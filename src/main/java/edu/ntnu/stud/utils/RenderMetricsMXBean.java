@@ -0,0 +1,94 @@
+package edu.ntnu.stud.utils;
+
+/**
+ * The management interface of {@link RenderMetrics}, exposed over JMX as
+ * {@value RenderMetrics#OBJECT_NAME}.
+ *
+ * @author Leif Mørstad
+ * @version 1.0
+ */
+public interface RenderMetricsMXBean {
+
+  /**
+   * Returns the total number of chaos game iterations performed.
+   *
+   * @return the number of iterations
+   */
+  long getIterations();
+
+  /**
+   * Returns the average number of iterations per second over all completed renders.
+   *
+   * @return the iterations per second, or 0 if nothing has been rendered
+   */
+  double getIterationsPerSecond();
+
+  /**
+   * Returns the total number of points plotted inside the canvas.
+   *
+   * @return the number of plotted points
+   */
+  long getPointsPlotted();
+
+  /**
+   * Returns the total number of points discarded for falling outside the canvas.
+   *
+   * @return the number of discarded points
+   */
+  long getPointsDiscarded();
+
+  /**
+   * Returns how many times each transformation has been picked, indexed by the position of the
+   * transformation in its group. Positions past the tracked amount are counted in the last slot.
+   *
+   * @return the hit count of each transformation position
+   */
+  long[] getTransformationHits();
+
+  /**
+   * Returns the number of completed renders.
+   *
+   * @return the number of renders
+   */
+  long getRenders();
+
+  /**
+   * Returns the wall time of the last completed render.
+   *
+   * @return the wall time in milliseconds
+   */
+  double getLastRenderMillis();
+
+  /**
+   * Returns the total wall time of all completed renders.
+   *
+   * @return the wall time in milliseconds
+   */
+  double getTotalRenderMillis();
+
+  /**
+   * Returns the number of times a rendered fractal has been uploaded to the display.
+   *
+   * @return the number of uploads
+   */
+  long getDisplayUploads();
+
+  /**
+   * Returns the total time spent color mapping and uploading fractals to the display.
+   *
+   * @return the upload time in milliseconds
+   */
+  double getTotalDisplayUploadMillis();
+
+  /**
+   * Returns the number of times subscription handlers have notified their subscribers.
+   *
+   * @return the number of notifications
+   */
+  long getNotifications();
+
+  /**
+   * Resets all counters to zero.
+   */
+  void reset();
+}
@@ -0,0 +1,139 @@
+package edu.ntnu.stud.utils;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A toolkit-independent debouncer and throttler, timed by a shared scheduler thread and delivering
+ * through a pluggable executor. Unlike {@link Debouncer} it can be called from any thread, and
+ * works the same with and without JavaFX.
+ *
+ * <p>
+ * Calling {@link #run()} is cheap, as it never reschedules a task which is already waiting. This
+ * makes it suitable for very frequent calls, like one per drawn pixel.
+ * </p>
+ *
+ * @author Leif Mørstad
+ * @version 1.0
+ * @see DeliveryExecutors
+ */
+public class ScheduledDebouncer {
+
+  /**
+   * The scheduler shared by every debouncer. Only times the deliveries, the function itself runs on
+   * the delivery executor.
+   */
+  private static final @NotNull ScheduledExecutorService SCHEDULER =
+      Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "debouncer-scheduler");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  private final @NotNull Runnable function;
+  private final long delayNanos;
+  private final @NotNull Mode mode;
+  private final @NotNull Executor deliveryExecutor;
+  /**
+   * Whether a delivery is scheduled and hasn't started yet.
+   */
+  private final @NotNull AtomicBoolean scheduled = new AtomicBoolean(false);
+  /**
+   * The time of the last call to {@link #run()}, used for debouncing.
+   */
+  private volatile long lastCall;
+  /**
+   * The time the last delivery started, used for throttling.
+   */
+  private volatile long lastDelivery = System.nanoTime() - Long.MAX_VALUE / 2;
+
+  /**
+   * Creates a new instance with the given function.
+   *
+   * @param function         the function to debounce or throttle
+   * @param delay            the debounce delay, or the minimum time between deliveries when
+   *                         throttling
+   * @param mode             whether to debounce or throttle
+   * @param deliveryExecutor the executor to run the function on
+   * @throws IllegalArgumentException if the delay is negative
+   */
+  public ScheduledDebouncer(
+      @NotNull Runnable function,
+      @NotNull Duration delay,
+      @NotNull Mode mode,
+      @NotNull Executor deliveryExecutor
+  ) throws IllegalArgumentException {
+    if (delay.isNegative()) {
+      throw new IllegalArgumentException("Delay cannot be negative");
+    }
+    this.function = function;
+    this.delayNanos = delay.toNanos();
+    this.mode = mode;
+    this.deliveryExecutor = deliveryExecutor;
+  }
+
+  /**
+   * Requests the function to be run. When debouncing, the function is run once no call has been
+   * made for the whole delay. When throttling, the function is run at most once per delay, and
+   * calls made while a run is waiting are collapsed into it.
+   */
+  public void run() {
+    long now = System.nanoTime();
+    lastCall = now;
+    if (!scheduled.compareAndSet(false, true)) {
+      return;
+    }
+    long wait = mode == Mode.DEBOUNCE
+        ? delayNanos
+        : Math.max(0, lastDelivery + delayNanos - now);
+    SCHEDULER.schedule(this::onTimer, wait, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Called by the scheduler when a wait is over. Delivers the function, or waits for the remainder
+   * of the delay if the debouncer has been called since it was scheduled.
+   */
+  private void onTimer() {
+    long now = System.nanoTime();
+    if (mode == Mode.DEBOUNCE) {
+      long remaining = lastCall + delayNanos - now;
+      if (remaining > 0) {
+        SCHEDULER.schedule(this::onTimer, remaining, TimeUnit.NANOSECONDS);
+        return;
+      }
+    }
+    lastDelivery = now;
+    // Cleared before delivering, so calls made during the delivery schedule a new one
+    scheduled.set(false);
+    deliveryExecutor.execute(function);
+  }
+
+  /**
+   * Returns whether a delivery is waiting to be run.
+   *
+   * @return true if the debouncer is waiting for the delay to finish
+   */
+  public boolean isWaiting() {
+    return scheduled.get();
+  }
+
+  /**
+   * The ways the debouncer can limit the rate of the function.
+   */
+  public enum Mode {
+    /**
+     * Runs the function once the calls have stopped for the whole delay.
+     */
+    DEBOUNCE,
+    /**
+     * Runs the function at most once per delay while calls keep coming.
+     */
+    THROTTLE
+  }
+}
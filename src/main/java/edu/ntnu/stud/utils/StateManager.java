@@ -6,6 +6,8 @@ import com.fasterxml.jackson.databind.JsonNode;
 import edu.ntnu.stud.model.ChaosGame;
 import edu.ntnu.stud.model.ChaosGameDescription;
 import edu.ntnu.stud.model.ChaosGameFileHandler;
+import edu.ntnu.stud.utils.jfr.StateExportEvent;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import org.jetbrains.annotations.NotNull;
@@ -18,12 +20,17 @@ import java.util.logging.Logger;
  * application and to import and export the state to and from the resources/state.json file.
  *
  * @author Leif Mørstad
- * @version 1.2
+ * @version 1.6
  */
 public class StateManager {
   private static final Logger LOGGER = Logger.getLogger(StateManager.class.getName());
   private final @NotNull SimpleIntegerProperty screenWidth = new SimpleIntegerProperty(1);
   private final @NotNull SimpleIntegerProperty screenHeight = new SimpleIntegerProperty(1);
+  private final @NotNull SimpleIntegerProperty supersampling = new SimpleIntegerProperty(1);
+  private final @NotNull SimpleBooleanProperty transformationColors =
+      new SimpleBooleanProperty(false);
+  private final @NotNull SimpleBooleanProperty zoomAcceleration =
+      new SimpleBooleanProperty(false);
   private final @NotNull UsageFlagger isLoading = new UsageFlagger();
   private final @NotNull SimpleObjectProperty<@Nullable ChaosGame> currentFractal =
       new SimpleObjectProperty<>(null);
@@ -61,9 +68,21 @@ public class StateManager {
     return state;
   }
 
+  /**
+   * Exports the state to the state.json file.
+   *
+   * @param state the state to export
+   */
   public static void exportState(@NotNull StateManager state) {
-    ResourceHandler.writeToFile("state.json", state);
-    LOGGER.info("Successfully saved state to file.");
+    StateExportEvent event = new StateExportEvent();
+    event.begin();
+    event.success = ResourceHandler.writeToFile("state.json", state);
+    event.commit();
+    if (event.success) {
+      LOGGER.info("Successfully saved state to file.");
+    } else {
+      LOGGER.severe("Could not save state to file.");
+    }
   }
 
   /**
@@ -86,6 +105,39 @@ public class StateManager {
     return screenHeight;
   }
 
+  /**
+   * Returns the number of samples per pixel along each axis to render with as a property, where 1
+   * disables supersampling.
+   *
+   * @return the supersampling factor
+   */
+  @JsonIgnore
+  public @NotNull SimpleIntegerProperty supersamplingProperty() {
+    return supersampling;
+  }
+
+  /**
+   * Returns whether fractals are colored by the transformations producing each hit as a property,
+   * instead of by density alone.
+   *
+   * @return whether transformation colors are used
+   */
+  @JsonIgnore
+  public @NotNull SimpleBooleanProperty transformationColorsProperty() {
+    return transformationColors;
+  }
+
+  /**
+   * Returns whether the walker is led back into the view when it strays outside of it as a
+   * property, so that zoomed in fractals draw far more of their points.
+   *
+   * @return whether zoom acceleration is used
+   */
+  @JsonIgnore
+  public @NotNull SimpleBooleanProperty zoomAccelerationProperty() {
+    return zoomAcceleration;
+  }
+
   /**
    * Returns the flagger for the loading state.
    *
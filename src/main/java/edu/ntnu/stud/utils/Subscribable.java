@@ -0,0 +1,73 @@
+package edu.ntnu.stud.utils;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Consumer;
+
+/**
+ * A value which can be subscribed to, notifying the subscribers when it changes.
+ *
+ * @param <ObservedT> the type of the observed value
+ * @author Leif Mørstad
+ * @version 1.0
+ * @see SubscriptionHandler
+ * @see ConcurrentSubscriptionHandler
+ */
+public interface Subscribable<ObservedT> {
+
+  /**
+   * Subscribes to the observed value with the given consumer, which is given the current value
+   * right away.
+   *
+   * @param subscription the consumer to subscribe
+   * @return a runnable unsubscribing the consumer
+   */
+  @NotNull Runnable subscribe(@NotNull Consumer<ObservedT> subscription);
+
+  /**
+   * Disconnects the given subscription.
+   *
+   * @param subscription the subscription to disconnect
+   * @return whether the subscription was disconnected
+   */
+  boolean unsubscribe(Consumer<ObservedT> subscription);
+
+  /**
+   * Sets the observed value to the given value and notifies all subscribers if it changed.
+   *
+   * @param observed the new value to observe
+   */
+  void set(ObservedT observed);
+
+  /**
+   * Gives all subscriptions the current value.
+   */
+  void notifySubscribers();
+
+  /**
+   * Sets the observed value to the given value and notifies all subscribers, whether the value is
+   * different or not.
+   *
+   * @param observed the new value to observe
+   */
+  void setAndForceNotify(ObservedT observed);
+
+  /**
+   * Sets the observed value to the given value without notifying subscribers.
+   *
+   * @param observed the new value to observe
+   */
+  void setAndDontNotify(ObservedT observed);
+
+  /**
+   * Returns the observed value.
+   *
+   * @return the observed value
+   */
+  ObservedT get();
+
+  /**
+   * Disconnects all subscriptions.
+   */
+  void unsubscribeAll();
+}
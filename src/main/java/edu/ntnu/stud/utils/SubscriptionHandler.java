@@ -10,9 +10,9 @@ import org.jetbrains.annotations.NotNull;
  *
  * @param <ObservedT> the type of the observed value
  * @author Leif Mørstad
- * @version 1.2
+ * @version 1.4
  */
-public class SubscriptionHandler<ObservedT> {
+public class SubscriptionHandler<ObservedT> implements Subscribable<ObservedT> {
 
   private int subscriptionLength = 0;
   private Consumer<ObservedT>[] subscriptions = createArray(0);
@@ -32,6 +32,7 @@ public class SubscriptionHandler<ObservedT> {
    *
    * @param subscription the consumer to subscribe
    */
+  @Override
   public @NotNull Runnable subscribe(@NotNull Consumer<ObservedT> subscription) {
     subscriptionLength++;
     ensureLength(subscriptionLength);
@@ -60,6 +61,7 @@ public class SubscriptionHandler<ObservedT> {
    * @param subscription the subscription to disconnect
    * @return whether the subscription was disconnected
    */
+  @Override
   public boolean unsubscribe(Consumer<ObservedT> subscription) {
     for (int i = 0; i < subscriptionLength; i++) {
       if (subscriptions[i].equals(subscription)) {
@@ -95,6 +97,7 @@ public class SubscriptionHandler<ObservedT> {
    *
    * @param observed the new value to observe
    */
+  @Override
   public void set(ObservedT observed) {
     boolean shouldNotify = isDifferent(observed);
     this.observed = observed;
@@ -122,7 +125,9 @@ public class SubscriptionHandler<ObservedT> {
   /**
    * Gives all subscriptions the current value.
    */
+  @Override
   public void notifySubscribers() {
+    RenderMetrics.getInstance().recordNotification();
     for (Consumer<ObservedT> subscription : subscriptions) {
       subscription.accept(observed);
     }
@@ -134,6 +139,7 @@ public class SubscriptionHandler<ObservedT> {
    *
    * @param observed the new value to observe
    */
+  @Override
   public void setAndForceNotify(ObservedT observed) {
     this.observed = observed;
     notifySubscribers();
@@ -144,6 +150,7 @@ public class SubscriptionHandler<ObservedT> {
    *
    * @param observed the new value to observe
    */
+  @Override
   public void setAndDontNotify(ObservedT observed) {
     this.observed = observed;
   }
@@ -153,6 +160,7 @@ public class SubscriptionHandler<ObservedT> {
    *
    * @return the observed value
    */
+  @Override
   public ObservedT get() {
     return observed;
   }
@@ -160,6 +168,7 @@ public class SubscriptionHandler<ObservedT> {
   /**
    * Disconnects all subscriptions.
    */
+  @Override
   public void unsubscribeAll() {
     subscriptionLength = 0;
     subscriptions = createArray(0);
@@ -0,0 +1,35 @@
+package edu.ntnu.stud.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event for the construction of a chaos game, including the allocation of its
+ * canvas.
+ *
+ * @author Leif Mørstad
+ * @version 1.0
+ */
+@Name("edu.ntnu.stud.ChaosGameSetup")
+@Label("Chaos Game Setup")
+@Category({"Chaos Game", "Render"})
+@Description("Construction of a chaos game and allocation of its canvas")
+@StackTrace(false)
+public class ChaosGameSetupEvent extends Event {
+
+  /**
+   * The width of the allocated canvas in pixels.
+   */
+  @Label("Width")
+  public int width;
+
+  /**
+   * The height of the allocated canvas in pixels.
+   */
+  @Label("Height")
+  public int height;
+}
@@ -0,0 +1,40 @@
+package edu.ntnu.stud.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event for the loading of a chaos game description from a file.
+ *
+ * @author Leif Mørstad
+ * @version 1.0
+ */
+@Name("edu.ntnu.stud.DescriptionLoad")
+@Label("Description Load")
+@Category({"Chaos Game", "Files"})
+@Description("Loading of a chaos game description from a file")
+@StackTrace(false)
+public class DescriptionLoadEvent extends Event {
+
+  /**
+   * The file the description was loaded from.
+   */
+  @Label("Source")
+  public String source;
+
+  /**
+   * The format of the file, either "json" or "binary".
+   */
+  @Label("Format")
+  public String format;
+
+  /**
+   * Whether the description was successfully loaded.
+   */
+  @Label("Success")
+  public boolean success;
+}
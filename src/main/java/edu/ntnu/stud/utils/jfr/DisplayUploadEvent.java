@@ -0,0 +1,34 @@
+package edu.ntnu.stud.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event for the color mapping and upload of a rendered fractal to the display.
+ *
+ * @author Leif Mørstad
+ * @version 1.0
+ */
+@Name("edu.ntnu.stud.DisplayUpload")
+@Label("Display Upload")
+@Category({"Chaos Game", "Display"})
+@Description("Color mapping and upload of a fractal to the display")
+@StackTrace(false)
+public class DisplayUploadEvent extends Event {
+
+  /**
+   * The width of the uploaded image in pixels.
+   */
+  @Label("Width")
+  public int width;
+
+  /**
+   * The height of the uploaded image in pixels.
+   */
+  @Label("Height")
+  public int height;
+}
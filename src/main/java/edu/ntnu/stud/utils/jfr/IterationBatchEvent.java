@@ -0,0 +1,28 @@
+package edu.ntnu.stud.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event for a batch of chaos game iterations drawn on the canvas.
+ *
+ * @author Leif Mørstad
+ * @version 1.0
+ */
+@Name("edu.ntnu.stud.IterationBatch")
+@Label("Iteration Batch")
+@Category({"Chaos Game", "Render"})
+@Description("A batch of iterations drawn on the canvas")
+@StackTrace(false)
+public class IterationBatchEvent extends Event {
+
+  /**
+   * The number of iterations in the batch.
+   */
+  @Label("Iterations")
+  public long iterations;
+}
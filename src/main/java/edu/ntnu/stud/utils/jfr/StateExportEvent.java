@@ -0,0 +1,28 @@
+package edu.ntnu.stud.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event for the export of the application state to disk.
+ *
+ * @author Leif Mørstad
+ * @version 1.0
+ */
+@Name("edu.ntnu.stud.StateExport")
+@Label("State Export")
+@Category({"Chaos Game", "Files"})
+@Description("Export of the application state to disk")
+@StackTrace(false)
+public class StateExportEvent extends Event {
+
+  /**
+   * Whether the state was successfully exported.
+   */
+  @Label("Success")
+  public boolean success;
+}
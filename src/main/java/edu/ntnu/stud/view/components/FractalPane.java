@@ -1,42 +1,26 @@
 package edu.ntnu.stud.view.components;
 
 import edu.ntnu.stud.model.ChaosGame;
+import edu.ntnu.stud.model.ColorPalette;
+import edu.ntnu.stud.model.render.ColorAccumulator;
+import edu.ntnu.stud.utils.RenderMetrics;
+import edu.ntnu.stud.utils.jfr.DisplayUploadEvent;
 import javafx.application.Platform;
 import javafx.scene.image.ImageView;
 import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
-
 /**
  * A pane that displays a fractal image rendered from a {@link ChaosGame}.
  *
  * @author Leif Mørstad
- * @version 2.0
+ * @version 2.3
  */
 public class FractalPane extends ImageView {
 
   private final WritableImage image;
-  private final int[] colors = new int[]{
-      0xFF000000,
-      0xFF19071A,
-      0xFF09012F,
-      0xFF040449,
-      0xFF000764,
-      0xFF0C2C8A,
-      0xFF1852B1,
-      0xFF397DD1,
-      0xFF86B5E5,
-      0xFFD3ECF8,
-      0xFFF1E9BF,
-      0xFFF8C477,
-      0xFFFFAA00,
-      0xFFCC8000,
-      0xFF995700,
-      0xFF6A3403
-  };
+  private final @NotNull ColorPalette palette = ColorPalette.DEFAULT;
   private final @NotNull ChaosGame chaosGame;
 
   /**
@@ -62,11 +46,13 @@ public class FractalPane extends ImageView {
    */
   public void render() {
     Platform.runLater(() -> {
-      // https://stackoverflow.com/questions/8935367/convert-a-2d-array-into-a-1d-array
-      int[] flattened = Stream.of(chaosGame.getCanvas().getCanvas())
-          .flatMapToInt(IntStream::of)
-          .map(this::mapColor)
-          .toArray();
+      long start = System.nanoTime();
+      DisplayUploadEvent event = new DisplayUploadEvent();
+      event.begin();
+      ColorAccumulator colors = chaosGame.getColorAccumulator();
+      int[] flattened = colors == null
+          ? palette.mapColors(chaosGame.getCanvas().getStorage())
+          : colors.toneMap();
 
       // not stack overflow
       image.getPixelWriter().setPixels(
@@ -79,22 +65,10 @@ public class FractalPane extends ImageView {
           0, // x offset
           (int) image.getWidth() // y offset
       );
+      event.width = (int) image.getWidth();
+      event.height = (int) image.getHeight();
+      event.commit();
+      RenderMetrics.getInstance().recordDisplayUpload(System.nanoTime() - start);
     });
   }
-
-  /**
-   * Maps the number of times a point has been accessed to a color.
-   *
-   * @param color the number of times a point has been accessed
-   * @return the color to map to as a hex
-   */
-  private int mapColor(int color) {
-    if (color < 0) {
-      return colors[0];
-    }
-    if (color >= colors.length) {
-      return colors[colors.length - 1];
-    }
-    return colors[color];
-  }
 }
@@ -1,44 +1,107 @@
 package edu.ntnu.stud.view.components.sidebaroverlay;
 
+import edu.ntnu.stud.model.ColorPalette;
+import edu.ntnu.stud.model.RenderedHistogram;
 import edu.ntnu.stud.utils.ResourceHandler;
 import edu.ntnu.stud.view.components.ComponentUtils;
+import javafx.application.Platform;
 import javafx.scene.control.Label;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
- * A card representing a fractal the user can render
+ * A card representing a fractal the user can render, optionally with a preview of the fractal.
  *
  * @author Leif Mørstad
- * @version 1.0
+ * @version 1.1
  */
 public class FractalDisplay extends VBox implements ComponentUtils {
 
   /**
-   * Creates a new card displaying a fractal the user can render
+   * The width and height of the preview in pixels.
+   */
+  public static final int THUMBNAIL_SIZE = 90;
+
+  private final @Nullable Supplier<CompletableFuture<RenderedHistogram>> thumbnailLoader;
+  private final @NotNull ImageView preview = new ImageView();
+  private boolean thumbnailRequested = false;
+
+  /**
+   * Creates a new card displaying a fractal the user can render, without a preview.
    *
    * @param fractalName the filename to use
    * @param onClick     the action to run when the card is clicked
    */
   public FractalDisplay(@NotNull String fractalName, @NotNull Runnable onClick) {
+    this(fractalName, null, onClick);
+  }
+
+  /**
+   * Creates a new card displaying a fractal the user can render. The preview is not loaded until
+   * {@link #requestThumbnail()} is called.
+   *
+   * @param fractalName     the filename to use
+   * @param thumbnailLoader loads the preview of the fractal, or null if the card has no preview
+   * @param onClick         the action to run when the card is clicked
+   */
+  public FractalDisplay(
+      @NotNull String fractalName,
+      @Nullable Supplier<CompletableFuture<RenderedHistogram>> thumbnailLoader,
+      @NotNull Runnable onClick
+  ) {
     super();
     addCssClasses("fractal-display");
+    this.thumbnailLoader = thumbnailLoader;
 
-    // Potential for showing a preview of the fractal using the node.snapshot() method, but this
-    // is beyond the current scope of the project.
-
-    //Node fractalDisplay;
-    //String fractalImageUrl = ResourceHandler.getImage(fractalName);
-    //if (fractalImageUrl == null) {
-    //  fractalDisplay = IconFactory.createIcon("layers-off");
-    //} else {
-    //  Image image = new Image(fractalImageUrl);
-    //  fractalDisplay = new ImageView(image);
-    //}
+    if (thumbnailLoader != null) {
+      // Reserves the space of the preview, so the layout doesn't jump when it's loaded
+      StackPane previewContainer = new StackPane(preview);
+      previewContainer.setMinSize(THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+      previewContainer.setPrefSize(THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+      preview.setFitWidth(THUMBNAIL_SIZE);
+      preview.setFitHeight(THUMBNAIL_SIZE);
+      getChildren().add(previewContainer);
+    }
 
     Label label = new Label(ResourceHandler.removeFileExtension(fractalName));
 
     getChildren().add(label);
     setOnMouseClicked(event -> onClick.run());
   }
+
+  /**
+   * Starts loading the preview if the card has one and it hasn't been requested before. The
+   * preview is shown once it's loaded.
+   */
+  public void requestThumbnail() {
+    if (thumbnailLoader == null || thumbnailRequested) {
+      return;
+    }
+    thumbnailRequested = true;
+    thumbnailLoader.get().thenAccept(histogram -> {
+      int[] pixels = ColorPalette.DEFAULT.mapColors(histogram.counts(), histogram.width());
+      Platform.runLater(() -> {
+        WritableImage image = new WritableImage(histogram.width(), histogram.height());
+        image.getPixelWriter().setPixels(
+            0,
+            0,
+            histogram.width(),
+            histogram.height(),
+            PixelFormat.getIntArgbInstance(),
+            pixels,
+            0,
+            histogram.width()
+        );
+        preview.setImage(image);
+      });
+    });
+  }
 }
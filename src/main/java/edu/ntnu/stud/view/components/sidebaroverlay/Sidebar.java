@@ -1,22 +1,32 @@
 package edu.ntnu.stud.view.components.sidebaroverlay;
 
+import edu.ntnu.stud.model.RenderedHistogram;
 import edu.ntnu.stud.view.components.ComponentUtils;
+import javafx.application.Platform;
+import javafx.geometry.Bounds;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.StackPane;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
- * A sidebar that displays a list of fractals to choose between.
+ * A sidebar that displays a list of fractals to choose between. Previews of the fractals are only
+ * loaded once they are scrolled into view.
  *
  * @author Leif Mørstad
- * @version 1.0
+ * @version 1.1
  */
 public class Sidebar extends StackPane implements ComponentUtils {
   private final @NotNull GridPane gridPane = new GridPane();
   private final @NotNull ScrollPane scrollPane = new ScrollPane(new AnchorPane(gridPane));
+  private final @NotNull ArrayList<FractalDisplay> displays = new ArrayList<>();
   private int gridIndex = 0;
 
   /**
@@ -32,22 +42,62 @@ public class Sidebar extends StackPane implements ComponentUtils {
     column2.setPercentWidth(50);
     gridPane.getColumnConstraints().addAll(column1, column2);
 
+    scrollPane.vvalueProperty().subscribe(this::requestVisibleThumbnails);
+    scrollPane.viewportBoundsProperty().subscribe(this::requestVisibleThumbnails);
+    gridPane.heightProperty().subscribe(this::requestVisibleThumbnails);
+
     getChildren().addAll(scrollPane);
     clear();
   }
 
   /**
-   * Adds a fractal to the sidebar.
+   * Adds a fractal without a preview to the sidebar.
    *
    * @param fractalName the name of the fractal
    * @param onClick     the action to run when the fractal is clicked
    */
   public void addFractalDisplay(String fractalName, Runnable onClick) {
+    addFractalDisplay(fractalName, null, onClick);
+  }
+
+  /**
+   * Adds a fractal to the sidebar, with a preview that is loaded once it is scrolled into view.
+   *
+   * @param fractalName     the name of the fractal
+   * @param thumbnailLoader loads the preview of the fractal, or null if it has no preview
+   * @param onClick         the action to run when the fractal is clicked
+   */
+  public void addFractalDisplay(
+      @NotNull String fractalName,
+      @Nullable Supplier<CompletableFuture<RenderedHistogram>> thumbnailLoader,
+      @NotNull Runnable onClick
+  ) {
     int x = gridIndex % 2;
     int y = gridIndex / 2;
 
-    gridPane.add(new FractalDisplay(fractalName, onClick), x, y);
+    FractalDisplay display = new FractalDisplay(fractalName, thumbnailLoader, onClick);
+    displays.add(display);
+    gridPane.add(display, x, y);
     gridIndex++;
+
+    // Waits for the layout pass so the bounds of the new display are known
+    Platform.runLater(this::requestVisibleThumbnails);
+  }
+
+  /**
+   * Requests the previews of all displays currently inside the visible part of the scroll pane.
+   */
+  private void requestVisibleThumbnails() {
+    Bounds viewport = scrollPane.localToScene(scrollPane.getBoundsInLocal());
+    if (viewport == null) {
+      return;
+    }
+    for (FractalDisplay display : displays) {
+      Bounds bounds = display.localToScene(display.getBoundsInLocal());
+      if (bounds != null && bounds.intersects(viewport)) {
+        display.requestThumbnail();
+      }
+    }
   }
 
   /**
@@ -55,6 +105,7 @@ public class Sidebar extends StackPane implements ComponentUtils {
    */
   public void clear() {
     gridPane.getChildren().clear();
+    displays.clear();
     gridIndex = 0;
   }
 }
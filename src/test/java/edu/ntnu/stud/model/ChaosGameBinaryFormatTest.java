@@ -0,0 +1,167 @@
+package edu.ntnu.stud.model;
+
+import edu.ntnu.stud.model.math.AffineTransformation;
+import edu.ntnu.stud.model.math.ComplexNumber;
+import edu.ntnu.stud.model.math.JuliaTransformation;
+import edu.ntnu.stud.model.math.Transform2D;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.InvalidObjectException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChaosGameBinaryFormatTest {
+
+  private final ChaosGameDescription description = new ChaosGameDescription(
+      new Vector(-1.5, -1),
+      new Vector(1.5, 1),
+      new TransformationGroup(
+          new AffineTransformation(0.5, 0.1, -0.2, 0.5, 0.25, 0.125),
+          new JuliaTransformation(new ComplexNumber(-0.74543, 0.11301), false)
+      )
+  );
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("A description without a histogram survives a round trip")
+    void descriptionRoundTrip() throws InvalidObjectException {
+      ByteBuffer encoded = ChaosGameBinaryFormat.encode(description, null);
+      ChaosGameBinaryFormat.Contents contents = ChaosGameBinaryFormat.decode(encoded);
+
+      assertEquals(description.minCoords(), contents.description().minCoords());
+      assertEquals(description.maxCoords(), contents.description().maxCoords());
+      assertTrue(contents.histogram() == null, "No histogram should have been decoded");
+
+      Transform2D[] transformations = contents.description().transformations().getTransformations();
+      assertEquals(2, transformations.length);
+      AffineTransformation affine = assertInstanceOf(
+          AffineTransformation.class,
+          transformations[0]
+      );
+      assertEquals(-0.2, affine.getMatrix().a10());
+      assertEquals(0.125, affine.getTranslation().getX1());
+      JuliaTransformation julia = assertInstanceOf(JuliaTransformation.class, transformations[1]);
+      assertEquals(-1, julia.getSign(), "The sign of julia transformations should be kept");
+    }
+
+    @Test
+    @DisplayName("A histogram survives a round trip with its dimensions and iterations")
+    void histogramRoundTrip() throws InvalidObjectException {
+      int[][] counts = new int[][]{
+          {0, 1, 2},
+          {3, 0, Integer.MAX_VALUE}
+      };
+      RenderedHistogram histogram = new RenderedHistogram(3, 2, 12345L, counts);
+
+      ChaosGameBinaryFormat.Contents contents = ChaosGameBinaryFormat.decode(
+          ChaosGameBinaryFormat.encode(description, histogram)
+      );
+
+      RenderedHistogram decoded = contents.histogram();
+      assertTrue(decoded != null, "The histogram should have been decoded");
+      assertEquals(3, decoded.width());
+      assertEquals(2, decoded.height());
+      assertEquals(12345L, decoded.iterations());
+      assertArrayEquals(counts[0], decoded.counts()[0]);
+      assertArrayEquals(counts[1], decoded.counts()[1]);
+    }
+
+    @Test
+    @DisplayName("Fingerprints only depend on the description and the settings")
+    void fingerprint() {
+      String first = ChaosGameBinaryFormat.fingerprint(
+          description,
+          ByteBuffer.allocate(Integer.BYTES).putInt(1).flip()
+      );
+      String same = ChaosGameBinaryFormat.fingerprint(
+          description,
+          ByteBuffer.allocate(Integer.BYTES).putInt(1).flip()
+      );
+      String other = ChaosGameBinaryFormat.fingerprint(
+          description,
+          ByteBuffer.allocate(Integer.BYTES).putInt(2).flip()
+      );
+
+      assertEquals(32, first.length());
+      assertEquals(first, same);
+      assertTrue(!first.equals(other), "Different settings should give different fingerprints");
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("Decoding data without the magic number throws")
+    void invalidMagic() {
+      ByteBuffer buffer = ByteBuffer.allocate(64);
+      assertThrows(
+          InvalidObjectException.class,
+          () -> ChaosGameBinaryFormat.decode(buffer),
+          "Expected data without the magic number to be rejected"
+      );
+    }
+
+    @Test
+    @DisplayName("Decoding truncated data throws")
+    void truncated() {
+      ByteBuffer encoded = ChaosGameBinaryFormat.encode(description, null);
+      encoded.limit(encoded.limit() - 4);
+      assertThrows(
+          InvalidObjectException.class,
+          () -> ChaosGameBinaryFormat.decode(encoded),
+          "Expected truncated data to be rejected"
+      );
+    }
+  
+    @Test
+    @DisplayName("Decoding a histogram larger than its compressed data throws before allocating")
+    void oversizedHistogram() {
+      RenderedHistogram histogram = new RenderedHistogram(
+          3,
+          2,
+          1,
+          new int[][]{{0, 1, 2}, {3, 4, 5}}
+      );
+      ByteBuffer encoded = ChaosGameBinaryFormat.encode(description, histogram);
+      int histogramStart = ChaosGameBinaryFormat.encode(description, null).limit();
+      encoded.putInt(histogramStart, 50_000);
+      encoded.putInt(histogramStart + Integer.BYTES, 50_000);
+      assertThrows(
+          InvalidObjectException.class,
+          () -> ChaosGameBinaryFormat.decode(encoded),
+          "Expected a histogram of 10 GB of counts in a few bytes to be rejected"
+      );
+    }
+
+    @Test
+    @DisplayName("Decoding a histogram with more data than its size throws")
+    void undersizedHistogram() {
+      RenderedHistogram histogram = new RenderedHistogram(
+          3,
+          2,
+          1,
+          new int[][]{{0, 1, 2}, {3, 4, 5}}
+      );
+      ByteBuffer encoded = ChaosGameBinaryFormat.encode(description, histogram);
+      int histogramStart = ChaosGameBinaryFormat.encode(description, null).limit();
+      encoded.putInt(histogramStart + Integer.BYTES, 1);
+      assertThrows(
+          InvalidObjectException.class,
+          () -> ChaosGameBinaryFormat.decode(encoded),
+          "Expected a histogram with rows left over to be rejected"
+      );
+    }
+  }
+}
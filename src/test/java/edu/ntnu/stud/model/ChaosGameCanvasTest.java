@@ -6,7 +6,10 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ChaosGameCanvasTest {
@@ -120,5 +123,143 @@ public class ChaosGameCanvasTest {
           "asString() should return an ascii representation of the canvas"
       );
     }
+
+    @Test
+    @DisplayName("add(canvas) adds the counts of another canvas of any precision")
+    void add() {
+      ChaosGameCanvas other = new ChaosGameCanvas(
+          width,
+          height,
+          new Vector(0, 0),
+          new Vector(10, 10),
+          HistogramPrecision.BYTE
+      );
+      other.setPixel(0, 0, 2);
+      other.setPixel(1, 1, 3);
+      chaosGameCanvas.setPixel(0, 0, 1);
+
+      chaosGameCanvas.add(other);
+
+      assertEquals(3, chaosGameCanvas.getPixel(0, 0));
+      assertEquals(3, chaosGameCanvas.getPixel(1, 1));
+      assertEquals(0, chaosGameCanvas.getPixel(1, 0));
+    }
+
+    @Test
+    @DisplayName("add(canvas) saturates at the maximum of the precision")
+    void addSaturates() {
+      ChaosGameCanvas bytes = new ChaosGameCanvas(
+          width,
+          height,
+          new Vector(0, 0),
+          new Vector(10, 10),
+          HistogramPrecision.BYTE
+      );
+      bytes.setPixel(0, 0, 200);
+      chaosGameCanvas.setPixel(0, 0, 100);
+
+      bytes.add(chaosGameCanvas);
+
+      assertEquals(255, bytes.getPixel(0, 0));
+    }
+
+    @Test
+    @DisplayName("merge(canvases) sums the canvases into a new canvas")
+    void merge() {
+      ChaosGameCanvas other = new ChaosGameCanvas(
+          width,
+          height,
+          new Vector(0, 0),
+          new Vector(10, 10)
+      );
+      chaosGameCanvas.setPixel(1, 0, 4);
+      other.setPixel(1, 0, 5);
+
+      ChaosGameCanvas merged = ChaosGameCanvas.merge(
+          List.of(chaosGameCanvas, other),
+          HistogramPrecision.LONG
+      );
+
+      assertEquals(HistogramPrecision.LONG, merged.getPrecision());
+      assertEquals(9, merged.getPixel(1, 0));
+      assertEquals(4, chaosGameCanvas.getPixel(1, 0));
+    }
+
+    @Test
+    @DisplayName("extract(x, y, w, h) copies a rectangle from the bottom left with its bounds")
+    void extract() {
+      ChaosGameCanvas large = new ChaosGameCanvas(
+          4,
+          4,
+          new Vector(0, 0),
+          new Vector(3, 3)
+      );
+      large.setPixel(1, 2, 7);
+      large.setPixel(2, 3, 8);
+      large.setPixel(0, 0, 9);
+
+      ChaosGameCanvas extracted = large.extract(1, 2, 2, 2);
+
+      assertEquals(2, extracted.getWidth());
+      assertEquals(2, extracted.getHeight());
+      assertEquals(new Vector(1, 2), extracted.getMinCoords());
+      assertEquals(new Vector(2, 3), extracted.getMaxCoords());
+      assertEquals(7, extracted.getPixel(0, 0));
+      assertEquals(8, extracted.getPixel(1, 1));
+      assertEquals(0, extracted.getPixel(1, 0));
+    }
+
+    @Test
+    @DisplayName("scale(factor) multiplies every count, rounding to the nearest count")
+    void scale() {
+      chaosGameCanvas.setPixel(0, 0, 3);
+      chaosGameCanvas.setPixel(1, 1, 10);
+
+      chaosGameCanvas.scale(0.5);
+
+      assertEquals(2, chaosGameCanvas.getPixel(0, 0));
+      assertEquals(5, chaosGameCanvas.getPixel(1, 1));
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("Canvases of different sizes or bounds cannot be added or merged")
+    void differentGeometry() {
+      ChaosGameCanvas smaller = new ChaosGameCanvas(1, 1, new Vector(0, 0), new Vector(10, 10));
+      ChaosGameCanvas moved = new ChaosGameCanvas(2, 2, new Vector(1, 0), new Vector(10, 10));
+
+      assertThrows(IllegalArgumentException.class, () -> chaosGameCanvas.add(smaller));
+      assertThrows(IllegalArgumentException.class, () -> chaosGameCanvas.add(moved));
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> ChaosGameCanvas.merge(List.of(chaosGameCanvas, moved), HistogramPrecision.INT)
+      );
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> ChaosGameCanvas.merge(List.of(), HistogramPrecision.INT)
+      );
+    }
+
+    @Test
+    @DisplayName("Rectangles outside the canvas cannot be extracted")
+    void extractOutside() {
+      assertThrows(IllegalArgumentException.class, () -> chaosGameCanvas.extract(1, 0, 2, 1));
+      assertThrows(IllegalArgumentException.class, () -> chaosGameCanvas.extract(0, -1, 1, 1));
+      assertThrows(IllegalArgumentException.class, () -> chaosGameCanvas.extract(0, 0, 0, 1));
+    }
+
+    @Test
+    @DisplayName("Negative and infinite scale factors are rejected")
+    void invalidScale() {
+      assertThrows(IllegalArgumentException.class, () -> chaosGameCanvas.scale(-1));
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> chaosGameCanvas.scale(Double.POSITIVE_INFINITY)
+      );
+      assertThrows(IllegalArgumentException.class, () -> chaosGameCanvas.scale(Double.NaN));
+    }
   }
-}
\ No newline at end of file
+}
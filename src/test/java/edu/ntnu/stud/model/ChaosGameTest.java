@@ -0,0 +1,100 @@
+package edu.ntnu.stud.model;
+
+import edu.ntnu.stud.model.math.Vector;
+import edu.ntnu.stud.model.render.ColorAccumulator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChaosGameTest {
+
+  private static ChaosGame createGame(Vector minCoords, Vector maxCoords) {
+    ChaosGame game = new ChaosGame(
+        16,
+        16,
+        DescriptionTestUtils.sierpinski(minCoords, maxCoords)
+    );
+    game.setSeed(5);
+    return game;
+  }
+
+  private static long countHits(ChaosGame game) {
+    long hits = 0;
+    for (int[] row : game.getCanvas().getCanvas()) {
+      for (int count : row) {
+        hits += count;
+      }
+    }
+    return hits;
+  }
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("Clearing a supersampled game keeps the old samples off the next iterations")
+    void clearSupersampled() {
+      ChaosGame game = createGame(new Vector(0, 0), new Vector(1, 1));
+      game.setSupersampling(2);
+      game.render(100_000, () -> false);
+
+      game.clear();
+      assertEquals(0L, countHits(game), "The canvas should be empty.");
+      assertEquals(0L, game.getIterationCount());
+      game.iterate(1000);
+
+      long hits = countHits(game);
+      assertTrue(hits <= 1000, hits + " hits are more than the new points could draw.");
+    }
+
+    @Test
+    @DisplayName("Single supersampled steps draw the same canvas as a batch of them")
+    void singleSteps() {
+      ChaosGame steps = createGame(new Vector(0, 0), new Vector(1, 1));
+      steps.setSupersampling(2);
+      ChaosGame batch = createGame(new Vector(0, 0), new Vector(1, 1));
+      batch.setSupersampling(2);
+
+      for (int i = 0; i < 5000; i++) {
+        steps.iterate();
+      }
+      batch.iterate(5000);
+
+      assertArrayEquals(batch.getCanvas().getCanvas(), steps.getCanvas().getCanvas());
+    }
+
+    @Test
+    @DisplayName("Clearing a game accumulating colors leaves nothing to tone map")
+    void clearColors() {
+      ChaosGame game = createGame(new Vector(0, 0), new Vector(1, 1));
+      game.setColorAccumulation(true);
+      game.render(100_000, () -> false);
+
+      game.clear();
+
+      ColorAccumulator colors = game.getColorAccumulator();
+      for (int y = 0; y < colors.getHeight(); y++) {
+        for (int x = 0; x < colors.getWidth(); x++) {
+          assertEquals(0, colors.getCount(x, y), "No colors should be left to show.");
+        }
+      }
+    }
+
+    @Test
+    @DisplayName("Clearing forgets the entries of the viewport reservoir")
+    void clearReservoir() {
+      ChaosGame game = createGame(new Vector(0.3, 0.05), new Vector(0.36, 0.11));
+      game.setZoomAcceleration(true);
+      game.render(100_000, () -> false);
+      assertTrue(game.getViewportReservoir().size() > 0, "Entries should be stored.");
+
+      game.clear();
+
+      assertEquals(0, game.getViewportReservoir().size());
+    }
+  }
+}
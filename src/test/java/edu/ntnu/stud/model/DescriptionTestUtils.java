@@ -0,0 +1,76 @@
+package edu.ntnu.stud.model;
+
+import edu.ntnu.stud.model.math.AffineTransformation;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import org.jetbrains.annotations.NotNull;
+
+public class DescriptionTestUtils {
+
+  /**
+   * The description of {@link #sierpinski()} as JSON, as read by {@link ChaosGameFileHandler}.
+   */
+  public static final String SIERPINSKI_JSON = """
+      {
+        "minCoords": {"x0": 0, "x1": 0},
+        "maxCoords": {"x0": 1, "x1": 1},
+        "transformations": [
+          {
+            "matrix": {"a00": 0.5, "a01": 0, "a10": 0, "a11": 0.5},
+            "translation": {"x0": 0, "x1": 0},
+            "type": "AffineTransformation"
+          },
+          {
+            "matrix": {"a00": 0.5, "a01": 0, "a10": 0, "a11": 0.5},
+            "translation": {"x0": 0.25, "x1": 0.5},
+            "type": "AffineTransformation"
+          },
+          {
+            "matrix": {"a00": 0.5, "a01": 0, "a10": 0, "a11": 0.5},
+            "translation": {"x0": 0.5, "x1": 0},
+            "type": "AffineTransformation"
+          }
+        ]
+      }
+      """;
+
+  /**
+   * Returns the transformations of the Sierpinski triangle with its corners at (0, 0), (1, 0) and
+   * (0.5, 1).
+   *
+   * @return a new group of the three transformations
+   */
+  public static @NotNull TransformationGroup sierpinskiTransformations() {
+    return new TransformationGroup(
+        new AffineTransformation(0.5, 0, 0, 0.5, 0, 0),
+        new AffineTransformation(0.5, 0, 0, 0.5, 0.25, 0.5),
+        new AffineTransformation(0.5, 0, 0, 0.5, 0.5, 0)
+    );
+  }
+
+  /**
+   * Returns a description of the Sierpinski triangle viewed within the given bounds.
+   *
+   * @param minCoords the bottom left bounds of the view
+   * @param maxCoords the top right bounds of the view
+   * @return the description
+   * @see #sierpinskiTransformations()
+   */
+  public static @NotNull ChaosGameDescription sierpinski(
+      @NotNull Vector minCoords,
+      @NotNull Vector maxCoords
+  ) {
+    return new ChaosGameDescription(minCoords, maxCoords, sierpinskiTransformations());
+  }
+
+  /**
+   * Returns a description of the Sierpinski triangle viewed within the unit square, which holds
+   * the whole triangle.
+   *
+   * @return the description
+   * @see #sierpinski(Vector, Vector)
+   */
+  public static @NotNull ChaosGameDescription sierpinski() {
+    return sierpinski(new Vector(0, 0), new Vector(1, 1));
+  }
+}
@@ -0,0 +1,121 @@
+package edu.ntnu.stud.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class HistogramStorageTest {
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("Every precision counts hits the same below its maximum")
+    void incrementCounts() {
+      for (HistogramPrecision precision : HistogramPrecision.values()) {
+        HistogramStorage storage = precision.createStorage(3, 2);
+        for (int i = 0; i < 200; i++) {
+          storage.increment(1, 2);
+        }
+        assertEquals(200, storage.get(1, 2), precision + " should count every hit.");
+        assertEquals(0, storage.get(0, 2), precision + " should leave other pixels untouched.");
+      }
+    }
+
+    @Test
+    @DisplayName("Byte and short counts saturate at their maximum")
+    void narrowCountsSaturate() {
+      HistogramStorage bytes = HistogramPrecision.BYTE.createStorage(1, 1);
+      for (int i = 0; i < 300; i++) {
+        bytes.increment(0, 0);
+      }
+      assertEquals(255, bytes.get(0, 0));
+
+      HistogramStorage shorts = HistogramPrecision.SHORT.createStorage(1, 1);
+      shorts.set(0, 0, Short.MAX_VALUE);
+      shorts.increment(0, 0);
+      assertEquals(Short.MAX_VALUE, shorts.get(0, 0));
+    }
+
+    @Test
+    @DisplayName("Long counts go past the range of an int, and are clamped when copied as ints")
+    void longCountsExceedInt() {
+      HistogramStorage storage = HistogramPrecision.LONG.createStorage(2, 1);
+      storage.set(0, 0, Integer.MAX_VALUE);
+      storage.increment(0, 0);
+      assertEquals(Integer.MAX_VALUE + 1L, storage.get(0, 0));
+
+      int[] row = new int[2];
+      storage.copyRowInto(0, row, 0);
+      assertEquals(Integer.MAX_VALUE, row[0]);
+    }
+
+    @Test
+    @DisplayName("Setting a row clamps the values to the precision")
+    void setRowClamps() {
+      HistogramStorage storage = HistogramPrecision.BYTE.createStorage(3, 1);
+      storage.setRow(0, new int[]{-4, 7, 1000});
+
+      int[] row = new int[3];
+      storage.copyRowInto(0, row, 0);
+      assertEquals(0, row[0]);
+      assertEquals(7, row[1]);
+      assertEquals(255, row[2]);
+    }
+
+    @Test
+    @DisplayName("Int storage exposes its backing rows, while narrower ones copy them")
+    void asIntRows() {
+      HistogramStorage ints = HistogramPrecision.INT.createStorage(2, 2);
+      assertSame(ints.asIntRows(), ints.asIntRows(), "Int storage should not copy its rows.");
+
+      HistogramStorage shorts = HistogramPrecision.SHORT.createStorage(2, 2);
+      shorts.increment(1, 1);
+      assertEquals(1, shorts.asIntRows()[1][1]);
+    }
+
+    @Test
+    @DisplayName("Adding rows saturates at the maximum of every precision")
+    void addRowSaturates() {
+      long[] maxima = {0xFF, Short.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE};
+      for (HistogramPrecision precision : HistogramPrecision.values()) {
+        HistogramStorage storage = precision.createStorage(2, 1);
+        storage.addRow(0, new long[] {9, 3, Long.MAX_VALUE - 1}, 1);
+        storage.addRow(0, new long[] {0, 4, 5}, 1);
+
+        assertEquals(7, storage.get(0, 0), precision + " should add the counts.");
+        assertEquals(
+            maxima[precision.ordinal()],
+            storage.get(0, 1),
+            precision + " should saturate instead of overflowing."
+        );
+      }
+    }
+
+    @Test
+    @DisplayName("Scaling rows rounds to the nearest count")
+    void scaleRowRounds() {
+      for (HistogramPrecision precision : HistogramPrecision.values()) {
+        HistogramStorage storage = precision.createStorage(2, 1);
+        storage.set(0, 0, 5);
+        storage.set(0, 1, 100);
+        storage.scaleRow(0, 0.3);
+
+        long[] row = new long[2];
+        storage.readRow(0, row);
+        assertEquals(2, row[0], precision + " should round 1.5 up.");
+        assertEquals(30, row[1], precision + " should scale every count.");
+      }
+    }
+
+    @Test
+    @DisplayName("The byte size follows the precision")
+    void byteSize() {
+      assertEquals(100, HistogramPrecision.BYTE.createStorage(10, 10).getByteSize());
+      assertEquals(800, HistogramPrecision.LONG.createStorage(10, 10).getByteSize());
+    }
+  }
+}
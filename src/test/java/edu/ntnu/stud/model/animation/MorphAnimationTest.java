@@ -0,0 +1,153 @@
+package edu.ntnu.stud.model.animation;
+
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.ColorPalette;
+import edu.ntnu.stud.model.DescriptionTestUtils;
+import edu.ntnu.stud.model.math.AffineTransformation;
+import edu.ntnu.stud.model.math.ComplexNumber;
+import edu.ntnu.stud.model.math.JuliaTransformation;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MorphAnimationTest {
+
+  private final ChaosGameDescription from = new ChaosGameDescription(
+      new Vector(0, 0),
+      new Vector(1, 1),
+      new TransformationGroup(new AffineTransformation(0, 0, 0, 0, 0, 0))
+  );
+  private final ChaosGameDescription to = new ChaosGameDescription(
+      new Vector(-2, -2),
+      new Vector(3, 3),
+      new TransformationGroup(new AffineTransformation(0.5, 0.5, 0.5, 0.5, 1, 1))
+  );
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("The first and last frames are the first and last keys")
+    void endpoints() {
+      MorphAnimation animation = new MorphAnimation(List.of(from, to), 5);
+
+      assertEquals(from.minCoords(), animation.getFrame(0).minCoords());
+      assertEquals(to.maxCoords(), animation.getFrame(4).maxCoords());
+    }
+
+    @Test
+    @DisplayName("Frames between two keys interpolate the bounds and coefficients linearly")
+    void interpolatesLinearly() {
+      ChaosGameDescription middle = new MorphAnimation(List.of(from, to), 3).getFrame(1);
+
+      assertEquals(new Vector(-1, -1), middle.minCoords());
+      assertEquals(new Vector(2, 2), middle.maxCoords());
+      AffineTransformation affine =
+          (AffineTransformation) middle.transformations().getTransformations()[0];
+      assertEquals(0.25, affine.getMatrix().a01());
+      assertEquals(new Vector(0.5, 0.5), affine.getTranslation());
+    }
+
+    @Test
+    @DisplayName("Keys are spread evenly over the frames")
+    void multipleKeys() {
+      MorphAnimation animation = new MorphAnimation(List.of(from, to, from), 5);
+
+      assertEquals(to.minCoords(), animation.getFrame(2).minCoords());
+      assertEquals(from.minCoords(), animation.getFrame(4).minCoords());
+    }
+
+    @Test
+    @DisplayName("Exporting writes one numbered PNG per frame")
+    void exportWritesFrames() throws IOException, InterruptedException {
+      Path directory = Files.createTempDirectory("animation");
+      try {
+        new AnimationExporter(8, 8, 2, 1, 1, ColorPalette.DEFAULT)
+            .export(new MorphAnimation(List.of(from, to), 4), directory);
+
+        for (int i = 0; i < 4; i++) {
+          Path frame = directory.resolve(AnimationExporter.getFrameFileName(i));
+          assertTrue(Files.size(frame) > 0, "Frame " + i + " should have been written.");
+        }
+      } finally {
+        try (var files = Files.list(directory)) {
+          for (Path file : files.toList()) {
+            Files.delete(file);
+          }
+        }
+        Files.delete(directory);
+      }
+    }
+
+    @Test
+    @DisplayName("Every frame is rendered with the same seed, so a still animation doesn't flicker")
+    void seedsFrames() throws IOException, InterruptedException {
+      ChaosGameDescription sierpinski = DescriptionTestUtils.sierpinski();
+      Path directory = Files.createTempDirectory("animation");
+      try {
+        AnimationExporter exporter = new AnimationExporter(32, 32, 2, 1, 1, ColorPalette.DEFAULT);
+        exporter.setSeed(3);
+        exporter.export(new MorphAnimation(List.of(sierpinski, sierpinski), 3), directory);
+
+        byte[] first = Files.readAllBytes(directory.resolve(AnimationExporter.getFrameFileName(0)));
+        for (int i = 1; i < 3; i++) {
+          Path frame = directory.resolve(AnimationExporter.getFrameFileName(i));
+          assertArrayEquals(first, Files.readAllBytes(frame), "Frame " + i + " should not change.");
+        }
+      } finally {
+        try (var files = Files.list(directory)) {
+          for (Path file : files.toList()) {
+            Files.delete(file);
+          }
+        }
+        Files.delete(directory);
+      }
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("An animation with a single key throws")
+    void singleKey() {
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> new MorphAnimation(List.of(from), 10)
+      );
+    }
+
+    @Test
+    @DisplayName("Keys with mismatching transformations throw")
+    void mismatchingTransformations() {
+      ChaosGameDescription julia = new ChaosGameDescription(
+          new Vector(0, 0),
+          new Vector(1, 1),
+          new TransformationGroup(new JuliaTransformation(new ComplexNumber(0, 0), true))
+      );
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> new MorphAnimation(List.of(from, julia), 10)
+      );
+    }
+
+    @Test
+    @DisplayName("Getting a frame outside the animation throws")
+    void frameOutside() {
+      MorphAnimation animation = new MorphAnimation(List.of(from, to), 3);
+      assertThrows(IndexOutOfBoundsException.class, () -> animation.getFrame(3));
+    }
+  }
+}
@@ -0,0 +1,233 @@
+package edu.ntnu.stud.model.distributed;
+
+import edu.ntnu.stud.model.ChaosGameCanvas;
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.DescriptionTestUtils;
+import edu.ntnu.stud.model.RenderedHistogram;
+import edu.ntnu.stud.model.distributed.RenderProtocol.Request;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RenderCoordinatorTest {
+
+  private final ChaosGameDescription sierpinski = DescriptionTestUtils.sierpinski();
+
+  private RenderWorker first;
+  private RenderWorker second;
+
+  @BeforeEach
+  void startWorkers() throws IOException {
+    first = new RenderWorker(0);
+    second = new RenderWorker(0);
+  }
+
+  @AfterEach
+  void stopWorkers() throws IOException {
+    first.close();
+    second.close();
+  }
+
+  private static InetSocketAddress address(int port) {
+    return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+  }
+
+  /**
+   * Returns the address of a port nothing listens on.
+   */
+  private static InetSocketAddress deadAddress() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      return address(socket.getLocalPort());
+    }
+  }
+
+  /**
+   * Starts a fake worker on a single connection, which answers every request with a histogram of
+   * the wrong size, or never answers at all.
+   */
+  private static ServerSocket fakeWorker(boolean answer) throws IOException {
+    ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    Thread thread = new Thread(() -> {
+      try (Socket socket = server.accept()) {
+        DataInputStream input = new DataInputStream(
+            new BufferedInputStream(socket.getInputStream())
+        );
+        DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream(socket.getOutputStream())
+        );
+        while (true) {
+          Request request = RenderProtocol.readRequest(input);
+          if (answer) {
+            RenderProtocol.writeResult(
+                output,
+                request.description(),
+                new RenderedHistogram(1, 1, 1, new int[][]{{1}})
+            );
+          }
+        }
+      } catch (IOException ignored) {
+        // The coordinator hung up
+      }
+    });
+    thread.setDaemon(true);
+    thread.start();
+    return server;
+  }
+
+  private static long totalHits(ChaosGameCanvas canvas) {
+    long total = 0;
+    for (int[] row : canvas.getCanvas()) {
+      for (int count : row) {
+        total += count;
+      }
+    }
+    return total;
+  }
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("The histograms of every worker are merged into one canvas")
+    void mergesWorkers() throws Exception {
+      RenderCoordinator coordinator = new RenderCoordinator(
+          List.of(address(first.getPort()), address(second.getPort())),
+          2
+      );
+
+      ChaosGameCanvas canvas = coordinator.render(sierpinski, 32, 24, 20_000, 1);
+
+      assertEquals(32, canvas.getWidth());
+      assertEquals(24, canvas.getHeight());
+      assertTrue(totalHits(canvas) > 10_000, "Most of the iterations should hit the canvas.");
+    }
+
+    @Test
+    @DisplayName("The same seed gives the same picture")
+    void deterministic() throws Exception {
+      RenderCoordinator coordinator = new RenderCoordinator(
+          List.of(address(first.getPort()), address(second.getPort())),
+          3
+      );
+
+      ChaosGameCanvas a = coordinator.render(sierpinski, 16, 16, 5_000, 42);
+      ChaosGameCanvas b = coordinator.render(sierpinski, 16, 16, 5_000, 42);
+
+      for (int y = 0; y < 16; y++) {
+        for (int x = 0; x < 16; x++) {
+          assertEquals(a.getPixel(x, y), b.getPixel(x, y));
+        }
+      }
+    }
+
+    @Test
+    @DisplayName("The seeds of the units are drawn from a random generator seeded with the seed")
+    void unitSeeds() throws Exception {
+      RenderCoordinator coordinator = new RenderCoordinator(List.of(address(first.getPort())), 2);
+
+      ChaosGameCanvas canvas = coordinator.render(sierpinski, 16, 16, 5_000, 42);
+
+      SplittableRandom seeds = new SplittableRandom(42);
+      int[][] a = RenderWorker.render(new Request(sierpinski, 16, 16, seeds.nextLong(), 2_500))
+          .counts();
+      int[][] b = RenderWorker.render(new Request(sierpinski, 16, 16, seeds.nextLong(), 2_500))
+          .counts();
+      int[][] merged = canvas.getCanvas();
+      for (int y = 0; y < 16; y++) {
+        for (int x = 0; x < 16; x++) {
+          assertEquals(a[y][x] + b[y][x], merged[y][x]);
+        }
+      }
+    }
+
+    @Test
+    @DisplayName("The work of a dead worker is reassigned to the live ones")
+    void reassignsDeadWorker() throws Exception {
+      RenderCoordinator coordinator = new RenderCoordinator(
+          List.of(deadAddress(), address(first.getPort())),
+          2
+      );
+
+      ChaosGameCanvas canvas = coordinator.render(sierpinski, 16, 16, 5_000, 1);
+
+      assertTrue(totalHits(canvas) > 2_500, "The live worker should render every unit.");
+    }
+
+    @Test
+    @DisplayName("The work of a worker sending a histogram of the wrong size is reassigned")
+    void reassignsInvalidHistogram() throws Exception {
+      try (ServerSocket fake = fakeWorker(true)) {
+        RenderCoordinator coordinator = new RenderCoordinator(
+            List.of(address(fake.getLocalPort()), address(first.getPort())),
+            2
+        );
+
+        ChaosGameCanvas canvas = coordinator.render(sierpinski, 16, 16, 5_000, 1);
+
+        assertTrue(totalHits(canvas) > 2_500, "The live worker should render every unit.");
+      }
+    }
+
+    @Test
+    @DisplayName("The work of a worker that never answers is reassigned after the timeout")
+    void reassignsSilentWorker() throws Exception {
+      try (ServerSocket fake = fakeWorker(false)) {
+        RenderCoordinator coordinator = new RenderCoordinator(
+            List.of(address(fake.getLocalPort()), address(first.getPort())),
+            2
+        );
+        coordinator.setResponseTimeout(200);
+
+        ChaosGameCanvas canvas = coordinator.render(sierpinski, 16, 16, 5_000, 1);
+
+        assertTrue(totalHits(canvas) > 2_500, "The live worker should render every unit.");
+      }
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("A coordinator needs at least one worker")
+    void noWorkers() {
+      assertThrows(IllegalArgumentException.class, () -> new RenderCoordinator(List.of(), 1));
+    }
+
+    @Test
+    @DisplayName("A coordinator needs at least one unit per worker")
+    void noUnits() throws IOException {
+      List<InetSocketAddress> workers = List.of(deadAddress());
+      assertThrows(IllegalArgumentException.class, () -> new RenderCoordinator(workers, 0));
+    }
+
+    @Test
+    @DisplayName("The render fails when every worker is dead")
+    void everyWorkerDead() throws IOException {
+      RenderCoordinator coordinator = new RenderCoordinator(List.of(deadAddress()), 1);
+
+      assertThrows(
+          IOException.class,
+          () -> coordinator.render(sierpinski, 16, 16, 1_000, 1)
+      );
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package edu.ntnu.stud.model.export;
+
+import edu.ntnu.stud.model.ColorPalette;
+import edu.ntnu.stud.model.HistogramPrecision;
+import edu.ntnu.stud.model.HistogramStorage;
+import edu.ntnu.stud.model.RenderedHistogram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.Adler32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PngEncoderTest {
+
+  private static final int WIDTH = 37;
+  private static final int HEIGHT = 23;
+
+  private static HistogramStorage createHistogram() {
+    HistogramStorage storage = HistogramPrecision.LONG.createStorage(WIDTH, HEIGHT);
+    for (int row = 0; row < HEIGHT; row++) {
+      for (int x = 0; x < WIDTH; x++) {
+        storage.set(row, x, (long) (row * x) % 40);
+      }
+    }
+    storage.set(3, 4, 1000);
+    return storage;
+  }
+
+  private static BufferedImage encode(
+      PngEncoder encoder,
+      HistogramStorage histogram
+  ) throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    encoder.write(histogram, output);
+    return ImageIO.read(new ByteArrayInputStream(output.toByteArray()));
+  }
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("Indexed images match mapping the counts through the palette, over many strips")
+    void indexed() throws Exception {
+      HistogramStorage histogram = createHistogram();
+      PngEncoder encoder = new PngEncoder(
+          PngEncoder.Format.INDEXED_8,
+          ColorPalette.DEFAULT,
+          3,
+          2
+      );
+
+      BufferedImage image = encode(encoder, histogram);
+
+      assertEquals(WIDTH, image.getWidth());
+      assertEquals(HEIGHT, image.getHeight());
+      for (int row = 0; row < HEIGHT; row++) {
+        for (int x = 0; x < WIDTH; x++) {
+          assertEquals(
+              ColorPalette.DEFAULT.mapColor((int) histogram.get(row, x)),
+              image.getRGB(x, row),
+              "Pixel (" + x + ", " + row + ") should have the color of its count."
+          );
+        }
+      }
+    }
+
+    @Test
+    @DisplayName("Grayscale images scale the counts logarithmically up to white")
+    void grayscale() throws Exception {
+      HistogramStorage histogram = createHistogram();
+      PngEncoder encoder = new PngEncoder(PngEncoder.Format.GRAY_16, ColorPalette.DEFAULT, 2, 5);
+
+      BufferedImage image = encode(encoder, histogram);
+
+      assertEquals(16, image.getColorModel().getComponentSize(0));
+      assertEquals(0xFFFF, image.getRaster().getSample(4, 3, 0));
+      assertEquals(0, image.getRaster().getSample(0, 0, 0));
+      int expected = (int) (0xFFFF * Math.log1p(histogram.get(5, 7)) / Math.log1p(1000));
+      assertEquals(expected, image.getRaster().getSample(7, 5, 0));
+    }
+
+    @Test
+    @DisplayName("A rendered histogram encodes like the same counts in storage")
+    void renderedHistogram() throws Exception {
+      HistogramStorage histogram = createHistogram();
+      RenderedHistogram rendered = new RenderedHistogram(
+          WIDTH,
+          HEIGHT,
+          1,
+          histogram.asIntRows()
+      );
+      PngEncoder encoder = new PngEncoder(PngEncoder.Format.INDEXED_8, ColorPalette.DEFAULT);
+      ByteArrayOutputStream fromStorage = new ByteArrayOutputStream();
+      ByteArrayOutputStream fromRendered = new ByteArrayOutputStream();
+
+      encoder.write(histogram, fromStorage);
+      encoder.write(rendered, fromRendered);
+
+      assertEquals(
+          Arrays.toString(fromStorage.toByteArray()),
+          Arrays.toString(fromRendered.toByteArray())
+      );
+    }
+
+    @Test
+    @DisplayName("Combined checksums equal the checksum of the whole data")
+    void combineAdler32() {
+      byte[] data = new byte[100_000];
+      for (int i = 0; i < data.length; i++) {
+        data[i] = (byte) (i * 31 + i / 7);
+      }
+      Adler32 whole = new Adler32();
+      whole.update(data);
+      Adler32 first = new Adler32();
+      first.update(data, 0, 70_001);
+      Adler32 second = new Adler32();
+      second.update(data, 70_001, data.length - 70_001);
+
+      assertEquals(
+          whole.getValue(),
+          PngEncoder.combineAdler32(first.getValue(), second.getValue(), data.length - 70_001)
+      );
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("Indexed images cannot have more than 256 colors")
+    void tooManyColors() {
+      ColorPalette large = new ColorPalette(new int[257]);
+
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> new PngEncoder(PngEncoder.Format.INDEXED_8, large)
+      );
+    }
+
+    @Test
+    @DisplayName("At least one thread is needed")
+    void noThreads() {
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> new PngEncoder(PngEncoder.Format.GRAY_16, ColorPalette.DEFAULT, 0, 0)
+      );
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package edu.ntnu.stud.model.export;
+
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.DescriptionTestUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PointCloudExporterTest {
+
+  private final ChaosGameDescription sierpinski = DescriptionTestUtils.sierpinski();
+
+  private static ByteBuffer read(Path file) throws Exception {
+    return ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("Points are written as packed pairs after a header with their count")
+    void writesPoints() throws Exception {
+      Path file = Files.createTempFile("points", ".bin");
+      // Small buffers, so that the points go through the ring several times
+      PointCloudExporter exporter = new PointCloudExporter(
+          sierpinski,
+          PointCloudExporter.Precision.FLOAT,
+          100
+      );
+
+      long written = exporter.export(file, 1000, 1, () -> false);
+
+      assertEquals(1000, written);
+      ByteBuffer contents = read(file);
+      assertEquals(PointCloudExporter.HEADER_BYTES + 1000 * 8, contents.limit());
+      byte[] magic = new byte[4];
+      contents.get(magic);
+      assertTrue(Arrays.equals("CGPC".getBytes(), magic), "The file should start with CGPC.");
+      assertEquals(PointCloudExporter.VERSION, contents.get());
+      assertEquals(4, contents.get());
+      contents.getShort();
+      assertEquals(1000, contents.getLong());
+      while (contents.hasRemaining()) {
+        float x = contents.getFloat();
+        float y = contents.getFloat();
+        assertTrue(x >= 0 && x <= 1 && y >= 0 && y <= 1, "Points should lie on the triangle.");
+      }
+    }
+
+    @Test
+    @DisplayName("The same seed writes the same points, in either precision")
+    void deterministic() throws Exception {
+      Path first = Files.createTempFile("points", ".bin");
+      Path second = Files.createTempFile("points", ".bin");
+      PointCloudExporter exporter = new PointCloudExporter(
+          sierpinski,
+          PointCloudExporter.Precision.DOUBLE
+      );
+
+      exporter.export(first, 5000, 42, () -> false);
+      exporter.export(second, 5000, 42, () -> false);
+
+      assertTrue(
+          Arrays.equals(Files.readAllBytes(first), Files.readAllBytes(second)),
+          "The same seed should write the same file."
+      );
+      assertEquals(PointCloudExporter.HEADER_BYTES + 5000 * 16, Files.size(first));
+    }
+
+    @Test
+    @DisplayName("A cancelled export records the points written so far")
+    void cancelled() throws Exception {
+      Path file = Files.createTempFile("points", ".bin");
+      PointCloudExporter exporter = new PointCloudExporter(
+          sierpinski,
+          PointCloudExporter.Precision.FLOAT,
+          80
+      );
+      int[] checks = {0};
+
+      long written = exporter.export(file, 1000, 1, () -> checks[0]++ >= 3);
+
+      assertEquals(30, written);
+      ByteBuffer contents = read(file);
+      assertEquals(30, contents.getLong(8));
+      assertEquals(PointCloudExporter.HEADER_BYTES + 30 * 8, contents.limit());
+    }
+
+    @Test
+    @DisplayName("An interrupted export records the points that reached the file")
+    void interrupted() throws Exception {
+      Path file = Files.createTempFile("points", ".bin");
+      PointCloudExporter exporter = new PointCloudExporter(
+          sierpinski,
+          PointCloudExporter.Precision.FLOAT,
+          80
+      );
+      int[] checks = {0};
+
+      long written = exporter.export(file, 1000, 1, () -> {
+        if (checks[0]++ == 3) {
+          Thread.currentThread().interrupt();
+        }
+        return false;
+      });
+
+      assertTrue(Thread.interrupted(), "The interrupt should be kept.");
+      assertEquals(30, written);
+      ByteBuffer contents = read(file);
+      assertEquals(30, contents.getLong(8));
+      assertEquals(PointCloudExporter.HEADER_BYTES + 30 * 8, contents.limit());
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("A negative number of points is rejected")
+    void negativePoints() throws Exception {
+      Path file = Files.createTempFile("points", ".bin");
+      PointCloudExporter exporter = new PointCloudExporter(
+          sierpinski,
+          PointCloudExporter.Precision.FLOAT
+      );
+
+      assertThrows(IllegalArgumentException.class, () -> exporter.export(file, -1, 1, () -> false));
+    }
+
+    @Test
+    @DisplayName("Buffers too small for a point are rejected")
+    void tinyBuffers() {
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> new PointCloudExporter(sierpinski, PointCloudExporter.Precision.DOUBLE, 15)
+      );
+    }
+  }
+}
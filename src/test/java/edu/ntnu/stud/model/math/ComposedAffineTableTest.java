@@ -0,0 +1,78 @@
+package edu.ntnu.stud.model.math;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ComposedAffineTableTest {
+
+  private static final AffineTransformation[] TRANSFORMATIONS = {
+      new AffineTransformation(0.5, 0.1, -0.2, 0.4, 0, 1),
+      new AffineTransformation(-0.3, 0.6, 0.7, 0.2, 0.5, -0.25),
+      new AffineTransformation(0.85, 0.04, -0.04, 0.85, 0, 1.6)
+  };
+  private static final TransformationGroup GROUP = new TransformationGroup(TRANSFORMATIONS);
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("Every prefix of every sequence transforms like applying its picks in order")
+    void matchesSteppedTransformations() {
+      ComposedAffineTable table = new ComposedAffineTable(GROUP, 4);
+      Vector start = new Vector(0.3, -0.7);
+
+      assertEquals(81, table.getSequenceCount());
+      for (int sequence = 0; sequence < table.getSequenceCount(); sequence++) {
+        Vector expected = start;
+        int divisor = table.getSequenceCount();
+        for (int picks = 1; picks <= 4; picks++) {
+          divisor /= 3;
+          expected = TRANSFORMATIONS[sequence / divisor % 3].transform(expected);
+          int entry = table.getEntry(sequence, picks);
+
+          Vector actual = table.getTransformation(entry).transform(start);
+          assertEquals(expected.getX0(), actual.getX0(), 1e-12);
+          assertEquals(expected.getX1(), actual.getX1(), 1e-12);
+          assertEquals(expected.getX0(), table.transformX0(entry, 0.3, -0.7), 1e-12);
+          assertEquals(expected.getX1(), table.transformX1(entry, 0.3, -0.7), 1e-12);
+        }
+      }
+    }
+
+    @Test
+    @DisplayName("Groups of only affine transformations with few enough sequences are supported")
+    void supported() {
+      assertTrue(ComposedAffineTable.isSupported(GROUP, 1));
+      assertTrue(ComposedAffineTable.isSupported(GROUP, 10));
+      assertFalse(ComposedAffineTable.isSupported(GROUP, 11));
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("Groups with non-affine transformations are rejected")
+    void nonAffine() {
+      TransformationGroup group = new TransformationGroup(
+          new AffineTransformation(),
+          new JuliaTransformation(new ComplexNumber(0.3, 0.6), true)
+      );
+
+      assertThrows(IllegalArgumentException.class, () -> new ComposedAffineTable(group, 2));
+    }
+
+    @Test
+    @DisplayName("Too many sequences and fewer than one step are rejected")
+    void outOfRange() {
+      assertThrows(IllegalArgumentException.class, () -> new ComposedAffineTable(GROUP, 11));
+      assertThrows(IllegalArgumentException.class, () -> new ComposedAffineTable(GROUP, 0));
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package edu.ntnu.stud.model.math;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FloatAffineKernelTest {
+
+  private static final AffineTransformation[] TRANSFORMATIONS = {
+      new AffineTransformation(0.5, 0.1, -0.2, 0.4, 0, 1),
+      new AffineTransformation(-0.3, 0.6, 0.7, 0.2, 0.5, -0.25),
+      new AffineTransformation(0.85, 0.04, -0.04, 0.85, 0, 1.6)
+  };
+  private static final TransformationGroup GROUP = new TransformationGroup(TRANSFORMATIONS);
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("Every transformation transforms like the double transformation, within floats")
+    void matchesDoubleTransformations() {
+      FloatAffineKernel kernel = new FloatAffineKernel(GROUP);
+
+      assertEquals(3, kernel.size());
+      for (int i = 0; i < TRANSFORMATIONS.length; i++) {
+        Vector expected = TRANSFORMATIONS[i].transform(new Vector(0.3, -0.7));
+        assertEquals(expected.getX0(), kernel.transformX0(i, 0.3f, -0.7f), 1e-6);
+        assertEquals(expected.getX1(), kernel.transformX1(i, 0.3f, -0.7f), 1e-6);
+      }
+    }
+
+    @Test
+    @DisplayName("Floats are precise enough for screen sized views, but not for deep zooms")
+    void preciseEnough() {
+      assertTrue(FloatAffineKernel.isPreciseEnough(
+          1920,
+          1080,
+          new Vector(-2.5, 0),
+          new Vector(2.5, 10)
+      ));
+      // A pixel of 1e-9 is below the spacing of floats around 1
+      assertFalse(FloatAffineKernel.isPreciseEnough(
+          1000,
+          1000,
+          new Vector(1, 1),
+          new Vector(1 + 1e-6, 1 + 1e-6)
+      ));
+      // The same pixel size is fine around 0, where floats are denser
+      assertTrue(FloatAffineKernel.isPreciseEnough(
+          1000,
+          1000,
+          new Vector(0, 0),
+          new Vector(1e-6, 1e-6)
+      ));
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("Transformations that aren't affine have no float kernel")
+    void nonAffine() {
+      TransformationGroup julia = new TransformationGroup(
+          new JuliaTransformation(new ComplexNumber(0.3, 0.6), true),
+          new JuliaTransformation(new ComplexNumber(0.3, 0.6), false)
+      );
+
+      assertFalse(FloatAffineKernel.isSupported(julia));
+      assertThrows(IllegalArgumentException.class, () -> new FloatAffineKernel(julia));
+    }
+  }
+}
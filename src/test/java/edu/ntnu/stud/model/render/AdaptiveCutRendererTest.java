@@ -0,0 +1,185 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.ChaosGameCanvas;
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.DescriptionTestUtils;
+import edu.ntnu.stud.model.HistogramPrecision;
+import edu.ntnu.stud.model.math.AffineTransformation;
+import edu.ntnu.stud.model.math.ComplexNumber;
+import edu.ntnu.stud.model.math.JuliaTransformation;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveCutRendererTest {
+
+  private static ChaosGameDescription describe(double min, double max) {
+    return DescriptionTestUtils.sierpinski(new Vector(min, min), new Vector(max, max));
+  }
+
+  /**
+   * Asserts that the pixels with leaves are about the pixels the chaos game hits.
+   */
+  private static void assertCoversAttractor(ChaosGameDescription description) {
+    ChaosGameCanvas cut = new AdaptiveCutRenderer(description, 80, 80, HistogramPrecision.INT)
+        .render(3, () -> false);
+    ChaosGameCanvas sampled = new DeterministicRenderer(
+        description,
+        80,
+        80,
+        HistogramPrecision.INT
+    ).render(4_000_000, 1, 2, () -> false);
+
+    assertTrue(cut != null && sampled != null, "No render was cancelled.");
+    int[][] leaves = cut.getCanvas();
+    int[][] hits = sampled.getCanvas();
+    int drawn = 0;
+    int hit = 0;
+    int both = 0;
+    for (int row = 0; row < leaves.length; row++) {
+      for (int x = 0; x < leaves[row].length; x++) {
+        drawn += leaves[row][x] > 0 ? 1 : 0;
+        hit += hits[row][x] > 0 ? 1 : 0;
+        both += leaves[row][x] > 0 && hits[row][x] > 0 ? 1 : 0;
+      }
+    }
+    assertTrue(hit > 0, "The chaos game should hit the bounds.");
+    // A leaf stands for a part of the attractor up to a pixel wide, which may also touch the
+    // pixels next to the one the leaf is drawn in
+    assertTrue(both > hit * 0.8, both + " of " + hit + " hit pixels have leaves.");
+    assertTrue(drawn < hit * 1.1, drawn + " pixels have leaves, but only " + hit + " are hit.");
+  }
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("Leaves cover the pixels the chaos game hits")
+    void coversAttractor() {
+      assertCoversAttractor(describe(0, 1));
+    }
+
+    @Test
+    @DisplayName("Zoomed in bounds cut the branches outside them, and still cover the attractor")
+    void zoomed() {
+      assertCoversAttractor(describe(0.1, 0.35));
+    }
+
+    @Test
+    @DisplayName("The counts don't depend on the number of threads")
+    void independentOfThreads() {
+      AdaptiveCutRenderer renderer = new AdaptiveCutRenderer(
+          describe(0, 1),
+          64,
+          48,
+          HistogramPrecision.INT
+      );
+      ChaosGameCanvas single = renderer.render(1, () -> false);
+      ChaosGameCanvas many = renderer.render(6, () -> false);
+
+      assertTrue(single != null && many != null, "No render was cancelled.");
+      assertTrue(
+          Arrays.deepEquals(single.getCanvas(), many.getCanvas()),
+          "1 and 6 threads should draw the same leaves."
+      );
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("A cancelled render returns null")
+    void cancelled() {
+      AdaptiveCutRenderer renderer = new AdaptiveCutRenderer(
+          describe(0, 1),
+          16,
+          16,
+          HistogramPrecision.INT
+      );
+
+      assertTrue(renderer.render(2, () -> true) == null, "A cancelled render should return null.");
+    }
+
+    @Test
+    @DisplayName("A render is cancelled between the leaves of a branch too")
+    void cancelledWithinBranch() {
+      AdaptiveCutRenderer renderer = new AdaptiveCutRenderer(
+          describe(0, 1),
+          1024,
+          1024,
+          HistogramPrecision.INT
+      );
+      // The 121 branches of the first four levels are checked before any leaf is drawn
+      int[] checks = {0};
+
+      assertTrue(
+          renderer.render(1, () -> checks[0]++ >= 121) == null,
+          "The render should be cancelled while enumerating the leaves."
+      );
+    }
+
+    @Test
+    @DisplayName("Transformations contracting too little for the resolution are rejected")
+    void tooManyLeaves() {
+      ChaosGameDescription slow = new ChaosGameDescription(
+          new Vector(0, 0),
+          new Vector(1, 1),
+          new TransformationGroup(
+              new AffineTransformation(0.95, 0, 0, 0.95, 0, 0),
+              new AffineTransformation(0.95, 0, 0, 0.95, 0.05, 0),
+              new AffineTransformation(0.95, 0, 0, 0.95, 0, 0.05)
+          )
+      );
+
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> new AdaptiveCutRenderer(slow, 512, 512, HistogramPrecision.INT)
+      );
+    }
+
+    @Test
+    @DisplayName("Non-contracting and non-affine transformations are rejected")
+    void invalidTransformations() {
+      ChaosGameDescription expanding = new ChaosGameDescription(
+          new Vector(0, 0),
+          new Vector(1, 1),
+          new TransformationGroup(new AffineTransformation(1.2, 0, 0, 0.5, 0, 0))
+      );
+      ChaosGameDescription julia = new ChaosGameDescription(
+          new Vector(-1, -1),
+          new Vector(1, 1),
+          new TransformationGroup(new JuliaTransformation(new ComplexNumber(0.3, 0.6), true))
+      );
+
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> new AdaptiveCutRenderer(expanding, 8, 8, HistogramPrecision.INT)
+      );
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> new AdaptiveCutRenderer(julia, 8, 8, HistogramPrecision.INT)
+      );
+    }
+
+    @Test
+    @DisplayName("Fewer than one thread is rejected")
+    void noThreads() {
+      AdaptiveCutRenderer renderer = new AdaptiveCutRenderer(
+          describe(0, 1),
+          8,
+          8,
+          HistogramPrecision.INT
+      );
+
+      assertThrows(IllegalArgumentException.class, () -> renderer.render(0, () -> false));
+    }
+  }
+}
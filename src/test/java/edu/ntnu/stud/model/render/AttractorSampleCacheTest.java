@@ -0,0 +1,170 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.ChaosGameCanvas;
+import edu.ntnu.stud.model.DescriptionTestUtils;
+import edu.ntnu.stud.model.HistogramPrecision;
+import edu.ntnu.stud.model.math.AffineTransformation;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AttractorSampleCacheTest {
+
+  private static final TransformationGroup SIERPINSKI =
+      DescriptionTestUtils.sierpinskiTransformations();
+
+  private static ChaosGameCanvas binWhole(AttractorSample sample) {
+    return sample.bin(40, 30, new Vector(-0.1, -0.1), new Vector(1.1, 1.1), HistogramPrecision.INT);
+  }
+
+  private static long total(ChaosGameCanvas canvas) {
+    long total = 0;
+    for (int[] row : canvas.getCanvas()) {
+      for (int count : row) {
+        total += count;
+      }
+    }
+    return total;
+  }
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("The cache keeps a sample per group of transformations, whatever the bounds")
+    void cacheReusesSample() {
+      AttractorSampleCache cache = new AttractorSampleCache(10_000, 1 << 20, null);
+
+      ChaosGameCanvas whole = cache.render(
+          DescriptionTestUtils.sierpinski(),
+          32,
+          32,
+          HistogramPrecision.INT
+      );
+      ChaosGameCanvas zoomed = cache.render(
+          DescriptionTestUtils.sierpinski(new Vector(0, 0), new Vector(0.25, 0.25)),
+          32,
+          32,
+          HistogramPrecision.INT
+      );
+
+      assertEquals(1, cache.size());
+      assertTrue(total(zoomed) < total(whole), "Fewer points are inside the zoomed bounds.");
+    }
+
+    @Test
+    @DisplayName("Spilled samples are mapped by new caches, and the heap only holds what fits")
+    void cacheSpills() throws IOException {
+      Path folder = Files.createTempDirectory("samples");
+      // Room for one sample of 10000 points on the heap
+      AttractorSampleCache cache = new AttractorSampleCache(10_000, 100_000, folder);
+      TransformationGroup other = new TransformationGroup(
+          new AffineTransformation(0.5, 0, 0, 0.5, 0, 0),
+          new AffineTransformation(0.5, 0, 0, 0.5, 0.5, 0.5)
+      );
+
+      AttractorSample first = cache.get(SIERPINSKI);
+      cache.get(other);
+      AttractorSampleCache mappingCache = new AttractorSampleCache(10_000, 0, folder);
+      AttractorSample mapped = mappingCache.get(SIERPINSKI);
+
+      assertEquals(1, cache.size());
+      assertEquals(1, mappingCache.size(), "Mapped samples take no heap, and are kept.");
+      assertSame(mapped, mappingCache.get(SIERPINSKI), "The mapped sample should be reused.");
+      assertEquals(0L, mapped.getHeapBytes());
+      assertTrue(
+          Arrays.deepEquals(binWhole(first).getCanvas(), binWhole(mapped).getCanvas()),
+          "The spilled sample should have the same points."
+      );
+      try (Stream<Path> files = Files.list(folder)) {
+        assertEquals(2L, files.count());
+      } finally {
+        try (Stream<Path> files = Files.list(folder)) {
+          for (Path file : files.toList()) {
+            Files.delete(file);
+          }
+        }
+        Files.delete(folder);
+      }
+    }
+
+    @Test
+    @DisplayName("Concurrent requests for the same sample share one sample")
+    void concurrentRequests() throws Exception {
+      AttractorSampleCache cache = new AttractorSampleCache(100_000, 1 << 22, null);
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+        List<Future<AttractorSample>> samples = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+          samples.add(executor.submit(() -> cache.get(SIERPINSKI)));
+        }
+        for (Future<AttractorSample> sample : samples) {
+          assertSame(samples.get(0).get(), sample.get(), "Only one sample should be generated.");
+        }
+      } finally {
+        executor.shutdown();
+      }
+      assertEquals(1, cache.size());
+    }
+
+    @Test
+    @DisplayName("Rendering as many points as a chaos game would iterate only bins that many")
+    void renderIterations() {
+      AttractorSampleCache cache = new AttractorSampleCache(10_000, 1 << 20, null);
+
+      ChaosGameCanvas canvas = cache.render(
+          DescriptionTestUtils.sierpinski(new Vector(-0.1, -0.1), new Vector(1.1, 1.1)),
+          32,
+          32,
+          HistogramPrecision.INT,
+          1000
+      );
+
+      assertEquals(1000L, total(canvas));
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("Views too deep for the points of the sample are left to the chaos game")
+    void deepView() {
+      AttractorSampleCache cache = new AttractorSampleCache(10_000, 1 << 20, null);
+
+      assertNull(cache.render(
+          DescriptionTestUtils.sierpinski(new Vector(0.3, 0.1), new Vector(0.31, 0.11)),
+          32,
+          32,
+          HistogramPrecision.INT,
+          10_000
+      ));
+    }
+
+    @Test
+    @DisplayName("Samples without points and negative capacities are rejected")
+    void invalidArguments() {
+      assertThrows(IllegalArgumentException.class, () -> new AttractorSampleCache(0, 0, null));
+      assertThrows(IllegalArgumentException.class, () -> new AttractorSampleCache(10, -1, null));
+    }
+  }
+}
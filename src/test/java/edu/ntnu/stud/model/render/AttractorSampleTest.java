@@ -0,0 +1,148 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.ChaosGameCanvas;
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.DescriptionTestUtils;
+import edu.ntnu.stud.model.HistogramPrecision;
+import edu.ntnu.stud.model.export.PointCloudExporter;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AttractorSampleTest {
+
+  private static final TransformationGroup SIERPINSKI =
+      DescriptionTestUtils.sierpinskiTransformations();
+  /**
+   * Enough points for several walkers, with a partial one at the end.
+   */
+  private static final int POINTS = 600_000;
+
+  private static ChaosGameCanvas binWhole(AttractorSample sample) {
+    return sample.bin(40, 30, new Vector(-0.1, -0.1), new Vector(1.1, 1.1), HistogramPrecision.INT);
+  }
+
+  private static long total(ChaosGameCanvas canvas) {
+    long total = 0;
+    for (int[] row : canvas.getCanvas()) {
+      for (int count : row) {
+        total += count;
+      }
+    }
+    return total;
+  }
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("Every point of the sample is binned, and the same seed gives the same sample")
+    void binsEveryPoint() {
+      AttractorSample a = AttractorSample.generate(SIERPINSKI, POINTS, 3);
+      AttractorSample b = AttractorSample.generate(SIERPINSKI, POINTS, 3);
+
+      assertEquals(POINTS, a.size());
+      assertEquals((long) POINTS, total(binWhole(a)));
+      assertTrue(
+          Arrays.deepEquals(binWhole(a).getCanvas(), binWhole(b).getCanvas()),
+          "The same seed should give the same points."
+      );
+    }
+
+    @Test
+    @DisplayName("A sample binned into other bounds only counts the points inside them")
+    void rebinsZoomed() {
+      AttractorSample sample = AttractorSample.generate(SIERPINSKI, POINTS, 3);
+
+      ChaosGameCanvas zoomed = sample.bin(
+          64,
+          64,
+          new Vector(0, 0),
+          new Vector(0.5, 0.5),
+          HistogramPrecision.INT
+      );
+
+      // The bottom left of the three copies holds about a third of the points
+      long inside = total(zoomed);
+      assertTrue(inside > POINTS * 0.3 && inside < POINTS * 0.37, inside + " points inside.");
+    }
+
+    @Test
+    @DisplayName("A written sample is mapped back with the same points")
+    void writeAndRead() throws IOException {
+      AttractorSample sample = AttractorSample.generate(SIERPINSKI, POINTS, 5);
+      Path file = Files.createTempFile("sample", ".cgpc");
+      try {
+        sample.write(file);
+        AttractorSample read = AttractorSample.read(file);
+
+        assertEquals(POINTS, read.size());
+        assertEquals(0L, read.getHeapBytes());
+        assertTrue(
+            Arrays.deepEquals(binWhole(sample).getCanvas(), binWhole(read).getCanvas()),
+            "The mapped sample should have the same points."
+        );
+      } finally {
+        Files.delete(file);
+      }
+    }
+
+    @Test
+    @DisplayName("Point clouds exported as floats can be read as samples")
+    void readsPointCloud() throws IOException {
+      Path file = Files.createTempFile("cloud", ".cgpc");
+      try {
+        new PointCloudExporter(
+            new ChaosGameDescription(new Vector(0, 0), new Vector(1, 1), SIERPINSKI),
+            PointCloudExporter.Precision.FLOAT
+        ).export(file, 1000, 1, () -> false);
+
+        assertEquals((long) 1000, total(binWhole(AttractorSample.read(file))));
+      } finally {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("Samples without points are rejected")
+    void noPoints() {
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> AttractorSample.generate(SIERPINSKI, 0, 1)
+      );
+    }
+
+    @Test
+    @DisplayName("Files that aren't point clouds of floats can't be read")
+    void invalidFile() throws IOException {
+      Path file = Files.createTempFile("cloud", ".cgpc");
+      try {
+        Files.write(file, new byte[40]);
+        assertThrows(IOException.class, () -> AttractorSample.read(file));
+
+        new PointCloudExporter(
+            new ChaosGameDescription(new Vector(0, 0), new Vector(1, 1), SIERPINSKI),
+            PointCloudExporter.Precision.DOUBLE
+        ).export(file, 10, 1, () -> false);
+        assertThrows(IOException.class, () -> AttractorSample.read(file));
+      } finally {
+        Files.delete(file);
+      }
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.DescriptionTestUtils;
+import edu.ntnu.stud.model.math.AffineTransformation;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChaosWalkerTest {
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("Walkers with the same seed walk the same points")
+    void deterministic() {
+      TransformationGroup transformations = DescriptionTestUtils.sierpinskiTransformations();
+      ChaosWalker a = new ChaosWalker(transformations, new SplittableRandom(5));
+      ChaosWalker b = new ChaosWalker(transformations, new SplittableRandom(5));
+
+      for (int i = 0; i < 1000; i++) {
+        assertEquals(a.step(), b.step());
+      }
+    }
+
+    @Test
+    @DisplayName("Only the points inside the bounds are counted, rows from the top")
+    void plotsInsideBounds() {
+      // Every point lands on (0.1, 1), the top left pixel of a 2 by 2 histogram of the unit
+      // square, and the second walker never leaves (2, 2)
+      ChaosWalker inside = new ChaosWalker(
+          new TransformationGroup(new AffineTransformation(0, 0, 0, 0, 0.1, 1)),
+          new SplittableRandom(1)
+      );
+      ChaosWalker outside = new ChaosWalker(
+          new TransformationGroup(new AffineTransformation(0, 0, 0, 0, 2, 2)),
+          new SplittableRandom(1)
+      );
+      int[] ints = new int[4];
+      long[] longs = new long[4];
+
+      inside.plot(100, 2, 2, new Vector(0, 0), new Vector(1, 1), ints);
+      inside.plot(100, 2, 2, new Vector(0, 0), new Vector(1, 1), longs);
+      outside.plot(100, 2, 2, new Vector(0, 0), new Vector(1, 1), ints);
+
+      assertTrue(Arrays.equals(new int[] {100, 0, 0, 0}, ints), Arrays.toString(ints));
+      assertTrue(Arrays.equals(new long[] {100, 0, 0, 0}, longs), Arrays.toString(longs));
+    }
+  }
+}
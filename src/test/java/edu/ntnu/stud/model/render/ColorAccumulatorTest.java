@@ -0,0 +1,77 @@
+package edu.ntnu.stud.model.render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class ColorAccumulatorTest {
+
+  private static final int RED = 0xFF0000;
+  private static final int BLUE = 0x0000FF;
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("The densest pixel is shown at full brightness in its transformation color")
+    void densestPixelFullBrightness() {
+      ColorAccumulator accumulator = new ColorAccumulator(2, 1, new int[]{RED, BLUE});
+      for (int i = 0; i < 10; i++) {
+        accumulator.plot(0, 0, 0);
+      }
+
+      int[] pixels = accumulator.toneMap();
+      assertEquals(0xFFFF0000, pixels[0]);
+      assertEquals(0xFF000000, pixels[1], "Pixels without hits should be black.");
+    }
+
+    @Test
+    @DisplayName("The point color is blended halfway towards each transformation")
+    void colorsBlend() {
+      ColorAccumulator accumulator = new ColorAccumulator(1, 1, new int[]{RED, BLUE});
+      accumulator.plot(5, 5, 1);
+      accumulator.plot(0, 0, 1);
+
+      // Red blended towards blue twice: (255 / 4, 0, 255 * 3 / 4)
+      int pixel = accumulator.toneMap()[0];
+      assertEquals(64, pixel >> 16 & 0xFF);
+      assertEquals(191, pixel & 0xFF);
+      assertEquals(1, accumulator.getCount(0, 0), "Points outside should not be counted.");
+    }
+
+    @Test
+    @DisplayName("Pixels are laid out row by row from the top, with the origin in the bottom left")
+    void layout() {
+      ColorAccumulator accumulator = new ColorAccumulator(2, 2, new int[]{RED});
+      accumulator.plot(1, 1, 0);
+
+      int[] pixels = accumulator.toneMap();
+      assertEquals(0xFFFF0000, pixels[1]);
+      assertEquals(1, accumulator.getCount(1, 1));
+    }
+
+    @Test
+    @DisplayName("Hue colors are spread evenly, starting at red")
+    void hueColors() {
+      int[] colors = ColorAccumulator.createHueColors(3);
+      assertEquals(0xFF0000, colors[0]);
+      assertEquals(0x00FF00, colors[1]);
+      assertEquals(0x0000FF, colors[2]);
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("Creating an accumulator without colors throws")
+    void noColors() {
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> new ColorAccumulator(2, 2, new int[0])
+      );
+    }
+  }
+}
@@ -0,0 +1,230 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.ChaosGameCanvas;
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.DescriptionTestUtils;
+import edu.ntnu.stud.model.HistogramPrecision;
+import edu.ntnu.stud.model.math.AffineTransformation;
+import edu.ntnu.stud.model.math.ComplexNumber;
+import edu.ntnu.stud.model.math.JuliaTransformation;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DeterministicRendererTest {
+
+  /**
+   * Enough iterations for several chunks, with a partial chunk at the end.
+   */
+  private static final long ITERATIONS = DeterministicRenderer.CHUNK_ITERATIONS * 5 + 1234;
+
+  private final DeterministicRenderer renderer = new DeterministicRenderer(
+      DescriptionTestUtils.sierpinski(),
+      48,
+      32,
+      HistogramPrecision.LONG
+  );
+
+  private static long total(ChaosGameCanvas canvas) {
+    long total = 0;
+    for (int[] row : canvas.getCanvas()) {
+      for (int count : row) {
+        total += count;
+      }
+    }
+    return total;
+  }
+
+  private static boolean sameCounts(ChaosGameCanvas a, ChaosGameCanvas b) {
+    return Arrays.deepEquals(a.getCanvas(), b.getCanvas());
+  }
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("The same seed renders the same canvas on any number of threads")
+    void independentOfThreads() {
+      ChaosGameCanvas single = renderer.render(ITERATIONS, 7, 1, () -> false);
+      ChaosGameCanvas several = renderer.render(ITERATIONS, 7, 3, () -> false);
+      ChaosGameCanvas many = renderer.render(ITERATIONS, 7, 16, () -> false);
+
+      assertTrue(single != null && several != null && many != null, "No render was cancelled.");
+      assertTrue(sameCounts(single, several), "1 and 3 threads should render the same canvas.");
+      assertTrue(sameCounts(single, many), "1 and 16 threads should render the same canvas.");
+    }
+
+    @Test
+    @DisplayName("Different seeds render different canvases")
+    void dependsOnSeed() {
+      ChaosGameCanvas a = renderer.render(ITERATIONS, 1, 4, () -> false);
+      ChaosGameCanvas b = renderer.render(ITERATIONS, 2, 4, () -> false);
+
+      assertTrue(a != null && b != null, "No render was cancelled.");
+      assertTrue(!sameCounts(a, b), "Different seeds should draw different points.");
+    }
+
+    @Test
+    @DisplayName("Every iteration inside the bounds is counted")
+    void countsEveryIteration() {
+      ChaosGameCanvas canvas = renderer.render(ITERATIONS, 3, 4, () -> false);
+
+      assertTrue(canvas != null, "The render was not cancelled.");
+      long total = 0;
+      for (int[] row : canvas.getCanvas()) {
+        for (int count : row) {
+          total += count;
+        }
+      }
+      // The triangle lies inside the bounds, so every point after burn-in lands on the canvas
+      assertEquals(ITERATIONS, total);
+    }
+
+    @Test
+    @DisplayName("Composed steps draw every iteration and don't depend on the threads either")
+    void composedSteps() {
+      renderer.setComposedSteps(4, true);
+      ChaosGameCanvas single = renderer.render(ITERATIONS, 5, 1, () -> false);
+      ChaosGameCanvas many = renderer.render(ITERATIONS, 5, 8, () -> false);
+
+      assertTrue(single != null && many != null, "No render was cancelled.");
+      assertTrue(sameCounts(single, many), "1 and 8 threads should render the same canvas.");
+      assertEquals(ITERATIONS, total(single));
+    }
+
+    @Test
+    @DisplayName("Drawing only the point after each composed step still fills the attractor")
+    void composedStepsFinalPoints() {
+      renderer.setComposedSteps(3, false);
+      ChaosGameCanvas composed = renderer.render(ITERATIONS, 5, 4, () -> false);
+      renderer.setComposedSteps(1, false);
+      ChaosGameCanvas stepped = renderer.render(ITERATIONS, 5, 4, () -> false);
+
+      assertTrue(composed != null && stepped != null, "No render was cancelled.");
+      assertEquals(ITERATIONS, total(composed));
+      // Both only hit the pixels of the triangle, so the same pixels are empty
+      int[][] a = composed.getCanvas();
+      int[][] b = stepped.getCanvas();
+      for (int row = 0; row < a.length; row++) {
+        for (int x = 0; x < a[row].length; x++) {
+          assertEquals(a[row][x] == 0, b[row][x] == 0, "Pixel (" + x + ", " + row + ")");
+        }
+      }
+    }
+
+    @Test
+    @DisplayName("Floats are picked for screen renders and render the same pixels as doubles")
+    void floatKernel() {
+      assertFalse(renderer.usesFloatKernel(), "Doubles are the default.");
+      renderer.setKernelPrecision(KernelPrecision.AUTO);
+      assertTrue(renderer.usesFloatKernel(), "The pixels are far larger than float spacing.");
+      ChaosGameCanvas single = renderer.render(ITERATIONS, 9, 1, () -> false);
+      ChaosGameCanvas many = renderer.render(ITERATIONS, 9, 8, () -> false);
+      renderer.setKernelPrecision(KernelPrecision.DOUBLE);
+      assertFalse(renderer.usesFloatKernel(), "Doubles were forced.");
+      ChaosGameCanvas doubles = renderer.render(ITERATIONS, 9, 4, () -> false);
+
+      assertTrue(single != null && many != null && doubles != null, "No render was cancelled.");
+      assertTrue(sameCounts(single, many), "1 and 8 threads should render the same canvas.");
+      assertEquals(ITERATIONS, total(single));
+      int[][] a = single.getCanvas();
+      int[][] b = doubles.getCanvas();
+      for (int row = 0; row < a.length; row++) {
+        for (int x = 0; x < a[row].length; x++) {
+          assertEquals(a[row][x] == 0, b[row][x] == 0, "Pixel (" + x + ", " + row + ")");
+        }
+      }
+    }
+
+    @Test
+    @DisplayName("Deep zooms and composed steps are rendered in doubles")
+    void doubleKernel() {
+      DeterministicRenderer zoomed = new DeterministicRenderer(
+          new ChaosGameDescription(
+              new Vector(0.25, 0.25),
+              new Vector(0.25 + 1e-7, 0.25 + 1e-7),
+              new TransformationGroup(new AffineTransformation(0.5, 0, 0, 0.5, 0, 0))
+          ),
+          512,
+          512,
+          HistogramPrecision.INT
+      );
+      zoomed.setKernelPrecision(KernelPrecision.AUTO);
+      assertFalse(zoomed.usesFloatKernel(), "The pixels are below float spacing.");
+      zoomed.setKernelPrecision(KernelPrecision.FLOAT);
+      assertTrue(zoomed.usesFloatKernel(), "Floats were forced.");
+
+      renderer.setKernelPrecision(KernelPrecision.AUTO);
+      renderer.setComposedSteps(2, true);
+      assertFalse(renderer.usesFloatKernel(), "Composed steps are always in doubles.");
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("A cancelled render returns null")
+    void cancelled() {
+      assertTrue(
+          renderer.render(ITERATIONS, 1, 2, () -> true) == null,
+          "A cancelled render should return null."
+      );
+    }
+
+    @Test
+    @DisplayName("Canvases too large for a flat histogram are rejected")
+    void tooLarge() {
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> new DeterministicRenderer(
+              DescriptionTestUtils.sierpinski(),
+              1 << 16,
+              1 << 16,
+              HistogramPrecision.BYTE
+          )
+      );
+    }
+
+    @Test
+    @DisplayName("Composed steps and floats are rejected for descriptions that aren't only affine")
+    void composedNonAffine() {
+      DeterministicRenderer julia = new DeterministicRenderer(
+          new ChaosGameDescription(
+              new Vector(-1, -1),
+              new Vector(1, 1),
+              new TransformationGroup(
+                  new JuliaTransformation(new ComplexNumber(0.3, 0.6), true),
+                  new JuliaTransformation(new ComplexNumber(0.3, 0.6), false)
+              )
+          ),
+          8,
+          8,
+          HistogramPrecision.INT
+      );
+
+      assertThrows(IllegalArgumentException.class, () -> julia.setComposedSteps(2, true));
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> julia.setKernelPrecision(KernelPrecision.FLOAT)
+      );
+      assertFalse(julia.usesFloatKernel(), "Julia sets are rendered in doubles.");
+    }
+
+    @Test
+    @DisplayName("Negative iterations and fewer than one thread are rejected")
+    void invalidArguments() {
+      assertThrows(IllegalArgumentException.class, () -> renderer.render(-1, 1, 1, () -> false));
+      assertThrows(IllegalArgumentException.class, () -> renderer.render(1, 1, 0, () -> false));
+    }
+  }
+}
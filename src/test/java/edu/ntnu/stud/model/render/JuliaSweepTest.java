@@ -0,0 +1,77 @@
+package edu.ntnu.stud.model.render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import edu.ntnu.stud.model.ColorPalette;
+import edu.ntnu.stud.model.math.ComplexNumber;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class JuliaSweepTest {
+
+  private final JuliaSweep sweep = new JuliaSweep(
+      new ComplexNumber(-1, -0.5),
+      new ComplexNumber(0, 0.5),
+      3,
+      2,
+      16
+  );
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("Constants span the rectangle like the complex plane")
+    void constants() {
+      assertEquals(new ComplexNumber(-1, 0.5), sweep.getConstant(0, 0));
+      assertEquals(new ComplexNumber(-0.5, 0.5), sweep.getConstant(1, 0));
+      assertEquals(new ComplexNumber(0, -0.5), sweep.getConstant(2, 1));
+    }
+
+    @Test
+    @DisplayName("The contact sheet has one cell per constant, and every cell is drawn")
+    void rendersEveryCell() {
+      JuliaSweep.ContactSheet sheet = sweep.render(ColorPalette.DEFAULT, () -> false);
+
+      assertTrue(sheet != null, "An uncancelled sweep should produce a sheet.");
+      assertEquals(48, sheet.width());
+      assertEquals(32, sheet.height());
+      int background = ColorPalette.DEFAULT.mapColor(0);
+      for (int cell = 0; cell < 6; cell++) {
+        int left = cell % 3 * 16;
+        int top = cell / 3 * 16;
+        boolean drawn = false;
+        for (int y = top; y < top + 16 && !drawn; y++) {
+          for (int x = left; x < left + 16; x++) {
+            if (sheet.pixels()[y * sheet.width() + x] != background) {
+              drawn = true;
+              break;
+            }
+          }
+        }
+        assertTrue(drawn, "Cell " + cell + " should contain hits.");
+      }
+    }
+
+    @Test
+    @DisplayName("A cancelled sweep produces no sheet")
+    void cancelled() {
+      assertEquals(null, sweep.render(ColorPalette.DEFAULT, () -> true));
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("A sweep without cells throws")
+    void noCells() {
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> new JuliaSweep(new ComplexNumber(0, 0), new ComplexNumber(1, 1), 0, 2, 16)
+      );
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.ChaosGameCanvas;
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.DescriptionTestUtils;
+import edu.ntnu.stud.model.HistogramPrecision;
+import edu.ntnu.stud.model.math.ComplexNumber;
+import edu.ntnu.stud.model.math.JuliaTransformation;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RasterIfsRendererTest {
+
+  private static final ChaosGameDescription SIERPINSKI = DescriptionTestUtils.sierpinski();
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("The bitmap converges to the pixels the chaos game hits")
+    void matchesChaosGame() {
+      RasterIfsRenderer.Result result = new RasterIfsRenderer(SIERPINSKI, 96, 64)
+          .render(100, 3, () -> false);
+      ChaosGameCanvas sampled = new DeterministicRenderer(
+          SIERPINSKI,
+          96,
+          64,
+          HistogramPrecision.INT
+      ).render(2_000_000, 1, 2, () -> false);
+
+      assertTrue(result != null && sampled != null, "No render was cancelled.");
+      assertTrue(result.converged(), "The bitmap should stop changing.");
+      int[][] raster = result.canvas().getCanvas();
+      int[][] counts = sampled.getCanvas();
+      int set = 0;
+      int hit = 0;
+      int both = 0;
+      for (int row = 0; row < raster.length; row++) {
+        for (int x = 0; x < raster[row].length; x++) {
+          set += raster[row][x];
+          hit += counts[row][x] > 0 ? 1 : 0;
+          both += raster[row][x] > 0 && counts[row][x] > 0 ? 1 : 0;
+        }
+      }
+      // Only pixels at the edges of the triangle may differ, as the centers are mapped
+      assertTrue(both > hit * 0.9, both + " of " + hit + " hit pixels are set.");
+      assertTrue(set < hit * 1.1, set + " pixels are set, but only " + hit + " hit.");
+    }
+
+    @Test
+    @DisplayName("The result doesn't depend on the number of threads")
+    void independentOfThreads() {
+      RasterIfsRenderer renderer = new RasterIfsRenderer(SIERPINSKI, 100, 70);
+      RasterIfsRenderer.Result single = renderer.render(100, 1, () -> false);
+      RasterIfsRenderer.Result many = renderer.render(100, 7, () -> false);
+
+      assertTrue(single != null && many != null, "No render was cancelled.");
+      assertEquals(single.passes(), many.passes());
+      assertTrue(
+          Arrays.deepEquals(single.canvas().getCanvas(), many.canvas().getCanvas()),
+          "1 and 7 threads should set the same pixels."
+      );
+    }
+
+    @Test
+    @DisplayName("Running out of passes is reported as not converged")
+    void notConverged() {
+      RasterIfsRenderer.Result result = new RasterIfsRenderer(SIERPINSKI, 128, 128)
+          .render(2, 2, () -> false);
+
+      assertTrue(result != null, "The render was not cancelled.");
+      assertEquals(2, result.passes());
+      assertTrue(!result.converged(), "Two passes shouldn't be enough.");
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("A cancelled render returns null")
+    void cancelled() {
+      assertTrue(
+          new RasterIfsRenderer(SIERPINSKI, 8, 8).render(10, 1, () -> true) == null,
+          "A cancelled render should return null."
+      );
+    }
+
+    @Test
+    @DisplayName("Non-affine transformations and invalid arguments are rejected")
+    void invalidArguments() {
+      ChaosGameDescription julia = new ChaosGameDescription(
+          new Vector(-1, -1),
+          new Vector(1, 1),
+          new TransformationGroup(new JuliaTransformation(new ComplexNumber(0.3, 0.6), true))
+      );
+      RasterIfsRenderer renderer = new RasterIfsRenderer(SIERPINSKI, 8, 8);
+
+      assertThrows(IllegalArgumentException.class, () -> new RasterIfsRenderer(julia, 8, 8));
+      assertThrows(IllegalArgumentException.class, () -> new RasterIfsRenderer(SIERPINSKI, 1, 8));
+      assertThrows(IllegalArgumentException.class, () -> renderer.render(0, 1, () -> false));
+      assertThrows(IllegalArgumentException.class, () -> renderer.render(1, 0, () -> false));
+    }
+  }
+}
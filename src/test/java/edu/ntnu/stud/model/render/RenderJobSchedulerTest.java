@@ -0,0 +1,117 @@
+package edu.ntnu.stud.model.render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import edu.ntnu.stud.utils.DeliveryExecutors;
+import edu.ntnu.stud.utils.UsageFlagger;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class RenderJobSchedulerTest {
+
+  private final UsageFlagger isLoading = new UsageFlagger();
+  private final RenderJobScheduler scheduler = new RenderJobScheduler(
+      isLoading,
+      DeliveryExecutors.direct()
+  );
+
+  /**
+   * Waits for the flag to be cleared, as it is cleared by a callback running after the result of
+   * the job has been completed.
+   */
+  private boolean awaitCleared() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (isLoading.isFlagged() && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    return !isLoading.isFlagged();
+  }
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("A job completes with the result of its task")
+    void completesWithResult() throws Exception {
+      RenderJob<Integer> job = scheduler.submit("view", j -> 42);
+
+      assertEquals(42, (int) job.getResult().get(5, TimeUnit.SECONDS));
+      assertFalse(job.isCancelled(), "A completed job should not be cancelled.");
+    }
+
+    @Test
+    @DisplayName("A newer job for the same view cancels the one still running")
+    void newerJobSupersedes() throws Exception {
+      CountDownLatch started = new CountDownLatch(1);
+      RenderJob<Integer> first = scheduler.submit("view", j -> {
+        started.countDown();
+        while (!j.isCancelled()) {
+          Thread.onSpinWait();
+        }
+        return null;
+      });
+      assertTrue(started.await(5, TimeUnit.SECONDS), "The first job should have started.");
+
+      RenderJob<Integer> second = scheduler.submit("view", j -> 2);
+
+      assertTrue(first.isCancelled(), "The superseded job should be cancelled.");
+      assertThrows(
+          CancellationException.class,
+          () -> first.getResult().get(5, TimeUnit.SECONDS),
+          "The superseded job should complete as cancelled."
+      );
+      assertEquals(2, (int) second.getResult().get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Jobs for different views don't cancel each other")
+    void differentViewsRunIndependently() throws Exception {
+      RenderJob<Integer> main = scheduler.submit("main", j -> 1);
+      RenderJob<Integer> preview = scheduler.submit("preview", j -> 2);
+
+      assertEquals(1, (int) main.getResult().get(5, TimeUnit.SECONDS));
+      assertEquals(2, (int) preview.getResult().get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("The loading flag is set while a job runs, and cleared once it stops")
+    void flagsWhileRunning() throws Exception {
+      CountDownLatch release = new CountDownLatch(1);
+      RenderJob<Integer> job = scheduler.submit("view", j -> {
+        release.await();
+        return 1;
+      });
+
+      assertTrue(isLoading.isFlagged(), "The flagger should be flagged while the job runs.");
+      release.countDown();
+      job.getResult().get(5, TimeUnit.SECONDS);
+      assertTrue(awaitCleared(), "The flagger should be cleared once the job stops.");
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("A failing task completes the job exceptionally and clears the flag")
+    void failingTask() throws InterruptedException {
+      RenderJob<Integer> job = scheduler.submit("view", j -> {
+        throw new IllegalStateException("Failed");
+      });
+
+      ExecutionException e = assertThrows(
+          ExecutionException.class,
+          () -> job.getResult().get(5, TimeUnit.SECONDS)
+      );
+      assertTrue(e.getCause() instanceof IllegalStateException);
+      assertTrue(awaitCleared(), "A failed job should not keep the flag set.");
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package edu.ntnu.stud.model.render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import edu.ntnu.stud.model.HistogramPrecision;
+import edu.ntnu.stud.model.HistogramStorage;
+import edu.ntnu.stud.model.math.Vector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class SupersampleBufferTest {
+
+  private final Vector minCoords = new Vector(0, 0);
+  private final Vector maxCoords = new Vector(1, 1);
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("Downsampling takes the rounded mean of each block of samples")
+    void downsampleAveragesBlocks() {
+      // A 2x2 display at factor 2 gives 4x4 samples, translated so that sample (i, j) is hit by
+      // the point (i / 3, j / 3)
+      SupersampleBuffer buffer = new SupersampleBuffer(2, 2, 2, minCoords, maxCoords);
+      for (int i = 0; i < 4; i++) {
+        buffer.plot(new Vector(0, 0));
+      }
+      buffer.plot(new Vector(1, 1));
+      buffer.plot(new Vector(1, 1));
+
+      int[][] target = new int[2][2];
+      buffer.downsampleInto(target);
+
+      assertEquals(1, target[1][0], "Four hits in one sample of four should average to 1.");
+      assertEquals(1, target[0][1], "Two hits in one sample of four should round up to 1.");
+      assertEquals(0, target[0][0]);
+      assertEquals(0, target[1][1]);
+    }
+
+    @Test
+    @DisplayName("Samples saturate instead of overflowing")
+    void samplesSaturate() {
+      SupersampleBuffer buffer = new SupersampleBuffer(1, 1, 2, minCoords, maxCoords);
+      for (int i = 0; i < SupersampleBuffer.MAX_COUNT + 10; i++) {
+        buffer.plot(new Vector(0, 0));
+      }
+
+      int[][] target = new int[1][1];
+      buffer.downsampleInto(target);
+      assertEquals((SupersampleBuffer.MAX_COUNT + 2) / 4, target[0][0]);
+    }
+
+    @Test
+    @DisplayName("The factor is lowered for large displays to bound memory")
+    void factorIsBounded() {
+      assertEquals(4, SupersampleBuffer.boundFactor(100, 100, 4));
+      int bounded = SupersampleBuffer.boundFactor(4000, 3000, 4);
+      assertTrue(bounded < 4, "The factor should be lowered for a large display.");
+      assertTrue(
+          4000L * 3000 * bounded * bounded <= SupersampleBuffer.MAX_SAMPLES,
+          "The bounded buffer should fit within the sample limit."
+      );
+    }
+
+    @Test
+    @DisplayName("Downsampling a single pixel matches downsampling the whole buffer")
+    void downsamplePixel() {
+      SupersampleBuffer buffer = new SupersampleBuffer(2, 2, 2, minCoords, maxCoords);
+      buffer.plot(new Vector(1, 1));
+      buffer.plot(new Vector(1, 1));
+      buffer.plot(new Vector(0, 0));
+      buffer.plot(new Vector(0, 0));
+
+      HistogramStorage target = HistogramPrecision.INT.createStorage(2, 2);
+      buffer.downsamplePixelInto(new Vector(1, 1), target);
+
+      assertEquals(1L, target.get(0, 1), "The pixel of the point should be downsampled.");
+      assertEquals(0L, target.get(1, 0), "Other pixels should be left as they were.");
+    }
+
+    @Test
+    @DisplayName("Clearing resets every sample")
+    void clearResets() {
+      SupersampleBuffer buffer = new SupersampleBuffer(1, 1, 2, minCoords, maxCoords);
+      buffer.plot(new Vector(0, 0));
+      buffer.clear();
+
+      int[][] target = new int[][]{{5}};
+      buffer.downsampleInto(target);
+      assertEquals(0, target[0][0]);
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("A factor outside the supported range throws")
+    void invalidFactor() {
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> new SupersampleBuffer(10, 10, 5, minCoords, maxCoords)
+      );
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> new SupersampleBuffer(10, 10, 1, minCoords, maxCoords)
+      );
+    }
+
+    @Test
+    @DisplayName("Points outside the bounds are discarded")
+    void outsidePointsDiscarded() {
+      SupersampleBuffer buffer = new SupersampleBuffer(2, 2, 2, minCoords, maxCoords);
+      assertFalse(buffer.plot(new Vector(-1, 0.5)));
+      assertFalse(buffer.plot(new Vector(0.5, 2)));
+    }
+
+    @Test
+    @DisplayName("Downsampling into a target of the wrong size throws")
+    void wrongTargetSize() {
+      SupersampleBuffer buffer = new SupersampleBuffer(2, 2, 2, minCoords, maxCoords);
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> buffer.downsampleInto(new int[3][2])
+      );
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.ColorPalette;
+import edu.ntnu.stud.model.DescriptionTestUtils;
+import edu.ntnu.stud.model.math.AffineTransformation;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TilePyramidTest {
+
+  private final ChaosGameDescription sierpinski = DescriptionTestUtils.sierpinski(
+      new Vector(0, 0),
+      new Vector(1, 2)
+  );
+
+  private TilePyramid createPyramid(ChaosGameDescription description) {
+    return new TilePyramid(description, 0, 1, 1, ColorPalette.DEFAULT);
+  }
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("Tiles split a square around the bounds, with rows counted from the top")
+    void tileBounds() {
+      TilePyramid pyramid = createPyramid(sierpinski);
+      double pixel = 1.0 / TilePyramid.TILE_SIZE;
+
+      Vector[] whole = pyramid.getTileBounds(0, 0, 0);
+      assertEquals(new Vector(-0.5, 0), whole[0]);
+      assertEquals(new Vector(1.5 - 2 * pixel, 2 - 2 * pixel), whole[1]);
+
+      Vector[] topLeft = pyramid.getTileBounds(1, 0, 0);
+      assertEquals(new Vector(-0.5, 1), topLeft[0]);
+      Vector[] bottomRight = pyramid.getTileBounds(1, 1, 1);
+      assertEquals(new Vector(0.5, 0), bottomRight[0]);
+    }
+
+    @Test
+    @DisplayName("Every tile of the zoom range is written as a 256 pixel PNG")
+    void writesTiles() throws Exception {
+      Path directory = Files.createTempDirectory("tiles");
+
+      TilePyramid.Result result = createPyramid(sierpinski).generate(directory, () -> false);
+
+      assertTrue(result != null, "An uncancelled pyramid should produce a result.");
+      assertEquals(5, result.rendered());
+      assertEquals(0, result.skipped());
+      for (Path tile : new Path[] {
+          TilePyramid.getTileFile(directory, 0, 0, 0),
+          TilePyramid.getTileFile(directory, 1, 1, 1)
+      }) {
+        BufferedImage image = ImageIO.read(tile.toFile());
+        assertEquals(TilePyramid.TILE_SIZE, image.getWidth());
+        assertEquals(TilePyramid.TILE_SIZE, image.getHeight());
+      }
+    }
+
+    @Test
+    @DisplayName("Tiles are colored with the palette, background and attractor alike")
+    void colorsWithPalette() throws Exception {
+      Path directory = Files.createTempDirectory("tiles");
+      createPyramid(sierpinski).generate(directory, () -> false);
+
+      int[] colors = ColorPalette.DEFAULT.getColors();
+      BufferedImage image = ImageIO.read(TilePyramid.getTileFile(directory, 0, 0, 0).toFile());
+      int background = 0;
+      for (int y = 0; y < image.getHeight(); y++) {
+        for (int x = 0; x < image.getWidth(); x++) {
+          int index = indexOf(colors, image.getRGB(x, y));
+          assertTrue(index >= 0, "Pixel " + x + ", " + y + " is not a color of the palette.");
+          background += index == 0 ? 1 : 0;
+        }
+      }
+      int pixels = image.getWidth() * image.getHeight();
+      assertTrue(background > 0 && background < pixels, "The attractor should be drawn.");
+    }
+
+    private static int indexOf(int[] colors, int rgb) {
+      for (int i = 0; i < colors.length; i++) {
+        if ((colors[i] & 0xFFFFFF) == (rgb & 0xFFFFFF)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Test
+    @DisplayName("Re-running with the same fractal skips the tiles already on disk")
+    void skipsUnchangedTiles() throws Exception {
+      Path directory = Files.createTempDirectory("tiles");
+      createPyramid(sierpinski).generate(directory, () -> false);
+      Files.delete(TilePyramid.getTileFile(directory, 1, 0, 1));
+
+      TilePyramid.Result result = createPyramid(sierpinski).generate(directory, () -> false);
+
+      assertTrue(result != null, "An uncancelled pyramid should produce a result.");
+      assertEquals(1, result.rendered());
+      assertEquals(4, result.skipped());
+    }
+
+    @Test
+    @DisplayName("Changing the fractal renders every tile again")
+    void rerendersChangedFractal() throws Exception {
+      Path directory = Files.createTempDirectory("tiles");
+      new TilePyramid(sierpinski, 0, 2, 1, ColorPalette.DEFAULT).generate(directory, () -> false);
+      ChaosGameDescription changed = new ChaosGameDescription(
+          sierpinski.minCoords(),
+          sierpinski.maxCoords(),
+          new TransformationGroup(new AffineTransformation(0.5, 0, 0, 0.5, 0, 0))
+      );
+
+      TilePyramid.Result result = createPyramid(changed).generate(directory, () -> false);
+
+      assertTrue(result != null, "An uncancelled pyramid should produce a result.");
+      assertEquals(5, result.rendered());
+      assertEquals(0, result.skipped());
+      assertTrue(
+          !Files.exists(TilePyramid.getTileFile(directory, 2, 0, 0)),
+          "Stale tiles outside the zoom range should be removed."
+      );
+    }
+
+    @Test
+    @DisplayName("Deep tiles keep the density of hits of the shallow ones")
+    void deepTileDensity() {
+      // The bottom left tile of zoom z holds the corner triangle of side 2^-z, a 3^-z share of
+      // the hits of 4^z times the iterations of zoom 0
+      TilePyramid pyramid = new TilePyramid(
+          DescriptionTestUtils.sierpinski(),
+          0,
+          TilePyramid.MAX_ZOOM,
+          1,
+          ColorPalette.DEFAULT
+      );
+      int zoom = 10;
+
+      long hits = 0;
+      for (int count : pyramid.renderTile(zoom, 0, (1 << zoom) - 1)) {
+        hits += count;
+      }
+
+      double expected = TilePyramid.TILE_SIZE * TilePyramid.TILE_SIZE * Math.pow(4.0 / 3, zoom);
+      assertEquals(1, hits / expected, 0.01);
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("Zoom levels outside the supported range are rejected")
+    void invalidZoom() {
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> new TilePyramid(sierpinski, -1, 2, 1, ColorPalette.DEFAULT)
+      );
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> new TilePyramid(sierpinski, 3, 2, 1, ColorPalette.DEFAULT)
+      );
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> new TilePyramid(sierpinski, 0, TilePyramid.MAX_ZOOM + 1, 1, ColorPalette.DEFAULT)
+      );
+    }
+
+    @Test
+    @DisplayName("A cancelled pyramid produces no result")
+    void cancelled() throws Exception {
+      Path directory = Files.createTempDirectory("tiles");
+
+      assertTrue(
+          createPyramid(sierpinski).generate(directory, () -> true) == null,
+          "A cancelled pyramid should produce no result."
+      );
+    }
+  }
+}
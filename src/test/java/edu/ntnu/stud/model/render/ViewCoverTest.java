@@ -0,0 +1,89 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.DescriptionTestUtils;
+import edu.ntnu.stud.model.math.ComplexNumber;
+import edu.ntnu.stud.model.math.JuliaTransformation;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ViewCoverTest {
+
+  private static final Vector MIN = new Vector(0, 0);
+  private static final Vector MAX = new Vector(0.25, 0.25);
+
+  private static long sum(int[] counts) {
+    long sum = 0;
+    for (int count : counts) {
+      sum += count;
+    }
+    return sum;
+  }
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("Mapped points draw the density of the walker inside the view")
+    void matchesWalker() {
+      TransformationGroup transformations = DescriptionTestUtils.sierpinskiTransformations();
+      ViewCover cover = ViewCover.of(transformations, MIN, MAX);
+      assertTrue(cover != null, "Contracting affine transformations should be covered.");
+      assertTrue(cover.getWeight() < 1, "Branches away from the view should be cut.");
+      long iterations = 1L << 22;
+      int[] walked = new int[16 * 16];
+      int[] mapped = new int[16 * 16];
+
+      new ChaosWalker(transformations, new SplittableRandom(1))
+          .plot(iterations, 16, 16, MIN, MAX, walked);
+      cover.plot(
+          new ChaosWalker(transformations, new SplittableRandom(2)),
+          new SplittableRandom(3),
+          (long) Math.ceil(iterations * cover.getWeight()),
+          16,
+          16,
+          MIN,
+          MAX,
+          mapped
+      );
+
+      assertEquals(1, (double) sum(mapped) / sum(walked), 0.02);
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("Transformations that aren't affine aren't covered")
+    void nonAffine() {
+      TransformationGroup julia = new TransformationGroup(
+          new JuliaTransformation(new ComplexNumber(0.3, 0.6), true),
+          new JuliaTransformation(new ComplexNumber(0.3, 0.6), false)
+      );
+
+      assertTrue(ViewCover.of(julia, MIN, MAX) == null, "Julia sets have no cover.");
+    }
+
+    @Test
+    @DisplayName("A view the attractor doesn't reach is covered by nothing")
+    void emptyView() {
+      ViewCover cover = ViewCover.of(
+          DescriptionTestUtils.sierpinskiTransformations(),
+          new Vector(2, 2),
+          new Vector(3, 3)
+      );
+
+      assertTrue(cover != null, "Contracting affine transformations should be covered.");
+      assertEquals(0, cover.size());
+      assertEquals(0, cover.getWeight(), 0);
+    }
+  }
+}
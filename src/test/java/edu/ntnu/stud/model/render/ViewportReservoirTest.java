@@ -0,0 +1,227 @@
+package edu.ntnu.stud.model.render;
+
+import edu.ntnu.stud.model.ChaosGame;
+import edu.ntnu.stud.model.DescriptionTestUtils;
+import edu.ntnu.stud.model.math.Vector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ViewportReservoirTest {
+
+  private static int[][] render(boolean accelerated, long iterations) {
+    ChaosGame game = new ChaosGame(
+        64,
+        64,
+        DescriptionTestUtils.sierpinski(new Vector(0.3, 0.05), new Vector(0.36, 0.11))
+    );
+    game.setSeed(11);
+    game.setZoomAcceleration(accelerated);
+    game.render(iterations, () -> false);
+    return game.getCanvas().getCanvas();
+  }
+
+  private static long countHits(int[][] canvas) {
+    long hits = 0;
+    for (int[] row : canvas) {
+      for (int count : row) {
+        hits += count;
+      }
+    }
+    return hits;
+  }
+
+  /**
+   * Returns the share of the hits in each of 4 by 4 cells of the canvas.
+   */
+  private static double[] normalizedCells(int[][] canvas) {
+    double[] cells = new double[16];
+    long hits = countHits(canvas);
+    for (int y = 0; y < canvas.length; y++) {
+      for (int x = 0; x < canvas[y].length; x++) {
+        cells[y * 4 / canvas.length * 4 + x * 4 / canvas[y].length] += (double) canvas[y][x] / hits;
+      }
+    }
+    return cells;
+  }
+
+  /**
+   * Walks the given picks, only landing inside the viewport on the last one.
+   */
+  private static void enter(ViewportReservoir reservoir, int[] path) {
+    for (int i = 0; i < path.length; i++) {
+      assertEquals(5, reservoir.pick(5), "No replay while entering.");
+      reservoir.record(path[i], i == path.length - 1);
+    }
+  }
+
+  private static int[] path(int offset) {
+    int[] path = new int[ViewportReservoir.HISTORY_LENGTH];
+    for (int i = 0; i < path.length; i++) {
+      path[i] = (i + offset) % 3;
+    }
+    return path;
+  }
+
+  private static void leave(ViewportReservoir reservoir) {
+    for (int i = 0; i < ViewportReservoir.RESTART_AFTER; i++) {
+      assertEquals(5, reservoir.pick(5), "No replay yet.");
+      reservoir.record(5, false);
+    }
+  }
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("With enough entries, the oldest is replayed after a few steps outside")
+    void replaysEntry() {
+      ViewportReservoir reservoir = new ViewportReservoir();
+      for (int i = 0; i < ViewportReservoir.MIN_ENTRIES; i++) {
+        enter(reservoir, path(i));
+      }
+      assertEquals(ViewportReservoir.MIN_ENTRIES, reservoir.size());
+      leave(reservoir);
+
+      int[] path = path(0);
+      for (int i = 0; i < path.length; i++) {
+        assertEquals(i < path.length - 1, reservoir.isReplaying(), "Only the last is drawn.");
+        assertEquals(path[i], reservoir.pick(5), "The entry should be replayed in order.");
+        reservoir.record(path[i], true);
+      }
+      assertEquals(5, reservoir.pick(5), "The replay is over.");
+      assertEquals(1L, reservoir.getRestartCount());
+    }
+
+    @Test
+    @DisplayName("Every so often the walker is left to store a new entry instead of replaying")
+    void refreshes() {
+      ViewportReservoir reservoir = new ViewportReservoir();
+      for (int i = 0; i < ViewportReservoir.MIN_ENTRIES; i++) {
+        enter(reservoir, path(0));
+      }
+      for (int i = 0; i < ViewportReservoir.REFRESH_EVERY - 1; i++) {
+        leave(reservoir);
+        for (int transformation : path(0)) {
+          reservoir.record(reservoir.pick(transformation), true);
+        }
+      }
+
+      leave(reservoir);
+      for (int i = 0; i < ViewportReservoir.HISTORY_LENGTH * 2; i++) {
+        assertFalse(reservoir.isReplaying(), "The walker should find its own way in.");
+        assertEquals(5, reservoir.pick(5), "Nothing should be replayed.");
+        reservoir.record(5, false);
+      }
+      enter(reservoir, path(1));
+      leave(reservoir);
+
+      assertTrue(reservoir.isReplaying(), "Replays should go on after the new entry.");
+      assertEquals((long) ViewportReservoir.REFRESH_EVERY + 1, reservoir.getRestartCount());
+    }
+
+    @Test
+    @DisplayName("Restarting keeps the entries, and copies keep them independently")
+    void keepsEntries() {
+      ViewportReservoir reservoir = new ViewportReservoir();
+      for (int i = 0; i < ViewportReservoir.MIN_ENTRIES; i++) {
+        enter(reservoir, path(i));
+      }
+      reservoir.restart();
+      ViewportReservoir copy = new ViewportReservoir(reservoir);
+      assertEquals(ViewportReservoir.MIN_ENTRIES, copy.size());
+      copy.clear();
+
+      assertEquals(ViewportReservoir.MIN_ENTRIES, reservoir.size());
+      leave(reservoir);
+      assertEquals(path(0)[0], reservoir.pick(5), "The oldest entry should be replayed.");
+    }
+
+    @Test
+    @DisplayName("Rendering a deep view again starts with the entries of the last render")
+    void fillsAcrossRenders() {
+      ChaosGame game = new ChaosGame(
+          64,
+          64,
+          DescriptionTestUtils.sierpinski(new Vector(0.3, 0.1), new Vector(0.302, 0.102))
+      );
+      game.setSeed(3);
+      game.setZoomAcceleration(true);
+      game.render(250_000, () -> false);
+      ViewportReservoir reservoir = game.getViewportReservoir();
+      int entries = reservoir.size();
+      game.render(250_000, () -> false);
+
+      assertTrue(reservoir.size() > entries, "The entries should add up across renders.");
+      assertTrue(reservoir.getRestartCount() > 0, "The second render should replay entries.");
+    }
+
+    @Test
+    @DisplayName("Zoomed in renders draw several times more points with acceleration")
+    void acceleratesZoom() {
+      long plain = countHits(render(false, 500_000));
+      long accelerated = countHits(render(true, 500_000));
+
+      assertTrue(accelerated > plain * 3, accelerated + " hits should be far more than " + plain);
+    }
+
+    @Test
+    @DisplayName("Acceleration keeps the density of the points within the documented bound")
+    void keepsDensity() {
+      double[] plain = normalizedCells(render(false, 5_000_000));
+      double[] accelerated = normalizedCells(render(true, 1_000_000));
+
+      double distance = 0;
+      for (int i = 0; i < plain.length; i++) {
+        distance += Math.abs(plain[i] - accelerated[i]);
+      }
+      assertTrue(distance < 0.1, "The densities differ by " + distance + " in total.");
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("Nothing is replayed before the minimum of entries is stored")
+    void tooFewEntries() {
+      ViewportReservoir reservoir = new ViewportReservoir();
+      for (int i = 0; i < ViewportReservoir.MIN_ENTRIES - 1; i++) {
+        enter(reservoir, path(i));
+      }
+      for (int i = 0; i < ViewportReservoir.RESTART_AFTER * 2; i++) {
+        assertEquals(1, reservoir.pick(1), "Nothing to replay.");
+        reservoir.record(1, false);
+      }
+      assertEquals(0L, reservoir.getRestartCount());
+    }
+
+    @Test
+    @DisplayName("Entering right after leaving the viewport stores no entry")
+    void shortExcursion() {
+      ViewportReservoir reservoir = new ViewportReservoir();
+      enter(reservoir, path(0));
+      for (int i = 0; i < ViewportReservoir.RESTART_AFTER - 1; i++) {
+        reservoir.record(0, false);
+      }
+      reservoir.record(0, true);
+
+      assertEquals(1, reservoir.size());
+    }
+
+    @Test
+    @DisplayName("Clearing forgets the entries")
+    void clear() {
+      ViewportReservoir reservoir = new ViewportReservoir();
+      enter(reservoir, path(0));
+
+      reservoir.clear();
+
+      assertEquals(0, reservoir.size());
+    }
+  }
+}
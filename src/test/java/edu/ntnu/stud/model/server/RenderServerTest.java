@@ -0,0 +1,247 @@
+package edu.ntnu.stud.model.server;
+
+import edu.ntnu.stud.model.DescriptionTestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RenderServerTest {
+
+  private static final String SIERPINSKI = DescriptionTestUtils.SIERPINSKI_JSON;
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private RenderServer server;
+
+  @BeforeEach
+  void startServer() throws IOException {
+    server = new RenderServer(
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+        2,
+        16,
+        1024 * 1024
+    );
+  }
+
+  @AfterEach
+  void stopServer() {
+    server.close();
+  }
+
+  private URI uri(String path) {
+    return URI.create("http://localhost:" + server.getPort() + path);
+  }
+
+  private HttpRequest post(String query, String body) {
+    return HttpRequest.newBuilder(uri("/render?" + query))
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build();
+  }
+
+  private HttpResponse<byte[]> send(HttpRequest request) throws Exception {
+    return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+  }
+
+  private long metric(String name) throws Exception {
+    HttpResponse<String> response = client.send(
+        HttpRequest.newBuilder(uri("/metrics")).build(),
+        HttpResponse.BodyHandlers.ofString()
+    );
+    for (String line : response.body().split("\n")) {
+      if (line.startsWith(name + " ")) {
+        return Long.parseLong(line.substring(name.length() + 1));
+      }
+    }
+    throw new AssertionError("Missing metric " + name);
+  }
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("An inline description is rendered to a PNG")
+    void rendersPng() throws Exception {
+      HttpResponse<byte[]> response = send(post("width=32&height=24&quality=2", SIERPINSKI));
+
+      assertEquals(200, response.statusCode());
+      assertEquals("image/png", response.headers().firstValue("Content-Type").orElse(""));
+      byte[] body = response.body();
+      assertTrue(
+          body.length > 8 && body[1] == 'P' && body[2] == 'N' && body[3] == 'G',
+          "The body should be a PNG."
+      );
+    }
+
+    @Test
+    @DisplayName("A repeated request is served from the cache")
+    void servesRepeatsFromCache() throws Exception {
+      send(post("width=16&height=16", SIERPINSKI));
+      HttpResponse<byte[]> repeat = send(post("width=16&height=16", SIERPINSKI));
+
+      assertEquals("hit", repeat.headers().firstValue("X-Cache").orElse(""));
+      assertEquals(1, metric("render_server_renders_total"));
+    }
+
+    @Test
+    @DisplayName("Identical concurrent requests are rendered once")
+    void deduplicatesConcurrentRequests() throws Exception {
+      ArrayList<CompletableFuture<HttpResponse<byte[]>>> responses = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        responses.add(client.sendAsync(
+            post("width=64&height=64&quality=20", SIERPINSKI),
+            HttpResponse.BodyHandlers.ofByteArray()
+        ));
+      }
+      for (CompletableFuture<HttpResponse<byte[]>> response : responses) {
+        assertEquals(200, response.get().statusCode());
+      }
+
+      assertEquals(1, metric("render_server_renders_total"));
+      assertEquals(8, metric("render_server_requests_total"));
+    }
+
+    @Test
+    @DisplayName("The raster engine renders a PNG, cached apart from the chaos game")
+    void rendersRaster() throws Exception {
+      HttpResponse<byte[]> chaos = send(post("width=32&height=32", SIERPINSKI));
+      HttpResponse<byte[]> raster = send(post("width=32&height=32&engine=raster", SIERPINSKI));
+
+      assertEquals(200, raster.statusCode());
+      assertEquals("miss", raster.headers().firstValue("X-Cache").orElse(""));
+      assertFalse(Arrays.equals(chaos.body(), raster.body()), "The engines render differently.");
+      assertEquals(2, metric("render_server_renders_total"));
+    }
+
+    @Test
+    @DisplayName("The adaptive engine renders a PNG")
+    void rendersAdaptive() throws Exception {
+      HttpResponse<byte[]> response = send(post("width=32&height=32&engine=adaptive", SIERPINSKI));
+
+      assertEquals(200, response.statusCode());
+      assertEquals("image/png", response.headers().firstValue("Content-Type").orElse(""));
+      assertEquals(1, metric("render_server_renders_total"));
+    }
+
+    @Test
+    @DisplayName("The deterministic engine renders the same image for a seed, another for others")
+    void rendersDeterministic() throws Exception {
+      String query = "width=48&height=48&engine=deterministic&steps=3&kernel=float&seed=";
+      byte[] first = send(post(query + 7, SIERPINSKI)).body();
+      server.close();
+      startServer();
+      HttpResponse<byte[]> repeat = send(post(query + 7, SIERPINSKI));
+      HttpResponse<byte[]> other = send(post(query + 8, SIERPINSKI));
+
+      assertEquals(200, repeat.statusCode());
+      assertEquals("miss", repeat.headers().firstValue("X-Cache").orElse(""));
+      assertArrayEquals(first, repeat.body(), "A seed should always render the same image.");
+      assertFalse(Arrays.equals(first, other.body()), "Other seeds should render other images.");
+    }
+
+    @Test
+    @DisplayName("The health endpoint reports the server as up")
+    void health() throws Exception {
+      HttpResponse<byte[]> response = send(HttpRequest.newBuilder(uri("/health")).build());
+
+      assertEquals(200, response.statusCode());
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("Sizes out of range are rejected")
+    void invalidSize() throws Exception {
+      for (String query : List.of("width=0", "height=100000", "quality=abc")) {
+        assertEquals(400, send(post(query, SIERPINSKI)).statusCode(), query);
+      }
+    }
+
+    @Test
+    @DisplayName("Unknown engines, and renders an engine can't do, are rejected")
+    void invalidEngine() throws Exception {
+      List<String> queries = List.of(
+          "engine=fast",
+          "engine=raster&width=1",
+          "engine=adaptive&height=1",
+          "engine=deterministic&seed=x",
+          "engine=deterministic&steps=0",
+          "engine=deterministic&kernel=half"
+      );
+      for (String query : queries) {
+        assertEquals(400, send(post(query, SIERPINSKI)).statusCode(), query);
+      }
+      assertEquals(0, metric("render_server_renders_total"));
+    }
+
+    @Test
+    @DisplayName("An invalid description is rejected")
+    void invalidDescription() throws Exception {
+      assertEquals(400, send(post("width=16", "{\"minCoords\": 1}")).statusCode());
+    }
+
+    @Test
+    @DisplayName("Unsafe fractal names are rejected")
+    void unsafeName() throws Exception {
+      HttpResponse<byte[]> response = send(
+          HttpRequest.newBuilder(uri("/render?fractal=..%2Fstate")).build()
+      );
+
+      assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    @DisplayName("Methods other than GET and POST are not allowed")
+    void invalidMethod() throws Exception {
+      HttpResponse<byte[]> response = send(
+          HttpRequest.newBuilder(uri("/render")).DELETE().build()
+      );
+
+      assertEquals(405, response.statusCode());
+    }
+
+    @Test
+    @DisplayName("Descriptions larger than the limit are rejected")
+    void oversizedDescription() throws Exception {
+      String padded = SIERPINSKI + " ".repeat(RenderServer.MAX_BODY_BYTES);
+
+      assertEquals(413, send(post("width=16", padded)).statusCode());
+    }
+
+    @Test
+    @DisplayName("A render is cancelled once every request waiting for it has timed out")
+    void cancelsAbandonedRender() throws Exception {
+      server.setRequestTimeout(50);
+
+      HttpResponse<byte[]> response = send(post("width=4096&height=4096&quality=100", SIERPINSKI));
+
+      assertEquals(503, response.statusCode());
+      long deadline = System.currentTimeMillis() + 10_000;
+      while (metric("render_server_cancelled_total") == 0
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(1, metric("render_server_cancelled_total"));
+      assertEquals(0, metric("render_server_renders_total"));
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package edu.ntnu.stud.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentSubscriptionHandlerTest {
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("Direct subscribers are notified of new values")
+    void directSubscribersAreNotified() {
+      AtomicInteger latest = new AtomicInteger(-1);
+      ConcurrentSubscriptionHandler<Integer> value = new ConcurrentSubscriptionHandler<>(0);
+
+      value.subscribe(latest::set);
+      value.set(5);
+
+      assertEquals(5, latest.get(), "The subscriber should have received the new value.");
+    }
+
+    @Test
+    @DisplayName("Notifications between deliveries are coalesced into one delivery")
+    void notificationsAreCoalesced() {
+      ArrayDeque<Runnable> queued = new ArrayDeque<>();
+      List<Integer> received = new ArrayList<>();
+      ConcurrentSubscriptionHandler<Integer> value = new ConcurrentSubscriptionHandler<>(0);
+
+      value.subscribe(received::add, queued::add);
+      queued.poll().run();
+
+      value.set(1);
+      value.set(2);
+      value.setAndForceNotify(3);
+
+      assertEquals(1, queued.size(), "Only a single delivery should have been queued.");
+      queued.poll().run();
+      assertEquals(List.of(0, 3), received, "Only the newest value should be delivered.");
+    }
+
+    @Test
+    @DisplayName("Only handlers with a subscription have subscribers")
+    void hasSubscribers() {
+      ConcurrentSubscriptionHandler<Integer> value = new ConcurrentSubscriptionHandler<>(0);
+      assertFalse(value.hasSubscribers(), "A new handler should have no subscribers.");
+
+      Runnable unsubscribe = value.subscribe(i -> { });
+      assertTrue(value.hasSubscribers(), "The subscription should be counted.");
+
+      unsubscribe.run();
+      assertFalse(value.hasSubscribers(), "Unsubscribing should remove the subscriber.");
+    }
+
+    @Test
+    @DisplayName("Unsubscribing cancels a queued delivery")
+    void unsubscribingCancelsQueuedDelivery() {
+      ArrayDeque<Runnable> queued = new ArrayDeque<>();
+      AtomicBoolean didUpdate = new AtomicBoolean(false);
+      ConcurrentSubscriptionHandler<Integer> value = new ConcurrentSubscriptionHandler<>(0);
+
+      Runnable unsubscribe = value.subscribe(i -> didUpdate.set(true), queued::add);
+      unsubscribe.run();
+      queued.forEach(Runnable::run);
+
+      assertFalse(didUpdate.get(), "No delivery should happen after unsubscribing.");
+    }
+
+    @Test
+    @DisplayName("Subscribing from many threads while notifying keeps every subscriber")
+    void concurrentSubscriptions() throws InterruptedException {
+      ConcurrentSubscriptionHandler<Integer> value = new ConcurrentSubscriptionHandler<>(0);
+      int threadCount = 8;
+      int subscriptionsPerThread = 200;
+      AtomicInteger deliveries = new AtomicInteger(0);
+      CountDownLatch start = new CountDownLatch(1);
+      List<Thread> threads = new ArrayList<>();
+
+      for (int t = 0; t < threadCount; t++) {
+        Thread thread = new Thread(() -> {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          for (int i = 0; i < subscriptionsPerThread; i++) {
+            value.subscribe(v -> deliveries.incrementAndGet());
+            value.notifySubscribers();
+          }
+        });
+        threads.add(thread);
+        thread.start();
+      }
+      start.countDown();
+      for (Thread thread : threads) {
+        thread.join();
+      }
+
+      deliveries.set(0);
+      value.notifySubscribers();
+
+      assertEquals(
+          threadCount * subscriptionsPerThread,
+          deliveries.get(),
+          "Every subscriber should be kept and notified exactly once."
+      );
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package edu.ntnu.stud.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import edu.ntnu.stud.model.ChaosGame;
+import edu.ntnu.stud.model.ChaosGameDescription;
+import edu.ntnu.stud.model.DescriptionTestUtils;
+import edu.ntnu.stud.model.math.AffineTransformation;
+import edu.ntnu.stud.model.math.TransformationGroup;
+import edu.ntnu.stud.model.math.Vector;
+import java.lang.management.ManagementFactory;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class RenderMetricsTest {
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("The metrics are registered over JMX")
+    void registeredOverJmx() throws MalformedObjectNameException {
+      RenderMetrics.getInstance();
+
+      assertTrue(
+          ManagementFactory.getPlatformMBeanServer().isRegistered(
+              new ObjectName(RenderMetrics.OBJECT_NAME)
+          ),
+          "The metrics should be registered in the platform MBean server."
+      );
+    }
+
+    @Test
+    @DisplayName("Iterating a game counts plotted and discarded points and transformation hits")
+    void iterationsAreCounted() {
+      RenderMetrics metrics = RenderMetrics.getInstance();
+      // Only the right half of the line from 0 to 2 is inside the canvas
+      ChaosGame game = new ChaosGame(2, 2, new ChaosGameDescription(
+          new Vector(1, 0),
+          new Vector(2, 1),
+          new TransformationGroup(
+              new AffineTransformation(0, 0, 0, 0, 0.5, 0.5),
+              new AffineTransformation(0, 0, 0, 0, 1.5, 0.5)
+          )
+      ));
+      long plotted = metrics.getPointsPlotted();
+      long discarded = metrics.getPointsDiscarded();
+      long[] hits = metrics.getTransformationHits();
+
+      game.iterate(1000);
+
+      long[] newHits = metrics.getTransformationHits();
+      assertEquals(1000, newHits[0] - hits[0] + newHits[1] - hits[1]);
+      assertEquals(newHits[1] - hits[1], metrics.getPointsPlotted() - plotted);
+      assertEquals(newHits[0] - hits[0], metrics.getPointsDiscarded() - discarded);
+    }
+
+    @Test
+    @DisplayName("Steps leading up to the end of a replay are not counted as discarded")
+    void replaysAreNotDiscarded() {
+      RenderMetrics metrics = RenderMetrics.getInstance();
+      ChaosGame game = new ChaosGame(
+          16,
+          16,
+          DescriptionTestUtils.sierpinski(new Vector(0.3, 0.05), new Vector(0.36, 0.11))
+      );
+      game.setSeed(3);
+      game.setZoomAcceleration(true);
+      long plotted = metrics.getPointsPlotted();
+      long discarded = metrics.getPointsDiscarded();
+
+      game.iterate(100_000);
+
+      long counted = metrics.getPointsPlotted() - plotted
+          + metrics.getPointsDiscarded() - discarded;
+      assertTrue(game.getViewportReservoir().getRestartCount() > 0, "Entries should be replayed.");
+      assertTrue(counted < 100_000, "Only " + counted + " steps should be plotted or discarded.");
+    }
+
+    @Test
+    @DisplayName("Iterations per second is derived from completed renders")
+    void iterationsPerSecond() {
+      RenderMetrics metrics = RenderMetrics.getInstance();
+      metrics.reset();
+
+      metrics.recordRender(2_000_000, 1_000_000_000L);
+
+      assertEquals(2_000_000.0, metrics.getIterationsPerSecond(), 1e-6);
+      assertEquals(1000.0, metrics.getLastRenderMillis(), 1e-6);
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package edu.ntnu.stud.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class ScheduledDebouncerTest {
+
+  @Nested
+  class PositiveTests {
+
+    @Test
+    @DisplayName("Debouncing collapses a burst of calls into a single delivery")
+    void debounceCollapsesBurst() throws InterruptedException {
+      AtomicInteger runs = new AtomicInteger(0);
+      ScheduledDebouncer debouncer = new ScheduledDebouncer(
+          runs::incrementAndGet,
+          Duration.ofMillis(50),
+          ScheduledDebouncer.Mode.DEBOUNCE,
+          DeliveryExecutors.direct()
+      );
+
+      for (int i = 0; i < 1000; i++) {
+        debouncer.run();
+      }
+      assertTrue(debouncer.isWaiting(), "The debouncer should wait for the delay to pass.");
+      Thread.sleep(300);
+
+      assertEquals(1, runs.get(), "The burst should have resulted in exactly one delivery.");
+      assertFalse(debouncer.isWaiting(), "The debouncer should be done waiting.");
+    }
+
+    @Test
+    @DisplayName("Throttling delivers at a bounded rate while calls keep coming")
+    void throttleBoundsRate() throws InterruptedException {
+      AtomicInteger runs = new AtomicInteger(0);
+      ScheduledDebouncer throttler = new ScheduledDebouncer(
+          runs::incrementAndGet,
+          Duration.ofMillis(50),
+          ScheduledDebouncer.Mode.THROTTLE,
+          DeliveryExecutors.direct()
+      );
+
+      long end = System.nanoTime() + Duration.ofMillis(400).toNanos();
+      while (System.nanoTime() < end) {
+        throttler.run();
+        Thread.sleep(1);
+      }
+      Thread.sleep(200);
+
+      assertTrue(runs.get() >= 2, "The throttler should deliver while calls keep coming.");
+      assertTrue(runs.get() <= 11, "The throttler should not deliver more than once per delay.");
+    }
+  }
+
+  @Nested
+  class NegativeTests {
+
+    @Test
+    @DisplayName("Constructor throws when given a negative delay")
+    void negativeDelay() {
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> new ScheduledDebouncer(
+              () -> {
+              },
+              Duration.ofMillis(-1),
+              ScheduledDebouncer.Mode.DEBOUNCE,
+              DeliveryExecutors.direct()
+          ),
+          "Expected a negative delay to throw an exception"
+      );
+    }
+  }
+}